@@ -0,0 +1,156 @@
+/*
+ * Copyright (C) 2019 DV Bern AG, Switzerland
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ch.dvbern.lib.invoicegenerator.benchmarks;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.imageio.ImageIO;
+
+import ch.dvbern.lib.invoicegenerator.dto.Invoice;
+import ch.dvbern.lib.invoicegenerator.dto.einzahlungsschein.Einzahlungsschein;
+import ch.dvbern.lib.invoicegenerator.dto.einzahlungsschein.OrangerEinzahlungsschein;
+import ch.dvbern.lib.invoicegenerator.dto.einzahlungsschein.QRCodeEinzahlungsschein;
+import ch.dvbern.lib.invoicegenerator.dto.position.H1Position;
+import ch.dvbern.lib.invoicegenerator.dto.position.Position;
+import ch.dvbern.lib.invoicegenerator.dto.position.RechnungsPosition;
+import ch.dvbern.lib.invoicegenerator.errors.IllegalKontoException;
+import net.codecrete.qrbill.generator.Address;
+import net.codecrete.qrbill.generator.Language;
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Testdaten für die Benchmarks. Entsprechen den Daten der Unit-Tests, damit die Resultate vergleichbar sind.
+ */
+final class BenchmarkData {
+
+	static final String ESR_KONTO = "01-162-8";
+	static final BigInteger ESR_REFERENZ_NR = new BigInteger("120000000000234478943216899");
+	static final String QR_IBAN = "CH44 3199 9123 0008 8901 2";
+	static final BigInteger QR_REFERENZ_NR = new BigInteger("210000000003139471430009017");
+	static final BigDecimal BETRAG = new BigDecimal("3949.75");
+
+	private static final int LOGO_WIDTH_PX = 600;
+	private static final int LOGO_HEIGHT_PX = 200;
+	private static final int POSITIONEN_PER_GROUP = 20;
+
+	private BenchmarkData() {
+	}
+
+	@NonNull
+	static OrangerEinzahlungsschein orangerEinzahlungsschein() {
+		try {
+			List<String> creditor = Arrays.asList("Robert Schneider AG", "Rue du Lac 1268", "2501 Biel");
+			List<String> debtor = Arrays.asList("Pia-Maria Rutschmann-Schnyder", "Grosse Marktgasse 28",
+				"9400 Rorschach");
+
+			return new OrangerEinzahlungsschein(creditor, ESR_REFERENZ_NR, BETRAG, ESR_KONTO, debtor);
+		} catch (IllegalKontoException ex) {
+			throw new IllegalStateException("Benchmark data invalid", ex);
+		}
+	}
+
+	@NonNull
+	static QRCodeEinzahlungsschein qrCodeEinzahlungsschein() {
+		Address creditor = address("Robert Schneider AG", "Rue du Lac", "1268", "2501", "Biel");
+		Address debtor = address("Pia-Maria Rutschmann-Schnyder", "Grosse Marktgasse", "28", "9400", "Rorschach");
+
+		return new QRCodeEinzahlungsschein(creditor, QR_REFERENZ_NR, BETRAG, QR_IBAN, debtor, null, Language.DE);
+	}
+
+	/**
+	 * Erstellt die Demo-Rechnung mit dem gegebenen Einzahlungsschein, oder ohne Einzahlungsschein bei null.
+	 */
+	@NonNull
+	static Invoice invoice(@Nullable Einzahlungsschein einzahlungsschein) {
+		Invoice demo = Invoice.createDemoInvoice(orangerEinzahlungsschein());
+
+		return new Invoice(demo.getRechnungsPositionColumnTitle(), demo.getTitle(), demo.getSummary(),
+			demo.getEinleitung(), demo.getAdresse(), einzahlungsschein, demo.getPositionen(), demo.getTotal(),
+			demo.getKonditionen());
+	}
+
+	@NonNull
+	static List<Position> positionen(int count) {
+		List<Position> positionen = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			if (i % POSITIONEN_PER_GROUP == 0) {
+				positionen.add(new H1Position("Kind " + (i / POSITIONEN_PER_GROUP + 1)));
+			} else {
+				positionen.add(new RechnungsPosition("Betreuungsgebühr " + i, "1", "1'728.00", "1'728.00"));
+			}
+		}
+
+		return positionen;
+	}
+
+	/**
+	 * Erstellt ein PNG in der Grössenordnung eines typischen Firmenlogos.
+	 */
+	@NonNull
+	static byte[] logoPng() {
+		BufferedImage image = new BufferedImage(LOGO_WIDTH_PX, LOGO_HEIGHT_PX, BufferedImage.TYPE_INT_RGB);
+		Graphics2D graphics = image.createGraphics();
+		try {
+			graphics.setColor(Color.WHITE);
+			graphics.fillRect(0, 0, LOGO_WIDTH_PX, LOGO_HEIGHT_PX);
+			graphics.setColor(Color.RED);
+			graphics.fillOval(0, 0, LOGO_HEIGHT_PX, LOGO_HEIGHT_PX);
+			graphics.setColor(Color.DARK_GRAY);
+			graphics.drawString("DV Bern AG", LOGO_HEIGHT_PX, LOGO_HEIGHT_PX / 2);
+		} finally {
+			graphics.dispose();
+		}
+
+		try (ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+			ImageIO.write(image, "png", out);
+
+			return out.toByteArray();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	@NonNull
+	private static Address address(
+		@NonNull String name,
+		@NonNull String street,
+		@NonNull String houseNumber,
+		@NonNull String postcode,
+		@NonNull String town) {
+
+		Address address = new Address();
+		address.setName(name);
+		address.setStreet(street);
+		address.setHouseNo(houseNumber);
+		address.setPostalCode(postcode);
+		address.setTown(town);
+		address.setCountryCode("CH");
+
+		return address;
+	}
+}
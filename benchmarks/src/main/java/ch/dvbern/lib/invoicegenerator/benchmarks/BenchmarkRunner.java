@@ -0,0 +1,55 @@
+/*
+ * Copyright (C) 2019 DV Bern AG, Switzerland
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ch.dvbern.lib.invoicegenerator.benchmarks;
+
+import java.io.IOException;
+
+import org.jspecify.annotations.NonNull;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Startet die Benchmarks. Akzeptiert dieselben Argumente wie {@code org.openjdk.jmh.Main}. Falls kein Profiler
+ * angegeben wird, wird der GC-Profiler aktiviert, damit neben dem Durchsatz auch die Allokationsrate
+ * ({@code gc.alloc.rate.norm}) ausgewiesen wird.
+ */
+public final class BenchmarkRunner {
+
+	private BenchmarkRunner() {
+	}
+
+	public static void main(@NonNull String[] args) throws RunnerException, CommandLineOptionException, IOException {
+		CommandLineOptions commandLineOptions = new CommandLineOptions(args);
+		if (commandLineOptions.shouldHelp()) {
+			commandLineOptions.showHelp();
+			return;
+		}
+
+		OptionsBuilder builder = new OptionsBuilder();
+		if (commandLineOptions.getProfilers().isEmpty()) {
+			builder.addProfiler(GCProfiler.class);
+		}
+		Options options = builder.parent(commandLineOptions).build();
+
+		new Runner(options).run();
+	}
+}
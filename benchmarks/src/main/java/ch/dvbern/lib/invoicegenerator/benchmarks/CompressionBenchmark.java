@@ -0,0 +1,103 @@
+/*
+ * Copyright (C) 2019 DV Bern AG, Switzerland
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.dvbern.lib.invoicegenerator.benchmarks;
+
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.TimeUnit;
+
+import ch.dvbern.lib.invoicegenerator.InvoiceGenerator;
+import ch.dvbern.lib.invoicegenerator.dto.Alignment;
+import ch.dvbern.lib.invoicegenerator.dto.CompressionPolicy;
+import ch.dvbern.lib.invoicegenerator.dto.Invoice;
+import ch.dvbern.lib.invoicegenerator.dto.InvoiceGeneratorConfiguration;
+import ch.dvbern.lib.invoicegenerator.dto.component.Logo;
+import ch.dvbern.lib.invoicegenerator.errors.InvoiceGeneratorException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Generierungszeit und PDF Grösse der verschiedenen {@link CompressionPolicy}s. Die Grösse wird am Ende jedes Laufs
+ * ausgegeben.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class CompressionBenchmark {
+
+	public enum Policy {
+		DEFAULT(CompressionPolicy.DEFAULT),
+		FAST(CompressionPolicy.FAST),
+		ARCHIVE(CompressionPolicy.ARCHIVE);
+
+		private final CompressionPolicy compressionPolicy;
+
+		Policy(CompressionPolicy compressionPolicy) {
+			this.compressionPolicy = compressionPolicy;
+		}
+	}
+
+	@Param({ "DEFAULT", "FAST", "ARCHIVE" })
+	private Policy policy;
+
+	@Param({ "10", "500" })
+	private int positionen;
+
+	private InvoiceGenerator invoiceGenerator;
+	private Invoice invoice;
+	private ByteArrayOutputStream outputStream;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		InvoiceGeneratorConfiguration configuration = new InvoiceGeneratorConfiguration("DV Bern AG", Alignment.LEFT);
+		configuration.setLogo(new Logo(BenchmarkData.logoPng(), 20, 10, 30));
+		configuration.setCompressionPolicy(policy.compressionPolicy);
+		invoiceGenerator = new InvoiceGenerator(configuration.freeze());
+
+		Invoice demo = BenchmarkData.invoice(BenchmarkData.qrCodeEinzahlungsschein());
+		invoice = new Invoice(demo.getRechnungsPositionColumnTitle(), demo.getTitle(), demo.getSummary(),
+			demo.getEinleitung(), demo.getAdresse(), demo.getEinzahlungsschein(), BenchmarkData.positionen(positionen),
+			demo.getTotal(), demo.getKonditionen());
+
+		outputStream = new ByteArrayOutputStream();
+	}
+
+	@Benchmark
+	public int generateInvoice() throws InvoiceGeneratorException {
+		outputStream.reset();
+		invoiceGenerator.generateInvoice(outputStream, invoice);
+
+		return outputStream.size();
+	}
+
+	@TearDown(Level.Trial)
+	public void printSize() {
+		System.out.printf("%nPDF size with %s and %d positions: %d bytes%n", policy, positionen, outputStream.size());
+	}
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright (C) 2019 DV Bern AG, Switzerland
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ch.dvbern.lib.invoicegenerator.benchmarks;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import ch.dvbern.lib.invoicegenerator.dto.component.QRCodeComponent;
+import ch.dvbern.lib.invoicegenerator.dto.einzahlungsschein.OrangerEinzahlungsschein;
+import ch.dvbern.lib.invoicegenerator.dto.einzahlungsschein.QRCodeEinzahlungsschein;
+import ch.dvbern.lib.invoicegenerator.dto.einzahlungsschein.ReferenzNummernGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Berechnungen und Generierung rund um die Einzahlungsscheine.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class EinzahlungsscheinBenchmark {
+
+	private OrangerEinzahlungsschein orangerEinzahlungsschein;
+	private QRCodeEinzahlungsschein qrCodeEinzahlungsschein;
+	private String referenzNrOhnePruefziffer;
+	private ReferenzNummernGenerator referenzNummernGenerator;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		orangerEinzahlungsschein = BenchmarkData.orangerEinzahlungsschein();
+		qrCodeEinzahlungsschein = BenchmarkData.qrCodeEinzahlungsschein();
+		String referenzNr = BenchmarkData.ESR_REFERENZ_NR.toString();
+		referenzNrOhnePruefziffer = referenzNr.substring(0, referenzNr.length() - 1);
+		referenzNummernGenerator = new ReferenzNummernGenerator("123456", 1);
+	}
+
+	@Benchmark
+	public int calcPruefziffer() {
+		return OrangerEinzahlungsschein.calcPruefziffer(referenzNrOhnePruefziffer);
+	}
+
+	@Benchmark
+	public String nextQrReferenz() {
+		return referenzNummernGenerator.nextQrReferenz();
+	}
+
+	@Benchmark
+	public String getKodierzeile() {
+		return orangerEinzahlungsschein.getKodierzeile();
+	}
+
+	@Benchmark
+	public byte[] generateQRCode() throws IOException {
+		return QRCodeComponent.generateQRCode(qrCodeEinzahlungsschein);
+	}
+}
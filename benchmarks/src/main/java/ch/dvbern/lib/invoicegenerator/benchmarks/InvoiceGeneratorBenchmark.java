@@ -0,0 +1,112 @@
+/*
+ * Copyright (C) 2019 DV Bern AG, Switzerland
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ch.dvbern.lib.invoicegenerator.benchmarks;
+
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.TimeUnit;
+
+import ch.dvbern.lib.invoicegenerator.InvoiceGenerator;
+import ch.dvbern.lib.invoicegenerator.dto.Alignment;
+import ch.dvbern.lib.invoicegenerator.dto.Invoice;
+import ch.dvbern.lib.invoicegenerator.dto.InvoiceGeneratorConfiguration;
+import ch.dvbern.lib.invoicegenerator.dto.component.Logo;
+import ch.dvbern.lib.invoicegenerator.errors.InvoiceGeneratorException;
+import ch.dvbern.lib.invoicegenerator.pdf.BufferPool;
+import ch.dvbern.lib.invoicegenerator.pdf.GeneratedPdf;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * End-to-End Generierung einer Rechnung mit den verschiedenen Einzahlungsschein-Typen.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class InvoiceGeneratorBenchmark {
+
+	public enum Slip {
+		ESR,
+		QR,
+		NONE
+	}
+
+	@Param({ "ESR", "QR", "NONE" })
+	private Slip slip;
+
+	private InvoiceGenerator invoiceGenerator;
+	private Invoice invoice;
+	private ByteArrayOutputStream outputStream;
+	private BufferPool bufferPool;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		InvoiceGeneratorConfiguration configuration = new InvoiceGeneratorConfiguration("DV Bern AG", Alignment.LEFT);
+		configuration.setLogo(new Logo(BenchmarkData.logoPng(), 20, 10, 30));
+		invoiceGenerator = new InvoiceGenerator(configuration.freeze());
+
+		switch (slip) {
+		case ESR:
+			invoice = BenchmarkData.invoice(BenchmarkData.orangerEinzahlungsschein());
+			break;
+		case QR:
+			invoice = BenchmarkData.invoice(BenchmarkData.qrCodeEinzahlungsschein());
+			break;
+		default:
+			invoice = BenchmarkData.invoice(null);
+			break;
+		}
+
+		outputStream = new ByteArrayOutputStream();
+		bufferPool = new BufferPool(64);
+	}
+
+	@Benchmark
+	public int generateInvoice() throws InvoiceGeneratorException {
+		outputStream.reset();
+		invoiceGenerator.generateInvoice(outputStream, invoice);
+
+		return outputStream.size();
+	}
+
+	/**
+	 * Wie ein REST Service ohne Pool: ein neuer Puffer pro Rechnung.
+	 */
+	@Benchmark
+	public int generateInvoiceNewBuffer() throws InvoiceGeneratorException {
+		return invoiceGenerator.generateInvoice(invoice).size();
+	}
+
+	@Benchmark
+	public long generateInvoicePooled() throws InvoiceGeneratorException {
+		try (GeneratedPdf pdf = invoiceGenerator.generateInvoice(invoice, bufferPool)) {
+			return pdf.size();
+		}
+	}
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright (C) 2019 DV Bern AG, Switzerland
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ch.dvbern.lib.invoicegenerator.benchmarks;
+
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import ch.dvbern.lib.invoicegenerator.dto.PageConfiguration;
+import ch.dvbern.lib.invoicegenerator.dto.position.Position;
+import ch.dvbern.lib.invoicegenerator.dto.position.RechnungsPositionColumnTitle;
+import ch.dvbern.lib.invoicegenerator.pdf.PdfElementGenerator;
+import ch.dvbern.lib.invoicegenerator.pdf.PdfGenerator;
+import com.lowagie.text.DocumentException;
+import com.lowagie.text.pdf.PdfPTable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Aufbau der Tabelle mit den Rechnungspositionen.
+ * <p>
+ * {@link #createTabelle()} misst nur den Aufbau der {@link PdfPTable}, {@link #addTabelle()} zusätzlich das Layout
+ * und Schreiben der Seiten, so wie es bei der Generierung einer Rechnung passiert.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class PositionenTabelleBenchmark {
+
+	@Param({ "10", "1000", "100000" })
+	private int anzahlPositionen;
+
+	private PageConfiguration configuration;
+	private PdfElementGenerator pdfElementGenerator;
+	private RechnungsPositionColumnTitle columnTitle;
+	private List<Position> positionen;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		configuration = new PageConfiguration().freeze();
+		pdfElementGenerator = new PdfElementGenerator(configuration);
+		columnTitle = new RechnungsPositionColumnTitle("Dienstleistung", "Menge", "Preis", "Total");
+		positionen = BenchmarkData.positionen(anzahlPositionen);
+	}
+
+	@Benchmark
+	public PdfPTable createTabelle() throws DocumentException {
+		return pdfElementGenerator.createRechnungspositionsTabelle(columnTitle, positionen);
+	}
+
+	@Benchmark
+	public int addTabelle() throws DocumentException {
+		PdfGenerator pdfGenerator = new PdfGenerator(OutputStream.nullOutputStream(), configuration);
+		try {
+			pdfElementGenerator.addRechnungspositionsTabelle(pdfGenerator.getDocument(), columnTitle,
+				positionen.iterator());
+
+			return pdfGenerator.getDocument().getPageNumber();
+		} finally {
+			pdfGenerator.close();
+		}
+	}
+}
@@ -0,0 +1,169 @@
+/*
+ * Copyright (C) 2019 DV Bern AG, Switzerland
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.dvbern.lib.invoicegenerator.cli;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import ch.dvbern.lib.invoicegenerator.InvoiceGenerator;
+import ch.dvbern.lib.invoicegenerator.dto.Invoice;
+import ch.dvbern.lib.invoicegenerator.validation.InvoiceValidator;
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Generiert die gelesenen Rechnungen auf mehreren Threads und schreibt sie in der Reihenfolge der Eingabe in das
+ * {@link OutputTarget}.
+ * <p>
+ * Es sind höchstens {@code 2 * threads} Rechnungen gleichzeitig in Bearbeitung, die Eingabe wird nur so schnell
+ * gelesen, wie die PDFs geschrieben werden. Der Speicherbedarf hängt deshalb nicht von der Anzahl Rechnungen ab.
+ * Fehlerhafte Rechnungen werden gemeldet und gezählt, brechen den Lauf aber nicht ab.
+ */
+final class BatchRunner {
+
+	private static final int IN_FLIGHT_PER_THREAD = 2;
+
+	@NonNull
+	private final JobConfiguration job;
+	@NonNull
+	private final InvoiceGenerator invoiceGenerator;
+	@NonNull
+	private final InvoiceValidator validator;
+	@NonNull
+	private final ProgressReporter progress;
+	@NonNull
+	private final PrintStream errors;
+	private final int threads;
+
+	BatchRunner(
+		@NonNull JobConfiguration job,
+		int threads,
+		@NonNull ProgressReporter progress,
+		@NonNull PrintStream errors) {
+
+		if (threads < 1) {
+			throw new IllegalArgumentException("threads must be at least 1, was " + threads);
+		}
+
+		this.job = job;
+		this.invoiceGenerator = new InvoiceGenerator(job.getConfiguration().freeze());
+		this.validator = new InvoiceValidator(job.getConfiguration());
+		this.progress = progress;
+		this.errors = errors;
+		this.threads = threads;
+	}
+
+	void run(@NonNull InvoiceRecordReader reader, @NonNull OutputTarget target)
+		throws IOException, InterruptedException {
+
+		AtomicInteger threadNumber = new AtomicInteger();
+		ExecutorService executor = Executors.newFixedThreadPool(threads, runnable -> {
+			Thread thread = new Thread(runnable, "invoice-cli-worker-" + threadNumber.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+
+		try {
+			Deque<Future<Rendered>> window = new ArrayDeque<>();
+			while (reader.hasNext()) {
+				InvoiceRecord record;
+				try {
+					record = reader.next();
+				} catch (InvalidRecordException e) {
+					fail(e.getMessage());
+					continue;
+				}
+
+				window.add(executor.submit(() -> render(record)));
+				if (window.size() >= threads * IN_FLIGHT_PER_THREAD) {
+					write(window.remove(), target);
+				}
+			}
+
+			while (!window.isEmpty()) {
+				write(window.remove(), target);
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@NonNull
+	private Rendered render(@NonNull InvoiceRecord record) {
+		long start = System.nanoTime();
+		try {
+			Invoice invoice = job.toInvoice(record);
+			validator.check(invoice);
+			byte[] pdf = invoiceGenerator.generateInvoice(invoice).toByteArray();
+
+			return new Rendered(record, pdf, null, System.nanoTime() - start);
+		} catch (Exception e) {
+			return new Rendered(record, null, e, System.nanoTime() - start);
+		}
+	}
+
+	private void write(@NonNull Future<Rendered> future, @NonNull OutputTarget target)
+		throws IOException, InterruptedException {
+
+		Rendered rendered;
+		try {
+			rendered = future.get();
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("Worker failed unexpectedly", e.getCause());
+		}
+
+		InvoiceRecord record = rendered.record;
+		if (rendered.pdf == null) {
+			fail(rendered.error instanceof InvalidRecordException ?
+				rendered.error.getMessage() :
+				"Line " + record.getLineNumber() + ", invoice " + record.getId() + ": " + rendered.error);
+			return;
+		}
+
+		target.write(record.getId(), rendered.pdf);
+		progress.succeeded(rendered.nanos);
+	}
+
+	private void fail(@Nullable String message) {
+		progress.failed();
+		errors.println(message);
+	}
+
+	private static final class Rendered {
+
+		@NonNull
+		private final InvoiceRecord record;
+		@Nullable
+		private final byte[] pdf;
+		@Nullable
+		private final Exception error;
+		private final long nanos;
+
+		private Rendered(@NonNull InvoiceRecord record, @Nullable byte[] pdf, @Nullable Exception error, long nanos) {
+			this.record = record;
+			this.pdf = pdf;
+			this.error = error;
+			this.nanos = nanos;
+		}
+	}
+}
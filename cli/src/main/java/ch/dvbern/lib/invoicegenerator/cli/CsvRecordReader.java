@@ -0,0 +1,288 @@
+/*
+ * Copyright (C) 2019 DV Bern AG, Switzerland
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.dvbern.lib.invoicegenerator.cli;
+
+import java.io.BufferedReader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.regex.Pattern;
+
+import ch.dvbern.lib.invoicegenerator.dto.SummaryEntry;
+import ch.dvbern.lib.invoicegenerator.dto.position.Position;
+import net.codecrete.qrbill.generator.Address;
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Liest Rechnungen aus CSV mit einer Kopfzeile, Trennzeichen ist Komma oder Semikolon (aus der Kopfzeile bestimmt).
+ * Jede Zeile enthält eine Position, aufeinanderfolgende Zeilen mit derselben {@code id} bilden eine Rechnung. Die
+ * Felder der Rechnung werden aus der ersten Zeile gelesen:
+ *
+ * <pre>
+ * id;title;address;summary;heading;text;quantity;price;reference;debtorName;debtorStreet;debtorHouseNo;...
+ * 6015;Rechnung;Sandra Muster|Musterstrasse 21|3000 Bern;Rechnungs-Nr.=6015|Datum=21.04.2017;Sarah Muster;;;;...
+ * 6015;;;;;Betreuung;1.5;1040.00;;;;;...
+ * </pre>
+ *
+ * Mehrzeilige Felder ({@code address}, {@code intro}, {@code conditions}) werden mit "|" getrennt, die Einträge der
+ * Zusammenfassung ({@code summary}) als "Label=Wert". Die übrigen Spalten entsprechen dem
+ * {@link JsonLinesRecordReader JSON Lines Format}, der Schuldner steht in den Spalten {@code debtorName},
+ * {@code debtorStreet}, {@code debtorHouseNo}, {@code debtorPostalCode}, {@code debtorTown} und
+ * {@code debtorCountry}. Felder in Anführungszeichen dürfen Trennzeichen und Zeilenumbrüche enthalten.
+ */
+final class CsvRecordReader extends InvoiceRecordReader {
+
+	private static final Pattern LIST_SEPARATOR = Pattern.compile("\\|");
+	private static final char QUOTE = '"';
+	private static final String DEFAULT_TITLE = "Rechnung";
+
+	@NonNull
+	private final Map<String, Integer> columns = new HashMap<>();
+	private final char separator;
+
+	@Nullable
+	private Row pendingRow = null;
+
+	CsvRecordReader(@NonNull BufferedReader reader) {
+		super(reader);
+
+		String header = readLine();
+		if (header == null) {
+			separator = ',';
+			return;
+		}
+
+		separator = header.indexOf(';') >= 0 && header.indexOf(',') < 0 ? ';' : ',';
+		List<String> names = parse(header);
+		for (int i = 0; i < names.size(); i++) {
+			columns.put(names.get(i).trim(), i);
+		}
+		if (!columns.containsKey("id")) {
+			throw new IllegalArgumentException("CSV header has no column 'id': " + header);
+		}
+	}
+
+	@Override
+	public boolean hasNext() {
+		if (pendingRow == null) {
+			pendingRow = readRow();
+		}
+
+		return pendingRow != null;
+	}
+
+	@Override
+	@NonNull
+	public InvoiceRecord next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+
+		Row first = pendingRow;
+		pendingRow = null;
+		if (first.error != null) {
+			throw new InvalidRecordException(first.lineNumber, first.error);
+		}
+		String id = first.get("id");
+
+		List<Row> rows = new ArrayList<>();
+		rows.add(first);
+		while (hasNext() && pendingRow.error == null && id.equals(pendingRow.get("id"))) {
+			rows.add(pendingRow);
+			pendingRow = null;
+		}
+
+		return toRecord(id, first, rows);
+	}
+
+	@NonNull
+	private InvoiceRecord toRecord(@NonNull String id, @NonNull Row first, @NonNull List<Row> rows) {
+		long lineNumber = first.lineNumber;
+		if (id.isEmpty()) {
+			throw new InvalidRecordException(lineNumber, "id is missing");
+		}
+
+		List<String> adresse = lines(first.get("address"));
+		if (adresse == null) {
+			throw new InvalidRecordException(lineNumber, "address is missing");
+		}
+
+		List<Position> positionen = new ArrayList<>(rows.size());
+		for (Row row : rows) {
+			String heading = row.get("heading");
+			String subheading = row.get("subheading");
+			String text = row.get("text");
+			if (!heading.isEmpty()) {
+				positionen.add(RecordValues.position(row.lineNumber, heading, null, null, null, null));
+			}
+			if (!subheading.isEmpty()) {
+				positionen.add(RecordValues.position(row.lineNumber, null, subheading, null, null, null));
+			}
+			if (!text.isEmpty()) {
+				positionen.add(RecordValues.position(
+					row.lineNumber, null, null, text, row.get("quantity"), row.get("price")));
+			}
+		}
+
+		String title = first.get("title");
+
+		return new InvoiceRecord(
+			id,
+			lineNumber,
+			title.isEmpty() ? DEFAULT_TITLE : title,
+			adresse,
+			lines(first.get("intro")),
+			lines(first.get("conditions")),
+			summary(lineNumber, first.get("summary")),
+			positionen,
+			debtor(first),
+			first.get("reference"));
+	}
+
+	@NonNull
+	private static List<SummaryEntry> summary(long lineNumber, @NonNull String value) {
+		List<SummaryEntry> summary = new ArrayList<>();
+		List<String> entries = lines(value);
+		if (entries == null) {
+			return summary;
+		}
+
+		for (String entry : entries) {
+			int equals = entry.indexOf('=');
+			if (equals < 0) {
+				throw new InvalidRecordException(lineNumber, "summary entry '" + entry + "' is not label=value");
+			}
+			summary.add(new SummaryEntry(entry.substring(0, equals), entry.substring(equals + 1)));
+		}
+
+		return summary;
+	}
+
+	@Nullable
+	private static Address debtor(@NonNull Row row) {
+		if (row.get("debtorName").isEmpty()) {
+			return null;
+		}
+
+		return RecordValues.address(
+			row.get("debtorName"),
+			row.get("debtorStreet"),
+			row.get("debtorHouseNo"),
+			row.get("debtorPostalCode"),
+			row.get("debtorTown"),
+			row.get("debtorCountry"));
+	}
+
+	@Nullable
+	private static List<String> lines(@NonNull String value) {
+		return value.isEmpty() ? null : List.of(LIST_SEPARATOR.split(value, -1));
+	}
+
+	@Nullable
+	private Row readRow() {
+		String line = readLine();
+		while (line != null && line.isBlank()) {
+			line = readLine();
+		}
+		if (line == null) {
+			return null;
+		}
+
+		long lineNumber = getLineNumber();
+		StringBuilder record = new StringBuilder(line);
+		// a quoted field may contain line breaks, continue until all quotes are closed
+		while (!isComplete(record)) {
+			String continuation = readLine();
+			if (continuation == null) {
+				// reported by next(), the rows read before still form their invoice
+				return new Row(lineNumber, List.of(), "unterminated quoted field");
+			}
+			record.append('\n').append(continuation);
+		}
+
+		return new Row(lineNumber, parse(record), null);
+	}
+
+	private static boolean isComplete(@NonNull CharSequence record) {
+		int quotes = 0;
+		for (int i = 0; i < record.length(); i++) {
+			if (record.charAt(i) == QUOTE) {
+				quotes++;
+			}
+		}
+
+		return quotes % 2 == 0;
+	}
+
+	@NonNull
+	private List<String> parse(@NonNull CharSequence record) {
+		List<String> fields = new ArrayList<>();
+		StringBuilder field = new StringBuilder();
+		boolean quoted = false;
+
+		for (int i = 0; i < record.length(); i++) {
+			char c = record.charAt(i);
+			if (quoted) {
+				if (c != QUOTE) {
+					field.append(c);
+				} else if (i + 1 < record.length() && record.charAt(i + 1) == QUOTE) {
+					field.append(QUOTE);
+					i++;
+				} else {
+					quoted = false;
+				}
+			} else if (c == QUOTE) {
+				quoted = true;
+			} else if (c == separator) {
+				fields.add(field.toString());
+				field.setLength(0);
+			} else {
+				field.append(c);
+			}
+		}
+		fields.add(field.toString());
+
+		return fields;
+	}
+
+	private final class Row {
+
+		private final long lineNumber;
+		@NonNull
+		private final List<String> fields;
+		@Nullable
+		private final String error;
+
+		private Row(long lineNumber, @NonNull List<String> fields, @Nullable String error) {
+			this.lineNumber = lineNumber;
+			this.fields = fields;
+			this.error = error;
+		}
+
+		/**
+		 * @return den Wert der Spalte, leer wenn die Spalte fehlt
+		 */
+		@NonNull
+		private String get(@NonNull String column) {
+			Integer index = columns.get(column);
+
+			return index == null || index >= fields.size() ? "" : fields.get(index).trim();
+		}
+	}
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright (C) 2019 DV Bern AG, Switzerland
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.dvbern.lib.invoicegenerator.cli;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.jspecify.annotations.NonNull;
+
+/**
+ * Schreibt jede Rechnung als eigene Datei in ein Verzeichnis, bestehende Dateien werden überschrieben.
+ */
+final class DirectoryOutputTarget implements OutputTarget {
+
+	@NonNull
+	private final Path directory;
+
+	DirectoryOutputTarget(@NonNull Path directory) throws IOException {
+		this.directory = Files.createDirectories(directory);
+	}
+
+	@Override
+	public void write(@NonNull String id, @NonNull byte[] pdf) throws IOException {
+		Files.write(directory.resolve(OutputTarget.fileName(id)), pdf);
+	}
+
+	@Override
+	public void close() {
+		// every file is closed after writing
+	}
+}
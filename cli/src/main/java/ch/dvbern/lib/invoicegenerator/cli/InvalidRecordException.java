@@ -0,0 +1,35 @@
+/*
+ * Copyright (C) 2019 DV Bern AG, Switzerland
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.dvbern.lib.invoicegenerator.cli;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Eine Rechnung in der Eingabe kann nicht gelesen werden. Der Lauf wird mit der nächsten Rechnung fortgesetzt.
+ */
+class InvalidRecordException extends RuntimeException {
+
+	private static final long serialVersionUID = -2790233491604367117L;
+
+	InvalidRecordException(long lineNumber, @NonNull String message, @Nullable Throwable cause) {
+		super("Line " + lineNumber + ": " + message, cause);
+	}
+
+	InvalidRecordException(long lineNumber, @NonNull String message) {
+		this(lineNumber, message, null);
+	}
+}
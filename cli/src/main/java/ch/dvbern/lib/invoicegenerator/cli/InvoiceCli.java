@@ -0,0 +1,142 @@
+/*
+ * Copyright (C) 2019 DV Bern AG, Switzerland
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.dvbern.lib.invoicegenerator.cli;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Path;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Generiert Rechnungen aus einer JSON Lines oder CSV Datei, z.B. um einen grossen Rechnungslauf lokal nachzustellen:
+ *
+ * <pre>
+ * java -jar invoice-cli.jar --input invoices.jsonl --output target/invoices.zip --threads 8 --config job.properties
+ * </pre>
+ *
+ * Die Formate der Eingabe sind bei {@link JsonLinesRecordReader} und {@link CsvRecordReader} beschrieben, die
+ * Konfiguration bei {@link JobConfiguration}, das Ziel bei {@link OutputTarget#open(Path)}. Während des Laufs wird
+ * jede Sekunde der Durchsatz, die Latenzen (p50, p99) und die Anzahl Fehler ausgegeben. Der Exit-Code ist 1, wenn
+ * mindestens eine Rechnung nicht generiert werden konnte.
+ */
+public final class InvoiceCli {
+
+	private static final int EXIT_FAILURES = 1;
+	private static final int EXIT_USAGE = 2;
+	private static final long REPORT_INTERVAL_MILLIS = 1000;
+
+	private static final String USAGE = String.join(System.lineSeparator(),
+		"Usage: java -jar invoice-cli.jar --input <file|-> --output <directory|file.zip|file.pdf> [options]",
+		"",
+		"  --input <file|->       invoices as JSON Lines or CSV, - reads from standard input",
+		"  --format <jsonl|csv>   input format, default from the file extension",
+		"  --output <target>      a directory (one PDF per invoice), a .zip or a single merged .pdf",
+		"  --threads <n>          number of rendering threads, default: available processors",
+		"  --config <file>        properties with the InvoiceGeneratorConfiguration and payment details",
+		"  --quiet                no progress output, only the summary");
+
+	private InvoiceCli() {
+	}
+
+	public static void main(@NonNull String[] args) throws IOException, InterruptedException {
+		String input = null;
+		String format = "";
+		Path output = null;
+		Path config = null;
+		int threads = Runtime.getRuntime().availableProcessors();
+		boolean quiet = false;
+
+		try {
+			for (int i = 0; i < args.length; i++) {
+				switch (args[i]) {
+				case "--input":
+					input = value(args, ++i);
+					break;
+				case "--format":
+					format = value(args, ++i);
+					break;
+				case "--output":
+					output = Path.of(value(args, ++i));
+					break;
+				case "--threads":
+					threads = Integer.parseInt(value(args, ++i));
+					break;
+				case "--config":
+					config = Path.of(value(args, ++i));
+					break;
+				case "--quiet":
+					quiet = true;
+					break;
+				case "--help":
+					System.out.println(USAGE);
+					return;
+				default:
+					throw new IllegalArgumentException("Unknown option " + args[i]);
+				}
+			}
+			if (input == null || output == null) {
+				throw new IllegalArgumentException("--input and --output are required");
+			}
+		} catch (IllegalArgumentException e) {
+			usageError(e.getMessage());
+			return;
+		}
+
+		long failed = run(input, format, output, config, threads, quiet);
+		if (failed > 0) {
+			System.exit(EXIT_FAILURES);
+		}
+	}
+
+	private static long run(
+		@NonNull String input,
+		@NonNull String format,
+		@NonNull Path output,
+		@Nullable Path config,
+		int threads,
+		boolean quiet) throws IOException, InterruptedException {
+
+		PrintStream out = System.out;
+		JobConfiguration job = JobConfiguration.load(config);
+
+		try (ProgressReporter progress = new ProgressReporter(out, quiet ? 0 : REPORT_INTERVAL_MILLIS);
+			InvoiceRecordReader reader = InvoiceRecordReader.open(input, format);
+			OutputTarget target = OutputTarget.open(output)) {
+
+			new BatchRunner(job, threads, progress, System.err).run(reader, target);
+			progress.summary();
+
+			return progress.getFailed();
+		}
+	}
+
+	@NonNull
+	private static String value(@NonNull String[] args, int index) {
+		if (index >= args.length) {
+			throw new IllegalArgumentException("Missing value for " + args[index - 1]);
+		}
+
+		return args[index];
+	}
+
+	private static void usageError(@NonNull String message) {
+		System.err.println(message);
+		System.err.println(USAGE);
+		System.exit(EXIT_USAGE);
+	}
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright (C) 2019 DV Bern AG, Switzerland
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.dvbern.lib.invoicegenerator.cli;
+
+import java.util.List;
+
+import ch.dvbern.lib.invoicegenerator.dto.SummaryEntry;
+import ch.dvbern.lib.invoicegenerator.dto.position.Position;
+import net.codecrete.qrbill.generator.Address;
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Eine gelesene Rechnung, bevor sie mit den Angaben aus der {@link JobConfiguration} zu einer
+ * {@link ch.dvbern.lib.invoicegenerator.dto.Invoice} ergänzt wird.
+ */
+final class InvoiceRecord {
+
+	@NonNull
+	private final String id;
+	private final long lineNumber;
+	@NonNull
+	private final String title;
+	@NonNull
+	private final List<String> adresse;
+	@Nullable
+	private final List<String> einleitung;
+	@Nullable
+	private final List<String> konditionen;
+	@NonNull
+	private final List<SummaryEntry> summary;
+	@NonNull
+	private final List<Position> positionen;
+	@Nullable
+	private final Address debtor;
+	@Nullable
+	private final String referenz;
+
+	InvoiceRecord(
+		@NonNull String id,
+		long lineNumber,
+		@NonNull String title,
+		@NonNull List<String> adresse,
+		@Nullable List<String> einleitung,
+		@Nullable List<String> konditionen,
+		@NonNull List<SummaryEntry> summary,
+		@NonNull List<Position> positionen,
+		@Nullable Address debtor,
+		@Nullable String referenz) {
+
+		this.id = id;
+		this.lineNumber = lineNumber;
+		this.title = title;
+		this.adresse = adresse;
+		this.einleitung = einleitung;
+		this.konditionen = konditionen;
+		this.summary = summary;
+		this.positionen = positionen;
+		this.debtor = debtor;
+		this.referenz = referenz;
+	}
+
+	@NonNull
+	String getId() {
+		return id;
+	}
+
+	/**
+	 * @return die Zeile in der Eingabe, auf welcher die Rechnung beginnt
+	 */
+	long getLineNumber() {
+		return lineNumber;
+	}
+
+	@NonNull
+	String getTitle() {
+		return title;
+	}
+
+	@NonNull
+	List<String> getAdresse() {
+		return adresse;
+	}
+
+	@Nullable
+	List<String> getEinleitung() {
+		return einleitung;
+	}
+
+	@Nullable
+	List<String> getKonditionen() {
+		return konditionen;
+	}
+
+	@NonNull
+	List<SummaryEntry> getSummary() {
+		return summary;
+	}
+
+	@NonNull
+	List<Position> getPositionen() {
+		return positionen;
+	}
+
+	@Nullable
+	Address getDebtor() {
+		return debtor;
+	}
+
+	@Nullable
+	String getReferenz() {
+		return referenz;
+	}
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright (C) 2019 DV Bern AG, Switzerland
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.dvbern.lib.invoicegenerator.cli;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.Locale;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Liest Rechnungen zeilenweise aus einer Eingabe. Es wird immer nur die aktuelle Rechnung im Speicher gehalten, die
+ * Grösse der Eingabe ist deshalb nicht beschränkt.
+ * <p>
+ * {@link #next()} wirft eine {@link InvalidRecordException}, wenn eine Rechnung nicht gelesen werden kann. Danach kann
+ * mit der nächsten Rechnung weitergelesen werden. Fehler beim Lesen der Eingabe werden als
+ * {@link UncheckedIOException} geworfen.
+ */
+abstract class InvoiceRecordReader implements Iterator<InvoiceRecord>, Closeable {
+
+	static final String STDIN = "-";
+
+	@NonNull
+	private final BufferedReader reader;
+	private long lineNumber = 0;
+
+	protected InvoiceRecordReader(@NonNull BufferedReader reader) {
+		this.reader = reader;
+	}
+
+	/**
+	 * Öffnet die Eingabe im angegebenen Format, "-" liest von der Standardeingabe.
+	 *
+	 * @param format "jsonl" oder "csv", ohne Angabe wird das Format aus der Dateiendung bestimmt
+	 */
+	@NonNull
+	static InvoiceRecordReader open(@NonNull String input, @NonNull String format) throws IOException {
+		String resolvedFormat = format.isEmpty() ? extension(input) : format.toLowerCase(Locale.ROOT);
+
+		BufferedReader reader = STDIN.equals(input) ?
+			new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8)) :
+			Files.newBufferedReader(Path.of(input), StandardCharsets.UTF_8);
+
+		switch (resolvedFormat) {
+		case "jsonl":
+		case "json":
+		case "ndjson":
+			return new JsonLinesRecordReader(reader);
+		case "csv":
+			return new CsvRecordReader(reader);
+		default:
+			reader.close();
+			throw new IllegalArgumentException("Unknown input format '" + resolvedFormat + "', use jsonl or csv");
+		}
+	}
+
+	@NonNull
+	private static String extension(@NonNull String input) {
+		int dot = input.lastIndexOf('.');
+
+		return dot < 0 ? "" : input.substring(dot + 1).toLowerCase(Locale.ROOT);
+	}
+
+	/**
+	 * @return die nächste Zeile oder null am Ende der Eingabe
+	 */
+	@Nullable
+	protected String readLine() {
+		try {
+			String line = reader.readLine();
+			if (line != null) {
+				lineNumber++;
+			}
+
+			return line;
+		} catch (IOException e) {
+			throw new UncheckedIOException("Could not read line " + (lineNumber + 1), e);
+		}
+	}
+
+	protected long getLineNumber() {
+		return lineNumber;
+	}
+
+	@Override
+	public void close() throws IOException {
+		reader.close();
+	}
+}
@@ -0,0 +1,231 @@
+/*
+ * Copyright (C) 2019 DV Bern AG, Switzerland
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.dvbern.lib.invoicegenerator.cli;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.regex.Pattern;
+
+import ch.dvbern.lib.invoicegenerator.dto.Alignment;
+import ch.dvbern.lib.invoicegenerator.dto.CompressionPolicy;
+import ch.dvbern.lib.invoicegenerator.dto.Invoice;
+import ch.dvbern.lib.invoicegenerator.dto.InvoiceGeneratorConfiguration;
+import ch.dvbern.lib.invoicegenerator.dto.OnPage;
+import ch.dvbern.lib.invoicegenerator.dto.SummaryEntry;
+import ch.dvbern.lib.invoicegenerator.dto.component.Logo;
+import ch.dvbern.lib.invoicegenerator.dto.einzahlungsschein.QRCodeEinzahlungsschein;
+import ch.dvbern.lib.invoicegenerator.dto.position.BetragsSummen;
+import ch.dvbern.lib.invoicegenerator.dto.position.RechnungsPositionColumnTitle;
+import net.codecrete.qrbill.generator.Address;
+import net.codecrete.qrbill.generator.Language;
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Liest die {@link InvoiceGeneratorConfiguration} und die für alle Rechnungen gleichen Angaben (Zahlungsempfänger,
+ * Spaltentitel, Währung) aus einer Properties-Datei und ergänzt damit die gelesenen Rechnungen:
+ *
+ * <pre>
+ * producer=DV Bern AG
+ * summaryTablePosition=LEFT
+ * compression=FAST
+ * creationDate=2024-01-01T00:00:00Z
+ * logo=logo.png
+ * logo.leftInMm=20
+ * logo.topInMm=10
+ * logo.widthInMm=30
+ * zahlungsKonditionen=Zahlbar innerhalb 30 Tagen.
+ * esr.leftOffsetInMm=0
+ * esr.topOffsetInMm=0
+ * columns=Leistung|Menge|Preis|Total
+ * currency=CHF
+ * language=DE
+ * qrIban=CH44 3199 9123 0008 8901 2
+ * creditor.name=Robert Schneider AG
+ * creditor.street=Rue du Lac
+ * creditor.houseNo=1268
+ * creditor.postalCode=2501
+ * creditor.town=Biel
+ * creditor.country=CH
+ * </pre>
+ *
+ * Alle Angaben sind optional. Ohne {@code qrIban} und {@code creditor.name} werden Rechnungen ohne
+ * Einzahlungsschein erstellt, auch wenn sie eine Referenz haben.
+ */
+final class JobConfiguration {
+
+	private static final Pattern LIST_SEPARATOR = Pattern.compile("\\|");
+	private static final String DEFAULT_LOGO_LEFT_IN_MM = "20";
+	private static final String DEFAULT_LOGO_TOP_IN_MM = "10";
+	private static final String DEFAULT_LOGO_WIDTH_IN_MM = "30";
+	private static final int COLUMN_COUNT = 4;
+	private static final int RAPPEN_STELLEN = 2;
+
+	@NonNull
+	private final InvoiceGeneratorConfiguration configuration;
+	@NonNull
+	private final RechnungsPositionColumnTitle columnTitle;
+	@NonNull
+	private final String currency;
+	@NonNull
+	private final Language language;
+	@Nullable
+	private final String qrIban;
+	@Nullable
+	private final Address creditor;
+
+	private JobConfiguration(@NonNull Properties properties) throws IOException {
+		configuration = new InvoiceGeneratorConfiguration(
+			properties.getProperty("producer", "DV Bern Invoice Generator"),
+			Alignment.valueOf(properties.getProperty("summaryTablePosition", "LEFT").toUpperCase(Locale.ROOT)));
+		configuration.setCompressionPolicy(compression(properties.getProperty("compression", "DEFAULT")));
+
+		String creationDate = properties.getProperty("creationDate");
+		if (creationDate != null) {
+			configuration.setCreationDate(Instant.parse(creationDate));
+		}
+
+		String logo = properties.getProperty("logo");
+		if (logo != null) {
+			configuration.setLogo(new Logo(
+				Files.readAllBytes(Path.of(logo)),
+				Float.parseFloat(properties.getProperty("logo.leftInMm", DEFAULT_LOGO_LEFT_IN_MM)),
+				Float.parseFloat(properties.getProperty("logo.topInMm", DEFAULT_LOGO_TOP_IN_MM)),
+				Float.parseFloat(properties.getProperty("logo.widthInMm", DEFAULT_LOGO_WIDTH_IN_MM)),
+				OnPage.ALL));
+		}
+
+		String konditionen = properties.getProperty("zahlungsKonditionen");
+		if (konditionen != null) {
+			configuration.setZahlungsKonditionen(List.of(LIST_SEPARATOR.split(konditionen, -1)));
+		}
+
+		configuration.setEsrLeftOffsetInMm(Float.parseFloat(properties.getProperty("esr.leftOffsetInMm", "0")));
+		configuration.setEsrTopOffsetInMm(Float.parseFloat(properties.getProperty("esr.topOffsetInMm", "0")));
+
+		String[] columns = LIST_SEPARATOR.split(properties.getProperty("columns", "Leistung|Menge|Preis|Total"), -1);
+		if (columns.length != COLUMN_COUNT) {
+			throw new IllegalArgumentException("columns needs 4 titles separated by |, was " + columns.length);
+		}
+		columnTitle = new RechnungsPositionColumnTitle(columns[0], columns[1], columns[2], columns[3]);
+
+		currency = properties.getProperty("currency", "CHF");
+		language = Language.valueOf(properties.getProperty("language", "DE").toUpperCase(Locale.ROOT));
+		qrIban = properties.getProperty("qrIban");
+		creditor = properties.getProperty("creditor.name") == null ? null : RecordValues.address(
+			properties.getProperty("creditor.name"),
+			properties.getProperty("creditor.street"),
+			properties.getProperty("creditor.houseNo"),
+			properties.getProperty("creditor.postalCode"),
+			properties.getProperty("creditor.town"),
+			properties.getProperty("creditor.country"));
+	}
+
+	/**
+	 * @param file die Properties-Datei (UTF-8) oder null für die Standardwerte
+	 */
+	@NonNull
+	static JobConfiguration load(@Nullable Path file) throws IOException {
+		Properties properties = new Properties();
+		if (file != null) {
+			try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+				properties.load(reader);
+			}
+		}
+
+		return new JobConfiguration(properties);
+	}
+
+	@NonNull
+	private static CompressionPolicy compression(@NonNull String name) {
+		switch (name.toUpperCase(Locale.ROOT)) {
+		case "DEFAULT":
+			return CompressionPolicy.DEFAULT;
+		case "FAST":
+			return CompressionPolicy.FAST;
+		case "ARCHIVE":
+			return CompressionPolicy.ARCHIVE;
+		default:
+			throw new IllegalArgumentException("Unknown compression '" + name + "', use DEFAULT, FAST or ARCHIVE");
+		}
+	}
+
+	/**
+	 * Erstellt die Rechnung: das Total wird aus den Positionen berechnet und auf 5 Rappen gerundet, mit einer
+	 * Referenz wird ein QR-Einzahlungsschein über das gerundete Total erstellt.
+	 */
+	@NonNull
+	Invoice toInvoice(@NonNull InvoiceRecord record) {
+		BetragsSummen summen = BetragsSummen.of(record.getPositionen());
+
+		List<SummaryEntry> total = new ArrayList<>();
+		if (summen.getRundungsdifferenzInRappen() != 0) {
+			total.add(SummaryEntry.betrag(
+				"Rundungsdifferenz", currency, summen.getRundungsdifferenzInRappen(), false, false));
+		}
+		total.add(SummaryEntry.betrag("Total", currency, summen.getTotalGerundetInRappen(), true, true));
+
+		return new Invoice(
+			columnTitle,
+			record.getTitle(),
+			record.getSummary(),
+			record.getEinleitung(),
+			record.getAdresse(),
+			einzahlungsschein(record, summen.getTotalGerundetInRappen()),
+			record.getPositionen(),
+			total,
+			record.getKonditionen());
+	}
+
+	@Nullable
+	private QRCodeEinzahlungsschein einzahlungsschein(@NonNull InvoiceRecord record, long totalInRappen) {
+		String referenz = record.getReferenz();
+		if (RecordValues.isEmpty(referenz) || qrIban == null || creditor == null) {
+			return null;
+		}
+
+		Address debtor = record.getDebtor();
+		if (debtor == null) {
+			throw new InvalidRecordException(record.getLineNumber(), "debtor is required for a payment slip");
+		}
+
+		BigInteger referenzNr;
+		try {
+			referenzNr = new BigInteger(referenz.replace(" ", ""));
+		} catch (NumberFormatException e) {
+			throw new InvalidRecordException(record.getLineNumber(), "reference '" + referenz + "' is invalid", e);
+		}
+
+		BigDecimal betrag = BigDecimal.valueOf(totalInRappen, RAPPEN_STELLEN);
+
+		return new QRCodeEinzahlungsschein(creditor, referenzNr, betrag, qrIban, debtor, null, language);
+	}
+
+	@NonNull
+	InvoiceGeneratorConfiguration getConfiguration() {
+		return configuration;
+	}
+}
@@ -0,0 +1,192 @@
+/*
+ * Copyright (C) 2019 DV Bern AG, Switzerland
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.dvbern.lib.invoicegenerator.cli;
+
+import java.io.BufferedReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import ch.dvbern.lib.invoicegenerator.dto.SummaryEntry;
+import ch.dvbern.lib.invoicegenerator.dto.position.Position;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import net.codecrete.qrbill.generator.Address;
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Liest eine Rechnung pro Zeile im JSON Lines Format, leere Zeilen werden übersprungen:
+ *
+ * <pre>
+ * {"id": "6015", "title": "Rechnung", "address": ["Sandra Muster", "Musterstrasse 21", "3000 Bern"],
+ *  "intro": ["April 2017"], "conditions": ["Zahlbar innerhalb 30 Tagen."],
+ *  "summary": [{"label": "Rechnungs-Nr.", "value": "6015"}, {"label": "Datum", "value": "21.04.2017"}],
+ *  "positions": [{"heading": "Sarah Muster"}, {"text": "Betreuung", "quantity": "1.5", "price": "1040.00"}],
+ *  "debtor": {"name": "Sandra Muster", "street": "Musterstrasse", "houseNo": "21", "postalCode": "3000",
+ *             "town": "Bern", "country": "CH"},
+ *  "reference": "210000000003139471430009017"}
+ * </pre>
+ *
+ * Ohne Titel wird "Rechnung" verwendet. Der QR-Einzahlungsschein wird nur mit Referenz erstellt und braucht dann
+ * auch den Schuldner.
+ */
+final class JsonLinesRecordReader extends InvoiceRecordReader {
+
+	private static final ObjectMapper MAPPER = new ObjectMapper()
+		.enable(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS);
+	private static final String DEFAULT_TITLE = "Rechnung";
+
+	@Nullable
+	private String nextLine = null;
+
+	JsonLinesRecordReader(@NonNull BufferedReader reader) {
+		super(reader);
+	}
+
+	@Override
+	public boolean hasNext() {
+		while (nextLine == null) {
+			String line = readLine();
+			if (line == null) {
+				return false;
+			}
+			if (!line.isBlank()) {
+				nextLine = line;
+			}
+		}
+
+		return true;
+	}
+
+	@Override
+	@NonNull
+	public InvoiceRecord next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+
+		String line = nextLine;
+		nextLine = null;
+		long lineNumber = getLineNumber();
+
+		try {
+			return toRecord(lineNumber, MAPPER.readTree(line));
+		} catch (JsonProcessingException e) {
+			throw new InvalidRecordException(lineNumber, "invalid JSON: " + e.getOriginalMessage(), e);
+		}
+	}
+
+	@NonNull
+	private static InvoiceRecord toRecord(long lineNumber, @NonNull JsonNode node) {
+		String id = text(node, "id");
+		if (RecordValues.isEmpty(id)) {
+			throw new InvalidRecordException(lineNumber, "id is missing");
+		}
+
+		List<String> adresse = lines(node, "address");
+		if (adresse == null || adresse.isEmpty()) {
+			throw new InvalidRecordException(lineNumber, "address is missing");
+		}
+
+		String title = text(node, "title");
+
+		return new InvoiceRecord(
+			id,
+			lineNumber,
+			RecordValues.isEmpty(title) ? DEFAULT_TITLE : title,
+			adresse,
+			lines(node, "intro"),
+			lines(node, "conditions"),
+			summary(node.path("summary")),
+			positionen(lineNumber, node.path("positions")),
+			debtor(node.path("debtor")),
+			text(node, "reference"));
+	}
+
+	@NonNull
+	private static List<SummaryEntry> summary(@NonNull JsonNode entries) {
+		List<SummaryEntry> summary = new ArrayList<>();
+		for (JsonNode entry : entries) {
+			summary.add(new SummaryEntry(
+				entry.path("label").asText(),
+				entry.path("value").asText(),
+				entry.path("bold").asBoolean(),
+				entry.path("underlined").asBoolean()));
+		}
+
+		return summary;
+	}
+
+	@NonNull
+	private static List<Position> positionen(long lineNumber, @NonNull JsonNode positions) {
+		List<Position> positionen = new ArrayList<>();
+		for (JsonNode position : positions) {
+			positionen.add(RecordValues.position(
+				lineNumber,
+				text(position, "heading"),
+				text(position, "subheading"),
+				text(position, "text"),
+				text(position, "quantity"),
+				text(position, "price")));
+		}
+
+		return positionen;
+	}
+
+	@Nullable
+	private static Address debtor(@NonNull JsonNode debtor) {
+		if (!debtor.isObject()) {
+			return null;
+		}
+
+		return RecordValues.address(
+			text(debtor, "name"),
+			text(debtor, "street"),
+			text(debtor, "houseNo"),
+			text(debtor, "postalCode"),
+			text(debtor, "town"),
+			text(debtor, "country"));
+	}
+
+	@Nullable
+	private static List<String> lines(@NonNull JsonNode node, @NonNull String field) {
+		JsonNode value = node.path(field);
+		if (value.isMissingNode() || value.isNull()) {
+			return null;
+		}
+		if (!value.isArray()) {
+			return List.of(value.asText());
+		}
+
+		List<String> lines = new ArrayList<>(value.size());
+		value.forEach(line -> lines.add(line.asText()));
+
+		return lines;
+	}
+
+	/**
+	 * @return den Wert als Text, Zahlen werden unverändert übernommen (z.B. 1040.00 als "1040.00")
+	 */
+	@Nullable
+	private static String text(@NonNull JsonNode node, @NonNull String field) {
+		JsonNode value = node.path(field);
+
+		return value.isValueNode() && !value.isNull() ? value.asText() : null;
+	}
+}
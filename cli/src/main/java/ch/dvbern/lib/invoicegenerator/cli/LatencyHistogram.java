@@ -0,0 +1,92 @@
+/*
+ * Copyright (C) 2019 DV Bern AG, Switzerland
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.dvbern.lib.invoicegenerator.cli;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histogramm der Latenzen in Mikrosekunden mit fester Grösse, damit auch bei Millionen von Rechnungen Perzentile
+ * berechnet werden können. Jede Zweierpotenz ist in 32 Buckets unterteilt, der Fehler der Perzentile beträgt
+ * deshalb höchstens ca. 3%. Kann von mehreren Threads gleichzeitig beschrieben werden.
+ */
+final class LatencyHistogram {
+
+	private static final int SUB_BUCKET_BITS = 5;
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	private static final int BUCKETS = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKETS;
+	private static final double PERCENT = 100.0;
+
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+	void record(long micros) {
+		counts.incrementAndGet(index(Math.max(0, micros)));
+	}
+
+	/**
+	 * @param percentile z.B. 99 für das 99. Perzentil
+	 * @return die obere Grenze des Buckets, in welchem das Perzentil liegt, oder 0 ohne Werte
+	 */
+	long percentile(double percentile) {
+		long[] snapshot = new long[BUCKETS];
+		long total = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			snapshot[i] = counts.get(i);
+			total += snapshot[i];
+		}
+		if (total == 0) {
+			return 0;
+		}
+
+		long rank = (long) Math.ceil(total * percentile / PERCENT);
+		long seen = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			seen += snapshot[i];
+			if (seen >= rank) {
+				return upperBound(i);
+			}
+		}
+
+		return upperBound(BUCKETS - 1);
+	}
+
+	/**
+	 * @return der Bucket des (nicht negativen) Werts
+	 */
+	static int index(long value) {
+		if (value < SUB_BUCKETS) {
+			return (int) value;
+		}
+
+		int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+		int subBucket = (int) (value >>> exponent) - SUB_BUCKETS;
+
+		return (exponent + 1) * SUB_BUCKETS + subBucket;
+	}
+
+	/**
+	 * @return der grösste Wert im Bucket
+	 */
+	static long upperBound(int index) {
+		if (index < SUB_BUCKETS) {
+			return index;
+		}
+
+		int exponent = index / SUB_BUCKETS - 1;
+		long subBucket = index % SUB_BUCKETS + SUB_BUCKETS;
+
+		return ((subBucket + 1) << exponent) - 1;
+	}
+}
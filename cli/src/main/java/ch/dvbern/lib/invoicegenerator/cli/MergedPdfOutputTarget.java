@@ -0,0 +1,94 @@
+/*
+ * Copyright (C) 2019 DV Bern AG, Switzerland
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.dvbern.lib.invoicegenerator.cli;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import com.lowagie.text.Document;
+import com.lowagie.text.DocumentException;
+import com.lowagie.text.pdf.PdfReader;
+import com.lowagie.text.pdf.PdfSmartCopy;
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Hängt alle Rechnungen in der Reihenfolge der Eingabe an ein einziges PDF an, z.B. für eine Druckerei. Identische
+ * Ressourcen wie das Logo werden mit {@link PdfSmartCopy} nur einmal geschrieben. Ohne Rechnungen wird keine Datei
+ * erstellt.
+ * <p>
+ * Im Gegensatz zu {@link ch.dvbern.lib.invoicegenerator.InvoiceGenerator#generateInvoices} werden die Rechnungen
+ * einzeln und damit parallel generiert und erst danach zusammengefügt.
+ */
+final class MergedPdfOutputTarget implements OutputTarget {
+
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	@NonNull
+	private final Path file;
+
+	@Nullable
+	private OutputStream outputStream = null;
+	@Nullable
+	private Document document = null;
+	@Nullable
+	private PdfSmartCopy copy = null;
+
+	MergedPdfOutputTarget(@NonNull Path file) {
+		this.file = file;
+	}
+
+	@Override
+	public void write(@NonNull String id, @NonNull byte[] pdf) throws IOException {
+		PdfReader reader = new PdfReader(pdf);
+		try {
+			PdfSmartCopy target = open();
+			for (int page = 1; page <= reader.getNumberOfPages(); page++) {
+				target.addPage(target.getImportedPage(reader, page));
+			}
+			target.freeReader(reader);
+		} catch (DocumentException e) {
+			throw new IOException("Could not append invoice " + id, e);
+		} finally {
+			reader.close();
+		}
+	}
+
+	@NonNull
+	private PdfSmartCopy open() throws IOException, DocumentException {
+		if (copy == null) {
+			outputStream = new BufferedOutputStream(Files.newOutputStream(file), BUFFER_SIZE);
+			document = new Document();
+			copy = new PdfSmartCopy(document, outputStream);
+			document.open();
+		}
+
+		return copy;
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (document != null) {
+			document.close();
+		}
+		if (outputStream != null) {
+			outputStream.close();
+		}
+	}
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright (C) 2019 DV Bern AG, Switzerland
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.dvbern.lib.invoicegenerator.cli;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+import org.jspecify.annotations.NonNull;
+
+/**
+ * Ziel der generierten PDFs. {@link #write(String, byte[])} wird nur von einem Thread und in der Reihenfolge der
+ * Eingabe aufgerufen.
+ */
+interface OutputTarget extends Closeable {
+
+	Pattern UNSAFE_FILE_NAME_CHARACTERS = Pattern.compile("[^A-Za-z0-9._-]");
+
+	void write(@NonNull String id, @NonNull byte[] pdf) throws IOException;
+
+	/**
+	 * Bestimmt das Ziel aus der Endung: ".zip" schreibt ein ZIP-Archiv, ".pdf" ein einziges PDF mit allen Rechnungen,
+	 * alles andere ist ein Verzeichnis mit einer Datei pro Rechnung.
+	 */
+	@NonNull
+	static OutputTarget open(@NonNull Path output) throws IOException {
+		String name = output.getFileName().toString().toLowerCase(Locale.ROOT);
+		if (name.endsWith(".zip")) {
+			return new ZipOutputTarget(output);
+		}
+		if (name.endsWith(".pdf")) {
+			return new MergedPdfOutputTarget(output);
+		}
+
+		return new DirectoryOutputTarget(output);
+	}
+
+	/**
+	 * @return der Dateiname für die Rechnung, Zeichen ausserhalb von [A-Za-z0-9._-] werden durch "_" ersetzt
+	 */
+	@NonNull
+	static String fileName(@NonNull String id) {
+		return UNSAFE_FILE_NAME_CHARACTERS.matcher(id).replaceAll("_") + ".pdf";
+	}
+}
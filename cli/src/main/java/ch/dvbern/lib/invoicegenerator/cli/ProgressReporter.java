@@ -0,0 +1,111 @@
+/*
+ * Copyright (C) 2019 DV Bern AG, Switzerland
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.dvbern.lib.invoicegenerator.cli;
+
+import java.io.PrintStream;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.jspecify.annotations.NonNull;
+
+/**
+ * Zählt die generierten und fehlgeschlagenen Rechnungen und gibt in einem festen Intervall den aktuellen Durchsatz
+ * sowie die Latenzen (p50, p99) seit dem Start aus.
+ */
+final class ProgressReporter implements AutoCloseable {
+
+	private static final double NANOS_PER_SECOND = 1_000_000_000.0;
+	private static final double MICROS_PER_MILLI = 1000.0;
+	private static final double P50 = 50;
+	private static final double P99 = 99;
+
+	@NonNull
+	private final PrintStream out;
+	@NonNull
+	private final ScheduledExecutorService scheduler;
+	@NonNull
+	private final LatencyHistogram latencies = new LatencyHistogram();
+	@NonNull
+	private final LongAdder succeeded = new LongAdder();
+	@NonNull
+	private final LongAdder failed = new LongAdder();
+	private final long start = System.nanoTime();
+
+	private long lastReport = start;
+	private long lastSucceeded = 0;
+
+	ProgressReporter(@NonNull PrintStream out, long intervalMillis) {
+		this.out = out;
+		this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "invoice-cli-progress");
+			thread.setDaemon(true);
+			return thread;
+		});
+
+		if (intervalMillis > 0) {
+			scheduler.scheduleAtFixedRate(this::report, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	void succeeded(long nanos) {
+		latencies.record(TimeUnit.NANOSECONDS.toMicros(nanos));
+		succeeded.increment();
+	}
+
+	void failed() {
+		failed.increment();
+	}
+
+	long getFailed() {
+		return failed.sum();
+	}
+
+	private synchronized void report() {
+		long now = System.nanoTime();
+		long currentSucceeded = succeeded.sum();
+		double rate = (currentSucceeded - lastSucceeded) * NANOS_PER_SECOND / Math.max(1, now - lastReport);
+		lastReport = now;
+		lastSucceeded = currentSucceeded;
+
+		out.println(String.format(Locale.ROOT, "%,d done, %,d failed, %.1f invoices/s, p50 %.1f ms, p99 %.1f ms",
+			currentSucceeded, failed.sum(), rate, millis(P50), millis(P99)));
+	}
+
+	/**
+	 * Gibt die Zusammenfassung über den ganzen Lauf aus.
+	 */
+	synchronized void summary() {
+		long elapsed = System.nanoTime() - start;
+		long currentSucceeded = succeeded.sum();
+
+		out.println(String.format(Locale.ROOT,
+			"Finished: %,d done, %,d failed in %.1f s, %.1f invoices/s, p50 %.1f ms, p99 %.1f ms",
+			currentSucceeded, failed.sum(), elapsed / NANOS_PER_SECOND,
+			currentSucceeded * NANOS_PER_SECOND / Math.max(1, elapsed), millis(P50), millis(P99)));
+	}
+
+	private double millis(double percentile) {
+		return latencies.percentile(percentile) / MICROS_PER_MILLI;
+	}
+
+	@Override
+	public void close() {
+		scheduler.shutdownNow();
+	}
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright (C) 2019 DV Bern AG, Switzerland
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.dvbern.lib.invoicegenerator.cli;
+
+import java.math.BigDecimal;
+
+import ch.dvbern.lib.invoicegenerator.dto.position.BetragsPosition;
+import ch.dvbern.lib.invoicegenerator.dto.position.H1Position;
+import ch.dvbern.lib.invoicegenerator.dto.position.H2Position;
+import ch.dvbern.lib.invoicegenerator.dto.position.Position;
+import net.codecrete.qrbill.generator.Address;
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Wandelt die Werte der Eingabe, welche in JSON Lines und CSV gleich geschrieben werden, in die Objekte der Rechnung.
+ */
+final class RecordValues {
+
+	private static final int HUNDERTSTEL_STELLEN = 2;
+	private static final String DEFAULT_COUNTRY = "CH";
+
+	private RecordValues() {
+	}
+
+	/**
+	 * Erstellt eine Position: ein Titel ({@code heading}), ein Untertitel ({@code subheading}) oder eine Leistung mit
+	 * Menge und Preis, z.B. "1.5" und "120.00".
+	 */
+	@NonNull
+	static Position position(
+		long lineNumber,
+		@Nullable String heading,
+		@Nullable String subheading,
+		@Nullable String text,
+		@Nullable String quantity,
+		@Nullable String price) {
+
+		if (!isEmpty(heading)) {
+			return new H1Position(heading);
+		}
+		if (!isEmpty(subheading)) {
+			return new H2Position(subheading);
+		}
+		if (isEmpty(text)) {
+			throw new InvalidRecordException(lineNumber, "position needs a heading, subheading or text");
+		}
+
+		long mengeInHundertstel = hundertstel(lineNumber, "quantity", isEmpty(quantity) ? "1" : quantity);
+		long preisInRappen = hundertstel(lineNumber, "price", price);
+
+		try {
+			return BetragsPosition.mitMengeInHundertstel(text, mengeInHundertstel, preisInRappen);
+		} catch (ArithmeticException e) {
+			throw new InvalidRecordException(lineNumber, "total of '" + text + "' is too large", e);
+		}
+	}
+
+	/**
+	 * @return den Wert mit höchstens zwei Nachkommastellen in Hundertsteln, z.B. Rappen
+	 */
+	static long hundertstel(long lineNumber, @NonNull String field, @Nullable String value) {
+		if (isEmpty(value)) {
+			throw new InvalidRecordException(lineNumber, field + " is missing");
+		}
+
+		try {
+			return new BigDecimal(value.trim()).movePointRight(HUNDERTSTEL_STELLEN).longValueExact();
+		} catch (NumberFormatException | ArithmeticException e) {
+			throw new InvalidRecordException(lineNumber, field + " '" + value + "' is not an amount", e);
+		}
+	}
+
+	@NonNull
+	static Address address(
+		@Nullable String name,
+		@Nullable String street,
+		@Nullable String houseNo,
+		@Nullable String postalCode,
+		@Nullable String town,
+		@Nullable String country) {
+
+		Address address = new Address();
+		address.setName(name);
+		address.setStreet(street);
+		address.setHouseNo(houseNo);
+		address.setPostalCode(postalCode);
+		address.setTown(town);
+		address.setCountryCode(isEmpty(country) ? DEFAULT_COUNTRY : country);
+
+		return address;
+	}
+
+	static boolean isEmpty(@Nullable String value) {
+		return value == null || value.isBlank();
+	}
+}
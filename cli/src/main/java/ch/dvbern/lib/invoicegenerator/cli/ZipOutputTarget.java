@@ -0,0 +1,65 @@
+/*
+ * Copyright (C) 2019 DV Bern AG, Switzerland
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.dvbern.lib.invoicegenerator.cli;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.jspecify.annotations.NonNull;
+
+/**
+ * Schreibt alle Rechnungen als Einträge in ein ZIP-Archiv. Die PDFs sind bereits komprimiert und werden deshalb
+ * unkomprimiert ({@link ZipEntry#STORED}) abgelegt.
+ */
+final class ZipOutputTarget implements OutputTarget {
+
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	@NonNull
+	private final ZipOutputStream zip;
+	@NonNull
+	private final CRC32 crc = new CRC32();
+
+	ZipOutputTarget(@NonNull Path file) throws IOException {
+		zip = new ZipOutputStream(new BufferedOutputStream(Files.newOutputStream(file), BUFFER_SIZE));
+	}
+
+	@Override
+	public void write(@NonNull String id, @NonNull byte[] pdf) throws IOException {
+		crc.reset();
+		crc.update(pdf);
+
+		ZipEntry entry = new ZipEntry(OutputTarget.fileName(id));
+		entry.setMethod(ZipEntry.STORED);
+		entry.setSize(pdf.length);
+		entry.setCompressedSize(pdf.length);
+		entry.setCrc(crc.getValue());
+
+		zip.putNextEntry(entry);
+		zip.write(pdf);
+		zip.closeEntry();
+	}
+
+	@Override
+	public void close() throws IOException {
+		zip.close();
+	}
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright (C) 2019 DV Bern AG, Switzerland
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.dvbern.lib.invoicegenerator.cli;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.util.List;
+
+import ch.dvbern.lib.invoicegenerator.dto.position.BetragsPosition;
+import org.jspecify.annotations.NonNull;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class CsvRecordReaderTest {
+
+	private static final String HEADER = "id;title;address;text;quantity;price";
+
+	@Test
+	public void testQuotedSeparator() {
+		CsvRecordReader reader = reader(
+			"id,title,address,text,quantity,price",
+			"1,\"Rechnung, Kopie\",\"Muster, Sandra|3000 Bern\",\"Betreuung, Mittag\",1,10.00");
+
+		InvoiceRecord record = reader.next();
+
+		assertThat(record.getTitle(), is("Rechnung, Kopie"));
+		assertThat(record.getAdresse(), contains("Muster, Sandra", "3000 Bern"));
+		assertThat(leistung(record, 0), is("Betreuung, Mittag"));
+		assertThat(reader.hasNext(), is(false));
+	}
+
+	@Test
+	public void testEscapedQuotes() {
+		CsvRecordReader reader = reader(
+			HEADER,
+			"1;\"Rechnung \"\"März\"\"\";\"Sandra \"\"Sandy\"\" Muster|3000 Bern\";\"\"\"\";1;10.00");
+
+		InvoiceRecord record = reader.next();
+
+		assertThat(record.getTitle(), is("Rechnung \"März\""));
+		assertThat(record.getAdresse(), contains("Sandra \"Sandy\" Muster", "3000 Bern"));
+		assertThat(leistung(record, 0), is("\""));
+	}
+
+	@Test
+	public void testMultiLineField() {
+		CsvRecordReader reader = reader(
+			HEADER,
+			"1;Rechnung;Sandra Muster;\"Betreuung",
+			"Mittagstisch\";1;10.00",
+			"2;Rechnung;Peter Muster;Betreuung;2;10.00");
+
+		InvoiceRecord first = reader.next();
+		InvoiceRecord second = reader.next();
+
+		assertThat(leistung(first, 0), is("Betreuung\nMittagstisch"));
+		assertThat(first.getLineNumber(), is(2L));
+		// the continuation line is counted
+		assertThat(second.getLineNumber(), is(4L));
+		assertThat(reader.hasNext(), is(false));
+	}
+
+	@Test
+	public void testUnterminatedQuote() {
+		CsvRecordReader reader = reader(
+			HEADER,
+			"1;Rechnung;Sandra Muster;Betreuung;1;10.00",
+			"1;;;Mittagstisch;1;5.00",
+			"2;\"Rechnung;Peter Muster;Betreuung;1;10.00",
+			"3;Rechnung;Hans Muster;Betreuung;1;10.00");
+
+		// the rows before the invalid one still form their invoice
+		assertThat(reader.hasNext(), is(true));
+		assertThat(reader.next().getPositionen(), hasSize(2));
+
+		assertThat(reader.hasNext(), is(true));
+		InvalidRecordException e = assertThrows(InvalidRecordException.class, reader::next);
+		assertThat(e.getMessage(), is("Line 4: unterminated quoted field"));
+
+		// the quote is never closed, the rest of the input belongs to the field
+		assertThat(reader.hasNext(), is(false));
+	}
+
+	@Test
+	public void testBlankLines() {
+		CsvRecordReader reader = reader(
+			HEADER,
+			"",
+			"1;Rechnung;Sandra Muster;Betreuung;1;10.00",
+			"   ",
+			"1;;;Mittagstisch;1;5.00",
+			"",
+			"2;Rechnung;Peter Muster;Betreuung;1;10.00",
+			"",
+			"");
+
+		InvoiceRecord first = reader.next();
+		InvoiceRecord second = reader.next();
+
+		assertThat(first.getId(), is("1"));
+		assertThat(first.getLineNumber(), is(3L));
+		assertThat(first.getPositionen(), hasSize(2));
+		assertThat(second.getId(), is("2"));
+		assertThat(second.getLineNumber(), is(7L));
+		assertThat(reader.hasNext(), is(false));
+	}
+
+	@Test
+	public void testEmptyId() {
+		CsvRecordReader reader = reader(
+			HEADER,
+			";Rechnung;Sandra Muster;Betreuung;1;10.00",
+			"  ;;;Mittagstisch;1;5.00",
+			"2;Rechnung;Peter Muster;Betreuung;1;10.00");
+
+		InvalidRecordException e = assertThrows(InvalidRecordException.class, reader::next);
+		assertThat(e.getMessage(), is("Line 2: id is missing"));
+
+		// the rows without id are skipped together, reading continues with the next invoice
+		InvoiceRecord next = reader.next();
+		assertThat(next.getId(), is("2"));
+		assertThat(next.getAdresse(), equalTo(List.of("Peter Muster")));
+		assertThat(reader.hasNext(), is(false));
+	}
+
+	@NonNull
+	private static CsvRecordReader reader(@NonNull String... lines) {
+		return new CsvRecordReader(new BufferedReader(new StringReader(String.join("\n", lines))));
+	}
+
+	@NonNull
+	private static String leistung(@NonNull InvoiceRecord record, int index) {
+		return ((BetragsPosition) record.getPositionen().get(index)).getLeistung();
+	}
+}
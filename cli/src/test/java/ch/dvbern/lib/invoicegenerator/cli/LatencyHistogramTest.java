@@ -0,0 +1,80 @@
+/*
+ * Copyright (C) 2019 DV Bern AG, Switzerland
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.dvbern.lib.invoicegenerator.cli;
+
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+public class LatencyHistogramTest {
+
+	private static final int SUB_BUCKETS = 32;
+	private static final int LAST_BUCKET = 59 * SUB_BUCKETS - 1;
+
+	@Test
+	public void testSmallValuesHaveTheirOwnBucket() {
+		for (int value = 0; value < SUB_BUCKETS; value++) {
+			assertThat(LatencyHistogram.index(value), is(value));
+			assertThat(LatencyHistogram.upperBound(value), is((long) value));
+		}
+	}
+
+	@Test
+	public void testBucketBoundsRoundTrip() {
+		for (int index = 0; index < LAST_BUCKET; index++) {
+			long upperBound = LatencyHistogram.upperBound(index);
+
+			assertThat(LatencyHistogram.index(upperBound), is(index));
+			// the buckets are contiguous
+			assertThat(LatencyHistogram.index(upperBound + 1), is(index + 1));
+		}
+	}
+
+	@Test
+	public void testMaxValue() {
+		assertThat(LatencyHistogram.index(Long.MAX_VALUE), is(LAST_BUCKET));
+		assertThat(LatencyHistogram.upperBound(LAST_BUCKET), is(Long.MAX_VALUE));
+		assertThat(LatencyHistogram.index(Long.MAX_VALUE - 1), is(LAST_BUCKET));
+	}
+
+	@Test
+	public void testRelativeError() {
+		for (long value = SUB_BUCKETS; value > 0 && value < Long.MAX_VALUE / 3; value = value * 3 + 1) {
+			long upperBound = LatencyHistogram.upperBound(LatencyHistogram.index(value));
+
+			assertThat(upperBound, greaterThanOrEqualTo(value));
+			// at most 1/32 above the value
+			assertThat(upperBound - value, lessThanOrEqualTo(value / SUB_BUCKETS));
+		}
+	}
+
+	@Test
+	public void testPercentile() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		assertThat(histogram.percentile(99), is(0L));
+
+		for (long micros = 1; micros <= 100; micros++) {
+			histogram.record(micros);
+		}
+		histogram.record(Long.MAX_VALUE);
+
+		assertThat(histogram.percentile(50), is(51L));
+		assertThat(histogram.percentile(100), is(Long.MAX_VALUE));
+	}
+}
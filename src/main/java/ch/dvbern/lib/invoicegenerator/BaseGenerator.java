@@ -16,9 +16,12 @@
 
 package ch.dvbern.lib.invoicegenerator;
 
+import java.io.IOException;
 import java.io.OutputStream;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.function.Function;
 
 import ch.dvbern.lib.invoicegenerator.dto.Alignment;
 import ch.dvbern.lib.invoicegenerator.dto.BaseLayoutConfiguration;
@@ -28,8 +31,14 @@ import ch.dvbern.lib.invoicegenerator.dto.component.ComponentConfiguration;
 import ch.dvbern.lib.invoicegenerator.dto.component.ComponentRenderer;
 import ch.dvbern.lib.invoicegenerator.errors.InvoiceGeneratorException;
 import ch.dvbern.lib.invoicegenerator.errors.InvoiceGeneratorRuntimeException;
+import ch.dvbern.lib.invoicegenerator.metrics.GenerationListener;
+import ch.dvbern.lib.invoicegenerator.metrics.GenerationPhase;
+import ch.dvbern.lib.invoicegenerator.pdf.CountingOutputStream;
+import ch.dvbern.lib.invoicegenerator.pdf.DelegatingPageEvent;
+import ch.dvbern.lib.invoicegenerator.pdf.OutputSizeHint;
 import ch.dvbern.lib.invoicegenerator.pdf.PdfElementGenerator;
 import ch.dvbern.lib.invoicegenerator.pdf.PdfGenerator;
+import ch.dvbern.lib.invoicegenerator.pdf.PdfTemplateCache;
 import com.lowagie.text.DocumentException;
 import org.jspecify.annotations.NonNull;
 
@@ -39,6 +48,8 @@ public class BaseGenerator<T extends BaseLayoutConfiguration> {
 	private final T configuration;
 	@NonNull
 	private PdfElementGenerator pdfElementGenerator;
+	@NonNull
+	private final OutputSizeHint outputSizeHint = new OutputSizeHint();
 
 	/**
 	 * Erstellt einen neuen default BaseGenerator für die ensprechende Konfiguration.
@@ -74,12 +85,18 @@ public class BaseGenerator<T extends BaseLayoutConfiguration> {
 		@NonNull CustomGenerator generator)
 		throws InvoiceGeneratorException {
 
+		GenerationListener listener = configuration.getGenerationListener();
+		long start = System.nanoTime();
+		CountingOutputStream countingOutputStream = new CountingOutputStream(outputStream);
+		boolean generated = false;
+
 		PdfGenerator pdfGenerator = null;
 		try {
-			pdfGenerator = new PdfGenerator(outputStream, configuration);
+			pdfGenerator = new PdfGenerator(countingOutputStream, configuration);
 			pdfGenerator.getDocument().addProducer(configuration.getProducer());
 
 			pdfGenerator.setPageEvent(onPageHandler);
+			phaseCompleted(listener, GenerationPhase.OPEN, start);
 
 			generator.accept(pdfGenerator);
 
@@ -94,13 +111,120 @@ public class BaseGenerator<T extends BaseLayoutConfiguration> {
 				pdfGenerator.printEmptyPage();
 			}
 
+			generated = true;
 		} catch (DocumentException exception) {
 			throw new InvoiceGeneratorException("Could not generate invoice", exception);
 		} finally {
 			if (pdfGenerator != null) {
-				pdfGenerator.close();
+				close(pdfGenerator, listener);
 			}
 		}
+
+		if (generated) {
+			listener.onDocumentGenerated(pdfGenerator.getWrittenPageCount(), System.nanoTime() - start);
+			listener.onBytesWritten(countingOutputStream.getCount());
+			outputSizeHint.record(countingOutputStream.getCount());
+		}
+	}
+
+	/**
+	 * Schreibt mehrere Dokumente in ein einziges PDF, z.B. für den Druck aller Rechnungen eines Tages. Bilder, Fonts
+	 * und Templates werden von allen Dokumenten gemeinsam verwendet und nur einmal in das PDF geschrieben.
+	 * <p>
+	 * Jedes Dokument beginnt auf einer neuen Seite. Die Seitennummerierung und damit {@link
+	 * ch.dvbern.lib.invoicegenerator.dto.OnPage} beginnen für jedes Dokument von vorne.
+	 *
+	 * @param outputStream Das PDF wird in diesen Stream geschrieben
+	 * @param documents Die Dokumente, werden genau einmal durchlaufen. Mindestens ein Dokument ist erforderlich.
+	 * @param onPageHandlerFactory Erstellt den OnPageHandler für ein Dokument
+	 * @param generator Rendert den Inhalt eines Dokuments
+	 * @throws InvoiceGeneratorException Wird bei bei technischen Problemen geworfen, z.B. falls das Logo nicht
+	 *                                   geladen werden kann
+	 */
+	public <D> void generateAll(
+		@NonNull OutputStream outputStream,
+		@NonNull Iterator<? extends D> documents,
+		@NonNull Function<? super D, OnPageHandler> onPageHandlerFactory,
+		@NonNull CustomDocumentGenerator<? super D> generator)
+		throws InvoiceGeneratorException {
+
+		if (!documents.hasNext()) {
+			throw new IllegalArgumentException("At least one document is required");
+		}
+
+		DelegatingPageEvent pageEvent = new DelegatingPageEvent();
+		PdfTemplateCache templateCache = new PdfTemplateCache();
+		GenerationListener listener = configuration.getGenerationListener();
+		long start = System.nanoTime();
+		CountingOutputStream countingOutputStream = new CountingOutputStream(outputStream);
+		boolean generated = false;
+
+		PdfGenerator pdfGenerator = null;
+		try {
+			pdfGenerator = new PdfGenerator(countingOutputStream, configuration);
+			pdfGenerator.getDocument().addProducer(configuration.getProducer());
+			pdfGenerator.setPageEvent(pageEvent);
+			phaseCompleted(listener, GenerationPhase.OPEN, start);
+
+			while (documents.hasNext()) {
+				long documentStart = System.nanoTime();
+				int pagesBefore = pdfGenerator.getWrittenPageCount();
+				D document = documents.next();
+				OnPageHandler onPageHandler = onPageHandlerFactory.apply(document);
+				onPageHandler.useTemplateCache(templateCache);
+				pageEvent.setDelegate(onPageHandler);
+
+				generator.accept(pdfGenerator, document);
+
+				onPageHandler.setLastPage();
+				// see generate(): make sure the last page is written, such that LAST_PAGE components are rendered
+				if (onPageHandler.hasComponents()) {
+					pdfGenerator.printEmptyPage();
+				}
+
+				// finish the last page of this document while its OnPageHandler is still active
+				pdfGenerator.getDocument().newPage();
+				listener.onDocumentGenerated(
+					pdfGenerator.getWrittenPageCount() - pagesBefore,
+					System.nanoTime() - documentStart);
+				pdfGenerator.getDocument().resetPageCount();
+				templateCache.releaseAllExcept(configuration.getStaticComponents());
+			}
+
+			generated = true;
+		} catch (DocumentException | IOException exception) {
+			throw new InvoiceGeneratorException("Could not generate documents", exception);
+		} finally {
+			if (pdfGenerator != null) {
+				close(pdfGenerator, listener);
+			}
+		}
+
+		if (generated) {
+			listener.onBytesWritten(countingOutputStream.getCount());
+		}
+	}
+
+	private void close(@NonNull PdfGenerator pdfGenerator, @NonNull GenerationListener listener) {
+		long start = System.nanoTime();
+		pdfGenerator.close();
+		phaseCompleted(listener, GenerationPhase.CLOSE, start);
+	}
+
+	/**
+	 * Meldet die Dauer seit start an den Listener.
+	 *
+	 * @return die aktuelle Zeit, als Start für den nächsten Abschnitt
+	 */
+	protected static long phaseCompleted(
+		@NonNull GenerationListener listener,
+		@NonNull GenerationPhase phase,
+		long start) {
+
+		long now = System.nanoTime();
+		listener.onPhase(phase, now - start);
+
+		return now;
 	}
 
 	@NonNull
@@ -143,6 +267,15 @@ public class BaseGenerator<T extends BaseLayoutConfiguration> {
 		return configuration;
 	}
 
+	/**
+	 * @return die aus den zuletzt mit {@link #generate(OutputStream, OnPageHandler, CustomGenerator)} erstellten
+	 * PDFs geschätzte Grösse des nächsten PDFs, z.B. für die Grösse eines Puffers
+	 */
+	@NonNull
+	public OutputSizeHint getOutputSizeHint() {
+		return outputSizeHint;
+	}
+
 	@NonNull
 	public PdfElementGenerator getPdfElementGenerator() {
 		return pdfElementGenerator;
@@ -0,0 +1,33 @@
+/*
+ * Copyright (C) 2019 DV Bern AG, Switzerland
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ch.dvbern.lib.invoicegenerator;
+
+import ch.dvbern.lib.invoicegenerator.pdf.PdfGenerator;
+import com.lowagie.text.DocumentException;
+import org.jspecify.annotations.NonNull;
+
+/**
+ * Rendert ein einzelnes Dokument in ein PDF, welches mehrere Dokumente enthält.
+ *
+ * @param <D> Typ des Dokuments, z.B. {@link ch.dvbern.lib.invoicegenerator.dto.Invoice}
+ * @see BaseGenerator#generateAll(java.io.OutputStream, java.util.Iterator, java.util.function.Function,
+ * CustomDocumentGenerator)
+ */
+@FunctionalInterface
+public interface CustomDocumentGenerator<D> {
+	void accept(@NonNull PdfGenerator pdfGenerator, @NonNull D document) throws DocumentException;
+}
@@ -15,9 +15,17 @@
  */
 package ch.dvbern.lib.invoicegenerator;
 
+import java.io.BufferedOutputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
 import java.util.List;
+import java.util.UUID;
 import java.util.function.Consumer;
 
 import ch.dvbern.lib.invoicegenerator.dto.Alignment;
@@ -27,10 +35,17 @@ import ch.dvbern.lib.invoicegenerator.dto.OnPage;
 import ch.dvbern.lib.invoicegenerator.dto.SummaryEntry;
 import ch.dvbern.lib.invoicegenerator.dto.component.ComponentConfiguration;
 import ch.dvbern.lib.invoicegenerator.dto.component.ComponentRenderer;
+import ch.dvbern.lib.invoicegenerator.dto.component.DirectContentRenderer;
 import ch.dvbern.lib.invoicegenerator.dto.einzahlungsschein.Einzahlungsschein;
 import ch.dvbern.lib.invoicegenerator.dto.einzahlungsschein.EinzahlungsscheinConfiguration;
+import ch.dvbern.lib.invoicegenerator.dto.position.Position;
 import ch.dvbern.lib.invoicegenerator.errors.InvoiceGeneratorException;
 import ch.dvbern.lib.invoicegenerator.errors.InvoiceGeneratorRuntimeException;
+import ch.dvbern.lib.invoicegenerator.metrics.GenerationListener;
+import ch.dvbern.lib.invoicegenerator.metrics.GenerationPhase;
+import ch.dvbern.lib.invoicegenerator.pdf.BufferPool;
+import ch.dvbern.lib.invoicegenerator.pdf.ChunkedOutputStream;
+import ch.dvbern.lib.invoicegenerator.pdf.GeneratedPdf;
 import ch.dvbern.lib.invoicegenerator.pdf.PdfGenerator;
 import com.lowagie.text.Document;
 import com.lowagie.text.DocumentException;
@@ -44,6 +59,10 @@ import org.jspecify.annotations.Nullable;
 import static ch.dvbern.lib.invoicegenerator.pdf.PdfUtilities.ESR_HEIGHT_WITH_MARGIN;
 import static com.lowagie.text.PageSize.A4;
 import static com.lowagie.text.Utilities.millimetersToPoints;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.CREATE_NEW;
+import static java.nio.file.StandardOpenOption.WRITE;
 
 /**
  * Mit dem InvoiceGenerator können PDF-Rechnungen mit oder ohne ESR erstellt werden. Der Generator wurde optimiert,
@@ -54,6 +73,9 @@ import static com.lowagie.text.Utilities.millimetersToPoints;
  */
 public class InvoiceGenerator extends BaseGenerator<InvoiceGeneratorConfiguration> {
 
+	private static final int FILE_BUFFER_SIZE = 64 * 1024;
+	private static final String TEMP_SUFFIX = ".tmp";
+
 	/**
 	 * Erstellt einen neuen InvoiceGenerator für die ensprechende Konfiguration.
 	 *
@@ -74,12 +96,95 @@ public class InvoiceGenerator extends BaseGenerator<InvoiceGeneratorConfiguratio
 	 */
 	@NonNull
 	public ByteArrayOutputStream generateInvoice(@NonNull Invoice invoice) throws InvoiceGeneratorException {
-		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ByteArrayOutputStream out = new ByteArrayOutputStream(getOutputSizeHint().get());
+		generateInvoice(out, invoice);
+
+		return out;
+	}
+
+	/**
+	 * Erstellt aus dem Invoice-Objekt ein PDF im Speicher. Im Gegensatz zu {@link #generateInvoice(Invoice)} wird
+	 * das PDF beim Wachsen nie kopiert und kann ohne weitere Kopie gelesen werden, siehe {@link
+	 * ChunkedOutputStream#toInputStream()} und {@link ChunkedOutputStream#toByteBuffers()}.
+	 *
+	 * @param invoice Das Invoice-Objekt aus welchem die Rechnung erstellt wird
+	 * @throws InvoiceGeneratorException Wird bei bei technischen Problemen geworfen, z.B. falls das Logo nicht
+	 *                                   geladen werden kann
+	 */
+	@NonNull
+	public ChunkedOutputStream generateInvoiceChunked(@NonNull Invoice invoice) throws InvoiceGeneratorException {
+		ChunkedOutputStream out = new ChunkedOutputStream(getOutputSizeHint().get());
 		generateInvoice(out, invoice);
 
 		return out;
 	}
 
+	/**
+	 * Erstellt aus dem Invoice-Objekt ein PDF in Puffern aus dem übergebenen Pool. Die Puffer werden mit {@link
+	 * GeneratedPdf#close()} an den Pool zurückgegeben, bei einem Fehler bereits hier.
+	 *
+	 * @param invoice Das Invoice-Objekt aus welchem die Rechnung erstellt wird
+	 * @param bufferPool Der Pool, aus dem die Puffer bezogen werden
+	 * @throws InvoiceGeneratorException Wird bei bei technischen Problemen geworfen, z.B. falls das Logo nicht
+	 *                                   geladen werden kann
+	 */
+	@NonNull
+	public GeneratedPdf generateInvoice(@NonNull Invoice invoice, @NonNull BufferPool bufferPool)
+		throws InvoiceGeneratorException {
+
+		ChunkedOutputStream out = new ChunkedOutputStream(bufferPool);
+		boolean generated = false;
+		try {
+			generateInvoice(out, invoice);
+			generated = true;
+		} finally {
+			if (!generated) {
+				out.release();
+			}
+		}
+
+		return new GeneratedPdf(out);
+	}
+
+	/**
+	 * Erstellt aus dem Invoice-Objekt ein PDF und schreibt es gepuffert in die Datei. Das PDF wird zuerst in eine
+	 * temporäre Datei im selben Verzeichnis geschrieben und erst nach erfolgreicher Generierung an den Zielort
+	 * verschoben. Eine bestehende Datei wird dabei ersetzt, bei einem Fehler bleibt sie unverändert.
+	 *
+	 * @param invoice Das Invoice-Objekt aus welchem die Rechnung erstellt wird
+	 * @param file Die Datei, in welche das PDF geschrieben wird
+	 * @throws InvoiceGeneratorException Wird bei bei technischen Problemen geworfen, z.B. falls die Datei nicht
+	 *                                   geschrieben werden kann
+	 */
+	public void generateInvoice(@NonNull Invoice invoice, @NonNull Path file) throws InvoiceGeneratorException {
+		// unlike Files.createTempFile, the file gets the same default permissions as a directly written one
+		Path temp = file.resolveSibling(file.getFileName() + "." + UUID.randomUUID() + TEMP_SUFFIX);
+		boolean moved = false;
+		try {
+			try (FileChannel channel = FileChannel.open(temp, CREATE_NEW, WRITE);
+				OutputStream out = new BufferedOutputStream(Channels.newOutputStream(channel), FILE_BUFFER_SIZE)) {
+
+				generateInvoice(out, invoice);
+			}
+			Files.move(temp, file, ATOMIC_MOVE, REPLACE_EXISTING);
+			moved = true;
+		} catch (IOException e) {
+			throw new InvoiceGeneratorException("Could not write invoice to " + file, e);
+		} finally {
+			if (!moved) {
+				deleteQuietly(temp);
+			}
+		}
+	}
+
+	private static void deleteQuietly(@NonNull Path temp) {
+		try {
+			Files.deleteIfExists(temp);
+		} catch (IOException ignored) {
+			// the original exception is more relevant
+		}
+	}
+
 	/**
 	 * Erstellt aus dem Invoice-Objekt ein PDF.
 	 *
@@ -91,38 +196,110 @@ public class InvoiceGenerator extends BaseGenerator<InvoiceGeneratorConfiguratio
 	public void generateInvoice(@NonNull OutputStream outputStream, @NonNull Invoice invoice)
 		throws InvoiceGeneratorException {
 
-		InvoiceGeneratorConfiguration configuration = getConfiguration();
+		generateInvoice(outputStream, invoice, invoice.getPositionen().iterator());
+	}
 
+	/**
+	 * Erstellt aus dem Invoice-Objekt ein PDF. Die Positionen werden nicht aus dem Invoice-Objekt, sondern aus dem
+	 * Iterator gelesen und in Blöcken in das Dokument geschrieben. Damit bleibt der Speicherbedarf auch bei
+	 * Rechnungen mit sehr vielen Positionen beschränkt, z.B. mit {@code positionStream.iterator()}.
+	 *
+	 * @param outputStream Das PDF wird in diesen Stream geschrieben
+	 * @param invoice Das Invoice-Objekt aus welchem die Rechnung erstellt wird, die Positionen werden ignoriert
+	 * @param positionen Die Positionen der Rechnung. Werden genau einmal durchlaufen.
+	 * @throws InvoiceGeneratorException Wird bei bei technischen Problemen geworfen, z.B. falls das Logo nicht
+	 *                                   geladen werden kann
+	 */
+	public void generateInvoice(
+		@NonNull OutputStream outputStream,
+		@NonNull Invoice invoice,
+		@NonNull Iterator<? extends Position> positionen)
+		throws InvoiceGeneratorException {
+
+		OnPageHandler onPageHandler = createOnPageHandler(invoice);
+
+		generate(outputStream, onPageHandler, pdfGenerator -> addContent(pdfGenerator, invoice, positionen));
+	}
+
+	/**
+	 * Schreibt mehrere Rechnungen in ein einziges PDF, z.B. als Sammeldatei für eine Druckerei. Jede Rechnung beginnt
+	 * auf einer neuen Seite, die Seitennummerierung (und damit z.B. die Platzierung des Einzahlungsscheins) beginnt
+	 * für jede Rechnung von vorne. Bilder, Fonts und Templates werden nur einmal in das PDF geschrieben.
+	 *
+	 * @param outputStream Das PDF wird in diesen Stream geschrieben
+	 * @param invoices Die Rechnungen, mindestens eine. Werden genau einmal durchlaufen, z.B. {@code stream::iterator}
+	 * @throws InvoiceGeneratorException Wird bei bei technischen Problemen geworfen, z.B. falls das Logo nicht
+	 *                                   geladen werden kann
+	 */
+	public void generateInvoices(@NonNull OutputStream outputStream, @NonNull Iterable<Invoice> invoices)
+		throws InvoiceGeneratorException {
+
+		generateAll(
+			outputStream,
+			invoices.iterator(),
+			this::createOnPageHandler,
+			(pdfGenerator, invoice) -> addContent(pdfGenerator, invoice, invoice.getPositionen().iterator()));
+	}
+
+	/**
+	 * Erstellt den OnPageHandler mit den statischen Komponenten, der Adresse, der Zusammenfassung und dem
+	 * Einzahlungsschein der Rechnung.
+	 */
+	@NonNull
+	public OnPageHandler createOnPageHandler(@NonNull Invoice invoice) {
 		List<ComponentRenderer<? extends ComponentConfiguration, ?>> componentRenderers =
 			getComponentRenderers(invoice.getAdresse());
 
 		Einzahlungsschein einzahlungsschein = invoice.getEinzahlungsschein();
 		if (einzahlungsschein != null) {
-			EinzahlungsscheinConfiguration einzahlungsscheinConfig = configuration.getEinzahlungsscheinConfiguration();
+			EinzahlungsscheinConfiguration einzahlungsscheinConfig =
+				getConfiguration().getEinzahlungsscheinConfiguration();
 			componentRenderers.add(einzahlungsschein.componentRenderer(einzahlungsscheinConfig, OnPage.LAST));
 		}
 
-		OnPageHandler onPageHandler = new OnPageHandler(
-			getPdfElementGenerator(),
-			componentRenderers,
-			summaryTableGenerator(invoice.getSummary()));
+		componentRenderers.add(new DirectContentRenderer(OnPage.ALL, summaryTableGenerator(invoice.getSummary()), true));
 
-		generate(outputStream, onPageHandler, pdfGenerator -> {
-			Document document = pdfGenerator.getDocument();
+		return new OnPageHandler(getPdfElementGenerator(), componentRenderers);
+	}
 
-			document.add(getPdfElementGenerator().createTitle(invoice.getTitle()));
-			createIntroIfExist(document, invoice.getEinleitung());
+	/**
+	 * Schreibt den Inhalt der Rechnung (Titel, Einleitung, Positionen, Total und Konditionen) in das Dokument.
+	 */
+	public void addContent(
+		@NonNull PdfGenerator pdfGenerator,
+		@NonNull Invoice invoice,
+		@NonNull Iterator<? extends Position> positionen) throws DocumentException {
 
-			document.add(createRechnungspositionsTabelle(invoice));
+		addContent(pdfGenerator.getDocument(), invoice, positionen);
 
-			addTotalTable(invoice, document, configuration.getSpaceBefore());
+		if (isNewPageRequired(pdfGenerator, invoice)) {
+			pdfGenerator.getDocument().newPage();
+		}
+	}
 
-			createKonditionenIfExist(document, invoice.getKonditionen());
+	private void addContent(
+		@NonNull Document document,
+		@NonNull Invoice invoice,
+		@NonNull Iterator<? extends Position> positionen) throws DocumentException {
 
-			if (isNewPageRequired(pdfGenerator, invoice)) {
-				document.newPage();
-			}
-		});
+		GenerationListener listener = getConfiguration().getGenerationListener();
+		long start = System.nanoTime();
+
+		document.add(getPdfElementGenerator().createTitle(invoice.getTitle()));
+		start = phaseCompleted(listener, GenerationPhase.TITLE, start);
+
+		createIntroIfExist(document, invoice.getEinleitung());
+		start = phaseCompleted(listener, GenerationPhase.INTRO, start);
+
+		getPdfElementGenerator()
+			.addRechnungspositionsTabelle(document, invoice.getRechnungsPositionColumnTitle(), positionen);
+		start = phaseCompleted(listener, GenerationPhase.TABLE, start);
+
+		addTotalTable(invoice, document, getConfiguration().getSpaceBefore());
+		start = phaseCompleted(listener, GenerationPhase.TOTAL, start);
+
+		createKonditionenIfExist(document, invoice.getKonditionen());
+		phaseCompleted(listener, GenerationPhase.KONDITIONEN, start);
 	}
 
 	public void addTotalTable(
@@ -140,24 +317,33 @@ public class InvoiceGenerator extends BaseGenerator<InvoiceGeneratorConfiguratio
 		document.add(totalTable);
 	}
 
+	/**
+	 * Erstellt die Zusammenfassungs-Tabelle einmal und gibt einen Consumer zurück, welcher sie auf jeder Seite
+	 * einfügt.
+	 */
 	@NonNull
 	public Consumer<PdfContentByte> summaryTableGenerator(@NonNull List<SummaryEntry> summary) {
-		return directContent -> {
-			try {
-				Alignment summaryTablePosition = getConfiguration().getSummaryTablePosition();
+		PdfPTable summaryTable = createSummaryTable(summary);
+
+		return directContent -> addSummaryTable(directContent, summaryTable);
+	}
 
-				PdfPTable summaryTable = getPdfElementGenerator()
-					.createSummaryTable(summary, summaryTablePosition, null, Element.ALIGN_LEFT);
+	@NonNull
+	private PdfPTable createSummaryTable(@NonNull List<SummaryEntry> summary) {
+		try {
+			Alignment summaryTablePosition = getConfiguration().getSummaryTablePosition();
 
-				summaryTable.setTotalWidth(A4.getWidth() -
-					getConfiguration().getLeftPageMarginInPoints() -
-					getConfiguration().getRightPageMarginInPoints());
+			PdfPTable summaryTable = getPdfElementGenerator()
+				.createSummaryTable(summary, summaryTablePosition, null, Element.ALIGN_LEFT);
 
-				addSummaryTable(directContent, summaryTable);
-			} catch (DocumentException e) {
-				throw new InvoiceGeneratorRuntimeException("Summary Table creation failed", e);
-			}
-		};
+			summaryTable.setTotalWidth(A4.getWidth() -
+				getConfiguration().getLeftPageMarginInPoints() -
+				getConfiguration().getRightPageMarginInPoints());
+
+			return summaryTable;
+		} catch (DocumentException e) {
+			throw new InvoiceGeneratorRuntimeException("Summary Table creation failed", e);
+		}
 	}
 
 	public void addSummaryTable(@NonNull PdfContentByte directContent, @NonNull PdfPTable summaryTable) {
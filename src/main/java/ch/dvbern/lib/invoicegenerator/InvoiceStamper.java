@@ -0,0 +1,158 @@
+/*
+ * Copyright (C) 2019 DV Bern AG, Switzerland
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.dvbern.lib.invoicegenerator;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.util.List;
+
+import ch.dvbern.lib.invoicegenerator.dto.OnPage;
+import ch.dvbern.lib.invoicegenerator.dto.component.ComponentConfiguration;
+import ch.dvbern.lib.invoicegenerator.dto.component.ComponentRenderer;
+import ch.dvbern.lib.invoicegenerator.dto.component.WatermarkComponent;
+import ch.dvbern.lib.invoicegenerator.errors.InvoiceGeneratorException;
+import ch.dvbern.lib.invoicegenerator.pdf.PdfElementGenerator;
+import com.lowagie.text.DocumentException;
+import com.lowagie.text.pdf.PdfReader;
+import com.lowagie.text.pdf.PdfStamper;
+import org.jspecify.annotations.NonNull;
+
+/**
+ * Ergänzt eine bereits mit dem {@link InvoiceGenerator} erstellte Rechnung, z.B. für Kopien oder Duplikate. Die
+ * Überlagerungen sind gewöhnliche {@link ComponentRenderer}, welche gemäss ihrer Seitenplatzierung über den
+ * bestehenden Inhalt gezeichnet werden. Die Positionen werden nicht neu gesetzt, die bestehenden Seiten werden
+ * unverändert übernommen und nur um die Überlagerungen ergänzt.
+ * <p>
+ * Bestehender Inhalt kann nicht ersetzt werden, auch nicht durch Abdecken: er bleibt im PDF und kann z.B. beim
+ * Kopieren von Text gefunden werden. Eine Mahnung mit geändertem Betrag oder Einzahlungsschein muss deshalb neu
+ * generiert werden.
+ * <p>
+ * Der Stamper muss mit der Konfiguration erstellt werden, mit welcher die Rechnung generiert wurde. Er kann von
+ * mehreren Threads gleichzeitig verwendet werden, sofern das für den {@link InvoiceGenerator} gilt.
+ */
+public class InvoiceStamper {
+
+	// the appended overlays are small compared to the invoice
+	private static final int OVERLAY_SIZE_HINT = 16 * 1024;
+
+	@NonNull
+	private final InvoiceGenerator invoiceGenerator;
+
+	public InvoiceStamper(@NonNull InvoiceGenerator invoiceGenerator) {
+		this.invoiceGenerator = invoiceGenerator;
+	}
+
+	/**
+	 * Wendet die Überlagerungen auf das PDF an.
+	 *
+	 * @param pdf Die bestehende Rechnung
+	 * @param overlays Die Komponenten, welche auf die Seiten gezeichnet werden, z.B. {@link #watermark(String)}
+	 * @return ein {@link ByteArrayOutputStream} der das ergänzte PDF enthält
+	 * @throws InvoiceGeneratorException Wird geworfen, falls das PDF nicht gelesen oder geschrieben werden kann
+	 */
+	@NonNull
+	public ByteArrayOutputStream stamp(
+		@NonNull byte[] pdf,
+		@NonNull List<? extends ComponentRenderer<? extends ComponentConfiguration, ?>> overlays)
+		throws InvoiceGeneratorException {
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream(pdf.length + OVERLAY_SIZE_HINT);
+		stamp(pdf, out, overlays);
+
+		return out;
+	}
+
+	/**
+	 * Wendet die Überlagerungen auf das PDF an.
+	 *
+	 * @param pdf Die bestehende Rechnung
+	 * @param outputStream Das ergänzte PDF wird in diesen Stream geschrieben
+	 * @param overlays Die Komponenten, welche auf die Seiten gezeichnet werden, z.B. {@link #watermark(String)}
+	 * @throws InvoiceGeneratorException Wird geworfen, falls das PDF nicht gelesen oder geschrieben werden kann
+	 */
+	public void stamp(
+		@NonNull byte[] pdf,
+		@NonNull OutputStream outputStream,
+		@NonNull List<? extends ComponentRenderer<? extends ComponentConfiguration, ?>> overlays)
+		throws InvoiceGeneratorException {
+
+		try {
+			stamp(new PdfReader(pdf), outputStream, overlays);
+		} catch (IOException e) {
+			throw new InvoiceGeneratorException("Could not read invoice", e);
+		}
+	}
+
+	/**
+	 * Wendet die Überlagerungen auf das PDF in der Datei an.
+	 *
+	 * @param pdf Die Datei der bestehenden Rechnung, wird nicht verändert
+	 * @param outputStream Das ergänzte PDF wird in diesen Stream geschrieben
+	 * @param overlays Die Komponenten, welche auf die Seiten gezeichnet werden, z.B. {@link #watermark(String)}
+	 * @throws InvoiceGeneratorException Wird geworfen, falls das PDF nicht gelesen oder geschrieben werden kann
+	 */
+	public void stamp(
+		@NonNull Path pdf,
+		@NonNull OutputStream outputStream,
+		@NonNull List<? extends ComponentRenderer<? extends ComponentConfiguration, ?>> overlays)
+		throws InvoiceGeneratorException {
+
+		try {
+			stamp(new PdfReader(pdf.toString()), outputStream, overlays);
+		} catch (IOException e) {
+			throw new InvoiceGeneratorException("Could not read invoice " + pdf, e);
+		}
+	}
+
+	private void stamp(
+		@NonNull PdfReader reader,
+		@NonNull OutputStream outputStream,
+		@NonNull List<? extends ComponentRenderer<? extends ComponentConfiguration, ?>> overlays)
+		throws InvoiceGeneratorException {
+
+		PdfElementGenerator pdfElementGenerator = invoiceGenerator.getPdfElementGenerator();
+		try {
+			// append mode copies the existing objects unchanged instead of parsing and writing them again
+			PdfStamper stamper = new PdfStamper(reader, outputStream, '\0', true);
+
+			int numberOfPages = reader.getNumberOfPages();
+			for (int pageNumber = 1; pageNumber <= numberOfPages; pageNumber++) {
+				boolean isLastPage = pageNumber == numberOfPages;
+				for (ComponentRenderer<?, ?> overlay : overlays) {
+					if (overlay.getComponentConfiguration().getPagePlacement().isPrintable(pageNumber, isLastPage)) {
+						overlay.render(stamper.getOverContent(pageNumber), pdfElementGenerator);
+					}
+				}
+			}
+
+			stamper.close();
+		} catch (IOException | DocumentException e) {
+			throw new InvoiceGeneratorException("Could not stamp invoice", e);
+		} finally {
+			reader.close();
+		}
+	}
+
+	/**
+	 * Schreibt den Text diagonal über alle Seiten, z.B. "KOPIE" oder "DUPLIKAT".
+	 */
+	@NonNull
+	public WatermarkComponent watermark(@NonNull String text) {
+		return new WatermarkComponent(OnPage.ALL, text);
+	}
+}
@@ -15,34 +15,44 @@
  */
 package ch.dvbern.lib.invoicegenerator;
 
-import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
-import java.util.Map;
-import java.util.Map.Entry;
-import java.util.Objects;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
+import ch.dvbern.lib.invoicegenerator.dto.BaseLayoutConfiguration;
 import ch.dvbern.lib.invoicegenerator.dto.OnPage;
+import ch.dvbern.lib.invoicegenerator.dto.PageConfiguration;
+import ch.dvbern.lib.invoicegenerator.dto.PagePlacement;
 import ch.dvbern.lib.invoicegenerator.dto.component.ComponentConfiguration;
 import ch.dvbern.lib.invoicegenerator.dto.component.ComponentRenderer;
 import ch.dvbern.lib.invoicegenerator.errors.InvoiceGeneratorRuntimeException;
+import ch.dvbern.lib.invoicegenerator.metrics.GenerationListener;
 import ch.dvbern.lib.invoicegenerator.pdf.PdfElementGenerator;
+import ch.dvbern.lib.invoicegenerator.pdf.PdfTemplateCache;
 import com.lowagie.text.Document;
 import com.lowagie.text.DocumentException;
 import com.lowagie.text.pdf.PdfContentByte;
 import com.lowagie.text.pdf.PdfPageEventHelper;
 import com.lowagie.text.pdf.PdfWriter;
 import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
 
 /**
- * Wendet {@link ComponentRenderer} auf eine Seite an, wenn die per OnPage konfigurierte Seite erreicht wird.
+ * Wendet {@link ComponentRenderer} auf eine Seite an, wenn die per {@link PagePlacement} konfigurierte Seite erreicht
+ * wird.
+ * <p>
+ * Die Komponenten werden beim Erstellen des Handlers (einmal pro Dokument) für die erste, mittlere, letzte und einzige
+ * Seite aufgelöst. Nur Komponenten mit einer Regel, die von der Seitennummer abhängt (z.B. {@link
+ * PagePlacement#odd()}), werden auf jeder Seite geprüft.
  */
 public class OnPageHandler extends PdfPageEventHelper {
 
 	public static final Consumer<PdfContentByte> NOOP = whatever -> {
 	};
 
+	private static final ComponentRenderer<?, ?>[] NO_COMPONENTS = new ComponentRenderer<?, ?>[0];
+
 	@NonNull
 	private final PdfElementGenerator pdfElementGenerator;
 
@@ -50,7 +60,22 @@ public class OnPageHandler extends PdfPageEventHelper {
 	private final Consumer<PdfContentByte> directContentConsumer;
 
 	@NonNull
-	private final Map<OnPage, List<ComponentRenderer<? extends ComponentConfiguration, ?>>> components;
+	private final GenerationListener listener;
+
+	private final ComponentRenderer<?, ?>[] firstPageComponents;
+	private final ComponentRenderer<?, ?>[] middlePageComponents;
+	private final ComponentRenderer<?, ?>[] lastPageComponents;
+	private final ComponentRenderer<?, ?>[] singlePageComponents;
+
+	private final ComponentRenderer<?, ?>[] allComponents;
+
+	private final ComponentRenderer<?, ?>[] conditionalComponents;
+	private final PagePlacement[] conditionalPlacements;
+
+	private final boolean hasComponents;
+
+	@Nullable
+	private PdfTemplateCache templateCache;
 
 	private boolean lastPage = false;
 
@@ -67,29 +92,113 @@ public class OnPageHandler extends PdfPageEventHelper {
 		@NonNull Consumer<PdfContentByte> directContentConsumer) {
 
 		this.pdfElementGenerator = pdfElementGenerator;
-		this.components = components.stream()
-			.collect(Collectors.groupingBy(c -> c.getComponentConfiguration().getOnPage()));
 		this.directContentConsumer = directContentConsumer;
+		this.listener = pdfElementGenerator.getConfiguration().getGenerationListener();
+		this.templateCache = pdfElementGenerator.getConfiguration().isUseComponentTemplates() ?
+			new PdfTemplateCache() :
+			null;
+
+		this.allComponents = components.toArray(NO_COMPONENTS);
+
+		// OnPage only distinguishes the first and the last page, the representative page numbers cover all cases
+		this.firstPageComponents = resolve(components, 1, false);
+		this.middlePageComponents = resolve(components, 2, false);
+		this.lastPageComponents = resolve(components, 2, true);
+		this.singlePageComponents = resolve(components, 1, true);
+
+		List<ComponentRenderer<?, ?>> conditional = components.stream()
+			.filter(component -> !isResolvable(component))
+			.collect(Collectors.toList());
+		this.conditionalComponents = conditional.toArray(NO_COMPONENTS);
+		this.conditionalPlacements = conditional.stream()
+			.map(component -> component.getComponentConfiguration().getPagePlacement())
+			.toArray(PagePlacement[]::new);
+
+		this.hasComponents = !components.isEmpty();
+	}
+
+	@NonNull
+	private static ComponentRenderer<?, ?>[] resolve(
+		@NonNull List<ComponentRenderer<? extends ComponentConfiguration, ?>> components,
+		int pageNumber,
+		boolean isLastPage) {
+
+		return components.stream()
+			.filter(OnPageHandler::isResolvable)
+			.filter(component -> component.getComponentConfiguration().getPagePlacement()
+				.isPrintable(pageNumber, isLastPage))
+			.collect(Collectors.toList())
+			.toArray(NO_COMPONENTS);
+	}
+
+	private static boolean isResolvable(@NonNull ComponentRenderer<?, ?> component) {
+		return component.getComponentConfiguration().getPagePlacement() instanceof OnPage;
 	}
 
 	@Override
 	public void onEndPage(@NonNull PdfWriter pdfWriter, @NonNull Document document) {
-		PdfContentByte directContent = pdfWriter.getDirectContent();
-
-		components.entrySet().stream()
-			.filter(entry -> entry.getKey().isPrintable(document.getPageNumber(), lastPage))
-			.map(Entry::getValue)
-			.filter(Objects::nonNull)
-			.flatMap(Collection::stream)
-			.forEach(component -> {
-				try {
-					component.render(pdfWriter, pdfElementGenerator);
-				} catch (DocumentException ex) {
-					throw new InvoiceGeneratorRuntimeException("Could not write component " + component, ex);
-				}
-			});
-
-		directContentConsumer.accept(directContent);
+		int pageNumber = document.getPageNumber();
+
+		ComponentRenderer<?, ?>[] components;
+		if (pageNumber == 1) {
+			components = lastPage ? singlePageComponents : firstPageComponents;
+		} else {
+			components = lastPage ? lastPageComponents : middlePageComponents;
+		}
+
+		for (ComponentRenderer<?, ?> component : components) {
+			render(component, pdfWriter);
+		}
+
+		for (int i = 0; i < conditionalComponents.length; i++) {
+			if (conditionalPlacements[i].isPrintable(pageNumber, lastPage)) {
+				render(conditionalComponents[i], pdfWriter);
+			}
+		}
+
+		directContentConsumer.accept(pdfWriter.getDirectContent());
+	}
+
+	private void render(@NonNull ComponentRenderer<?, ?> component, @NonNull PdfWriter pdfWriter) {
+		try {
+			long start = System.nanoTime();
+			if (templateCache != null && component.isPageInvariant()) {
+				templateCache.render(component, pdfWriter, pdfElementGenerator);
+			} else {
+				component.render(pdfWriter, pdfElementGenerator);
+			}
+			listener.onComponentRendered(component, System.nanoTime() - start);
+		} catch (DocumentException ex) {
+			throw new InvoiceGeneratorRuntimeException("Could not write component " + component, ex);
+		}
+	}
+
+	/**
+	 * Bereitet die Komponenten dieses Dokuments vor, siehe {@link ComponentRenderer#prepare(PdfElementGenerator)}.
+	 * Die statischen Komponenten der Konfiguration werden von allen Dokumenten geteilt und deshalb nicht vorbereitet.
+	 */
+	public void prepare() {
+		PageConfiguration configuration = pdfElementGenerator.getConfiguration();
+		List<ComponentRenderer<? extends ComponentConfiguration, ?>> staticComponents =
+			configuration instanceof BaseLayoutConfiguration ?
+				((BaseLayoutConfiguration) configuration).getStaticComponents() :
+				Collections.emptyList();
+
+		for (ComponentRenderer<?, ?> component : allComponents) {
+			if (!staticComponents.contains(component)) {
+				component.prepare(pdfElementGenerator);
+			}
+		}
+	}
+
+	/**
+	 * Verwendet den übergebenen Cache für die Templates, damit diese über mehrere Dokumente im selben PDF geteilt
+	 * werden. Hat keinen Effekt, wenn Templates in der Konfiguration nicht aktiviert sind.
+	 */
+	public void useTemplateCache(@NonNull PdfTemplateCache sharedTemplateCache) {
+		if (templateCache != null) {
+			templateCache = sharedTemplateCache;
+		}
 	}
 
 	public void setLastPage() {
@@ -97,6 +206,6 @@ public class OnPageHandler extends PdfPageEventHelper {
 	}
 
 	public boolean hasComponents() {
-		return !components.entrySet().isEmpty();
+		return hasComponents;
 	}
 }
@@ -0,0 +1,226 @@
+/*
+ * Copyright (C) 2019 DV Bern AG, Switzerland
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ch.dvbern.lib.invoicegenerator.batch;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import ch.dvbern.lib.invoicegenerator.InvoiceGenerator;
+import ch.dvbern.lib.invoicegenerator.dto.Invoice;
+import ch.dvbern.lib.invoicegenerator.dto.InvoiceGeneratorConfiguration;
+import ch.dvbern.lib.invoicegenerator.errors.InvoiceGeneratorException;
+import ch.dvbern.lib.invoicegenerator.errors.InvoiceGeneratorRuntimeException;
+import ch.dvbern.lib.invoicegenerator.errors.InvoiceValidationException;
+import ch.dvbern.lib.invoicegenerator.validation.InvoiceValidator;
+import org.jspecify.annotations.NonNull;
+
+/**
+ * Generiert grosse Mengen von Rechnungen parallel mit einem {@link InvoiceGenerator}.
+ * <p>
+ * Alle Worker teilen sich denselben Generator und damit dieselbe {@link InvoiceGeneratorConfiguration}. Die
+ * Konfiguration wird deshalb beim Erstellen des Batch-Generators eingefroren ({@link
+ * InvoiceGeneratorConfiguration#freeze()}). Fehler bei einzelnen Rechnungen brechen den Lauf nicht ab, sondern werden
+ * im {@link InvoiceBatchResult} gesammelt. Jede Rechnung wird vor der Generierung mit dem {@link InvoiceValidator}
+ * geprüft: ungültige Rechnungen werden mit einer {@link InvoiceValidationException} abgelehnt, ohne dass ein
+ * OutputStream geöffnet wird.
+ * <p>
+ * Der Eingabe-Stream wird nur so schnell gelesen, wie die Worker Rechnungen abarbeiten: es sind nie mehr als
+ * {@code 2 * parallelism} Rechnungen gleichzeitig in Bearbeitung.
+ */
+public class InvoiceBatchGenerator {
+
+	private static final int IN_FLIGHT_PER_WORKER = 2;
+
+	@NonNull
+	private final InvoiceGenerator invoiceGenerator;
+	@NonNull
+	private final InvoiceValidator validator;
+	private final int parallelism;
+
+	/**
+	 * Erstellt einen Batch-Generator, der alle verfügbaren Prozessoren verwendet.
+	 */
+	public InvoiceBatchGenerator(@NonNull InvoiceGenerator invoiceGenerator) {
+		this(invoiceGenerator, Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Erstellt einen Batch-Generator.
+	 *
+	 * @param invoiceGenerator Generator, der von allen Workern geteilt wird. Seine Konfiguration wird eingefroren.
+	 * @param parallelism Anzahl Worker-Threads
+	 */
+	public InvoiceBatchGenerator(@NonNull InvoiceGenerator invoiceGenerator, int parallelism) {
+		if (parallelism < 1) {
+			throw new IllegalArgumentException("parallelism must be at least 1, was " + parallelism);
+		}
+
+		this.invoiceGenerator = invoiceGenerator;
+		this.validator = new InvoiceValidator(invoiceGenerator.getConfiguration());
+		this.parallelism = parallelism;
+
+		invoiceGenerator.getConfiguration().freeze();
+	}
+
+	/**
+	 * Generiert alle Rechnungen des Streams.
+	 *
+	 * @param invoices die zu generierenden Rechnungen
+	 * @param outputStreamFactory liefert pro Rechnung den Stream, in den das PDF geschrieben wird. Der Stream wird
+	 * nach der Generierung geschlossen. Wird auf den Worker-Threads aufgerufen.
+	 * @return Zusammenfassung mit allen fehlgeschlagenen Rechnungen
+	 */
+	@NonNull
+	public InvoiceBatchResult generateAll(
+		@NonNull Stream<Invoice> invoices,
+		@NonNull Function<Invoice, OutputStream> outputStreamFactory) {
+
+		return generateAll(invoices, outputStreamFactory, result -> {
+		});
+	}
+
+	/**
+	 * Generiert alle Rechnungen des Streams.
+	 *
+	 * @param invoices die zu generierenden Rechnungen
+	 * @param outputStreamFactory liefert pro Rechnung den Stream, in den das PDF geschrieben wird. Der Stream wird
+	 * nach der Generierung geschlossen. Wird auf den Worker-Threads aufgerufen.
+	 * @param resultConsumer wird für jede Rechnung mit dem Resultat aufgerufen, sobald diese fertig ist. Wird auf den
+	 * Worker-Threads aufgerufen und muss deshalb thread-safe sein. Wirft er bei einer fertigen Rechnung eine
+	 * Exception, gilt diese Rechnung als fehlgeschlagen.
+	 * @return Zusammenfassung mit allen fehlgeschlagenen Rechnungen
+	 */
+	@NonNull
+	public InvoiceBatchResult generateAll(
+		@NonNull Stream<Invoice> invoices,
+		@NonNull Function<Invoice, OutputStream> outputStreamFactory,
+		@NonNull Consumer<InvoiceResult> resultConsumer) {
+
+		long start = System.nanoTime();
+
+		LongAdder successCount = new LongAdder();
+		Queue<InvoiceResult> failures = new ConcurrentLinkedQueue<>();
+		Semaphore inFlight = new Semaphore(parallelism * IN_FLIGHT_PER_WORKER);
+		ExecutorService executor = Executors.newFixedThreadPool(parallelism, new WorkerThreadFactory("invoice-batch-", "-worker-"));
+
+		try {
+			long index = 0;
+			Iterator<Invoice> iterator = invoices.iterator();
+			while (iterator.hasNext()) {
+				Invoice invoice = iterator.next();
+				long currentIndex = index++;
+
+				inFlight.acquire();
+				executor.execute(() -> {
+					try {
+						InvoiceResult result = report(generate(currentIndex, invoice, outputStreamFactory), resultConsumer);
+						if (result.isSuccess()) {
+							successCount.increment();
+						} else {
+							failures.add(result);
+						}
+					} finally {
+						inFlight.release();
+					}
+				});
+			}
+
+			executor.shutdown();
+			boolean terminated = false;
+			while (!terminated) {
+				terminated = executor.awaitTermination(1, TimeUnit.MINUTES);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InvoiceGeneratorRuntimeException("Batch generation interrupted", e);
+		} finally {
+			executor.shutdownNow();
+		}
+
+		return new InvoiceBatchResult(successCount.sum(), new ArrayList<>(failures), System.nanoTime() - start);
+	}
+
+	@NonNull
+	private InvoiceResult generate(
+		long index,
+		@NonNull Invoice invoice,
+		@NonNull Function<Invoice, OutputStream> outputStreamFactory) {
+
+		try {
+			validator.check(invoice);
+		} catch (InvoiceValidationException e) {
+			return new InvoiceResult(index, invoice, e);
+		}
+
+		try (OutputStream outputStream = outputStreamFactory.apply(invoice)) {
+			invoiceGenerator.generateInvoice(outputStream, invoice);
+
+			return new InvoiceResult(index, invoice, null);
+		} catch (InvoiceGeneratorException | IOException | RuntimeException e) {
+			return new InvoiceResult(index, invoice, e);
+		}
+	}
+
+	/**
+	 * Meldet das Resultat dem Consumer. Wirft dieser bei einer fertigen Rechnung eine Exception, wird die Rechnung
+	 * stattdessen mit dieser als fehlgeschlagen gezählt (ohne den Consumer nochmals aufzurufen). Bei einer
+	 * fehlgeschlagenen Rechnung wird sie dem Fehler als {@link Throwable#addSuppressed(Throwable) suppressed}
+	 * angehängt.
+	 *
+	 * @return das Resultat, welches gezählt wird
+	 */
+	@NonNull
+	private static InvoiceResult report(
+		@NonNull InvoiceResult result,
+		@NonNull Consumer<InvoiceResult> resultConsumer) {
+
+		try {
+			resultConsumer.accept(result);
+
+			return result;
+		} catch (RuntimeException e) {
+			Exception error = result.getError();
+			if (error == null) {
+				return new InvoiceResult(result.getIndex(), result.getInvoice(), e);
+			}
+			error.addSuppressed(e);
+
+			return result;
+		}
+	}
+
+	public int getParallelism() {
+		return parallelism;
+	}
+
+	@NonNull
+	public InvoiceGenerator getInvoiceGenerator() {
+		return invoiceGenerator;
+	}
+}
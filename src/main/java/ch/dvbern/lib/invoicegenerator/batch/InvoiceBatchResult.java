@@ -0,0 +1,105 @@
+/*
+ * Copyright (C) 2019 DV Bern AG, Switzerland
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ch.dvbern.lib.invoicegenerator.batch;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+
+import org.jspecify.annotations.NonNull;
+
+/**
+ * Zusammenfassung eines Batch-Laufs. Um auch bei sehr grossen Rechnungsläufen den Speicher nicht zu füllen, werden nur
+ * die fehlgeschlagenen Rechnungen behalten. Die einzelnen Resultate können während dem Lauf mit einem Consumer
+ * abgegriffen werden, siehe {@link InvoiceBatchGenerator#generateAll(java.util.stream.Stream,
+ * java.util.function.Function, java.util.function.Consumer)}.
+ */
+public final class InvoiceBatchResult {
+
+	private final long successCount;
+	@NonNull
+	private final List<InvoiceResult> failures;
+	private final long durationNanos;
+	@NonNull
+	private final Map<PipelineStage, StageStatistics> stageStatistics;
+
+	InvoiceBatchResult(long successCount, @NonNull List<InvoiceResult> failures, long durationNanos) {
+		this(successCount, failures, durationNanos, Collections.emptyMap());
+	}
+
+	InvoiceBatchResult(
+		long successCount,
+		@NonNull List<InvoiceResult> failures,
+		long durationNanos,
+		@NonNull Map<PipelineStage, StageStatistics> stageStatistics) {
+
+		this.successCount = successCount;
+		failures.sort(Comparator.comparingLong(InvoiceResult::getIndex));
+		this.failures = Collections.unmodifiableList(failures);
+		this.durationNanos = durationNanos;
+		this.stageStatistics = Collections.unmodifiableMap(stageStatistics);
+	}
+
+	public long getSuccessCount() {
+		return successCount;
+	}
+
+	public long getFailureCount() {
+		return failures.size();
+	}
+
+	public long getTotalCount() {
+		return successCount + failures.size();
+	}
+
+	/**
+	 * @return die fehlgeschlagenen Rechnungen, sortiert nach ihrer Position im Eingabe-Stream
+	 */
+	@NonNull
+	public List<InvoiceResult> getFailures() {
+		return failures;
+	}
+
+	public boolean isSuccess() {
+		return failures.isEmpty();
+	}
+
+	public long getDurationNanos() {
+		return durationNanos;
+	}
+
+	/**
+	 * @return die Messungen pro Stufe, falls die Rechnungen mit der {@link InvoicePipeline} generiert wurden, sonst
+	 * leer
+	 */
+	@NonNull
+	public Map<PipelineStage, StageStatistics> getStageStatistics() {
+		return stageStatistics;
+	}
+
+	@Override
+	@NonNull
+	public String toString() {
+		return new StringJoiner(", ", InvoiceBatchResult.class.getSimpleName() + '[', "]")
+			.add("successCount=" + successCount)
+			.add("failureCount=" + failures.size())
+			.add("durationNanos=" + durationNanos)
+			.toString();
+	}
+}
@@ -0,0 +1,511 @@
+/*
+ * Copyright (C) 2019 DV Bern AG, Switzerland
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ch.dvbern.lib.invoicegenerator.batch;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import ch.dvbern.lib.invoicegenerator.InvoiceGenerator;
+import ch.dvbern.lib.invoicegenerator.OnPageHandler;
+import ch.dvbern.lib.invoicegenerator.dto.Invoice;
+import ch.dvbern.lib.invoicegenerator.errors.InvoiceGeneratorException;
+import ch.dvbern.lib.invoicegenerator.errors.InvoiceGeneratorRuntimeException;
+import ch.dvbern.lib.invoicegenerator.metrics.TimingStatistics;
+import ch.dvbern.lib.invoicegenerator.pdf.BufferPool;
+import ch.dvbern.lib.invoicegenerator.pdf.ChunkedOutputStream;
+import ch.dvbern.lib.invoicegenerator.validation.InvoiceValidator;
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Generiert grosse Mengen von Rechnungen in drei Stufen, die über beschränkte Queues verbunden sind und je eigene
+ * Threads haben (siehe {@link PipelineStage}):
+ * <ol>
+ *     <li>{@link PipelineStage#PREPARE}: Validierung und Vorbereitung der Komponenten, insbesondere die Kodierung des
+ *     QR-Zahlteils ({@link ch.dvbern.lib.invoicegenerator.dto.component.ComponentRenderer#prepare})</li>
+ *     <li>{@link PipelineStage#LAYOUT}: Layout und Komprimierung des PDFs in Puffer aus einem {@link BufferPool}</li>
+ *     <li>{@link PipelineStage#WRITE}: Schreiben des fertigen PDFs in den OutputStream der Rechnung</li>
+ * </ol>
+ * Damit laufen die Vorbereitung der nächsten und das Schreiben der vorherigen Rechnungen gleichzeitig mit dem
+ * Layout, und langsame OutputStreams (z.B. Netzwerk) blockieren keine Layout-Threads. Im Gegensatz zum {@link
+ * InvoiceBatchGenerator} werden die PDFs dafür vollständig im Speicher gehalten, bevor sie geschrieben werden.
+ * <p>
+ * Jede Queue fasst {@code 2 * parallelism} der folgenden Stufe. Der Eingabe-Stream wird deshalb nur so schnell
+ * gelesen, wie die Rechnungen abgearbeitet werden. Fehler bei einzelnen Rechnungen brechen den Lauf nicht ab, sondern
+ * werden im {@link InvoiceBatchResult} gesammelt, zusammen mit den Messungen jeder Stufe ({@link
+ * InvoiceBatchResult#getStageStatistics()}).
+ * <p>
+ * Wie beim {@link InvoiceBatchGenerator} wird die Konfiguration des Generators beim Erstellen eingefroren.
+ */
+public class InvoicePipeline {
+
+	private static final int QUEUE_CAPACITY_PER_WORKER = 2;
+	private static final int POOLED_CHUNKS_PER_INVOICE = 4;
+	private static final int AUXILIARY_STAGE_DIVISOR = 4;
+
+	@NonNull
+	private static final Job END = new Job(-1, null);
+
+	@NonNull
+	private final InvoiceGenerator invoiceGenerator;
+	@NonNull
+	private final InvoiceValidator validator;
+	private final int prepareParallelism;
+	private final int layoutParallelism;
+	private final int writeParallelism;
+	@NonNull
+	private final BufferPool bufferPool;
+
+	/**
+	 * Erstellt eine Pipeline mit einem Layout-Thread pro Prozessor und je einem Viertel davon (mindestens einem) für
+	 * die Vorbereitung und das Schreiben.
+	 */
+	public InvoicePipeline(@NonNull InvoiceGenerator invoiceGenerator) {
+		this(
+			invoiceGenerator,
+			auxiliaryParallelism(Runtime.getRuntime().availableProcessors()),
+			Runtime.getRuntime().availableProcessors(),
+			auxiliaryParallelism(Runtime.getRuntime().availableProcessors()));
+	}
+
+	/**
+	 * Erstellt eine Pipeline.
+	 *
+	 * @param invoiceGenerator Generator, der von allen Threads geteilt wird. Seine Konfiguration wird eingefroren.
+	 * @param prepareParallelism Anzahl Threads für {@link PipelineStage#PREPARE}
+	 * @param layoutParallelism Anzahl Threads für {@link PipelineStage#LAYOUT}
+	 * @param writeParallelism Anzahl Threads für {@link PipelineStage#WRITE}
+	 */
+	public InvoicePipeline(
+		@NonNull InvoiceGenerator invoiceGenerator,
+		int prepareParallelism,
+		int layoutParallelism,
+		int writeParallelism) {
+
+		checkParallelism("prepareParallelism", prepareParallelism);
+		checkParallelism("layoutParallelism", layoutParallelism);
+		checkParallelism("writeParallelism", writeParallelism);
+
+		this.invoiceGenerator = invoiceGenerator;
+		this.validator = new InvoiceValidator(invoiceGenerator.getConfiguration());
+		this.prepareParallelism = prepareParallelism;
+		this.layoutParallelism = layoutParallelism;
+		this.writeParallelism = writeParallelism;
+
+		// enough for all PDFs between the layout and the write stage
+		int invoicesInMemory = layoutParallelism + writeParallelism * (QUEUE_CAPACITY_PER_WORKER + 1);
+		this.bufferPool = new BufferPool(invoicesInMemory * POOLED_CHUNKS_PER_INVOICE);
+
+		invoiceGenerator.getConfiguration().freeze();
+	}
+
+	private static int auxiliaryParallelism(int processors) {
+		return Math.max(1, processors / AUXILIARY_STAGE_DIVISOR);
+	}
+
+	private static void checkParallelism(@NonNull String name, int parallelism) {
+		if (parallelism < 1) {
+			throw new IllegalArgumentException(name + " must be at least 1, was " + parallelism);
+		}
+	}
+
+	/**
+	 * Generiert alle Rechnungen des Streams.
+	 *
+	 * @param invoices die zu generierenden Rechnungen
+	 * @param outputStreamFactory liefert pro Rechnung den Stream, in den das PDF geschrieben wird. Der Stream wird
+	 * nach dem Schreiben geschlossen. Wird auf den Threads von {@link PipelineStage#WRITE} aufgerufen.
+	 * @return Zusammenfassung mit allen fehlgeschlagenen Rechnungen und den Messungen pro Stufe
+	 */
+	@NonNull
+	public InvoiceBatchResult generateAll(
+		@NonNull Stream<Invoice> invoices,
+		@NonNull Function<Invoice, OutputStream> outputStreamFactory) {
+
+		return generateAll(invoices, outputStreamFactory, result -> {
+		});
+	}
+
+	/**
+	 * Generiert alle Rechnungen des Streams.
+	 *
+	 * @param invoices die zu generierenden Rechnungen
+	 * @param outputStreamFactory liefert pro Rechnung den Stream, in den das PDF geschrieben wird. Der Stream wird
+	 * nach dem Schreiben geschlossen. Wird auf den Threads von {@link PipelineStage#WRITE} aufgerufen.
+	 * @param resultConsumer wird für jede Rechnung mit dem Resultat aufgerufen, sobald diese fertig oder in einer
+	 * Stufe fehlgeschlagen ist. Wird auf den Threads der Stufen aufgerufen und muss deshalb thread-safe sein. Wirft
+	 * er bei einer fertigen Rechnung eine Exception, gilt diese Rechnung als fehlgeschlagen.
+	 * @return Zusammenfassung mit allen fehlgeschlagenen Rechnungen und den Messungen pro Stufe
+	 */
+	@NonNull
+	public InvoiceBatchResult generateAll(
+		@NonNull Stream<Invoice> invoices,
+		@NonNull Function<Invoice, OutputStream> outputStreamFactory,
+		@NonNull Consumer<InvoiceResult> resultConsumer) {
+
+		long start = System.nanoTime();
+
+		Results results = new Results(resultConsumer);
+		Stage write = new Stage(PipelineStage.WRITE, writeParallelism, null, results,
+			job -> write(job, outputStreamFactory));
+		Stage layout = new Stage(PipelineStage.LAYOUT, layoutParallelism, write, results, this::layout);
+		Stage prepare = new Stage(PipelineStage.PREPARE, prepareParallelism, layout, results, this::prepare);
+
+		try {
+			write.start();
+			layout.start();
+			prepare.start();
+
+			long index = 0;
+			Iterator<Invoice> iterator = invoices.iterator();
+			while (iterator.hasNext()) {
+				prepare.input.put(new Job(index++, iterator.next()));
+			}
+			prepare.end();
+
+			prepare.awaitTermination();
+			layout.awaitTermination();
+			write.awaitTermination();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InvoiceGeneratorRuntimeException("Pipeline generation interrupted", e);
+		} finally {
+			prepare.shutdownNow();
+			layout.shutdownNow();
+			write.shutdownNow();
+		}
+
+		Map<PipelineStage, StageStatistics> stageStatistics = new EnumMap<>(PipelineStage.class);
+		for (Stage stage : new Stage[] { prepare, layout, write }) {
+			stageStatistics.put(stage.stage, stage.snapshot());
+		}
+
+		return new InvoiceBatchResult(
+			results.successCount.sum(),
+			new ArrayList<>(results.failures),
+			System.nanoTime() - start,
+			stageStatistics);
+	}
+
+	private void prepare(@NonNull Job job) throws InvoiceGeneratorException {
+		Invoice invoice = job.getInvoice();
+		validator.check(invoice);
+
+		OnPageHandler onPageHandler = invoiceGenerator.createOnPageHandler(invoice);
+		onPageHandler.prepare();
+		job.onPageHandler = onPageHandler;
+	}
+
+	private void layout(@NonNull Job job) throws InvoiceGeneratorException {
+		Invoice invoice = job.getInvoice();
+		OnPageHandler onPageHandler = job.onPageHandler;
+		if (onPageHandler == null) {
+			throw new IllegalStateException("Invoice " + job.index + " has not been prepared");
+		}
+
+		job.pdf = new ChunkedOutputStream(bufferPool);
+		invoiceGenerator.generate(job.getPdf(), onPageHandler, pdfGenerator ->
+			invoiceGenerator.addContent(pdfGenerator, invoice, invoice.getPositionen().iterator()));
+		job.onPageHandler = null;
+	}
+
+	private static void write(
+		@NonNull Job job,
+		@NonNull Function<Invoice, OutputStream> outputStreamFactory) throws IOException {
+
+		try (OutputStream outputStream = outputStreamFactory.apply(job.getInvoice())) {
+			job.getPdf().writeTo(outputStream);
+		} finally {
+			job.releasePdf();
+		}
+	}
+
+	public int getPrepareParallelism() {
+		return prepareParallelism;
+	}
+
+	public int getLayoutParallelism() {
+		return layoutParallelism;
+	}
+
+	public int getWriteParallelism() {
+		return writeParallelism;
+	}
+
+	@NonNull
+	public InvoiceGenerator getInvoiceGenerator() {
+		return invoiceGenerator;
+	}
+
+	/**
+	 * Eine Rechnung auf dem Weg durch die Stufen. Wird über die Queues von genau einem Thread zum nächsten
+	 * weitergegeben.
+	 */
+	private static final class Job {
+
+		private final long index;
+		@Nullable
+		private final Invoice invoice;
+		@Nullable
+		private OnPageHandler onPageHandler = null;
+		@Nullable
+		private ChunkedOutputStream pdf = null;
+
+		private Job(long index, @Nullable Invoice invoice) {
+			this.index = index;
+			this.invoice = invoice;
+		}
+
+		@NonNull
+		private Invoice getInvoice() {
+			if (invoice == null) {
+				throw new IllegalStateException("END marker has no invoice");
+			}
+
+			return invoice;
+		}
+
+		@NonNull
+		private ChunkedOutputStream getPdf() {
+			if (pdf == null) {
+				throw new IllegalStateException("Invoice " + index + " has not been generated");
+			}
+
+			return pdf;
+		}
+
+		/**
+		 * Gibt die Puffer des PDFs an den Pool zurück, falls es bereits generiert wurde.
+		 */
+		private void releasePdf() {
+			if (pdf != null) {
+				pdf.release();
+				pdf = null;
+			}
+		}
+	}
+
+	@FunctionalInterface
+	private interface StageTask {
+
+		void process(@NonNull Job job) throws InvoiceGeneratorException, IOException;
+	}
+
+	private static final class Results {
+
+		@NonNull
+		private final Consumer<InvoiceResult> resultConsumer;
+		@NonNull
+		private final LongAdder successCount = new LongAdder();
+		@NonNull
+		private final Queue<InvoiceResult> failures = new ConcurrentLinkedQueue<>();
+
+		private Results(@NonNull Consumer<InvoiceResult> resultConsumer) {
+			this.resultConsumer = resultConsumer;
+		}
+
+		/**
+		 * Meldet eine fertige Rechnung. Wirft der Consumer eine Exception, wird die Rechnung stattdessen mit dieser
+		 * als fehlgeschlagen gezählt (ohne den Consumer nochmals aufzurufen), damit der Thread der Stufe weiterläuft.
+		 */
+		void success(@NonNull Job job) {
+			try {
+				resultConsumer.accept(new InvoiceResult(job.index, job.getInvoice(), null));
+				successCount.increment();
+			} catch (RuntimeException e) {
+				failures.add(new InvoiceResult(job.index, job.getInvoice(), e));
+			}
+		}
+
+		/**
+		 * Meldet eine fehlgeschlagene Rechnung. Eine Exception des Consumers wird dem Fehler der Rechnung als
+		 * {@link Throwable#addSuppressed(Throwable) suppressed} angehängt.
+		 */
+		void failure(@NonNull Job job, @NonNull Exception error) {
+			job.releasePdf();
+			job.onPageHandler = null;
+
+			InvoiceResult result = new InvoiceResult(job.index, job.getInvoice(), error);
+			failures.add(result);
+			try {
+				resultConsumer.accept(result);
+			} catch (RuntimeException e) {
+				error.addSuppressed(e);
+			}
+		}
+	}
+
+	/**
+	 * Die Threads einer Stufe mit ihrer Eingabe-Queue. Das Ende der Eingabe wird mit einem {@link #END} pro Thread
+	 * signalisiert. Der letzte Thread, der eine Stufe verlässt, signalisiert das Ende der nächsten Stufe.
+	 */
+	private static final class Stage {
+
+		@NonNull
+		private final PipelineStage stage;
+		private final int parallelism;
+		@NonNull
+		private final BlockingQueue<Job> input;
+		@Nullable
+		private final Stage next;
+		@NonNull
+		private final Results results;
+		@NonNull
+		private final StageTask task;
+		@NonNull
+		private final ExecutorService executor;
+		@NonNull
+		private final AtomicInteger runningWorkers;
+
+		private final LongAdder count = new LongAdder();
+		private final LongAdder totalNanos = new LongAdder();
+		private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+		private final LongAdder failureCount = new LongAdder();
+		private final LongAdder idleNanos = new LongAdder();
+		private final LongAdder blockedNanos = new LongAdder();
+
+		private Stage(
+			@NonNull PipelineStage stage,
+			int parallelism,
+			@Nullable Stage next,
+			@NonNull Results results,
+			@NonNull StageTask task) {
+
+			this.stage = stage;
+			this.parallelism = parallelism;
+			this.input = new ArrayBlockingQueue<>(parallelism * QUEUE_CAPACITY_PER_WORKER);
+			this.next = next;
+			this.results = results;
+			this.task = task;
+			this.executor = Executors.newFixedThreadPool(parallelism, new WorkerThreadFactory(
+				"invoice-pipeline-", '-' + stage.name().toLowerCase(Locale.ROOT) + '-'));
+			this.runningWorkers = new AtomicInteger(parallelism);
+		}
+
+		private void start() {
+			for (int i = 0; i < parallelism; i++) {
+				executor.execute(this::work);
+			}
+			executor.shutdown();
+		}
+
+		private void work() {
+			try {
+				while (true) {
+					long waiting = System.nanoTime();
+					Job job = input.take();
+					long started = System.nanoTime();
+					idleNanos.add(started - waiting);
+					if (job == END) {
+						return;
+					}
+
+					boolean processed = process(job);
+					long finished = System.nanoTime();
+					count.increment();
+					totalNanos.add(finished - started);
+					maxNanos.accumulate(finished - started);
+
+					if (processed) {
+						if (next == null) {
+							results.success(job);
+						} else {
+							next.input.put(job);
+							blockedNanos.add(System.nanoTime() - finished);
+						}
+					}
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			} finally {
+				if (runningWorkers.decrementAndGet() == 0 && next != null) {
+					next.end();
+				}
+			}
+		}
+
+		private boolean process(@NonNull Job job) {
+			try {
+				task.process(job);
+
+				return true;
+			} catch (InvoiceGeneratorException | IOException | RuntimeException e) {
+				failureCount.increment();
+				results.failure(job, e);
+
+				return false;
+			}
+		}
+
+		/**
+		 * Signalisiert allen Threads der Stufe das Ende der Eingabe.
+		 */
+		private void end() {
+			try {
+				for (int i = 0; i < parallelism; i++) {
+					input.put(END);
+				}
+			} catch (InterruptedException e) {
+				// the pipeline is being aborted
+				Thread.currentThread().interrupt();
+			}
+		}
+
+		private void awaitTermination() throws InterruptedException {
+			boolean terminated = false;
+			while (!terminated) {
+				terminated = executor.awaitTermination(1, TimeUnit.MINUTES);
+			}
+		}
+
+		private void shutdownNow() {
+			executor.shutdownNow();
+		}
+
+		@NonNull
+		private StageStatistics snapshot() {
+			return new StageStatistics(
+				stage,
+				parallelism,
+				new TimingStatistics(
+					count.sum(),
+					TimeUnit.NANOSECONDS.toMicros(totalNanos.sum()),
+					TimeUnit.NANOSECONDS.toMicros(maxNanos.get())),
+				failureCount.sum(),
+				TimeUnit.NANOSECONDS.toMicros(idleNanos.sum()),
+				TimeUnit.NANOSECONDS.toMicros(blockedNanos.sum()));
+		}
+	}
+}
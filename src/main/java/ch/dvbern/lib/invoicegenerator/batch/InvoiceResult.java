@@ -0,0 +1,74 @@
+/*
+ * Copyright (C) 2019 DV Bern AG, Switzerland
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ch.dvbern.lib.invoicegenerator.batch;
+
+import java.util.StringJoiner;
+
+import ch.dvbern.lib.invoicegenerator.dto.Invoice;
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Resultat der Generierung einer einzelnen Rechnung innerhalb eines Batches.
+ */
+public final class InvoiceResult {
+
+	private final long index;
+	@NonNull
+	private final Invoice invoice;
+	@Nullable
+	private final Exception error;
+
+	InvoiceResult(long index, @NonNull Invoice invoice, @Nullable Exception error) {
+		this.index = index;
+		this.invoice = invoice;
+		this.error = error;
+	}
+
+	/**
+	 * @return Position der Rechnung im Eingabe-Stream (0-basiert)
+	 */
+	public long getIndex() {
+		return index;
+	}
+
+	@NonNull
+	public Invoice getInvoice() {
+		return invoice;
+	}
+
+	/**
+	 * @return Der Fehler, welcher die Generierung dieser Rechnung verhindert hat, oder null bei Erfolg
+	 */
+	@Nullable
+	public Exception getError() {
+		return error;
+	}
+
+	public boolean isSuccess() {
+		return error == null;
+	}
+
+	@Override
+	@NonNull
+	public String toString() {
+		return new StringJoiner(", ", InvoiceResult.class.getSimpleName() + '[', "]")
+			.add("index=" + index)
+			.add("error=" + error)
+			.toString();
+	}
+}
@@ -0,0 +1,36 @@
+/*
+ * Copyright (C) 2019 DV Bern AG, Switzerland
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ch.dvbern.lib.invoicegenerator.batch;
+
+/**
+ * Die Stufen der {@link InvoicePipeline}.
+ */
+public enum PipelineStage {
+	/**
+	 * Validierung der Rechnung und Vorbereitung der Komponenten, z.B. Kodierung des QR-Codes, Zusammenfassung und
+	 * Adresse. Braucht keinen PdfWriter.
+	 */
+	PREPARE,
+	/**
+	 * Layout der Rechnung in ein PDF im Speicher, inklusive Komprimierung.
+	 */
+	LAYOUT,
+	/**
+	 * Öffnen des OutputStreams und Schreiben des fertigen PDFs.
+	 */
+	WRITE
+}
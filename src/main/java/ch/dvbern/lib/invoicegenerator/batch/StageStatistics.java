@@ -0,0 +1,112 @@
+/*
+ * Copyright (C) 2019 DV Bern AG, Switzerland
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ch.dvbern.lib.invoicegenerator.batch;
+
+import java.util.StringJoiner;
+
+import ch.dvbern.lib.invoicegenerator.metrics.TimingStatistics;
+import org.jspecify.annotations.NonNull;
+
+/**
+ * Messungen einer Stufe der {@link InvoicePipeline} während eines Laufs. Zeiten sind in Mikrosekunden und über alle
+ * Threads der Stufe summiert.
+ * <p>
+ * Wartet eine Stufe lange auf Eingaben ({@link #getIdleMicros()}), ist eine vorgelagerte Stufe zu langsam. Ist sie
+ * lange blockiert ({@link #getBlockedMicros()}), weil die Queue zur nächsten Stufe voll ist, ist die nachgelagerte Stufe
+ * zu langsam.
+ */
+public final class StageStatistics {
+
+	@NonNull
+	private final PipelineStage stage;
+	private final int parallelism;
+	@NonNull
+	private final TimingStatistics processing;
+	private final long failureCount;
+	private final long idleMicros;
+	private final long blockedMicros;
+
+	StageStatistics(
+		@NonNull PipelineStage stage,
+		int parallelism,
+		@NonNull TimingStatistics processing,
+		long failureCount,
+		long idleMicros,
+		long blockedMicros) {
+
+		this.stage = stage;
+		this.parallelism = parallelism;
+		this.processing = processing;
+		this.failureCount = failureCount;
+		this.idleMicros = idleMicros;
+		this.blockedMicros = blockedMicros;
+	}
+
+	@NonNull
+	public PipelineStage getStage() {
+		return stage;
+	}
+
+	/**
+	 * @return Anzahl Threads der Stufe
+	 */
+	public int getParallelism() {
+		return parallelism;
+	}
+
+	/**
+	 * @return Anzahl, Summe und Maximum der Verarbeitungszeit pro Rechnung
+	 */
+	@NonNull
+	public TimingStatistics getProcessing() {
+		return processing;
+	}
+
+	/**
+	 * @return Anzahl Rechnungen, welche in dieser Stufe fehlgeschlagen sind
+	 */
+	public long getFailureCount() {
+		return failureCount;
+	}
+
+	/**
+	 * @return Zeit, in der die Threads auf die nächste Rechnung gewartet haben
+	 */
+	public long getIdleMicros() {
+		return idleMicros;
+	}
+
+	/**
+	 * @return Zeit, in der die Threads gewartet haben, bis die nächste Stufe eine Rechnung übernehmen konnte
+	 */
+	public long getBlockedMicros() {
+		return blockedMicros;
+	}
+
+	@Override
+	@NonNull
+	public String toString() {
+		return new StringJoiner(", ", StageStatistics.class.getSimpleName() + '[', "]")
+			.add("stage=" + stage)
+			.add("parallelism=" + parallelism)
+			.add("processing=" + processing)
+			.add("failureCount=" + failureCount)
+			.add("idleMicros=" + idleMicros)
+			.add("blockedMicros=" + blockedMicros)
+			.toString();
+	}
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright (C) 2019 DV Bern AG, Switzerland
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ch.dvbern.lib.invoicegenerator.batch;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jspecify.annotations.NonNull;
+
+/**
+ * Erstellt nummerierte Daemon-Threads, z.B. {@code invoice-batch-1-worker-3}.
+ */
+final class WorkerThreadFactory implements ThreadFactory {
+
+	private static final AtomicInteger POOL_NUMBER = new AtomicInteger(1);
+
+	@NonNull
+	private final String prefix;
+	@NonNull
+	private final AtomicInteger threadNumber = new AtomicInteger(1);
+
+	/**
+	 * @param poolPrefix Beginn des Namens, gefolgt von der Nummer des Pools
+	 * @param threadPrefix folgt auf die Nummer des Pools, gefolgt von der Nummer des Threads
+	 */
+	WorkerThreadFactory(@NonNull String poolPrefix, @NonNull String threadPrefix) {
+		this.prefix = poolPrefix + POOL_NUMBER.getAndIncrement() + threadPrefix;
+	}
+
+	@Override
+	@NonNull
+	public Thread newThread(@NonNull Runnable runnable) {
+		Thread thread = new Thread(runnable, prefix + threadNumber.getAndIncrement());
+		thread.setDaemon(true);
+
+		return thread;
+	}
+}
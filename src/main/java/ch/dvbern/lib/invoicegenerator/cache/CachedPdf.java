@@ -0,0 +1,85 @@
+/*
+ * Copyright (C) 2019 DV Bern AG, Switzerland
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ch.dvbern.lib.invoicegenerator.cache;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.StringJoiner;
+
+import org.jspecify.annotations.NonNull;
+
+/**
+ * Ein PDF aus dem {@link InvoiceResultCache}. Der Inhalt wird von allen Aufrufern geteilt und kann deshalb nur gelesen
+ * werden.
+ */
+public final class CachedPdf {
+
+	@NonNull
+	private final InvoiceCacheKey key;
+	@NonNull
+	private final byte[] content;
+
+	CachedPdf(@NonNull InvoiceCacheKey key, @NonNull byte[] content) {
+		this.key = key;
+		this.content = content.clone();
+	}
+
+	@NonNull
+	public InvoiceCacheKey getKey() {
+		return key;
+	}
+
+	/**
+	 * @return ein starker ETag für HTTP: identische Rechnungen ergeben byte-identische PDFs mit demselben ETag
+	 */
+	@NonNull
+	public String getETag() {
+		return '"' + key.toHex() + '"';
+	}
+
+	public int getSize() {
+		return content.length;
+	}
+
+	@NonNull
+	public InputStream toInputStream() {
+		return new ByteArrayInputStream(content);
+	}
+
+	public void writeTo(@NonNull OutputStream out) throws IOException {
+		out.write(content);
+	}
+
+	/**
+	 * @return eine Kopie des Inhalts
+	 */
+	@NonNull
+	public byte[] toByteArray() {
+		return content.clone();
+	}
+
+	@Override
+	@NonNull
+	public String toString() {
+		return new StringJoiner(", ", CachedPdf.class.getSimpleName() + '[', "]")
+			.add("key=" + key)
+			.add("size=" + content.length)
+			.toString();
+	}
+}
@@ -0,0 +1,324 @@
+/*
+ * Copyright (C) 2019 DV Bern AG, Switzerland
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ch.dvbern.lib.invoicegenerator.cache;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import ch.dvbern.lib.invoicegenerator.dto.Invoice;
+import ch.dvbern.lib.invoicegenerator.dto.SummaryEntry;
+import ch.dvbern.lib.invoicegenerator.dto.einzahlungsschein.Einzahlungsschein;
+import ch.dvbern.lib.invoicegenerator.dto.einzahlungsschein.OrangerEinzahlungsschein;
+import ch.dvbern.lib.invoicegenerator.dto.einzahlungsschein.OrangerEinzahlungsscheinBank;
+import ch.dvbern.lib.invoicegenerator.dto.einzahlungsschein.QRCodeEinzahlungsschein;
+import ch.dvbern.lib.invoicegenerator.dto.position.BetragsPosition;
+import ch.dvbern.lib.invoicegenerator.dto.position.H1Position;
+import ch.dvbern.lib.invoicegenerator.dto.position.H2Position;
+import ch.dvbern.lib.invoicegenerator.dto.position.Position;
+import ch.dvbern.lib.invoicegenerator.dto.position.RechnungsPosition;
+import ch.dvbern.lib.invoicegenerator.dto.position.RechnungsPositionColumnTitle;
+import ch.dvbern.lib.invoicegenerator.errors.InvoiceGeneratorRuntimeException;
+import net.codecrete.qrbill.generator.Address;
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * SHA-256 Hash über den Inhalt einer Rechnung und die Version der Konfiguration, z.B. als Schlüssel des {@link
+ * InvoiceResultCache} oder als ETag.
+ * <p>
+ * Berücksichtigt werden alle Felder der Rechnung, der Positionen und des Einzahlungsscheins. Von eigenen {@link
+ * Position} und {@link Einzahlungsschein} Klassen, auch Unterklassen der mitgelieferten, wird der Klassenname und
+ * {@link Object#toString()} verwendet: solche Rechnungen sind nur dann korrekt cachebar, wenn toString() alle
+ * dargestellten Werte enthält. Erbt die Klasse toString() von {@link Object} oder von einer Klasse dieser Bibliothek,
+ * erhält die Rechnung einen eindeutigen Schlüssel und wird nie aus dem Cache geliefert. Die Konfiguration selbst
+ * enthält Code (Strategien, Komponenten) und kann nicht gehasht werden. Stattdessen wird eine Version übergeben, welche bei jeder Änderung der
+ * Konfiguration angepasst werden muss.
+ */
+public final class InvoiceCacheKey {
+
+	private static final String ALGORITHM = "SHA-256";
+	private static final int DOCUMENT_ID_LENGTH = 16;
+	private static final char[] HEX = "0123456789abcdef".toCharArray();
+	private static final int NIBBLE = 4;
+	private static final int NIBBLE_MASK = 0xF;
+	// the positions and Einzahlungsscheine of this library
+	private static final String DTO_PACKAGE = Invoice.class.getPackage().getName() + '.';
+
+	/**
+	 * Ob toString() weder von {@link Object} noch von einer Klasse dieser Bibliothek geerbt wird, deren toString()
+	 * zusätzliche Felder einer Unterklasse nicht kennt.
+	 */
+	@NonNull
+	private static final ClassValue<Boolean> OWN_TO_STRING = new ClassValue<Boolean>() {
+		@Override
+		@NonNull
+		protected Boolean computeValue(@NonNull Class<?> type) {
+			try {
+				Class<?> declaring = type.getMethod("toString").getDeclaringClass();
+
+				return declaring != Object.class && !declaring.getName().startsWith(DTO_PACKAGE);
+			} catch (NoSuchMethodException e) {
+				return false;
+			}
+		}
+	};
+
+	@NonNull
+	private final byte[] hash;
+
+	private InvoiceCacheKey(@NonNull byte[] hash) {
+		this.hash = hash;
+	}
+
+	/**
+	 * @param configurationVersion identifiziert die Konfiguration, mit welcher die Rechnung generiert wird
+	 */
+	@NonNull
+	public static InvoiceCacheKey of(@NonNull String configurationVersion, @NonNull Invoice invoice) {
+		Hasher hasher = new Hasher();
+		hasher.putString(configurationVersion);
+
+		hasher.putString(invoice.getTitle());
+		putColumnTitle(hasher, invoice.getRechnungsPositionColumnTitle());
+		putSummary(hasher, invoice.getSummary());
+		hasher.putStrings(invoice.getEinleitung());
+		hasher.putStrings(invoice.getAdresse());
+		putEinzahlungsschein(hasher, invoice.getEinzahlungsschein());
+		hasher.putLong(invoice.getPositionen().size());
+		for (Position position : invoice.getPositionen()) {
+			putPosition(hasher, position);
+		}
+		putSummary(hasher, invoice.getTotal());
+		hasher.putStrings(invoice.getKonditionen());
+
+		return new InvoiceCacheKey(hasher.digest());
+	}
+
+	private static void putColumnTitle(@NonNull Hasher hasher, @NonNull RechnungsPositionColumnTitle columnTitle) {
+		hasher.putString(columnTitle.getLeistung());
+		hasher.putString(columnTitle.getMenge());
+		hasher.putString(columnTitle.getPreis());
+		hasher.putString(columnTitle.getTotal());
+	}
+
+	private static void putSummary(@NonNull Hasher hasher, @NonNull List<SummaryEntry> summary) {
+		hasher.putLong(summary.size());
+		for (SummaryEntry entry : summary) {
+			hasher.putString(entry.getLabel());
+			hasher.putString(entry.getValue());
+			hasher.putBoolean(entry.isBold());
+			hasher.putBoolean(entry.isUnderlined());
+		}
+	}
+
+	private static void putEinzahlungsschein(@NonNull Hasher hasher, @Nullable Einzahlungsschein einzahlungsschein) {
+		if (einzahlungsschein == null) {
+			hasher.putString(null);
+			return;
+		}
+
+		hasher.putString(einzahlungsschein.getClass().getName());
+		hasher.putString(einzahlungsschein.getReferenzNr().toString());
+		hasher.putString(einzahlungsschein.getBetrag().toString());
+		hasher.putString(einzahlungsschein.getKonto());
+
+		// subclasses may render additional fields and are only described by their toString()
+		Class<?> type = einzahlungsschein.getClass();
+		if (type == QRCodeEinzahlungsschein.class) {
+			QRCodeEinzahlungsschein qrCode = (QRCodeEinzahlungsschein) einzahlungsschein;
+			putAddress(hasher, qrCode.getEinzahlungFuer());
+			putAddress(hasher, qrCode.getEinzahlungVon());
+			hasher.putString(qrCode.getLanguage().name());
+			hasher.putString(qrCode.getAdditionalText());
+		} else if (type == OrangerEinzahlungsschein.class || type == OrangerEinzahlungsscheinBank.class) {
+			OrangerEinzahlungsschein oranger = (OrangerEinzahlungsschein) einzahlungsschein;
+			hasher.putStrings(oranger.getEinzahlungFuer());
+			hasher.putStrings(oranger.getEinbezahltVon());
+			// contains the konto as printed, which the protected constructor sets independently of getKonto()
+			hasher.putString(oranger.getKodierzeile());
+			if (oranger instanceof OrangerEinzahlungsscheinBank) {
+				hasher.putStrings(((OrangerEinzahlungsscheinBank) oranger).getZugunstenVon());
+			}
+		} else {
+			hasher.putDescription(einzahlungsschein);
+		}
+	}
+
+	private static void putAddress(@NonNull Hasher hasher, @NonNull Address address) {
+		hasher.putString(String.valueOf(address.getType()));
+		hasher.putString(address.getName());
+		hasher.putString(address.getAddressLine1());
+		hasher.putString(address.getAddressLine2());
+		hasher.putString(address.getStreet());
+		hasher.putString(address.getHouseNo());
+		hasher.putString(address.getPostalCode());
+		hasher.putString(address.getTown());
+		hasher.putString(address.getCountryCode());
+	}
+
+	private static void putPosition(@NonNull Hasher hasher, @NonNull Position position) {
+		hasher.putString(position.getClass().getName());
+
+		// subclasses may render additional fields and are only described by their toString()
+		Class<?> type = position.getClass();
+		if (type == RechnungsPosition.class) {
+			RechnungsPosition rechnungsPosition = (RechnungsPosition) position;
+			hasher.putString(rechnungsPosition.getLeistung());
+			hasher.putString(rechnungsPosition.getMenge());
+			hasher.putString(rechnungsPosition.getPreis());
+			hasher.putString(rechnungsPosition.getTotal());
+		} else if (type == BetragsPosition.class) {
+			BetragsPosition betragsPosition = (BetragsPosition) position;
+			hasher.putString(betragsPosition.getLeistung());
+			hasher.putLong(betragsPosition.getMengeInHundertstel());
+			hasher.putLong(betragsPosition.getPreisInRappen());
+			hasher.putLong(betragsPosition.getTotalInRappen());
+		} else if (type == H1Position.class) {
+			hasher.putString(((H1Position) position).getBeschrieb());
+		} else if (type == H2Position.class) {
+			hasher.putString(((H2Position) position).getBeschrieb());
+		} else {
+			hasher.putDescription(position);
+		}
+	}
+
+	/**
+	 * @return die ersten 16 Bytes des Hashes, als ID im Trailer des PDFs
+	 */
+	@NonNull
+	public byte[] getDocumentId() {
+		return Arrays.copyOf(hash, DOCUMENT_ID_LENGTH);
+	}
+
+	/**
+	 * @return der Hash als 64 Zeichen Hex-String
+	 */
+	@NonNull
+	public String toHex() {
+		char[] chars = new char[hash.length * 2];
+		for (int i = 0; i < hash.length; i++) {
+			chars[2 * i] = HEX[(hash[i] >> NIBBLE) & NIBBLE_MASK];
+			chars[2 * i + 1] = HEX[hash[i] & NIBBLE_MASK];
+		}
+
+		return new String(chars);
+	}
+
+	@Override
+	public boolean equals(@Nullable Object o) {
+		if (this == o) {
+			return true;
+		}
+
+		if (o == null || getClass() != o.getClass()) {
+			return false;
+		}
+
+		return Arrays.equals(hash, ((InvoiceCacheKey) o).hash);
+	}
+
+	@Override
+	public int hashCode() {
+		return Arrays.hashCode(hash);
+	}
+
+	@Override
+	@NonNull
+	public String toString() {
+		return toHex();
+	}
+
+	/**
+	 * Schreibt die Werte eindeutig in den Digest: Strings mit ihrer Länge, damit z.B. ["ab", "c"] und ["a", "bc"]
+	 * verschiedene Hashes ergeben.
+	 */
+	private static final class Hasher {
+
+		private static final int NULL_LENGTH = -1;
+		private static final int LONG_BYTES = 8;
+		private static final int BYTE_BITS = 8;
+
+		@NonNull
+		private final MessageDigest digest;
+		@NonNull
+		private final byte[] buffer = new byte[LONG_BYTES];
+
+		private Hasher() {
+			try {
+				digest = MessageDigest.getInstance(ALGORITHM);
+			} catch (NoSuchAlgorithmException e) {
+				throw new InvoiceGeneratorRuntimeException(ALGORITHM + " not available", e);
+			}
+		}
+
+		private void putLong(long value) {
+			long remaining = value;
+			for (int i = LONG_BYTES - 1; i >= 0; i--) {
+				buffer[i] = (byte) remaining;
+				remaining >>= BYTE_BITS;
+			}
+			digest.update(buffer);
+		}
+
+		/**
+		 * Schreibt toString() des Werts, falls seine Klasse toString() selbst beschreibt, sonst einen zufälligen Wert.
+		 */
+		private void putDescription(@NonNull Object value) {
+			if (OWN_TO_STRING.get(value.getClass())) {
+				putString(value.toString());
+			} else {
+				putString(UUID.randomUUID().toString());
+			}
+		}
+
+		private void putBoolean(boolean value) {
+			digest.update((byte) (value ? 1 : 0));
+		}
+
+		private void putString(@Nullable String value) {
+			if (value == null) {
+				putLong(NULL_LENGTH);
+				return;
+			}
+
+			byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+			putLong(bytes.length);
+			digest.update(bytes);
+		}
+
+		private void putStrings(@Nullable List<String> values) {
+			if (values == null) {
+				putLong(NULL_LENGTH);
+				return;
+			}
+
+			putLong(values.size());
+			for (String value : values) {
+				putString(value);
+			}
+		}
+
+		@NonNull
+		private byte[] digest() {
+			return digest.digest();
+		}
+	}
+}
@@ -0,0 +1,344 @@
+/*
+ * Copyright (C) 2019 DV Bern AG, Switzerland
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ch.dvbern.lib.invoicegenerator.cache;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+
+import ch.dvbern.lib.invoicegenerator.InvoiceGenerator;
+import ch.dvbern.lib.invoicegenerator.OnPageHandler;
+import ch.dvbern.lib.invoicegenerator.dto.Invoice;
+import ch.dvbern.lib.invoicegenerator.dto.InvoiceGeneratorConfiguration;
+import ch.dvbern.lib.invoicegenerator.errors.InvoiceGeneratorException;
+import ch.dvbern.lib.invoicegenerator.errors.InvoiceGeneratorRuntimeException;
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+
+/**
+ * Cache für generierte Rechnungen, z.B. für wiederholte Downloads im Kundenportal. Der Schlüssel ist ein Hash über
+ * den Inhalt der Rechnung und die Version der Konfiguration ({@link InvoiceCacheKey}).
+ * <p>
+ * Die PDFs werden in zwei Stufen gehalten:
+ * <ul>
+ *     <li>im Speicher, bis zur konfigurierten Anzahl Bytes. Die am längsten nicht verwendeten PDFs werden zuerst
+ *     verdrängt.</li>
+ *     <li>optional in einem Verzeichnis, eine Datei pro PDF. Das Verzeichnis wird nicht aufgeräumt und kann von
+ *     mehreren Prozessen geteilt werden.</li>
+ * </ul>
+ * Wird dieselbe Rechnung von mehreren Threads gleichzeitig angefordert, wird sie nur einmal generiert: die anderen
+ * Threads warten auf das Resultat.
+ * <p>
+ * Damit ein verdrängtes PDF beim erneuten Generieren byte-identisch ist, muss die Konfiguration ein festes
+ * Erstellungsdatum haben ({@link InvoiceGeneratorConfiguration#setCreationDate(Instant)}). Die Dokument-ID wird aus
+ * dem Schlüssel abgeleitet. Die Konfiguration wird beim Erstellen des Caches eingefroren.
+ */
+public class InvoiceResultCache {
+
+	private static final String PDF_SUFFIX = ".pdf";
+	private static final String TEMP_SUFFIX = ".tmp";
+
+	@NonNull
+	private final InvoiceGenerator invoiceGenerator;
+	@NonNull
+	private final String configurationVersion;
+	private final long maxMemoryBytes;
+	@Nullable
+	private final Path directory;
+
+	// access ordered, guarded by itself
+	@NonNull
+	private final Map<InvoiceCacheKey, CachedPdf> memory = new LinkedHashMap<>(16, 0.75F, true);
+	private long memoryBytes = 0;
+
+	@NonNull
+	private final ConcurrentMap<InvoiceCacheKey, CompletableFuture<CachedPdf>> inFlight = new ConcurrentHashMap<>();
+
+	private final LongAdder memoryHits = new LongAdder();
+	private final LongAdder diskHits = new LongAdder();
+	private final LongAdder renders = new LongAdder();
+	private final LongAdder sharedRenders = new LongAdder();
+
+	/**
+	 * Erstellt einen Cache, welcher die PDFs nur im Speicher hält.
+	 *
+	 * @param invoiceGenerator generiert die Rechnungen, seine Konfiguration wird eingefroren
+	 * @param configurationVersion muss bei jeder Änderung der Konfiguration angepasst werden
+	 * @param maxMemoryBytes Summe der Grössen der PDFs im Speicher
+	 */
+	public InvoiceResultCache(
+		@NonNull InvoiceGenerator invoiceGenerator,
+		@NonNull String configurationVersion,
+		long maxMemoryBytes) {
+
+		this(invoiceGenerator, configurationVersion, maxMemoryBytes, null);
+	}
+
+	/**
+	 * Erstellt einen Cache.
+	 *
+	 * @param invoiceGenerator generiert die Rechnungen, seine Konfiguration wird eingefroren
+	 * @param configurationVersion muss bei jeder Änderung der Konfiguration angepasst werden
+	 * @param maxMemoryBytes Summe der Grössen der PDFs im Speicher
+	 * @param directory falls nicht null, werden die PDFs zusätzlich in diesem Verzeichnis abgelegt. Es muss bereits
+	 * existieren.
+	 */
+	public InvoiceResultCache(
+		@NonNull InvoiceGenerator invoiceGenerator,
+		@NonNull String configurationVersion,
+		long maxMemoryBytes,
+		@Nullable Path directory) {
+
+		if (maxMemoryBytes < 0) {
+			throw new IllegalArgumentException("maxMemoryBytes must not be negative, was " + maxMemoryBytes);
+		}
+		Instant creationDate = invoiceGenerator.getConfiguration().getCreationDate();
+		if (creationDate == null) {
+			throw new IllegalArgumentException("Cached invoices must be reproducible, set a fixed creation date");
+		}
+
+		this.invoiceGenerator = invoiceGenerator;
+		// a new creation date changes every PDF
+		this.configurationVersion = configurationVersion + '@' + creationDate;
+		this.maxMemoryBytes = maxMemoryBytes;
+		this.directory = directory;
+
+		invoiceGenerator.getConfiguration().freeze();
+	}
+
+	/**
+	 * @return das PDF der Rechnung, aus dem Cache oder neu generiert
+	 * @throws InvoiceGeneratorException falls die Rechnung nicht generiert oder nicht im Verzeichnis abgelegt werden
+	 *                                   kann
+	 */
+	@NonNull
+	public CachedPdf get(@NonNull Invoice invoice) throws InvoiceGeneratorException {
+		InvoiceCacheKey key = InvoiceCacheKey.of(configurationVersion, invoice);
+
+		CachedPdf cached = getFromMemory(key);
+		if (cached != null) {
+			memoryHits.increment();
+			return cached;
+		}
+
+		CompletableFuture<CachedPdf> future = new CompletableFuture<>();
+		CompletableFuture<CachedPdf> running = inFlight.putIfAbsent(key, future);
+		if (running != null) {
+			sharedRenders.increment();
+			return await(key, running);
+		}
+
+		try {
+			CachedPdf pdf = load(key, invoice);
+			future.complete(pdf);
+
+			return pdf;
+		} catch (InvoiceGeneratorException | RuntimeException e) {
+			future.completeExceptionally(e);
+			throw e;
+		} finally {
+			inFlight.remove(key, future);
+		}
+	}
+
+	@NonNull
+	private CachedPdf load(@NonNull InvoiceCacheKey key, @NonNull Invoice invoice) throws InvoiceGeneratorException {
+		// another thread may have finished the same invoice between the lookup and the registration
+		CachedPdf cached = getFromMemory(key);
+		if (cached != null) {
+			memoryHits.increment();
+			return cached;
+		}
+
+		CachedPdf pdf = readFromDisk(key);
+		if (pdf != null) {
+			diskHits.increment();
+		} else {
+			pdf = render(key, invoice);
+			renders.increment();
+			writeToDisk(pdf);
+		}
+
+		putInMemory(pdf);
+
+		return pdf;
+	}
+
+	@NonNull
+	private CachedPdf render(@NonNull InvoiceCacheKey key, @NonNull Invoice invoice) throws InvoiceGeneratorException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream(invoiceGenerator.getOutputSizeHint().get());
+		OnPageHandler onPageHandler = invoiceGenerator.createOnPageHandler(invoice);
+
+		invoiceGenerator.generate(out, onPageHandler, pdfGenerator -> {
+			pdfGenerator.setDocumentId(key.getDocumentId());
+			invoiceGenerator.addContent(pdfGenerator, invoice, invoice.getPositionen().iterator());
+		});
+
+		return new CachedPdf(key, out.toByteArray());
+	}
+
+	@NonNull
+	private static CachedPdf await(
+		@NonNull InvoiceCacheKey key,
+		@NonNull CompletableFuture<CachedPdf> running) throws InvoiceGeneratorException {
+
+		try {
+			return running.get();
+		} catch (ExecutionException e) {
+			throw new InvoiceGeneratorException("Could not generate invoice " + key, e);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InvoiceGeneratorRuntimeException("Interrupted while waiting for invoice " + key, e);
+		}
+	}
+
+	@Nullable
+	private CachedPdf getFromMemory(@NonNull InvoiceCacheKey key) {
+		synchronized (memory) {
+			return memory.get(key);
+		}
+	}
+
+	private void putInMemory(@NonNull CachedPdf pdf) {
+		if (pdf.getSize() > maxMemoryBytes) {
+			return;
+		}
+
+		synchronized (memory) {
+			CachedPdf previous = memory.put(pdf.getKey(), pdf);
+			if (previous != null) {
+				memoryBytes -= previous.getSize();
+			}
+			memoryBytes += pdf.getSize();
+
+			Iterator<CachedPdf> eldest = memory.values().iterator();
+			while (memoryBytes > maxMemoryBytes) {
+				memoryBytes -= eldest.next().getSize();
+				eldest.remove();
+			}
+		}
+	}
+
+	@Nullable
+	private CachedPdf readFromDisk(@NonNull InvoiceCacheKey key) throws InvoiceGeneratorException {
+		if (directory == null) {
+			return null;
+		}
+
+		Path file = directory.resolve(key.toHex() + PDF_SUFFIX);
+		try {
+			return new CachedPdf(key, Files.readAllBytes(file));
+		} catch (NoSuchFileException e) {
+			return null;
+		} catch (IOException e) {
+			throw new InvoiceGeneratorException("Could not read cached invoice " + file, e);
+		}
+	}
+
+	private void writeToDisk(@NonNull CachedPdf pdf) throws InvoiceGeneratorException {
+		if (directory == null) {
+			return;
+		}
+
+		String name = pdf.getKey().toHex();
+		Path file = directory.resolve(name + PDF_SUFFIX);
+		Path temp = null;
+		try {
+			// readers in other threads or processes never see a partially written file
+			temp = Files.createTempFile(directory, name, TEMP_SUFFIX);
+			Files.write(temp, pdf.toByteArray());
+			Files.move(temp, file, ATOMIC_MOVE, REPLACE_EXISTING);
+		} catch (IOException e) {
+			deleteQuietly(temp);
+			throw new InvoiceGeneratorException("Could not write cached invoice " + file, e);
+		}
+	}
+
+	private static void deleteQuietly(@Nullable Path temp) {
+		if (temp == null) {
+			return;
+		}
+
+		try {
+			Files.deleteIfExists(temp);
+		} catch (IOException ignored) {
+			// the original exception is more relevant
+		}
+	}
+
+	/**
+	 * @return Anzahl Anfragen, welche aus dem Speicher beantwortet wurden
+	 */
+	public long getMemoryHitCount() {
+		return memoryHits.sum();
+	}
+
+	/**
+	 * @return Anzahl Anfragen, welche aus dem Verzeichnis beantwortet wurden
+	 */
+	public long getDiskHitCount() {
+		return diskHits.sum();
+	}
+
+	/**
+	 * @return Anzahl generierter Rechnungen
+	 */
+	public long getRenderCount() {
+		return renders.sum();
+	}
+
+	/**
+	 * @return Anzahl Anfragen, welche auf eine gleichzeitig laufende Generierung derselben Rechnung gewartet haben
+	 */
+	public long getSharedRenderCount() {
+		return sharedRenders.sum();
+	}
+
+	/**
+	 * @return Summe der Grössen der PDFs im Speicher
+	 */
+	public long getMemoryBytes() {
+		synchronized (memory) {
+			return memoryBytes;
+		}
+	}
+
+	public int getMemoryEntryCount() {
+		synchronized (memory) {
+			return memory.size();
+		}
+	}
+
+	@NonNull
+	public InvoiceGenerator getInvoiceGenerator() {
+		return invoiceGenerator;
+	}
+}
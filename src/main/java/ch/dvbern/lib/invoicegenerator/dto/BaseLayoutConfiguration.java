@@ -17,6 +17,7 @@
 package ch.dvbern.lib.invoicegenerator.dto;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
 import java.util.StringJoiner;
@@ -47,9 +48,9 @@ public class BaseLayoutConfiguration extends PageConfiguration {
 	@Nullable
 	private PhraseRenderer footer = null;
 	@NonNull
-	private final List<ComponentRenderer<? extends ComponentConfiguration, ?>> customComponents = new ArrayList<>();
+	private List<ComponentRenderer<? extends ComponentConfiguration, ?>> customComponents = new ArrayList<>();
 	@Nullable
-	private List<ComponentRenderer<? extends ComponentConfiguration, ?>> staticComponents = null;
+	private volatile List<ComponentRenderer<? extends ComponentConfiguration, ?>> staticComponents = null;
 
 	public BaseLayoutConfiguration(@NonNull String producer, @NonNull AddressComponent empfaengerAdresse) {
 		this.producer = producer;
@@ -62,6 +63,7 @@ public class BaseLayoutConfiguration extends PageConfiguration {
 	}
 
 	public void setLogo(@Nullable Logo logo) {
+		checkNotFrozen();
 		this.logo = logo;
 		// clear the cache
 		this.staticComponents = null;
@@ -69,24 +71,50 @@ public class BaseLayoutConfiguration extends PageConfiguration {
 
 	@NonNull
 	public List<ComponentRenderer<? extends ComponentConfiguration, ?>> getStaticComponents() {
-		if (staticComponents == null) {
+		List<ComponentRenderer<? extends ComponentConfiguration, ?>> components = staticComponents;
+		if (components == null) {
 			// populate the cache
-			List<ComponentRenderer<? extends ComponentConfiguration, ?>> components = Stream.of(header, footer, logo)
-				.filter(Objects::nonNull)
-				.collect(Collectors.toList());
-			components.addAll(customComponents);
-
+			components = createStaticComponents();
 			this.staticComponents = components;
 		}
 
-		return staticComponents;
+		return components;
 	}
 
+	@NonNull
+	private List<ComponentRenderer<? extends ComponentConfiguration, ?>> createStaticComponents() {
+		List<ComponentRenderer<? extends ComponentConfiguration, ?>> components = Stream.of(header, footer, logo)
+			.filter(Objects::nonNull)
+			.collect(Collectors.toList());
+		components.addAll(customComponents);
+
+		return components;
+	}
+
+	/**
+	 * @return die Liste der zusätzlichen statischen Komponenten. Nach {@link #freeze()} ist die Liste nicht mehr
+	 * veränderbar.
+	 */
 	@NonNull
 	public List<ComponentRenderer<? extends ComponentConfiguration, ?>> getCustomComponents() {
 		return customComponents;
 	}
 
+	/**
+	 * Friert die Konfiguration ein und initialisiert die statischen Komponenten.
+	 *
+	 * @see PageConfiguration#freeze()
+	 */
+	@Override
+	@NonNull
+	public BaseLayoutConfiguration freeze() {
+		customComponents = Collections.unmodifiableList(new ArrayList<>(customComponents));
+		staticComponents = Collections.unmodifiableList(createStaticComponents());
+		super.freeze();
+
+		return this;
+	}
+
 	@Override
 	@NonNull
 	public String toString() {
@@ -113,6 +141,7 @@ public class BaseLayoutConfiguration extends PageConfiguration {
 	}
 
 	public void setHeader(@Nullable PhraseRenderer header) {
+		checkNotFrozen();
 		this.header = header;
 		// clear the cache
 		this.staticComponents = null;
@@ -124,6 +153,7 @@ public class BaseLayoutConfiguration extends PageConfiguration {
 	}
 
 	public void setFooter(@Nullable PhraseRenderer footer) {
+		checkNotFrozen();
 		this.footer = footer;
 		// clear the cache
 		this.staticComponents = null;
@@ -140,6 +170,7 @@ public class BaseLayoutConfiguration extends PageConfiguration {
 	}
 
 	public void setPp(@Nullable String pp) {
+		checkNotFrozen();
 		this.empfaengerAdresse.setPp(pp);
 	}
 
@@ -148,6 +179,7 @@ public class BaseLayoutConfiguration extends PageConfiguration {
 	}
 
 	public void setLeftAddressMarginInMM(float leftAddressMarginInMM) {
+		checkNotFrozen();
 		this.empfaengerAdresse.setLeftInMm(leftAddressMarginInMM);
 	}
 
@@ -156,6 +188,7 @@ public class BaseLayoutConfiguration extends PageConfiguration {
 	}
 
 	public void setTopAddressMarginInMM(float topAddressMarginInMM) {
+		checkNotFrozen();
 		this.empfaengerAdresse.setTopInMm(topAddressMarginInMM);
 	}
 }
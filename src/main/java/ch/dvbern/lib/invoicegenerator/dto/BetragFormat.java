@@ -0,0 +1,106 @@
+/*
+ * Copyright (C) 2019 DV Bern AG, Switzerland
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.dvbern.lib.invoicegenerator.dto;
+
+import com.google.errorprone.annotations.CanIgnoreReturnValue;
+import org.jspecify.annotations.NonNull;
+
+/**
+ * Formatiert Beträge in Rappen (bzw. Cents) und Mengen in Hundertstel im Schweizer Format, z.B. "1'040.00".
+ * <p>
+ * Im Gegensatz zu {@link java.text.DecimalFormat} hat die Klasse keinen Zustand und kann von beliebig vielen Threads
+ * verwendet werden. Die Ziffern werden direkt in einen {@link StringBuilder} geschrieben, welcher wiederverwendet
+ * werden kann.
+ */
+public final class BetragFormat {
+
+	public static final char TAUSENDER_TRENNZEICHEN = '\'';
+
+	private static final int HUNDERT = 100;
+	private static final int ZEHN = 10;
+	private static final int GRUPPE = 3;
+	// Long.MIN_VALUE has 19 digits
+	private static final int MAX_DIGITS = 19;
+
+	private BetragFormat() {
+		// utility class
+	}
+
+	/**
+	 * @return der Betrag mit zwei Nachkommastellen und Tausender-Trennzeichen, z.B. "1'040.00"
+	 */
+	@NonNull
+	public static String formatBetrag(long rappen) {
+		return appendBetrag(new StringBuilder(), rappen).toString();
+	}
+
+	/**
+	 * Schreibt den Betrag mit zwei Nachkommastellen und Tausender-Trennzeichen, z.B. "1'040.00".
+	 *
+	 * @return target
+	 */
+	@NonNull
+	@CanIgnoreReturnValue
+	public static StringBuilder appendBetrag(@NonNull StringBuilder target, long rappen) {
+		appendGrouped(target, rappen / HUNDERT, rappen < 0);
+		long nachkomma = Math.abs(rappen % HUNDERT);
+
+		return target.append('.')
+			.append((char) ('0' + nachkomma / ZEHN))
+			.append((char) ('0' + nachkomma % ZEHN));
+	}
+
+	/**
+	 * Schreibt die Menge mit Tausender-Trennzeichen. Ganze Zahlen werden ohne Nachkommastellen geschrieben, z.B. "3",
+	 * alle anderen mit zwei Nachkommastellen, z.B. "1.50".
+	 *
+	 * @return target
+	 */
+	@NonNull
+	@CanIgnoreReturnValue
+	public static StringBuilder appendMenge(@NonNull StringBuilder target, long mengeInHundertstel) {
+		if (mengeInHundertstel % HUNDERT == 0) {
+			return appendGrouped(target, mengeInHundertstel / HUNDERT, mengeInHundertstel < 0);
+		}
+
+		return appendBetrag(target, mengeInHundertstel);
+	}
+
+	@NonNull
+	private static StringBuilder appendGrouped(@NonNull StringBuilder target, long value, boolean negative) {
+		if (negative) {
+			target.append('-');
+		}
+
+		// collect the digits from the right without creating a String
+		char[] digits = new char[MAX_DIGITS];
+		int count = 0;
+		long rest = value;
+		do {
+			digits[count++] = (char) ('0' + Math.abs(rest % ZEHN));
+			rest /= ZEHN;
+		} while (rest != 0);
+
+		for (int i = count - 1; i >= 0; i--) {
+			target.append(digits[i]);
+			if (i > 0 && i % GRUPPE == 0) {
+				target.append(TAUSENDER_TRENNZEICHEN);
+			}
+		}
+
+		return target;
+	}
+}
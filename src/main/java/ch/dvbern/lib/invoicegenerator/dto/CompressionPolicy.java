@@ -0,0 +1,113 @@
+/*
+ * Copyright (C) 2019 DV Bern AG, Switzerland
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.dvbern.lib.invoicegenerator.dto;
+
+import java.util.StringJoiner;
+import java.util.zip.Deflater;
+
+import com.lowagie.text.pdf.PdfStream;
+import com.lowagie.text.pdf.PdfWriter;
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Legt fest, wie stark das PDF komprimiert wird: Deflate Level der Streams (Seiteninhalte, Schriften, Templates),
+ * Object- und Cross-Reference-Streams (Full Compression) und PDF Version.
+ * <p>
+ * Bereits komprimierte Bilddaten (JPEG, PNG) werden unabhängig vom Level unverändert übernommen.
+ */
+public final class CompressionPolicy {
+
+	/**
+	 * Die Standardwerte von openpdf.
+	 */
+	@NonNull
+	public static final CompressionPolicy DEFAULT =
+		new CompressionPolicy(PdfStream.DEFAULT_COMPRESSION, false, null);
+
+	/**
+	 * Schnellste Kompression, für kurze Antwortzeiten bei interaktiver Generierung.
+	 */
+	@NonNull
+	public static final CompressionPolicy FAST = new CompressionPolicy(Deflater.BEST_SPEED, false, null);
+
+	/**
+	 * Maximale Kompression mit Object Streams (PDF 1.5), für die Langzeitablage vieler Rechnungen.
+	 */
+	@NonNull
+	public static final CompressionPolicy ARCHIVE = new CompressionPolicy(PdfStream.BEST_COMPRESSION, true, null);
+
+	private final int compressionLevel;
+	private final boolean fullCompression;
+	@Nullable
+	private final Character pdfVersion;
+
+	/**
+	 * @param compressionLevel Deflate Level von {@link PdfStream#NO_COMPRESSION} bis {@link
+	 * PdfStream#BEST_COMPRESSION} oder {@link PdfStream#DEFAULT_COMPRESSION}
+	 * @param fullCompression true, falls Objekte und Cross-Reference Tabelle ebenfalls komprimiert werden sollen
+	 * (erfordert PDF 1.5)
+	 * @param pdfVersion z.B. {@link PdfWriter#VERSION_1_7} oder null, um die Version openpdf zu überlassen
+	 */
+	public CompressionPolicy(int compressionLevel, boolean fullCompression, @Nullable Character pdfVersion) {
+		if (compressionLevel < PdfStream.DEFAULT_COMPRESSION || compressionLevel > PdfStream.BEST_COMPRESSION) {
+			throw new IllegalArgumentException("Invalid compression level " + compressionLevel);
+		}
+		if (fullCompression && pdfVersion != null && pdfVersion < PdfWriter.VERSION_1_5) {
+			throw new IllegalArgumentException("Full compression requires PDF 1.5, version was 1." + pdfVersion);
+		}
+
+		this.compressionLevel = compressionLevel;
+		this.fullCompression = fullCompression;
+		this.pdfVersion = pdfVersion;
+	}
+
+	/**
+	 * Konfiguriert den Writer. Muss vor dem Öffnen des Dokuments aufgerufen werden.
+	 */
+	public void configure(@NonNull PdfWriter writer) {
+		writer.setCompressionLevel(compressionLevel);
+		if (pdfVersion != null) {
+			writer.setPdfVersion(pdfVersion);
+		}
+		if (fullCompression) {
+			writer.setFullCompression();
+		}
+	}
+
+	public int getCompressionLevel() {
+		return compressionLevel;
+	}
+
+	public boolean isFullCompression() {
+		return fullCompression;
+	}
+
+	@Nullable
+	public Character getPdfVersion() {
+		return pdfVersion;
+	}
+
+	@Override
+	@NonNull
+	public String toString() {
+		return new StringJoiner(", ", CompressionPolicy.class.getSimpleName() + '[', "]")
+			.add("compressionLevel=" + compressionLevel)
+			.add("fullCompression=" + fullCompression)
+			.add("pdfVersion=" + pdfVersion)
+			.toString();
+	}
+}
@@ -15,6 +15,8 @@
  */
 package ch.dvbern.lib.invoicegenerator.dto;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.StringJoiner;
 
@@ -69,6 +71,7 @@ public class InvoiceGeneratorConfiguration extends BaseLayoutConfiguration {
 	}
 
 	public void addDummyESR(@NonNull OnPage onPage) {
+		checkNotFrozen();
 		DummyEinzahlungsschein einzahlungsschein = new DummyEinzahlungsschein();
 		getCustomComponents().add(new OrangerEinzahlungsscheinComponent(
 			einzahlungsscheinConfiguration,
@@ -78,12 +81,30 @@ public class InvoiceGeneratorConfiguration extends BaseLayoutConfiguration {
 		setBottomMarginInPoints(ESR_HEIGHT_WITH_MARGIN + einzahlungsscheinConfiguration.getYOffset());
 	}
 
+	/**
+	 * Friert die Konfiguration inklusive der {@link EinzahlungsscheinConfiguration} ein.
+	 *
+	 * @see PageConfiguration#freeze()
+	 */
+	@Override
+	@NonNull
+	public InvoiceGeneratorConfiguration freeze() {
+		einzahlungsscheinConfiguration.freeze();
+		if (zahlungsKonditionen != null) {
+			zahlungsKonditionen = Collections.unmodifiableList(new ArrayList<>(zahlungsKonditionen));
+		}
+		super.freeze();
+
+		return this;
+	}
+
 	@Nullable
 	public List<String> getZahlungsKonditionen() {
 		return zahlungsKonditionen;
 	}
 
 	public void setZahlungsKonditionen(@Nullable List<String> zahlungsKonditionen) {
+		checkNotFrozen();
 		this.zahlungsKonditionen = zahlungsKonditionen;
 	}
 
@@ -104,18 +125,22 @@ public class InvoiceGeneratorConfiguration extends BaseLayoutConfiguration {
 	}
 
 	public void setEsrLeftOffsetInMm(float esrLeftOffsetInMm) {
+		checkNotFrozen();
 		this.einzahlungsscheinConfiguration.setLeftOffsetInMm(esrLeftOffsetInMm);
 	}
 
 	public void setEsrTopOffsetInMm(float esrTopOffsetInMm) {
+		checkNotFrozen();
 		this.einzahlungsscheinConfiguration.setTopOffsetInMm(esrTopOffsetInMm);
 	}
 
 	public void setEinzahlungsscheinNotOnPageOne(boolean einzahlungsscheinNotOnPageOne) {
+		checkNotFrozen();
 		this.einzahlungsscheinConfiguration.setEinzahlungsscheinNotOnPageOne(einzahlungsscheinNotOnPageOne);
 	}
 
 	public void setAddEsrBackgroundImage(boolean addEsrBackgroundImage) {
+		checkNotFrozen();
 		this.einzahlungsscheinConfiguration.setAddEsrBackgroundImage(addEsrBackgroundImage);
 	}
 
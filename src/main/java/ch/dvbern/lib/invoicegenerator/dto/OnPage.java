@@ -23,41 +23,34 @@ import org.jspecify.annotations.NonNull;
 
 /**
  * Definiert auf welchen Seiten eine Komponente dargestellt wird.
+ *
+ * @see PagePlacement für weitere Regeln, z.B. Seitenbereiche oder gerade/ungerade Seiten
  */
-public enum OnPage {
-	FIRST(Helpers.ONLY_ON_FIRST_PAGE),
-	LAST(Helpers.ONLY_ON_LAST_PAGE),
-	NOT_LAST(Helpers.NEVER_ON_LAST_PAGE),
-	ALL(Helpers.ALWAYS);
+public enum OnPage implements PagePlacement {
+	FIRST((pageNumber, isLastPage) -> pageNumber == 1),
+	LAST((pageNumber, isLastPage) -> isLastPage),
+	NOT_LAST((pageNumber, isLastPage) -> !isLastPage),
+	ALL((pageNumber, isLastPage) -> true);
 
-	private final CheckPrint<Integer, Boolean, Boolean> printable;
+	@NonNull
+	private final PagePlacement printable;
 
-	OnPage(@NonNull CheckPrint<Integer, Boolean, Boolean> printable) {
+	OnPage(@NonNull PagePlacement printable) {
 		this.printable = printable;
 	}
 
+	@Override
 	public boolean isPrintable(int pageNumber, boolean isLastPage) {
-		return printable.apply(pageNumber, isLastPage);
+		return printable.isPrintable(pageNumber, isLastPage);
 	}
 
+	/**
+	 * Wird von {@link OnPage} nicht mehr verwendet und bleibt nur für bestehende Clients erhalten.
+	 *
+	 * @deprecated stattdessen {@link PagePlacement} verwenden
+	 */
+	@Deprecated
 	@FunctionalInterface
 	public interface CheckPrint<T, U, R> extends BiFunction<T, U, R>, Serializable {
 	}
-
-	static final class Helpers {
-		private static final CheckPrint<Integer, Boolean, Boolean>
-			ONLY_ON_FIRST_PAGE = (pageNumber, lastPage) -> pageNumber == 1;
-
-		private static final CheckPrint<Integer, Boolean, Boolean>
-			ONLY_ON_LAST_PAGE = (pageNumber, lastPage) -> lastPage;
-
-		private static final CheckPrint<Integer, Boolean, Boolean>
-			ALWAYS = (pageNumber, lastPage) -> true;
-
-		private static final CheckPrint<Integer, Boolean, Boolean>
-			NEVER_ON_LAST_PAGE = (pageNumber, lastPage) -> !lastPage;
-
-		private Helpers() {
-		}
-	}
 }
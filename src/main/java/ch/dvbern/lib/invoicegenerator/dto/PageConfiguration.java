@@ -15,16 +15,23 @@
  */
 package ch.dvbern.lib.invoicegenerator.dto;
 
+import java.time.Instant;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.StringJoiner;
+import java.util.concurrent.Executor;
 
+import ch.dvbern.lib.invoicegenerator.dto.component.ComponentRenderer;
 import ch.dvbern.lib.invoicegenerator.dto.fonts.FontConfiguration;
 import ch.dvbern.lib.invoicegenerator.dto.layout.RechnungsTabelleWidths;
+import ch.dvbern.lib.invoicegenerator.dto.position.BetragsPosition;
 import ch.dvbern.lib.invoicegenerator.dto.position.H1Position;
 import ch.dvbern.lib.invoicegenerator.dto.position.H2Position;
 import ch.dvbern.lib.invoicegenerator.dto.position.Position;
 import ch.dvbern.lib.invoicegenerator.dto.position.RechnungsPosition;
+import ch.dvbern.lib.invoicegenerator.metrics.GenerationListener;
+import ch.dvbern.lib.invoicegenerator.strategy.position.BetragsPositionStrategy;
 import ch.dvbern.lib.invoicegenerator.strategy.position.H1Strategy;
 import ch.dvbern.lib.invoicegenerator.strategy.position.H2Strategy;
 import ch.dvbern.lib.invoicegenerator.strategy.position.PositionStrategy;
@@ -33,6 +40,7 @@ import com.lowagie.text.Font;
 import com.lowagie.text.PageSize;
 import com.lowagie.text.Rectangle;
 import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
 
 import static ch.dvbern.lib.invoicegenerator.pdf.PdfUtilities.DEFAULT_MULTIPLIED_ADDRESS_LEADING;
 import static ch.dvbern.lib.invoicegenerator.pdf.PdfUtilities.DEFAULT_MULTIPLIED_H1_LEADING;
@@ -76,7 +84,23 @@ public class PageConfiguration {
 	private Rectangle pageSize = PageSize.A4;
 
 	@NonNull
-	private final Map<Class<? extends Position>, PositionStrategy> positionStrategyMap = new HashMap<>();
+	private Map<Class<? extends Position>, PositionStrategy> positionStrategyMap = new HashMap<>();
+
+	private boolean useComponentTemplates = false;
+
+	@NonNull
+	private GenerationListener generationListener = GenerationListener.NOOP;
+
+	@NonNull
+	private CompressionPolicy compressionPolicy = CompressionPolicy.DEFAULT;
+
+	@Nullable
+	private Executor positionenExecutor = null;
+
+	@Nullable
+	private Instant creationDate = null;
+
+	private volatile boolean frozen = false;
 
 	/**
 	 * Erstellt eine neue LayoutConfiguration mit default Werten. Sämtliche Parameter können über
@@ -86,6 +110,36 @@ public class PageConfiguration {
 		this.positionStrategyMap.put(H1Position.class, new H1Strategy());
 		this.positionStrategyMap.put(H2Position.class, new H2Strategy());
 		this.positionStrategyMap.put(RechnungsPosition.class, new RechnungsPositionStrategy());
+		this.positionStrategyMap.put(BetragsPosition.class, new BetragsPositionStrategy());
+	}
+
+	/**
+	 * Friert die Konfiguration ein: lazy initialisierte Werte werden sofort initialisiert und sämtliche Setter werfen
+	 * danach eine {@link IllegalStateException}. Eine eingefrorene Konfiguration kann von beliebig vielen Generatoren
+	 * auf verschiedenen Threads gleichzeitig verwendet werden.
+	 * <p>
+	 * Die referenzierten Komponenten (Logo, Header, ...) und Position-Strategien werden nicht kopiert und dürfen nach
+	 * dem Einfrieren ebenfalls nicht mehr verändert werden.
+	 *
+	 * @return diese Konfiguration
+	 */
+	@NonNull
+	public PageConfiguration freeze() {
+		fonts.freeze();
+		positionStrategyMap = Collections.unmodifiableMap(new HashMap<>(positionStrategyMap));
+		frozen = true;
+
+		return this;
+	}
+
+	public boolean isFrozen() {
+		return frozen;
+	}
+
+	protected void checkNotFrozen() {
+		if (frozen) {
+			throw new IllegalStateException("Configuration is frozen and can no longer be modified");
+		}
 	}
 
 	public void setMargins(
@@ -93,6 +147,7 @@ public class PageConfiguration {
 		float rightPageMarginInMm,
 		float topMarginInMm,
 		float bottomMarginInMm) {
+		checkNotFrozen();
 
 		this.leftPageMarginInPoints = millimetersToPoints(leftPageMarginInMm);
 		this.rightPageMarginInPoints = millimetersToPoints(rightPageMarginInMm);
@@ -105,6 +160,7 @@ public class PageConfiguration {
 	}
 
 	public void setLeftPageMarginInPoints(float leftPageMarginInPoints) {
+		checkNotFrozen();
 		this.leftPageMarginInPoints = leftPageMarginInPoints;
 	}
 
@@ -113,6 +169,7 @@ public class PageConfiguration {
 	}
 
 	public void setRightPageMarginInPoints(float rightPageMarginInPoints) {
+		checkNotFrozen();
 		this.rightPageMarginInPoints = rightPageMarginInPoints;
 	}
 
@@ -121,6 +178,7 @@ public class PageConfiguration {
 	}
 
 	public void setTopMarginInPoints(float topMarginInPoints) {
+		checkNotFrozen();
 		this.topMarginInPoints = topMarginInPoints;
 	}
 
@@ -129,6 +187,7 @@ public class PageConfiguration {
 	}
 
 	public void setBottomMarginInPoints(float bottomMarginInPoints) {
+		checkNotFrozen();
 		this.bottomMarginInPoints = bottomMarginInPoints;
 	}
 
@@ -138,6 +197,7 @@ public class PageConfiguration {
 	}
 
 	public void setPageSize(@NonNull Rectangle pageSize) {
+		checkNotFrozen();
 		this.pageSize = pageSize;
 	}
 
@@ -154,6 +214,7 @@ public class PageConfiguration {
 	}
 
 	public void setSpaceBefore(float spaceBefore) {
+		checkNotFrozen();
 		this.spaceBefore = spaceBefore;
 	}
 
@@ -162,6 +223,7 @@ public class PageConfiguration {
 	}
 
 	public void setMultipliedTitleLeading(float multipliedTitleLeading) {
+		checkNotFrozen();
 		this.multipliedTitleLeading = multipliedTitleLeading;
 	}
 
@@ -170,6 +232,7 @@ public class PageConfiguration {
 	}
 
 	public void setMultipliedLeadingDefault(float multipliedLeadingDefault) {
+		checkNotFrozen();
 		this.multipliedLeadingDefault = multipliedLeadingDefault;
 	}
 
@@ -178,6 +241,7 @@ public class PageConfiguration {
 	}
 
 	public void setMultipliedLeadingH1(float multipliedLeadingH1) {
+		checkNotFrozen();
 		this.multipliedLeadingH1 = multipliedLeadingH1;
 	}
 
@@ -186,6 +250,7 @@ public class PageConfiguration {
 	}
 
 	public void setMultipliedLeadingH2(float multipliedLeadingH2) {
+		checkNotFrozen();
 		this.multipliedLeadingH2 = multipliedLeadingH2;
 	}
 
@@ -194,6 +259,7 @@ public class PageConfiguration {
 	}
 
 	public void setMultipliedLeadingAddress(float multipliedLeadingAddress) {
+		checkNotFrozen();
 		this.multipliedLeadingAddress = multipliedLeadingAddress;
 	}
 
@@ -203,6 +269,7 @@ public class PageConfiguration {
 	}
 
 	public void setRechnungsTabelleWidths(@NonNull RechnungsTabelleWidths rechnungsTabelleWidths) {
+		checkNotFrozen();
 		this.rechnungsTabelleWidths = rechnungsTabelleWidths;
 	}
 
@@ -212,9 +279,95 @@ public class PageConfiguration {
 	}
 
 	public void setFonts(@NonNull FontConfiguration fonts) {
+		checkNotFrozen();
 		this.fonts = fonts;
 	}
 
+	public boolean isUseComponentTemplates() {
+		return useComponentTemplates;
+	}
+
+	/**
+	 * Seitenunabhängige Komponenten (siehe {@link ComponentRenderer#isPageInvariant()}) werden pro Dokument nur
+	 * einmal in ein Template (Form XObject) gerendert. Auf allen Seiten wird danach nur noch das Template referenziert.
+	 * Das reduziert die Grösse und die Generierungszeit von mehrseitigen Dokumenten.
+	 */
+	public void setUseComponentTemplates(boolean useComponentTemplates) {
+		checkNotFrozen();
+		this.useComponentTemplates = useComponentTemplates;
+	}
+
+	@NonNull
+	public GenerationListener getGenerationListener() {
+		return generationListener;
+	}
+
+	/**
+	 * Wird über die Zeiten der einzelnen Abschnitte, Komponenten und über die generierten Seiten und Bytes informiert.
+	 * Default: {@link GenerationListener#NOOP}
+	 */
+	public void setGenerationListener(@NonNull GenerationListener generationListener) {
+		checkNotFrozen();
+		this.generationListener = generationListener;
+	}
+
+	@NonNull
+	public CompressionPolicy getCompressionPolicy() {
+		return compressionPolicy;
+	}
+
+	/**
+	 * Legt Kompression und PDF Version der generierten PDFs fest, z.B. {@link CompressionPolicy#FAST} oder {@link
+	 * CompressionPolicy#ARCHIVE}. Default: {@link CompressionPolicy#DEFAULT}
+	 */
+	public void setCompressionPolicy(@NonNull CompressionPolicy compressionPolicy) {
+		checkNotFrozen();
+		this.compressionPolicy = compressionPolicy;
+	}
+
+	@Nullable
+	public Executor getPositionenExecutor() {
+		return positionenExecutor;
+	}
+
+	/**
+	 * Falls gesetzt, werden die Zeilen der Positionen-Tabelle auf diesem Executor blockweise im Voraus erstellt,
+	 * während der vorherige Block auf die Seiten verteilt und geschrieben wird. Das PDF bleibt identisch, Rechnungen
+	 * mit vielen Seiten werden auf mehreren Kernen aber schneller fertig. Die {@link PositionStrategy}s werden dabei
+	 * auf dem Executor aufgerufen. Default: null, alles auf dem aufrufenden Thread
+	 * <p>
+	 * Das PDF bleibt nur identisch, wenn die {@link PositionStrategy}s folgende Bedingungen erfüllen:
+	 * <ul>
+	 *     <li>sie sind thread-safe, da Blöcke gleichzeitig mit dem aufrufenden Thread erstellt werden</li>
+	 *     <li>sie fügen nur vollständige Zeilen aus eigenen {@link com.lowagie.text.pdf.PdfPCell}s hinzu</li>
+	 *     <li>sie hängen nicht vom Zustand der übergebenen Tabelle ab (z.B. {@code size()}, {@code getRows()} oder
+	 *     {@code getDefaultCell()}, etwa für abwechselnd eingefärbte Zeilen): sie erhalten pro Block eine neue, leere
+	 *     Tabelle statt der Positionen-Tabelle des Dokuments</li>
+	 * </ul>
+	 */
+	public void setPositionenExecutor(@Nullable Executor positionenExecutor) {
+		checkNotFrozen();
+		this.positionenExecutor = positionenExecutor;
+	}
+
+	@Nullable
+	public Instant getCreationDate() {
+		return creationDate;
+	}
+
+	/**
+	 * Falls gesetzt, wird dieses Datum als Erstellungs- und Änderungsdatum in die PDFs geschrieben, statt der
+	 * aktuellen Zeit. Zusammen mit einer festen Dokument-ID ({@link
+	 * ch.dvbern.lib.invoicegenerator.pdf.PdfGenerator#setDocumentId(byte[])}) sind die PDFs dann für identische
+	 * Eingaben byte-identisch. Eingebettete Fonts müssen dafür aus der {@link
+	 * ch.dvbern.lib.invoicegenerator.dto.fonts.FontRegistry} stammen, nur deren Subsets erhalten einen festen Präfix.
+	 * Default: null, die aktuelle Zeit
+	 */
+	public void setCreationDate(@Nullable Instant creationDate) {
+		checkNotFrozen();
+		this.creationDate = creationDate;
+	}
+
 	@Override
 	@NonNull
 	public String toString() {
@@ -224,6 +377,9 @@ public class PageConfiguration {
 			.add("topMarginInPoints=" + topMarginInPoints)
 			.add("bottomMarginInPoints=" + bottomMarginInPoints)
 			.add("positionStrategyMap=" + positionStrategyMap)
+			.add("useComponentTemplates=" + useComponentTemplates)
+			.add("generationListener=" + generationListener)
+			.add("compressionPolicy=" + compressionPolicy)
 			.toString();
 	}
 
@@ -0,0 +1,93 @@
+/*
+ * Copyright (C) 2019 DV Bern AG, Switzerland
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ch.dvbern.lib.invoicegenerator.dto;
+
+import org.jspecify.annotations.NonNull;
+
+/**
+ * Regel, auf welchen Seiten eines Dokuments eine Komponente dargestellt wird. Die Seitennummer beginnt für jedes
+ * Dokument bei 1.
+ * <p>
+ * Die Regeln von {@link OnPage} hängen nur davon ab, ob eine Seite die erste oder letzte ist. Sie werden pro Dokument
+ * einmal ausgewertet. Alle anderen Regeln werden auf jeder Seite ausgewertet und sollten deshalb nichts allozieren.
+ */
+@FunctionalInterface
+public interface PagePlacement {
+
+	boolean isPrintable(int pageNumber, boolean isLastPage);
+
+	/**
+	 * @return eine Regel, welche nur zutrifft, wenn diese und die andere Regel zutreffen, z.B.
+	 * {@code PagePlacement.odd().and(OnPage.NOT_LAST)}
+	 */
+	@NonNull
+	default PagePlacement and(@NonNull PagePlacement other) {
+		return (pageNumber, isLastPage) ->
+			isPrintable(pageNumber, isLastPage) && other.isPrintable(pageNumber, isLastPage);
+	}
+
+	/**
+	 * @param from erste Seite, beginnend bei 1
+	 * @param to letzte Seite (inklusive)
+	 */
+	@NonNull
+	static PagePlacement pages(int from, int to) {
+		if (from < 1 || to < from) {
+			throw new IllegalArgumentException("Invalid page range " + from + '-' + to);
+		}
+
+		return (pageNumber, isLastPage) -> pageNumber >= from && pageNumber <= to;
+	}
+
+	/**
+	 * @return alle Seiten ab der angegebenen Seite
+	 */
+	@NonNull
+	static PagePlacement fromPage(int from) {
+		return pages(from, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * @return die Seiten 1, 3, 5, ..., bei Duplex-Druck die Vorderseiten
+	 */
+	@NonNull
+	static PagePlacement odd() {
+		return everyNth(2, 1);
+	}
+
+	/**
+	 * @return die Seiten 2, 4, 6, ..., bei Duplex-Druck die Rückseiten
+	 */
+	@NonNull
+	static PagePlacement even() {
+		return everyNth(2, 2);
+	}
+
+	/**
+	 * @param n Abstand zwischen zwei Seiten, z.B. 4 für jedes zweite Blatt im Duplex-Druck
+	 * @param first erste Seite, beginnend bei 1
+	 * @return die Seiten first, first + n, first + 2n, ...
+	 */
+	@NonNull
+	static PagePlacement everyNth(int n, int first) {
+		if (n < 1 || first < 1) {
+			throw new IllegalArgumentException("Invalid page interval " + n + " starting at " + first);
+		}
+
+		return (pageNumber, isLastPage) -> pageNumber >= first && (pageNumber - first) % n == 0;
+	}
+}
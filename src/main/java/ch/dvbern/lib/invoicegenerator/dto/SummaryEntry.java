@@ -53,6 +53,25 @@ public class SummaryEntry {
 		this(label, value, false, false);
 	}
 
+	/**
+	 * Erstellt einen Summary Entry mit einem Betrag als Wert, z.B. "CHF 1'040.00".
+	 *
+	 * @param waehrung wird dem Betrag mit einem Leerzeichen vorangestellt, z.B. "CHF"
+	 * @param rappen der Betrag in Rappen (bzw. Cents)
+	 */
+	@NonNull
+	public static SummaryEntry betrag(
+		@NonNull String label,
+		@NonNull String waehrung,
+		long rappen,
+		boolean bold,
+		boolean underlined) {
+
+		StringBuilder value = new StringBuilder(waehrung).append(' ');
+
+		return new SummaryEntry(label, BetragFormat.appendBetrag(value, rappen).toString(), bold, underlined);
+	}
+
 	@Override
 	@NonNull
 	public String toString() {
@@ -54,4 +54,12 @@ public class AddressRenderer extends TextComponentRenderer<AddressComponent, Lis
 		address.setMultipliedLeading(pageConfiguration.getMultipliedLeadingAddress());
 		columnText.addElement(address);
 	}
+
+	/**
+	 * Die Adresse ist für ein Dokument fix und kann deshalb als Template wiederverwendet werden.
+	 */
+	@Override
+	public boolean isPageInvariant() {
+		return true;
+	}
 }
@@ -17,6 +17,7 @@
 package ch.dvbern.lib.invoicegenerator.dto.component;
 
 import ch.dvbern.lib.invoicegenerator.dto.OnPage;
+import ch.dvbern.lib.invoicegenerator.dto.PagePlacement;
 import org.jspecify.annotations.NonNull;
 
 public interface ComponentConfiguration {
@@ -28,4 +29,12 @@ public interface ComponentConfiguration {
 	OnPage getOnPage();
 
 	void setOnPage(@NonNull OnPage onPage);
+
+	/**
+	 * @return Die Regel, auf welchen Seiten diese Component gerendert wird. Default: {@link #getOnPage()}
+	 */
+	@NonNull
+	default PagePlacement getPagePlacement() {
+		return getOnPage();
+	}
 }
@@ -16,6 +16,7 @@
 
 package ch.dvbern.lib.invoicegenerator.dto.component;
 
+import ch.dvbern.lib.invoicegenerator.dto.PageConfiguration;
 import ch.dvbern.lib.invoicegenerator.pdf.PdfElementGenerator;
 import com.lowagie.text.DocumentException;
 import com.lowagie.text.pdf.PdfContentByte;
@@ -50,6 +51,26 @@ public abstract class ComponentRenderer<C extends ComponentConfiguration, Payloa
 		render(pdfWriter.getDirectContent(), pdfElementGenerator);
 	}
 
+	/**
+	 * Erledigt Arbeit, welche keinen PdfWriter braucht, bevor das Dokument erstellt wird, z.B. in einer vorgelagerten
+	 * Stufe der {@link ch.dvbern.lib.invoicegenerator.batch.InvoicePipeline}. Wird höchstens einmal und vor dem
+	 * ersten {@link #render(PdfContentByte, PdfElementGenerator)} aufgerufen, der Aufruf ist optional.
+	 */
+	public void prepare(@NonNull PdfElementGenerator pdfElementGenerator) {
+		// noop
+	}
+
+	/**
+	 * Seitenunabhängige Komponenten werden auf jeder Seite identisch gezeichnet und können deshalb als Template
+	 * wiederverwendet werden (siehe {@link PageConfiguration#setUseComponentTemplates(boolean)}). Solche Komponenten
+	 * dürfen nur in den übergebenen {@link PdfContentByte} zeichnen.
+	 *
+	 * @return true, wenn die Ausgabe nicht von der Seite abhängt, auf welcher die Komponente gezeichnet wird
+	 */
+	public boolean isPageInvariant() {
+		return false;
+	}
+
 	@NonNull
 	public C getComponentConfiguration() {
 		return componentConfiguration;
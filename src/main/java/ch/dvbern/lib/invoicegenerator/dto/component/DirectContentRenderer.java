@@ -0,0 +1,58 @@
+/*
+ * Copyright (C) 2019 DV Bern AG, Switzerland
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ch.dvbern.lib.invoicegenerator.dto.component;
+
+import java.util.function.Consumer;
+
+import ch.dvbern.lib.invoicegenerator.dto.OnPage;
+import ch.dvbern.lib.invoicegenerator.pdf.PdfElementGenerator;
+import com.lowagie.text.pdf.PdfContentByte;
+import org.jspecify.annotations.NonNull;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Zeichnet mit einem beliebigen Consumer direkt in den Content der Seite, z.B. die Zusammenfassung einer Rechnung.
+ */
+public class DirectContentRenderer extends ComponentRenderer<SimpleConfiguration, Consumer<PdfContentByte>> {
+
+	private final boolean pageInvariant;
+
+	/**
+	 * @param pageInvariant true, wenn der Consumer auf jeder Seite dasselbe zeichnet, siehe
+	 * {@link ComponentRenderer#isPageInvariant()}
+	 */
+	public DirectContentRenderer(
+		@NonNull OnPage onPage,
+		@NonNull Consumer<PdfContentByte> consumer,
+		boolean pageInvariant) {
+
+		super(new SimpleConfiguration(onPage), consumer);
+
+		this.pageInvariant = pageInvariant;
+	}
+
+	@Override
+	public void render(@NonNull PdfContentByte directContent, @NonNull PdfElementGenerator pdfElementGenerator) {
+		requireNonNull(getPayload()).accept(directContent);
+	}
+
+	@Override
+	public boolean isPageInvariant() {
+		return pageInvariant;
+	}
+}
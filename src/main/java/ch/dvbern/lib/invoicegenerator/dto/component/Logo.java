@@ -16,9 +16,13 @@
 package ch.dvbern.lib.invoicegenerator.dto.component;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
 
 import ch.dvbern.lib.invoicegenerator.dto.OnPage;
 import ch.dvbern.lib.invoicegenerator.errors.InvoiceGeneratorRuntimeException;
+import ch.dvbern.lib.invoicegenerator.pdf.CompressedImageLoader;
 import ch.dvbern.lib.invoicegenerator.pdf.PdfElementGenerator;
 import com.lowagie.text.DocumentException;
 import com.lowagie.text.Image;
@@ -31,6 +35,10 @@ import static java.util.Objects.requireNonNull;
 
 /**
  * Ein Logo, welches auf einer Rechnung absolut positioniert werden kann.
+ * <p>
+ * Das Bild wird beim Erstellen des Logos einmal gelesen und danach pro PDF nur einmal eingebettet, alle Seiten
+ * referenzieren dasselbe Bild. JPEG und nicht verschachtelte PNG ohne Transparenz werden dabei ohne Dekodieren und
+ * erneutes Komprimieren übernommen (siehe {@link CompressedImageLoader}).
  *
  * @author Xaver Weibel
  */
@@ -67,7 +75,7 @@ public class Logo extends ComponentRenderer<SimpleConfiguration, Image> {
 		throws InvoiceGeneratorRuntimeException {
 		super(new SimpleConfiguration(onPage));
 		try {
-			Image image = Image.getInstance(imgData);
+			Image image = CompressedImageLoader.getInstance(imgData);
 			float percent = PERCENT_MULTIPLICATOR * millimetersToPoints(widthInMm) / image.getWidth();
 			image.scalePercent(percent);
 			absoluteX = millimetersToPoints(leftInMm);
@@ -79,13 +87,61 @@ public class Logo extends ComponentRenderer<SimpleConfiguration, Image> {
 		}
 	}
 
+	/**
+	 * Erstellt ein neues Logo aus bereits geladenen Bilddaten. Die Position des Buffers wird nicht verändert.
+	 *
+	 * @param imgData Die Bilddatei, z.B. ein {@link java.nio.MappedByteBuffer}
+	 * @param leftInMm Abstand in mm zum linken Seitenrand
+	 * @param topInMm Abstand in mm zum oberen Seitenrand
+	 * @param widthInMm Die breite auf welche das Bild skaliert wird. Die Höhe wird im selben Verhältnis skaliert.
+	 * @param onPage Konfiguriert, auf welcher Seite das Bild ausgegeben werden soll.
+	 */
+	public Logo(@NonNull ByteBuffer imgData, float leftInMm, float topInMm, float widthInMm, @NonNull OnPage onPage)
+		throws InvoiceGeneratorRuntimeException {
+		this(toByteArray(imgData), leftInMm, topInMm, widthInMm, onPage);
+	}
+
+	/**
+	 * Erstellt ein neues Logo aus einer Bilddatei.
+	 *
+	 * @param imgFile Pfad zur Bilddatei
+	 * @param leftInMm Abstand in mm zum linken Seitenrand
+	 * @param topInMm Abstand in mm zum oberen Seitenrand
+	 * @param widthInMm Die breite auf welche das Bild skaliert wird. Die Höhe wird im selben Verhältnis skaliert.
+	 * @param onPage Konfiguriert, auf welcher Seite das Bild ausgegeben werden soll.
+	 */
+	public Logo(@NonNull Path imgFile, float leftInMm, float topInMm, float widthInMm, @NonNull OnPage onPage)
+		throws InvoiceGeneratorRuntimeException {
+		this(readAllBytes(imgFile), leftInMm, topInMm, widthInMm, onPage);
+	}
+
+	@NonNull
+	private static byte[] toByteArray(@NonNull ByteBuffer buffer) {
+		ByteBuffer duplicate = buffer.duplicate();
+		byte[] bytes = new byte[duplicate.remaining()];
+		duplicate.get(bytes);
+
+		return bytes;
+	}
+
+	@NonNull
+	private static byte[] readAllBytes(@NonNull Path imgFile) {
+		try {
+			return Files.readAllBytes(imgFile);
+		} catch (IOException exception) {
+			throw new InvoiceGeneratorRuntimeException("Could not read image file " + imgFile, exception);
+		}
+	}
+
 	@Override
 	public void render(@NonNull PdfContentByte directContent, @NonNull PdfElementGenerator pdfElementGenerator)
 		throws DocumentException {
 
+		Image image = requireNonNull(getPayload());
 		float absoluteY = PageSize.A4.getHeight() - yOffset;
-		requireNonNull(getPayload()).setAbsolutePosition(absoluteX, absoluteY);
 
-		directContent.addImage(getPayload());
+		// the image may be shared by concurrent generators: position it with a transformation matrix instead of
+		// modifying its absolute position
+		directContent.addImage(image, image.getScaledWidth(), 0, 0, image.getScaledHeight(), absoluteX, absoluteY);
 	}
 }
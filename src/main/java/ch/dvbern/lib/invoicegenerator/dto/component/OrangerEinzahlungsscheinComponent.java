@@ -53,7 +53,6 @@ import static ch.dvbern.lib.invoicegenerator.OrangerEinzahlungsscheinConstants.R
 import static ch.dvbern.lib.invoicegenerator.OrangerEinzahlungsscheinConstants.REFERENZNUMMER_EMPFANGSSCHEIN_Y;
 import static com.lowagie.text.pdf.PdfContentByte.ALIGN_LEFT;
 import static com.lowagie.text.pdf.PdfContentByte.ALIGN_RIGHT;
-import static java.util.Objects.requireNonNull;
 
 public class OrangerEinzahlungsscheinComponent
 	extends ComponentRenderer<SimpleConfiguration, OrangerEinzahlungsschein> {
@@ -79,12 +78,11 @@ public class OrangerEinzahlungsscheinComponent
 
 		float xOffset = config.getXOffset();
 		float yOffset = config.getYOffset();
-		EinzahlungFuerStrategy einzahlungFuerStrategy = config.createEinzahlungFuerStrategy(orangerEinzahlungsschein);
+		EinzahlungFuerStrategy einzahlungFuerStrategy = config.getEinzahlungFuerStrategy(orangerEinzahlungsschein);
 
 		if (config.isAddEsrBackgroundImage()) {
 			Image image = einzahlungFuerStrategy.getEsrBackgroundImage();
-			image.setAbsolutePosition(xOffset, yOffset);
-			pdfElementGenerator.addBackgroundImage(directContent, requireNonNull(image));
+			pdfElementGenerator.addBackgroundImage(directContent, image, xOffset, yOffset);
 		}
 
 		pdfElementGenerator.writeSingleLine(
@@ -90,6 +90,15 @@ public class PhraseRenderer extends TextComponentRenderer<PhraseComponent, List<
 		super(componentConfiguration);
 	}
 
+	/**
+	 * Der Text hängt nicht von der Seite ab. Unterklassen können aber pro Seite anders rendern (z.B. mit
+	 * Seitennummern) und müssen deshalb selbst entscheiden, ob sie als Template wiederverwendet werden können.
+	 */
+	@Override
+	public boolean isPageInvariant() {
+		return getClass() == PhraseRenderer.class;
+	}
+
 	@Override
 	protected void render(
 		@NonNull ColumnText columnText,
@@ -10,26 +10,29 @@
 
 package ch.dvbern.lib.invoicegenerator.dto.component;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.util.Objects;
 
 import ch.dvbern.lib.invoicegenerator.dto.OnPage;
+import ch.dvbern.lib.invoicegenerator.dto.PageConfiguration;
 import ch.dvbern.lib.invoicegenerator.dto.einzahlungsschein.EinzahlungsscheinConfiguration;
 import ch.dvbern.lib.invoicegenerator.dto.einzahlungsschein.QRCodeEinzahlungsschein;
 import ch.dvbern.lib.invoicegenerator.errors.InvoiceGeneratorRuntimeException;
+import ch.dvbern.lib.invoicegenerator.metrics.GenerationPhase;
+import ch.dvbern.lib.invoicegenerator.pdf.OpenPdfCanvas;
 import ch.dvbern.lib.invoicegenerator.pdf.PdfElementGenerator;
+import ch.dvbern.lib.invoicegenerator.pdf.PdfGenerator;
+import ch.dvbern.lib.invoicegenerator.pdf.RecordedCanvas;
 import com.lowagie.text.DocumentException;
 import com.lowagie.text.pdf.PdfContentByte;
-import com.lowagie.text.pdf.PdfImportedPage;
-import com.lowagie.text.pdf.PdfReader;
-import com.lowagie.text.pdf.PdfWriter;
-import net.codecrete.qrbill.canvas.PDFCanvas;
 import net.codecrete.qrbill.generator.Bill;
-import net.codecrete.qrbill.generator.GraphicsFormat;
 import net.codecrete.qrbill.generator.OutputSize;
 import net.codecrete.qrbill.generator.QRBill;
+import net.codecrete.qrbill.generator.QRBillGenerationException;
 import net.codecrete.qrbill.generator.QRBillValidationError;
 import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
 
 /**
  * Can be used to add a QR Code Receipt and Payment part to a page.
@@ -43,6 +46,9 @@ public class QRCodeComponent extends ComponentRenderer<SimpleConfiguration, QRCo
 	private float xOffset = 0;
 	private float yOffset = 0;
 
+	@Nullable
+	private RecordedCanvas recordedBill = null;
+
 	public QRCodeComponent(
 		@NonNull EinzahlungsscheinConfiguration config,
 		@NonNull QRCodeEinzahlungsschein qrCodeEinzahlungsschein,
@@ -53,12 +59,15 @@ public class QRCodeComponent extends ComponentRenderer<SimpleConfiguration, QRCo
 		this.yOffset = config.getYOffset();
 	}
 
-	public static byte[] generateQRCode(@NonNull QRCodeEinzahlungsschein qrCodeEinzahlungsschein) throws IOException,
-		QRBillValidationError {
+	/**
+	 * Erstellt die Daten der QR-Rechnung für die QR-Rechnungs Bibliothek.
+	 */
+	@NonNull
+	public static Bill createBill(@NonNull QRCodeEinzahlungsschein qrCodeEinzahlungsschein) {
 		// Set Rechnung format
 		Bill bill = new Bill();
 		bill.getFormat().setLanguage(qrCodeEinzahlungsschein.getLanguage());
-		bill.getFormat().setGraphicsFormat(GraphicsFormat.PDF);
+		bill.getFormat().setOutputSize(OutputSize.A4_PORTRAIT_SHEET);
 
 		// Set Rechnung data
 		bill.setAccount(qrCodeEinzahlungsschein.getKonto());
@@ -73,32 +82,83 @@ public class QRCodeComponent extends ComponentRenderer<SimpleConfiguration, QRCo
 		// Set debtor
 		bill.setDebtor(qrCodeEinzahlungsschein.getEinzahlungVon());
 
-		// Generate QR bill
-		try (PDFCanvas canvas = new PDFCanvas(QRBill.A4_PORTRAIT_WIDTH, QRBill.A4_PORTRAIT_HEIGHT)) {
-			bill.getFormat().setOutputSize(OutputSize.A4_PORTRAIT_SHEET);
-			QRBill.draw(bill, canvas);
+		return bill;
+	}
 
-			return canvas.toByteArray();
+	/**
+	 * Erstellt ein eigenständiges A4 PDF, welches nur den Zahlteil enthält.
+	 */
+	public static byte[] generateQRCode(@NonNull QRCodeEinzahlungsschein qrCodeEinzahlungsschein) throws IOException,
+		QRBillValidationError {
+		Bill bill = createBill(qrCodeEinzahlungsschein);
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		PdfGenerator pdfGenerator = null;
+		try {
+			pdfGenerator = new PdfGenerator(out, new PageConfiguration());
+
+			try (OpenPdfCanvas canvas = new OpenPdfCanvas(pdfGenerator.getDirectContent())) {
+				QRBill.draw(bill, canvas);
+			}
+		} catch (DocumentException e) {
+			throw new IOException("Could not create QR bill PDF", e);
+		} finally {
+			if (pdfGenerator != null) {
+				pdfGenerator.close();
+			}
 		}
+
+		return out.toByteArray();
 	}
 
+	/**
+	 * Validiert die QR-Rechnung, kodiert den QR-Code und zeichnet den Zahlteil in einen {@link RecordedCanvas}.
+	 * {@link #render(PdfContentByte, PdfElementGenerator)} spielt danach nur noch die Zeichenbefehle ab.
+	 */
 	@Override
-	public void render(@NonNull PdfWriter pdfWriter, @NonNull PdfElementGenerator pdfElementGenerator)
-		throws InvoiceGeneratorRuntimeException {
-		Objects.requireNonNull(getPayload());
-
-		try (PdfReader pdfReader = new PdfReader(generateQRCode(getPayload()))) {
-			// reads the binary PDF file generated from the QR Bill library and adds it to actual invoice
-			PdfImportedPage importedPage = pdfWriter.getImportedPage(pdfReader, 1);
-			pdfWriter.getDirectContent().addTemplate(importedPage, xOffset, yOffset);
-		} catch (QRBillValidationError | IOException e) {
+	public void prepare(@NonNull PdfElementGenerator pdfElementGenerator) {
+		long start = System.nanoTime();
+		Bill bill = createBill(Objects.requireNonNull(getPayload()));
+
+		try (RecordedCanvas canvas = new RecordedCanvas()) {
+			QRBill.draw(bill, canvas);
+			recordedBill = canvas;
+		} catch (QRBillValidationError | QRBillGenerationException e) {
 			throw new InvoiceGeneratorRuntimeException("Could not initialize QR Code", e);
 		}
+
+		pdfElementGenerator.getConfiguration().getGenerationListener()
+			.onPhase(GenerationPhase.QR_CODE, System.nanoTime() - start);
 	}
 
+	/**
+	 * Zeichnet den Zahlteil direkt in den Content der aktuellen Seite.
+	 */
 	@Override
 	public void render(
 		@NonNull PdfContentByte directContent,
-		@NonNull PdfElementGenerator pdfElementGenerator) throws DocumentException {
+		@NonNull PdfElementGenerator pdfElementGenerator) throws InvoiceGeneratorRuntimeException {
+
+		if (recordedBill != null) {
+			try (OpenPdfCanvas canvas = new OpenPdfCanvas(directContent, xOffset, yOffset)) {
+				recordedBill.replay(canvas);
+			} catch (IOException e) {
+				throw new InvoiceGeneratorRuntimeException("Could not draw QR Code", e);
+			}
+
+			return;
+		}
+
+		long start = System.nanoTime();
+		Bill bill = createBill(Objects.requireNonNull(getPayload()));
+
+		try (OpenPdfCanvas canvas = new OpenPdfCanvas(directContent, xOffset, yOffset)) {
+			QRBill.draw(bill, canvas);
+		} catch (QRBillValidationError | QRBillGenerationException e) {
+			throw new InvoiceGeneratorRuntimeException("Could not initialize QR Code", e);
+		}
+
+		pdfElementGenerator.getConfiguration().getGenerationListener()
+			.onPhase(GenerationPhase.QR_CODE, System.nanoTime() - start);
 	}
 }
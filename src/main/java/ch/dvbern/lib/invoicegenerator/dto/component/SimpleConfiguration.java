@@ -17,12 +17,16 @@
 package ch.dvbern.lib.invoicegenerator.dto.component;
 
 import ch.dvbern.lib.invoicegenerator.dto.OnPage;
+import ch.dvbern.lib.invoicegenerator.dto.PagePlacement;
 import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
 
 public class SimpleConfiguration implements ComponentConfiguration {
 
 	@NonNull
 	private OnPage onPage;
+	@Nullable
+	private PagePlacement pagePlacement = null;
 
 	public SimpleConfiguration(@NonNull OnPage onPage) {
 		this.onPage = onPage;
@@ -37,5 +41,19 @@ public class SimpleConfiguration implements ComponentConfiguration {
 	@Override
 	public void setOnPage(@NonNull OnPage onPage) {
 		this.onPage = onPage;
+		this.pagePlacement = null;
+	}
+
+	@NonNull
+	@Override
+	public PagePlacement getPagePlacement() {
+		return pagePlacement != null ? pagePlacement : onPage;
+	}
+
+	/**
+	 * Ersetzt {@link #getOnPage()} durch eine andere Regel, z.B. {@link PagePlacement#odd()}.
+	 */
+	public void setPagePlacement(@NonNull PagePlacement pagePlacement) {
+		this.pagePlacement = pagePlacement;
 	}
 }
@@ -18,7 +18,9 @@ package ch.dvbern.lib.invoicegenerator.dto.component;
 import java.util.StringJoiner;
 
 import ch.dvbern.lib.invoicegenerator.dto.OnPage;
+import ch.dvbern.lib.invoicegenerator.dto.PagePlacement;
 import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
 
 /**
  * Eine abstrakte Text-Komponente, welches absolut positioniert werden kann.
@@ -29,6 +31,8 @@ public abstract class TextComponent implements ComponentConfiguration {
 
 	@NonNull
 	private OnPage onPage;
+	@Nullable
+	private PagePlacement pagePlacement = null;
 	private float leftInMm;
 	private float topInMm;
 	private float widthInMm;
@@ -57,6 +61,20 @@ public abstract class TextComponent implements ComponentConfiguration {
 	@Override
 	public void setOnPage(@NonNull OnPage onPage) {
 		this.onPage = onPage;
+		this.pagePlacement = null;
+	}
+
+	@NonNull
+	@Override
+	public PagePlacement getPagePlacement() {
+		return pagePlacement != null ? pagePlacement : onPage;
+	}
+
+	/**
+	 * Ersetzt {@link #getOnPage()} durch eine andere Regel, z.B. {@link PagePlacement#odd()}.
+	 */
+	public void setPagePlacement(@NonNull PagePlacement pagePlacement) {
+		this.pagePlacement = pagePlacement;
 	}
 
 	@Override
@@ -0,0 +1,92 @@
+/*
+ * Copyright (C) 2019 DV Bern AG, Switzerland
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ch.dvbern.lib.invoicegenerator.dto.component;
+
+import java.awt.Color;
+
+import ch.dvbern.lib.invoicegenerator.dto.OnPage;
+import ch.dvbern.lib.invoicegenerator.dto.fonts.FontBuilder;
+import ch.dvbern.lib.invoicegenerator.dto.fonts.FontModifier;
+import ch.dvbern.lib.invoicegenerator.pdf.PdfElementGenerator;
+import com.lowagie.text.Element;
+import com.lowagie.text.Font;
+import com.lowagie.text.Phrase;
+import com.lowagie.text.Rectangle;
+import com.lowagie.text.pdf.ColumnText;
+import com.lowagie.text.pdf.PdfContentByte;
+import com.lowagie.text.pdf.PdfGState;
+import org.jspecify.annotations.NonNull;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Schreibt einen Text (z.B. "KOPIE" oder "DUPLIKAT") gross, diagonal und halbtransparent über die Seite.
+ */
+public class WatermarkComponent extends ComponentRenderer<SimpleConfiguration, String> {
+
+	public static final float DEFAULT_FONT_SIZE = 80;
+	public static final float DEFAULT_OPACITY = 0.3F;
+
+	private static final float ROTATION = 45;
+
+	private final float fontSize;
+	private final float opacity;
+
+	public WatermarkComponent(@NonNull OnPage onPage, @NonNull String text) {
+		this(onPage, text, DEFAULT_FONT_SIZE, DEFAULT_OPACITY);
+	}
+
+	/**
+	 * @param fontSize Schriftgrösse in Punkten, verwendet wird die fette Schrift der Konfiguration
+	 * @param opacity Deckkraft zwischen 0 (unsichtbar) und 1 (deckend)
+	 */
+	public WatermarkComponent(@NonNull OnPage onPage, @NonNull String text, float fontSize, float opacity) {
+		super(new SimpleConfiguration(onPage), text);
+
+		this.fontSize = fontSize;
+		this.opacity = opacity;
+	}
+
+	@Override
+	public void render(@NonNull PdfContentByte directContent, @NonNull PdfElementGenerator pdfElementGenerator) {
+		Font font = FontBuilder.of(pdfElementGenerator.getConfiguration().getFonts().getFontBold())
+			.with(FontModifier.size(fontSize))
+			.with(FontModifier.color(Color.GRAY))
+			.build();
+
+		PdfGState state = new PdfGState();
+		state.setFillOpacity(opacity);
+
+		Rectangle pageSize = pdfElementGenerator.getConfiguration().getPageSize();
+
+		directContent.saveState();
+		directContent.setGState(state);
+		ColumnText.showTextAligned(
+			directContent,
+			Element.ALIGN_CENTER,
+			new Phrase(requireNonNull(getPayload()), font),
+			pageSize.getWidth() / 2,
+			pageSize.getHeight() / 2,
+			ROTATION);
+		directContent.restoreState();
+	}
+
+	@Override
+	public boolean isPageInvariant() {
+		return true;
+	}
+}
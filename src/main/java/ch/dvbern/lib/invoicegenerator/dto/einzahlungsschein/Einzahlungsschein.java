@@ -18,8 +18,6 @@ package ch.dvbern.lib.invoicegenerator.dto.einzahlungsschein;
 
 import java.math.BigDecimal;
 import java.math.BigInteger;
-import java.text.DecimalFormat;
-import java.text.DecimalFormatSymbols;
 import java.util.StringJoiner;
 
 import ch.dvbern.lib.invoicegenerator.dto.OnPage;
@@ -30,6 +28,9 @@ import org.jspecify.annotations.NonNull;
 import static java.util.Objects.requireNonNull;
 
 public abstract class Einzahlungsschein {
+
+	private static final int REFERENZ_NR_GRUPPE = 5;
+
 	@NonNull
 	private final BigInteger referenzNr;
 	@NonNull
@@ -58,14 +59,25 @@ public abstract class Einzahlungsschein {
 		this.konto = konto;
 	}
 
+	/**
+	 * @return die Referenznummer in Gruppen zu fünf Ziffern von rechts, z.B. "12 00000 00000 23447 89432 16899"
+	 */
 	@NonNull
 	public String getReferenzNrAsText() {
-		DecimalFormat decimalFormat = new DecimalFormat("#,#####");
-		DecimalFormatSymbols formatSymbols = decimalFormat.getDecimalFormatSymbols();
-		formatSymbols.setGroupingSeparator(' ');
-		decimalFormat.setDecimalFormatSymbols(formatSymbols);
+		String digits = referenzNr.toString();
+		int start = referenzNr.signum() < 0 ? 1 : 0;
+		int length = digits.length() - start;
+
+		StringBuilder text = new StringBuilder(digits.length() + length / REFERENZ_NR_GRUPPE);
+		text.append(digits, 0, start);
+		for (int i = 0; i < length; i++) {
+			if (i > 0 && (length - i) % REFERENZ_NR_GRUPPE == 0) {
+				text.append(' ');
+			}
+			text.append(digits.charAt(start + i));
+		}
 
-		return decimalFormat.format(this.referenzNr);
+		return text.toString();
 	}
 
 	@NonNull
@@ -23,6 +23,7 @@ import ch.dvbern.lib.invoicegenerator.strategy.einzahlungfuer.EinzahlungFuerPost
 import ch.dvbern.lib.invoicegenerator.strategy.einzahlungfuer.EinzahlungFuerStrategy;
 import com.lowagie.text.Utilities;
 import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
 
 public class EinzahlungsscheinConfiguration {
 
@@ -30,15 +31,76 @@ public class EinzahlungsscheinConfiguration {
 	private float yOffset;
 	private boolean addEsrBackgroundImage;
 	private boolean einzahlungsscheinNotOnPageOne = false;
+	private volatile boolean frozen = false;
+
+	@Nullable
+	private volatile EinzahlungFuerStrategy postStrategy = null;
+	@Nullable
+	private volatile EinzahlungFuerStrategy bankStrategy = null;
+
+	/**
+	 * Verhindert weitere Änderungen, damit die Konfiguration von mehreren Threads gleichzeitig verwendet werden kann.
+	 */
+	public void freeze() {
+		frozen = true;
+	}
+
+	public boolean isFrozen() {
+		return frozen;
+	}
+
+	private void checkNotFrozen() {
+		if (frozen) {
+			throw new IllegalStateException("EinzahlungsscheinConfiguration is frozen and can no longer be modified");
+		}
+	}
 
 	public void setLeftOffsetInMm(float leftOffsetInMm) {
+		checkNotFrozen();
 		this.xOffset = Utilities.millimetersToPoints(leftOffsetInMm);
+		resetStrategies();
 	}
 
 	public void setTopOffsetInMm(float topOffsetInMm) {
+		checkNotFrozen();
 		this.yOffset = -Utilities.millimetersToPoints(topOffsetInMm);
+		resetStrategies();
+	}
+
+	private void resetStrategies() {
+		postStrategy = null;
+		bankStrategy = null;
+	}
+
+	/**
+	 * Gibt die Strategie für die Offsets dieser Konfiguration zurück. Die Strategien werden beim ersten Gebrauch
+	 * erstellt und danach wiederverwendet, sie sind zustandslos und thread-safe.
+	 */
+	@NonNull
+	public EinzahlungFuerStrategy getEinzahlungFuerStrategy(@NonNull OrangerEinzahlungsschein einzahlungsschein) {
+		if (einzahlungsschein instanceof OrangerEinzahlungsscheinBank) {
+			EinzahlungFuerStrategy strategy = bankStrategy;
+			if (strategy == null) {
+				strategy = new EinzahlungFuerBankStrategy(xOffset, yOffset);
+				bankStrategy = strategy;
+			}
+
+			return strategy;
+		}
+
+		EinzahlungFuerStrategy strategy = postStrategy;
+		if (strategy == null) {
+			strategy = new EinzahlungFuerPostStrategy(xOffset, yOffset);
+			postStrategy = strategy;
+		}
+
+		return strategy;
 	}
 
+	/**
+	 * Erstellt eine neue Strategie, siehe {@link #getEinzahlungFuerStrategy(OrangerEinzahlungsschein)} für eine
+	 * wiederverwendete Instanz.
+	 */
 	@NonNull
 	public EinzahlungFuerStrategy createEinzahlungFuerStrategy(@NonNull OrangerEinzahlungsschein einzahlungsschein) {
 		return (einzahlungsschein instanceof OrangerEinzahlungsscheinBank) ?
@@ -59,6 +121,7 @@ public class EinzahlungsscheinConfiguration {
 	}
 
 	public void setAddEsrBackgroundImage(boolean addEsrBackgroundImage) {
+		checkNotFrozen();
 		this.addEsrBackgroundImage = addEsrBackgroundImage;
 	}
 
@@ -67,6 +130,7 @@ public class EinzahlungsscheinConfiguration {
 	}
 
 	public void setEinzahlungsscheinNotOnPageOne(boolean einzahlungsscheinNotOnPageOne) {
+		checkNotFrozen();
 		this.einzahlungsscheinNotOnPageOne = einzahlungsscheinNotOnPageOne;
 	}
 
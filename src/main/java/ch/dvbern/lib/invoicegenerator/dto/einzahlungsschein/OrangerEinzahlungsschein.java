@@ -44,17 +44,32 @@ public class OrangerEinzahlungsschein extends Einzahlungsschein {
 	public static final int CHECKSUMME_MODULO = 10;
 
 	private static final String ESR_IN_CHF_BELEGARTCODE = "01";
-	private static final int[] CHECKSUMME_FAKTOREN = { 0, 9, 4, 6, 8, 2, 7, 1, 3, 5 };
+	private static final int BETRAG_IN_CHF_LENGTH = 8;
+	private static final int BETRAG_IN_RP_LENGTH = 2;
+	private static final int ORDNUNGSNUMMER_LENGTH = 6;
+	private static final int KODIERZEILE_LENGTH = 53;
 
+	/**
+	 * Prüfzifferberechnung Modulo 10, rekursiv.
+	 *
+	 * @see ReferenzNummern#mod10(CharSequence)
+	 */
 	public static int calcPruefziffer(@NonNull final String referenzNrOhnePruefziffer) {
-		// Prüfzifferberechnung Modulo 10, rekursiv
-		int uebertrag = referenzNrOhnePruefziffer.chars()
-			.mapToObj(i -> (char) i)
-			.mapToInt(Character::getNumericValue)
-			.reduce(0, (currentUebertrag, currentDigit) ->
-				CHECKSUMME_FAKTOREN[(currentUebertrag + currentDigit) % CHECKSUMME_MODULO]);
+		return ReferenzNummern.mod10(referenzNrOhnePruefziffer);
+	}
+
+	@NonNull
+	private static String zeroPadded(@NonNull String digits, int length) {
+		if (digits.length() >= length) {
+			return digits;
+		}
 
-		return (CHECKSUMME_MODULO - uebertrag) % CHECKSUMME_MODULO;
+		StringBuilder padded = new StringBuilder(length);
+		for (int i = digits.length(); i < length; i++) {
+			padded.append('0');
+		}
+
+		return padded.append(digits).toString();
 	}
 
 	@NonNull
@@ -122,7 +137,7 @@ public class OrangerEinzahlungsschein extends Einzahlungsschein {
 		}
 		try {
 			final int ordnungsnummer = Integer.parseInt(parts[1]);
-			final String ordnungsmummerString = String.format("%06d", ordnungsnummer);
+			final String ordnungsmummerString = zeroPadded(String.valueOf(ordnungsnummer), ORDNUNGSNUMMER_LENGTH);
 			final int pruefziffer = calcPruefziffer(parts[0] + ordnungsmummerString);
 			if (pruefziffer != Integer.parseInt(parts[2])) {
 				throw new IllegalKontoException("Invalid Prüfziffer");
@@ -154,7 +169,7 @@ public class OrangerEinzahlungsschein extends Einzahlungsschein {
 
 	@NonNull
 	public String getBetragInCHFAsText() {
-		return String.format("%08d", this.getBetragInChf());
+		return zeroPadded(String.valueOf(getBetragInChf()), BETRAG_IN_CHF_LENGTH);
 	}
 
 	public int getBetragInRp() {
@@ -163,7 +178,7 @@ public class OrangerEinzahlungsschein extends Einzahlungsschein {
 
 	@NonNull
 	public String getBetragInRpAsText() {
-		return String.format("%02d", this.getBetragInRp());
+		return zeroPadded(String.valueOf(getBetragInRp()), BETRAG_IN_RP_LENGTH);
 	}
 
 	@NonNull
@@ -173,7 +188,7 @@ public class OrangerEinzahlungsschein extends Einzahlungsschein {
 
 	@NonNull
 	public String getReferenzNrForPruefzifferAsText() {
-		return String.format("%027d", getReferenzNr());
+		return zeroPadded(getReferenzNr().toString(), ReferenzNummern.QR_REFERENZ_LENGTH);
 	}
 
 	@NonNull
@@ -186,8 +201,15 @@ public class OrangerEinzahlungsschein extends Einzahlungsschein {
 		final String belegartCodeAndBetrag = ESR_IN_CHF_BELEGARTCODE + getBetragInCHFAsText() + getBetragInRpAsText();
 
 		int pruefziffer = calcPruefziffer(belegartCodeAndBetrag);
-		return belegartCodeAndBetrag + pruefziffer + '>' + getReferenzNrForPruefzifferAsText() + "+ " +
-			kontoForKodierzeile + '>';
+		return new StringBuilder(KODIERZEILE_LENGTH)
+			.append(belegartCodeAndBetrag)
+			.append(pruefziffer)
+			.append('>')
+			.append(getReferenzNrForPruefzifferAsText())
+			.append("+ ")
+			.append(kontoForKodierzeile)
+			.append('>')
+			.toString();
 	}
 
 	@Override
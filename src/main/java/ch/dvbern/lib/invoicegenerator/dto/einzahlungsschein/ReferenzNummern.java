@@ -0,0 +1,276 @@
+/*
+ * Copyright (C) 2019 DV Bern AG, Switzerland
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.dvbern.lib.invoicegenerator.dto.einzahlungsschein;
+
+import org.jspecify.annotations.NonNull;
+
+/**
+ * Berechnung und Validierung von Referenznummern ohne Zwischenobjekte, damit auch sehr viele Referenzen schnell
+ * erstellt werden können.
+ * <ul>
+ *     <li>ESR und QR-Referenz (QRR): 27 Ziffern, die letzte ist die Prüfziffer nach Modulo 10, rekursiv</li>
+ *     <li>Creditor Reference (SCOR, ISO 11649): "RF", zwei Prüfziffern nach ISO 7064 Mod 97-10 und 1 bis 21
+ *     alphanumerische Zeichen</li>
+ * </ul>
+ * Die Referenzen werden in der elektronischen Form ohne Leerzeichen erwartet.
+ *
+ * @see ReferenzNummernGenerator
+ */
+public final class ReferenzNummern {
+
+	public static final int QR_REFERENZ_LENGTH = 27;
+	public static final int CREDITOR_REFERENCE_MAX_LENGTH = 25;
+
+	static final int CREDITOR_REFERENCE_PREFIX_LENGTH = 4;
+
+	private static final int[] MOD10_UEBERTRAG = { 0, 9, 4, 6, 8, 2, 7, 1, 3, 5 };
+	private static final int RADIX = 10;
+
+	private static final int MOD97 = 97;
+	private static final int MOD97_CHECK = 98;
+	private static final int LETTER_OFFSET = 10;
+	private static final int TWO_DIGITS = 100;
+
+	private ReferenzNummern() {
+		// utility class
+	}
+
+	/**
+	 * @return die Prüfziffer nach Modulo 10, rekursiv
+	 * @throws IllegalArgumentException falls die Zeichenkette nicht nur aus Ziffern besteht
+	 */
+	public static int mod10(@NonNull CharSequence digits) {
+		return mod10(digits, digits.length());
+	}
+
+	private static int mod10(@NonNull CharSequence digits, int length) {
+		int uebertrag = 0;
+		for (int i = 0; i < length; i++) {
+			uebertrag = MOD10_UEBERTRAG[(uebertrag + digit(digits.charAt(i))) % RADIX];
+		}
+
+		return (RADIX - uebertrag) % RADIX;
+	}
+
+	/**
+	 * @return die Prüfziffer nach Modulo 10, rekursiv, über die Ziffern digits[offset] bis
+	 * digits[offset + length - 1]
+	 * @throws IllegalArgumentException falls der Bereich nicht nur aus Ziffern besteht
+	 */
+	public static int mod10(@NonNull char[] digits, int offset, int length) {
+		int uebertrag = 0;
+		for (int i = offset; i < offset + length; i++) {
+			uebertrag = MOD10_UEBERTRAG[(uebertrag + digit(digits[i])) % RADIX];
+		}
+
+		return (RADIX - uebertrag) % RADIX;
+	}
+
+	/**
+	 * @return die Prüfziffer nach Modulo 10, rekursiv, über die Dezimalziffern der Zahl (ohne führende Nullen,
+	 * diese ändern die Prüfziffer nicht)
+	 */
+	public static int mod10(long number) {
+		if (number < 0) {
+			throw new IllegalArgumentException("number must not be negative: " + number);
+		}
+
+		long divisor = 1;
+		while (number / divisor >= RADIX) {
+			divisor *= RADIX;
+		}
+
+		int uebertrag = 0;
+		for (; divisor > 0; divisor /= RADIX) {
+			uebertrag = MOD10_UEBERTRAG[(uebertrag + (int) (number / divisor % RADIX)) % RADIX];
+		}
+
+		return (RADIX - uebertrag) % RADIX;
+	}
+
+	/**
+	 * @return den Rest nach ISO 7064 Mod 97-10, Buchstaben zählen als 10 (A) bis 35 (Z)
+	 * @throws IllegalArgumentException falls die Zeichenkette nicht nur aus Ziffern und Buchstaben (A-Z) besteht
+	 */
+	public static int mod97(@NonNull CharSequence alphanumeric) {
+		return mod97(0, alphanumeric, 0, alphanumeric.length());
+	}
+
+	private static int mod97(int rest, @NonNull CharSequence alphanumeric, int from, int to) {
+		int result = rest;
+		for (int i = from; i < to; i++) {
+			result = mod97(result, alphanumeric.charAt(i));
+		}
+
+		return result;
+	}
+
+	private static int mod97(int rest, char c) {
+		int value = alphanumericValue(c);
+
+		return value < LETTER_OFFSET ?
+			(rest * RADIX + value) % MOD97 :
+			(rest * TWO_DIGITS + value) % MOD97;
+	}
+
+	/**
+	 * @return true, falls die Referenz aus 27 Ziffern mit gültiger Prüfziffer besteht
+	 */
+	public static boolean isValidQrReferenz(@NonNull CharSequence referenz) {
+		if (referenz.length() != QR_REFERENZ_LENGTH) {
+			return false;
+		}
+		for (int i = 0; i < QR_REFERENZ_LENGTH; i++) {
+			if (!isDigit(referenz.charAt(i))) {
+				return false;
+			}
+		}
+
+		return mod10(referenz, QR_REFERENZ_LENGTH - 1) == digit(referenz.charAt(QR_REFERENZ_LENGTH - 1));
+	}
+
+	/**
+	 * @return true, falls die Referenz eine gültige Creditor Reference nach ISO 11649 ist (Gross- oder
+	 * Kleinschreibung)
+	 */
+	public static boolean isValidCreditorReference(@NonNull CharSequence referenz) {
+		int length = referenz.length();
+		if (length <= CREDITOR_REFERENCE_PREFIX_LENGTH || length > CREDITOR_REFERENCE_MAX_LENGTH
+			|| !hasCreditorReferencePrefix(referenz)) {
+			return false;
+		}
+		for (int i = CREDITOR_REFERENCE_PREFIX_LENGTH; i < length; i++) {
+			if (!isAlphanumeric(referenz.charAt(i))) {
+				return false;
+			}
+		}
+
+		// the first four characters are moved to the end
+		int rest = mod97(0, referenz, CREDITOR_REFERENCE_PREFIX_LENGTH, length);
+
+		return mod97(rest, referenz, 0, CREDITOR_REFERENCE_PREFIX_LENGTH) == 1;
+	}
+
+	private static boolean hasCreditorReferencePrefix(@NonNull CharSequence referenz) {
+		boolean rf = Character.toUpperCase(referenz.charAt(0)) == 'R'
+			&& Character.toUpperCase(referenz.charAt(1)) == 'F';
+
+		return rf && isDigit(referenz.charAt(2)) && isDigit(referenz.charAt(CREDITOR_REFERENCE_PREFIX_LENGTH - 1));
+	}
+
+	/**
+	 * @param ohnePruefziffer höchstens 26 Ziffern, wird links mit Nullen aufgefüllt
+	 * @return die QR-Referenz mit 27 Ziffern
+	 */
+	@NonNull
+	public static String qrReferenz(@NonNull CharSequence ohnePruefziffer) {
+		int length = ohnePruefziffer.length();
+		if (length >= QR_REFERENZ_LENGTH) {
+			throw new IllegalArgumentException("QR reference must have at most 26 digits without check digit");
+		}
+
+		char[] referenz = new char[QR_REFERENZ_LENGTH];
+		int start = QR_REFERENZ_LENGTH - 1 - length;
+		for (int i = 0; i < start; i++) {
+			referenz[i] = '0';
+		}
+		for (int i = 0; i < length; i++) {
+			referenz[start + i] = ohnePruefziffer.charAt(i);
+		}
+
+		return withMod10(referenz);
+	}
+
+	/**
+	 * Setzt die Prüfziffer an die letzte Stelle der 27 Ziffern.
+	 */
+	@NonNull
+	static String withMod10(@NonNull char[] referenz) {
+		referenz[QR_REFERENZ_LENGTH - 1] = (char) ('0' + mod10(referenz, 0, QR_REFERENZ_LENGTH - 1));
+
+		return new String(referenz);
+	}
+
+	/**
+	 * @param referenz 1 bis 21 Ziffern und Grossbuchstaben
+	 * @return die Creditor Reference "RF" + Prüfziffern + referenz
+	 */
+	@NonNull
+	public static String creditorReference(@NonNull CharSequence referenz) {
+		int length = referenz.length();
+		if (length == 0 || length > CREDITOR_REFERENCE_MAX_LENGTH - CREDITOR_REFERENCE_PREFIX_LENGTH) {
+			throw new IllegalArgumentException("Creditor reference must have between 1 and 21 characters");
+		}
+
+		char[] result = new char[CREDITOR_REFERENCE_PREFIX_LENGTH + length];
+		for (int i = 0; i < length; i++) {
+			result[CREDITOR_REFERENCE_PREFIX_LENGTH + i] = referenz.charAt(i);
+		}
+
+		return withMod97(result);
+	}
+
+	/**
+	 * Setzt "RF" und die Prüfziffern an die ersten vier Stellen.
+	 */
+	@NonNull
+	static String withMod97(@NonNull char[] referenz) {
+		int rest = 0;
+		for (int i = CREDITOR_REFERENCE_PREFIX_LENGTH; i < referenz.length; i++) {
+			rest = mod97(rest, referenz[i]);
+		}
+		// "RF00" appended
+		rest = mod97(mod97(mod97(mod97(rest, 'R'), 'F'), '0'), '0');
+		int pruefziffer = MOD97_CHECK - rest;
+
+		referenz[0] = 'R';
+		referenz[1] = 'F';
+		referenz[2] = (char) ('0' + pruefziffer / RADIX);
+		referenz[CREDITOR_REFERENCE_PREFIX_LENGTH - 1] = (char) ('0' + pruefziffer % RADIX);
+
+		return new String(referenz);
+	}
+
+	private static int digit(char c) {
+		if (!isDigit(c)) {
+			throw new IllegalArgumentException("Not a digit: " + c);
+		}
+
+		return c - '0';
+	}
+
+	private static int alphanumericValue(char c) {
+		if (isDigit(c)) {
+			return c - '0';
+		}
+		char upper = Character.toUpperCase(c);
+		if (upper >= 'A' && upper <= 'Z') {
+			return upper - 'A' + LETTER_OFFSET;
+		}
+
+		throw new IllegalArgumentException("Not alphanumeric: " + c);
+	}
+
+	private static boolean isDigit(char c) {
+		return c >= '0' && c <= '9';
+	}
+
+	private static boolean isAlphanumeric(char c) {
+		char upper = Character.toUpperCase(c);
+
+		return isDigit(c) || upper >= 'A' && upper <= 'Z';
+	}
+}
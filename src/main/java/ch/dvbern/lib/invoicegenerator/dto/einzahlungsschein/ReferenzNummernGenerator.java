@@ -0,0 +1,217 @@
+/*
+ * Copyright (C) 2019 DV Bern AG, Switzerland
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.dvbern.lib.invoicegenerator.dto.einzahlungsschein;
+
+import java.util.Objects;
+import java.util.StringJoiner;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.jspecify.annotations.NonNull;
+
+import static ch.dvbern.lib.invoicegenerator.dto.einzahlungsschein.ReferenzNummern.CREDITOR_REFERENCE_MAX_LENGTH;
+import static ch.dvbern.lib.invoicegenerator.dto.einzahlungsschein.ReferenzNummern.CREDITOR_REFERENCE_PREFIX_LENGTH;
+import static ch.dvbern.lib.invoicegenerator.dto.einzahlungsschein.ReferenzNummern.QR_REFERENZ_LENGTH;
+
+/**
+ * Erstellt fortlaufende Referenznummern nach dem Schema Präfix (z.B. Kunden- oder Mandantennummer) + laufende
+ * Nummer.
+ * <ul>
+ *     <li>QR-Referenz: Präfix + laufende Nummer (mit Nullen auf 26 Ziffern aufgefüllt) + Prüfziffer</li>
+ *     <li>Creditor Reference: "RF" + Prüfziffern + Präfix + laufende Nummer (mit Nullen auf die Länge der höchsten
+ *     Nummer aufgefüllt, welche noch in eine Creditor Reference passt)</li>
+ * </ul>
+ * Die laufenden Nummern werden ohne Sperren vergeben. Threads, die viele Referenzen erstellen, reservieren mit
+ * {@link #reserve(int)} einen ganzen {@link Bereich} und erstellen die Referenzen daraus ohne weitere
+ * Synchronisation.
+ */
+public final class ReferenzNummernGenerator {
+
+	private static final int RADIX = 10;
+
+	@NonNull
+	private final String praefix;
+	private final int creditorReferenceNummerLength;
+	private final long maxNummer;
+
+	@NonNull
+	private final AtomicLong naechsteNummer;
+
+	/**
+	 * @param praefix Ziffern, welche jeder Referenz vorangestellt werden, darf leer sein
+	 * @param ersteNummer die erste laufende Nummer
+	 */
+	public ReferenzNummernGenerator(@NonNull String praefix, long ersteNummer) {
+		if (!praefix.chars().allMatch(c -> c >= '0' && c <= '9')) {
+			throw new IllegalArgumentException("praefix must only contain digits: " + praefix);
+		}
+		int nummerLength = CREDITOR_REFERENCE_MAX_LENGTH - CREDITOR_REFERENCE_PREFIX_LENGTH - praefix.length();
+		if (nummerLength <= 0) {
+			throw new IllegalArgumentException("praefix is too long for a creditor reference: " + praefix);
+		}
+		if (ersteNummer < 0) {
+			throw new IllegalArgumentException("ersteNummer must not be negative: " + ersteNummer);
+		}
+
+		this.praefix = praefix;
+		// a long has at most 18 digits that can all be 9
+		this.creditorReferenceNummerLength = Math.min(nummerLength, String.valueOf(Long.MAX_VALUE).length() - 1);
+		this.maxNummer = pow10(creditorReferenceNummerLength) - 1;
+		this.naechsteNummer = new AtomicLong(ersteNummer);
+	}
+
+	private static long pow10(int exponent) {
+		long result = 1;
+		for (int i = 0; i < exponent; i++) {
+			result *= RADIX;
+		}
+
+		return result;
+	}
+
+	/**
+	 * Reserviert die nächsten anzahl laufenden Nummern.
+	 *
+	 * @throws IllegalStateException falls die Nummern nicht mehr in eine Referenz passen
+	 */
+	@NonNull
+	public Bereich reserve(int anzahl) {
+		if (anzahl <= 0) {
+			throw new IllegalArgumentException("anzahl must be positive: " + anzahl);
+		}
+
+		long erste = naechsteNummer.getAndAdd(anzahl);
+		if (erste < 0 || erste > maxNummer - anzahl + 1) {
+			throw new IllegalStateException("No more reference numbers available for praefix " + praefix);
+		}
+
+		return new Bereich(erste, anzahl);
+	}
+
+	@NonNull
+	public String nextQrReferenz() {
+		return qrReferenz(reserve(1).getErsteNummer());
+	}
+
+	@NonNull
+	public String nextCreditorReference() {
+		return creditorReference(reserve(1).getErsteNummer());
+	}
+
+	/**
+	 * @return die QR-Referenz dieses Schemas mit der gegebenen laufenden Nummer
+	 */
+	@NonNull
+	public String qrReferenz(long nummer) {
+		checkNummer(nummer);
+		char[] referenz = new char[QR_REFERENZ_LENGTH];
+		praefix.getChars(0, praefix.length(), referenz, 0);
+		fillDigits(referenz, praefix.length(), QR_REFERENZ_LENGTH - 1, nummer);
+
+		return ReferenzNummern.withMod10(referenz);
+	}
+
+	/**
+	 * @return die Creditor Reference dieses Schemas mit der gegebenen laufenden Nummer
+	 */
+	@NonNull
+	public String creditorReference(long nummer) {
+		checkNummer(nummer);
+		int start = CREDITOR_REFERENCE_PREFIX_LENGTH + praefix.length();
+		char[] referenz = new char[start + creditorReferenceNummerLength];
+		praefix.getChars(0, praefix.length(), referenz, CREDITOR_REFERENCE_PREFIX_LENGTH);
+		fillDigits(referenz, start, referenz.length, nummer);
+
+		return ReferenzNummern.withMod97(referenz);
+	}
+
+	private void checkNummer(long nummer) {
+		if (nummer < 0 || nummer > maxNummer) {
+			throw new IllegalArgumentException("nummer must be between 0 and " + maxNummer + ": " + nummer);
+		}
+	}
+
+	/**
+	 * Schreibt die Zahl rechtsbündig und mit Nullen aufgefüllt in target[from] bis target[to - 1].
+	 */
+	private static void fillDigits(@NonNull char[] target, int from, int to, long number) {
+		long rest = number;
+		for (int i = to - 1; i >= from; i--) {
+			target[i] = (char) ('0' + rest % RADIX);
+			rest /= RADIX;
+		}
+	}
+
+	@NonNull
+	public String getPraefix() {
+		return praefix;
+	}
+
+	@Override
+	@NonNull
+	public String toString() {
+		return new StringJoiner(", ", ReferenzNummernGenerator.class.getSimpleName() + '[', "]")
+			.add("praefix='" + praefix + '\'')
+			.add("naechsteNummer=" + naechsteNummer)
+			.toString();
+	}
+
+	/**
+	 * Ein zusammenhängender Bereich von reservierten laufenden Nummern.
+	 */
+	public final class Bereich {
+
+		private final long ersteNummer;
+		private final int anzahl;
+
+		private Bereich(long ersteNummer, int anzahl) {
+			this.ersteNummer = ersteNummer;
+			this.anzahl = anzahl;
+		}
+
+		/**
+		 * @param index 0 bis {@link #getAnzahl()} - 1
+		 */
+		@NonNull
+		public String qrReferenz(int index) {
+			return ReferenzNummernGenerator.this.qrReferenz(ersteNummer + Objects.checkIndex(index, anzahl));
+		}
+
+		/**
+		 * @param index 0 bis {@link #getAnzahl()} - 1
+		 */
+		@NonNull
+		public String creditorReference(int index) {
+			return ReferenzNummernGenerator.this.creditorReference(ersteNummer + Objects.checkIndex(index, anzahl));
+		}
+
+		public long getErsteNummer() {
+			return ersteNummer;
+		}
+
+		public int getAnzahl() {
+			return anzahl;
+		}
+
+		@Override
+		@NonNull
+		public String toString() {
+			return new StringJoiner(", ", Bereich.class.getSimpleName() + '[', "]")
+				.add("ersteNummer=" + ersteNummer)
+				.add("anzahl=" + anzahl)
+				.toString();
+		}
+	}
+}
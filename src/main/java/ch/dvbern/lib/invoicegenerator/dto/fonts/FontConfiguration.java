@@ -17,14 +17,11 @@
 package ch.dvbern.lib.invoicegenerator.dto.fonts;
 
 import com.lowagie.text.Font;
-import com.lowagie.text.FontFactory;
 import org.jspecify.annotations.NonNull;
 import org.jspecify.annotations.Nullable;
 
 import static ch.dvbern.lib.invoicegenerator.dto.fonts.FontModifier.bold;
 import static ch.dvbern.lib.invoicegenerator.dto.fonts.FontModifier.size;
-import static com.lowagie.text.pdf.BaseFont.EMBEDDED;
-import static com.lowagie.text.pdf.BaseFont.WINANSI;
 
 public class FontConfiguration {
 
@@ -37,7 +34,7 @@ public class FontConfiguration {
 	public static final float FONT_SIZE_OCRB = 12;
 
 	@Nullable
-	private Font fontOcrb;
+	private volatile Font fontOcrb;
 	@NonNull
 	private Font font;
 	@NonNull
@@ -49,6 +46,8 @@ public class FontConfiguration {
 	@NonNull
 	private Font fontH2;
 
+	private volatile boolean frozen = false;
+
 	public FontConfiguration(@NonNull Font base) {
 		FontBuilder builder = FontBuilder.of(base);
 		this.font = builder.build();
@@ -79,16 +78,38 @@ public class FontConfiguration {
 		this.fontH2 = fontH2;
 	}
 
+	/**
+	 * Initialisiert den OCR-B Font und verhindert weitere Änderungen. Danach kann die Konfiguration von mehreren
+	 * Threads gleichzeitig verwendet werden.
+	 */
+	public void freeze() {
+		getFontOcrb();
+		frozen = true;
+	}
+
+	public boolean isFrozen() {
+		return frozen;
+	}
+
+	private void checkNotFrozen() {
+		if (frozen) {
+			throw new IllegalStateException("FontConfiguration is frozen and can no longer be modified");
+		}
+	}
+
 	@NonNull
 	public Font getFontOcrb() {
-		if (fontOcrb == null) {
-			fontOcrb = FontFactory.getFont(FONT_FACE_OCRB, WINANSI, EMBEDDED, FONT_SIZE_OCRB);
+		Font ocrb = fontOcrb;
+		if (ocrb == null) {
+			ocrb = FontRegistry.getRegisteredFont(FONT_FACE_OCRB, FONT_SIZE_OCRB);
+			fontOcrb = ocrb;
 		}
 
-		return fontOcrb;
+		return ocrb;
 	}
 
 	public void setFontOcrb(@Nullable Font fontOcrb) {
+		checkNotFrozen();
 		this.fontOcrb = fontOcrb;
 	}
 
@@ -98,6 +119,7 @@ public class FontConfiguration {
 	}
 
 	public void setFont(@NonNull Font font) {
+		checkNotFrozen();
 		this.font = font;
 	}
 
@@ -107,6 +129,7 @@ public class FontConfiguration {
 	}
 
 	public void setFontBold(@NonNull Font fontBold) {
+		checkNotFrozen();
 		this.fontBold = fontBold;
 	}
 
@@ -116,6 +139,7 @@ public class FontConfiguration {
 	}
 
 	public void setFontTitle(@NonNull Font fontTitle) {
+		checkNotFrozen();
 		this.fontTitle = fontTitle;
 	}
 
@@ -125,6 +149,7 @@ public class FontConfiguration {
 	}
 
 	public void setFontH1(@NonNull Font fontH1) {
+		checkNotFrozen();
 		this.fontH1 = fontH1;
 	}
 
@@ -134,6 +159,7 @@ public class FontConfiguration {
 	}
 
 	public void setFontH2(@NonNull Font fontH2) {
+		checkNotFrozen();
 		this.fontH2 = fontH2;
 	}
 }
@@ -0,0 +1,191 @@
+/*
+ * Copyright (C) 2019 DV Bern AG, Switzerland
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.dvbern.lib.invoicegenerator.dto.fonts;
+
+import java.awt.Color;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import ch.dvbern.lib.invoicegenerator.errors.InvoiceGeneratorRuntimeException;
+import com.lowagie.text.DocumentException;
+import com.lowagie.text.Font;
+import com.lowagie.text.FontFactory;
+import com.lowagie.text.pdf.BaseFont;
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+import static com.lowagie.text.pdf.BaseFont.EMBEDDED;
+import static com.lowagie.text.pdf.BaseFont.WINANSI;
+
+/**
+ * Prozessweites Register für Fonts.
+ * <p>
+ * Font-Programme (TTF/OTF) werden nur einmal geladen und als {@link BaseFont} von allen Dokumenten geteilt. Sie werden
+ * als Subset eingebettet: openpdf schreibt pro {@link com.lowagie.text.pdf.PdfWriter} nur die tatsächlich verwendeten
+ * Zeichen in das PDF. Ist ein {@link ch.dvbern.lib.invoicegenerator.dto.PageConfiguration#setCreationDate(
+ * java.time.Instant) Erstellungsdatum} konfiguriert, erhalten die Subsets dieser Fonts einen festen Präfix, damit
+ * identische Eingaben identische PDFs ergeben.
+ * <p>
+ * Die Varianten eines Fonts (Grösse, Stil, Farbe) werden ebenfalls nur einmal erstellt. Die zurückgegebenen {@link
+ * Font} Instanzen werden geteilt und dürfen deshalb nicht verändert werden. Für Anpassungen eignet sich der {@link
+ * FontBuilder}, welcher immer eine neue Instanz erstellt.
+ */
+public final class FontRegistry {
+
+	private static final ConcurrentMap<String, BaseFont> BASE_FONTS = new ConcurrentHashMap<>();
+	private static final ConcurrentMap<FontKey, Font> FONTS = new ConcurrentHashMap<>();
+	private static final ConcurrentMap<FontKey, Font> REGISTERED_FONTS = new ConcurrentHashMap<>();
+	private static final Set<String> SUBSET_FONT_NAMES = ConcurrentHashMap.newKeySet();
+
+	private FontRegistry() {
+		// utility class
+	}
+
+	/**
+	 * Lädt ein Font-Programm einmal pro Prozess.
+	 *
+	 * @param path Pfad im Classpath (z.B. "/font/br_ocrb.ttf") oder im Dateisystem einer TTF oder OTF Datei
+	 */
+	@NonNull
+	public static BaseFont getBaseFont(@NonNull String path) {
+		return BASE_FONTS.computeIfAbsent(path, FontRegistry::loadBaseFont);
+	}
+
+	/**
+	 * Lädt ein Font-Programm aus dem Dateisystem einmal pro Prozess.
+	 */
+	@NonNull
+	public static BaseFont getBaseFont(@NonNull Path path) {
+		return getBaseFont(path.toAbsolutePath().toString());
+	}
+
+	@NonNull
+	private static BaseFont loadBaseFont(@NonNull String path) {
+		try {
+			BaseFont baseFont = BaseFont.createFont(path, WINANSI, EMBEDDED, false, null, null);
+			baseFont.setSubset(true);
+			SUBSET_FONT_NAMES.add(baseFont.getPostscriptFontName());
+
+			return baseFont;
+		} catch (DocumentException | IOException e) {
+			throw new InvoiceGeneratorRuntimeException("Could not load font " + path, e);
+		}
+	}
+
+	/**
+	 * @param postscriptName der Name eines eingebetteten Fonts ohne Präfix des Subsets
+	 * @return true, falls ein von diesem Register geladener Font so heisst
+	 */
+	public static boolean isSubsetFont(@NonNull String postscriptName) {
+		return SUBSET_FONT_NAMES.contains(postscriptName);
+	}
+
+	/**
+	 * @param color null für die Standardfarbe (schwarz)
+	 * @return die geteilte Instanz für die gegebene Kombination, darf nicht verändert werden
+	 */
+	@NonNull
+	public static Font getFont(@NonNull BaseFont baseFont, float size, int style, @Nullable Color color) {
+		return FONTS.computeIfAbsent(
+			new FontKey(baseFont, size, style, color),
+			key -> new Font(baseFont, size, style, color));
+	}
+
+	/**
+	 * @return die geteilte Variante des gegebenen Fonts mit der gegebenen Grösse, darf nicht verändert werden
+	 */
+	@NonNull
+	public static Font getFont(@NonNull Font font, float size) {
+		BaseFont baseFont = font.getBaseFont();
+		Object face = baseFont != null ? baseFont : Integer.valueOf(font.getFamily());
+
+		return FONTS.computeIfAbsent(
+			new FontKey(face, size, font.getStyle(), font.getColor()),
+			key -> FontBuilder.of(font).with(FontModifier.size(size)).build());
+	}
+
+	/**
+	 * Sucht einen mit {@link FontFactory#register(String, String)} registrierten Font nur beim ersten Aufruf, danach
+	 * wird die geteilte Instanz zurückgegeben. Die registrierte Datei wird wie mit {@link #getBaseFont(String)}
+	 * geladen, die Fonts von {@link FontFactory} werden nicht verändert. Ist der Font (noch) nicht registriert, wird
+	 * das Resultat von {@link FontFactory} nicht zwischengespeichert.
+	 *
+	 * @return die geteilte Instanz als eingebetteter Font, darf nicht verändert werden
+	 */
+	@NonNull
+	public static Font getRegisteredFont(@NonNull String name, float size) {
+		FontKey key = new FontKey(name, size, Font.UNDEFINED, null);
+		Font font = REGISTERED_FONTS.get(key);
+		if (font != null) {
+			return font;
+		}
+
+		Object path = FontFactory.getFontImp().getFontPath(name);
+		Font created = path != null
+			? getFont(getBaseFont(path.toString()), size, Font.UNDEFINED, null)
+			: FontFactory.getFont(name, WINANSI, EMBEDDED, size);
+		if (created.getBaseFont() == null) {
+			return created;
+		}
+
+		Font existing = REGISTERED_FONTS.putIfAbsent(key, created);
+
+		return existing != null ? existing : created;
+	}
+
+	private static final class FontKey {
+
+		@NonNull
+		private final Object face;
+		private final float size;
+		private final int style;
+		@Nullable
+		private final Color color;
+
+		private FontKey(@NonNull Object face, float size, int style, @Nullable Color color) {
+			this.face = face;
+			this.size = size;
+			this.style = style;
+			this.color = color;
+		}
+
+		@Override
+		public boolean equals(@Nullable Object o) {
+			if (this == o) {
+				return true;
+			}
+			if (o == null || getClass() != o.getClass()) {
+				return false;
+			}
+
+			FontKey other = (FontKey) o;
+
+			return Float.compare(size, other.size) == 0
+				&& style == other.style
+				&& face.equals(other.face)
+				&& Objects.equals(color, other.color);
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(face, size, style, color);
+		}
+	}
+}
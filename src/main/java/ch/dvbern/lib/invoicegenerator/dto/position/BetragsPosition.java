@@ -0,0 +1,107 @@
+/*
+ * Copyright (C) 2019 DV Bern AG, Switzerland
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.dvbern.lib.invoicegenerator.dto.position;
+
+import java.util.StringJoiner;
+
+import org.jspecify.annotations.NonNull;
+
+/**
+ * Rechnungsposition mit typisierten Werten: Menge in Hundertstel, Preis und Total in Rappen (bzw. Cents). Das Total
+ * wird berechnet und kaufmännisch auf Rappen gerundet. Die Werte werden beim Erstellen der Tabelle mit {@link
+ * ch.dvbern.lib.invoicegenerator.dto.BetragFormat} formatiert.
+ *
+ * @see RechnungsPosition
+ * @see BetragsSummen
+ */
+public class BetragsPosition implements Position {
+
+	private static final long HUNDERTSTEL = 100;
+
+	@NonNull
+	private final String leistung;
+	private final long mengeInHundertstel;
+	private final long preisInRappen;
+	private final long totalInRappen;
+
+	/**
+	 * Erstellt eine Position mit ganzzahliger Menge.
+	 *
+	 * @param leistung Die Leistung respektive der Beschrieb der Rechnungsposition
+	 * @param menge Die Menge
+	 * @param preisInRappen Der Preis pro Einheit in Rappen
+	 * @throws ArithmeticException falls das Total nicht als long darstellbar ist
+	 */
+	public BetragsPosition(@NonNull String leistung, long menge, long preisInRappen) {
+		this(leistung, Math.multiplyExact(menge, HUNDERTSTEL), preisInRappen, Math.multiplyExact(menge, preisInRappen));
+	}
+
+	private BetragsPosition(
+		@NonNull String leistung,
+		long mengeInHundertstel,
+		long preisInRappen,
+		long totalInRappen) {
+
+		this.leistung = leistung;
+		this.mengeInHundertstel = mengeInHundertstel;
+		this.preisInRappen = preisInRappen;
+		this.totalInRappen = totalInRappen;
+	}
+
+	/**
+	 * Erstellt eine Position mit einer Menge mit bis zu zwei Nachkommastellen, z.B. 150 für 1.5 Stunden.
+	 *
+	 * @throws ArithmeticException falls das Total nicht als long darstellbar ist
+	 */
+	@NonNull
+	public static BetragsPosition mitMengeInHundertstel(
+		@NonNull String leistung,
+		long mengeInHundertstel,
+		long preisInRappen) {
+
+		long total = BetragsSummen.divideHalfUp(Math.multiplyExact(mengeInHundertstel, preisInRappen), HUNDERTSTEL);
+
+		return new BetragsPosition(leistung, mengeInHundertstel, preisInRappen, total);
+	}
+
+	@Override
+	@NonNull
+	public String toString() {
+		return new StringJoiner(", ", BetragsPosition.class.getSimpleName() + '[', "]")
+			.add("leistung='" + leistung + '\'')
+			.add("mengeInHundertstel=" + mengeInHundertstel)
+			.add("preisInRappen=" + preisInRappen)
+			.add("totalInRappen=" + totalInRappen)
+			.toString();
+	}
+
+	@NonNull
+	public String getLeistung() {
+		return leistung;
+	}
+
+	public long getMengeInHundertstel() {
+		return mengeInHundertstel;
+	}
+
+	public long getPreisInRappen() {
+		return preisInRappen;
+	}
+
+	public long getTotalInRappen() {
+		return totalInRappen;
+	}
+}
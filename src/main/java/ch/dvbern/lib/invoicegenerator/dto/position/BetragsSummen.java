@@ -0,0 +1,129 @@
+/*
+ * Copyright (C) 2019 DV Bern AG, Switzerland
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.dvbern.lib.invoicegenerator.dto.position;
+
+import java.util.StringJoiner;
+
+import com.google.errorprone.annotations.CanIgnoreReturnValue;
+import org.jspecify.annotations.NonNull;
+
+/**
+ * Summiert die Totale von {@link BetragsPosition}en. Das Subtotal beginnt bei jeder {@link H1Position} neu.
+ * <p>
+ * Werden die Positionen als {@link java.util.Iterator} übergeben, damit sie nicht alle im Speicher gehalten werden,
+ * können sie beim Erstellen mit {@link #add(Position)} summiert werden.
+ * <p>
+ * Instanzen sind nicht thread-safe.
+ */
+public class BetragsSummen {
+
+	private static final long FUENF_RAPPEN = 5;
+
+	private long totalInRappen = 0;
+	private long subtotalInRappen = 0;
+	private int anzahlPositionen = 0;
+
+	@NonNull
+	public static BetragsSummen of(@NonNull Iterable<? extends Position> positionen) {
+		BetragsSummen summen = new BetragsSummen();
+		positionen.forEach(summen::add);
+
+		return summen;
+	}
+
+	/**
+	 * Addiert das Total einer {@link BetragsPosition}, beginnt bei einer {@link H1Position} ein neues Subtotal und
+	 * ignoriert alle anderen Positionen.
+	 *
+	 * @throws ArithmeticException falls das Total nicht als long darstellbar ist
+	 */
+	@NonNull
+	@CanIgnoreReturnValue
+	public BetragsSummen add(@NonNull Position position) {
+		if (position instanceof BetragsPosition) {
+			long betrag = ((BetragsPosition) position).getTotalInRappen();
+			totalInRappen = Math.addExact(totalInRappen, betrag);
+			subtotalInRappen = Math.addExact(subtotalInRappen, betrag);
+			anzahlPositionen++;
+		} else if (position instanceof H1Position) {
+			subtotalInRappen = 0;
+		}
+
+		return this;
+	}
+
+	/**
+	 * Rundet auf 5 Rappen, wie bei Zahlungen in Franken üblich.
+	 */
+	public static long rundenAuf5Rappen(long rappen) {
+		return divideHalfUp(rappen, FUENF_RAPPEN) * FUENF_RAPPEN;
+	}
+
+	/**
+	 * Ganzzahlige Division, kaufmännisch gerundet (0.5 wird von 0 weg gerundet).
+	 */
+	static long divideHalfUp(long dividend, long divisor) {
+		long quotient = dividend / divisor;
+		long rest = Math.abs(dividend % divisor);
+		if (rest * 2 >= divisor) {
+			return dividend < 0 ? quotient - 1 : quotient + 1;
+		}
+
+		return quotient;
+	}
+
+	/**
+	 * @return das Total aller Positionen
+	 */
+	public long getTotalInRappen() {
+		return totalInRappen;
+	}
+
+	/**
+	 * @return das Total aller Positionen, auf 5 Rappen gerundet
+	 */
+	public long getTotalGerundetInRappen() {
+		return rundenAuf5Rappen(totalInRappen);
+	}
+
+	/**
+	 * @return die Differenz zwischen dem gerundeten und dem genauen Total
+	 */
+	public long getRundungsdifferenzInRappen() {
+		return getTotalGerundetInRappen() - totalInRappen;
+	}
+
+	/**
+	 * @return das Total der Positionen seit der letzten {@link H1Position}
+	 */
+	public long getSubtotalInRappen() {
+		return subtotalInRappen;
+	}
+
+	public int getAnzahlPositionen() {
+		return anzahlPositionen;
+	}
+
+	@Override
+	@NonNull
+	public String toString() {
+		return new StringJoiner(", ", BetragsSummen.class.getSimpleName() + '[', "]")
+			.add("totalInRappen=" + totalInRappen)
+			.add("subtotalInRappen=" + subtotalInRappen)
+			.add("anzahlPositionen=" + anzahlPositionen)
+			.toString();
+	}
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright (C) 2019 DV Bern AG, Switzerland
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.dvbern.lib.invoicegenerator.errors;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.jspecify.annotations.NonNull;
+
+/**
+ * Eine Rechnung ist ungültig und kann nicht generiert werden.
+ *
+ * @see ch.dvbern.lib.invoicegenerator.validation.InvoiceValidator
+ */
+public class InvoiceValidationException extends InvoiceGeneratorException {
+
+	private static final long serialVersionUID = -2846405128532947236L;
+
+	@NonNull
+	private final List<String> errors;
+
+	/**
+	 * @param errors die Beschreibungen aller Fehler
+	 */
+	public InvoiceValidationException(@NonNull List<String> errors) {
+		super("Invalid invoice: " + String.join(", ", errors));
+		this.errors = Collections.unmodifiableList(new ArrayList<>(errors));
+	}
+
+	@NonNull
+	public List<String> getErrors() {
+		return errors;
+	}
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright (C) 2019 DV Bern AG, Switzerland
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ch.dvbern.lib.invoicegenerator.metrics;
+
+import ch.dvbern.lib.invoicegenerator.dto.component.ComponentRenderer;
+import org.jspecify.annotations.NonNull;
+
+/**
+ * Wird während der Generierung über Zeiten und Mengen informiert, z.B. um langsame Komponenten in Produktion zu
+ * erkennen. Alle Zeiten sind in Nanosekunden.
+ * <p>
+ * Ein Listener wird in der Konfiguration gesetzt und von allen Generatoren dieser Konfiguration verwendet, bei
+ * paralleler Generierung auch von mehreren Threads gleichzeitig. Implementationen müssen deshalb thread-safe sein und
+ * sollten schnell zurückkehren, da sie direkt im Rendering aufgerufen werden.
+ *
+ * @see JmxGenerationMetrics
+ */
+public interface GenerationListener {
+
+	/**
+	 * Ignoriert sämtliche Events.
+	 */
+	GenerationListener NOOP = new GenerationListener() {
+	};
+
+	/**
+	 * Ein Abschnitt der Generierung wurde abgeschlossen.
+	 */
+	default void onPhase(@NonNull GenerationPhase phase, long nanos) {
+		// noop
+	}
+
+	/**
+	 * Eine Komponente wurde auf eine Seite gerendert.
+	 */
+	default void onComponentRendered(@NonNull ComponentRenderer<?, ?> component, long nanos) {
+		// noop
+	}
+
+	/**
+	 * Ein Dokument (z.B. eine Rechnung) wurde fertig generiert.
+	 *
+	 * @param pages Anzahl Seiten des Dokuments
+	 * @param nanos Dauer der Generierung des Dokuments
+	 */
+	default void onDocumentGenerated(int pages, long nanos) {
+		// noop
+	}
+
+	/**
+	 * Ein PDF wurde geschlossen. Werden mehrere Dokumente in ein PDF geschrieben, wird dies nur einmal aufgerufen.
+	 *
+	 * @param bytes Anzahl der in den OutputStream geschriebenen Bytes
+	 */
+	default void onBytesWritten(long bytes) {
+		// noop
+	}
+}
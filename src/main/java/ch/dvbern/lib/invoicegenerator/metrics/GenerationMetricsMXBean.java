@@ -0,0 +1,54 @@
+/*
+ * Copyright (C) 2019 DV Bern AG, Switzerland
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ch.dvbern.lib.invoicegenerator.metrics;
+
+import java.util.Map;
+
+import org.jspecify.annotations.NonNull;
+
+/**
+ * JMX Schnittstelle von {@link JmxGenerationMetrics}.
+ */
+public interface GenerationMetricsMXBean {
+
+	/**
+	 * @return Anzahl und Dauer der generierten Dokumente
+	 */
+	@NonNull
+	TimingStatistics getDocuments();
+
+	long getPageCount();
+
+	long getBytesWritten();
+
+	/**
+	 * @return Messungen pro {@link GenerationPhase}
+	 */
+	@NonNull
+	Map<String, TimingStatistics> getPhases();
+
+	/**
+	 * @return Messungen pro Klasse der gerenderten Komponenten
+	 */
+	@NonNull
+	Map<String, TimingStatistics> getComponents();
+
+	/**
+	 * Setzt sämtliche Messungen zurück.
+	 */
+	void reset();
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright (C) 2019 DV Bern AG, Switzerland
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ch.dvbern.lib.invoicegenerator.metrics;
+
+/**
+ * Die gemessenen Abschnitte der Generierung eines Dokuments.
+ */
+public enum GenerationPhase {
+	/**
+	 * Erstellen des PdfWriters und Öffnen des Dokuments.
+	 */
+	OPEN,
+	TITLE,
+	INTRO,
+	/**
+	 * Layout der Positionen-Tabelle.
+	 */
+	TABLE,
+	TOTAL,
+	KONDITIONEN,
+	/**
+	 * Zeichnen des QR-Zahlteils, ist auch in der Zeit der Komponente enthalten. Wurde der Zahlteil vorbereitet (z.B.
+	 * in der {@link ch.dvbern.lib.invoicegenerator.batch.InvoicePipeline}), wird die Zeit der Vorbereitung gemeldet.
+	 */
+	QR_CODE,
+	/**
+	 * Schliessen des Dokuments: letzte Seite, Fonts, Bilder und Cross-Reference-Tabelle werden geschrieben.
+	 */
+	CLOSE
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright (C) 2019 DV Bern AG, Switzerland
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ch.dvbern.lib.invoicegenerator.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import ch.dvbern.lib.invoicegenerator.dto.component.ComponentRenderer;
+import ch.dvbern.lib.invoicegenerator.errors.InvoiceGeneratorRuntimeException;
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Sammelt die Events eines {@link GenerationListener} in Zählern und stellt sie über JMX zur Verfügung, z.B. für
+ * JConsole, VisualVM oder einen JMX-Exporter. Benötigt keine externen Abhängigkeiten.
+ *
+ * <pre>{@code
+ * JmxGenerationMetrics metrics = new JmxGenerationMetrics();
+ * metrics.register("rechnungslauf");
+ * configuration.setGenerationListener(metrics);
+ * }</pre>
+ */
+public class JmxGenerationMetrics implements GenerationListener, GenerationMetricsMXBean {
+
+	public static final String DOMAIN = "ch.dvbern.lib.invoicegenerator";
+
+	private final Timer documents = new Timer();
+	private final LongAdder pages = new LongAdder();
+	private final LongAdder bytesWritten = new LongAdder();
+
+	@NonNull
+	private final Map<GenerationPhase, Timer> phases = new EnumMap<>(GenerationPhase.class);
+
+	@NonNull
+	private final Map<String, Timer> components = new ConcurrentHashMap<>();
+
+	@Nullable
+	private volatile ObjectName objectName = null;
+
+	public JmxGenerationMetrics() {
+		for (GenerationPhase phase : GenerationPhase.values()) {
+			phases.put(phase, new Timer());
+		}
+	}
+
+	/**
+	 * Registriert die Metriken im Platform MBeanServer unter
+	 * {@code ch.dvbern.lib.invoicegenerator:type=GenerationMetrics,name=<name>}.
+	 *
+	 * @return den Namen, unter welchem die Metriken registriert wurden
+	 */
+	@NonNull
+	public ObjectName register(@NonNull String name) {
+		try {
+			ObjectName registered = new ObjectName(DOMAIN + ":type=GenerationMetrics,name=" + ObjectName.quote(name));
+			ManagementFactory.getPlatformMBeanServer().registerMBean(this, registered);
+			objectName = registered;
+
+			return registered;
+		} catch (JMException e) {
+			throw new InvoiceGeneratorRuntimeException("Could not register generation metrics " + name, e);
+		}
+	}
+
+	/**
+	 * Entfernt die Metriken wieder aus dem Platform MBeanServer, falls sie registriert wurden.
+	 */
+	public void unregister() {
+		ObjectName registered = objectName;
+		if (registered == null) {
+			return;
+		}
+
+		try {
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			if (server.isRegistered(registered)) {
+				server.unregisterMBean(registered);
+			}
+			objectName = null;
+		} catch (JMException e) {
+			throw new InvoiceGeneratorRuntimeException("Could not unregister generation metrics " + registered, e);
+		}
+	}
+
+	@Override
+	public void onPhase(@NonNull GenerationPhase phase, long nanos) {
+		phases.get(phase).record(nanos);
+	}
+
+	@Override
+	public void onComponentRendered(@NonNull ComponentRenderer<?, ?> component, long nanos) {
+		components.computeIfAbsent(component.getClass().getName(), key -> new Timer()).record(nanos);
+	}
+
+	@Override
+	public void onDocumentGenerated(int pageCount, long nanos) {
+		documents.record(nanos);
+		pages.add(pageCount);
+	}
+
+	@Override
+	public void onBytesWritten(long bytes) {
+		bytesWritten.add(bytes);
+	}
+
+	@Override
+	@NonNull
+	public TimingStatistics getDocuments() {
+		return documents.snapshot();
+	}
+
+	@Override
+	public long getPageCount() {
+		return pages.sum();
+	}
+
+	@Override
+	public long getBytesWritten() {
+		return bytesWritten.sum();
+	}
+
+	@Override
+	@NonNull
+	public Map<String, TimingStatistics> getPhases() {
+		Map<String, TimingStatistics> result = new TreeMap<>();
+		phases.forEach((phase, timer) -> result.put(phase.name(), timer.snapshot()));
+
+		return result;
+	}
+
+	@Override
+	@NonNull
+	public Map<String, TimingStatistics> getComponents() {
+		Map<String, TimingStatistics> result = new TreeMap<>();
+		components.forEach((component, timer) -> result.put(component, timer.snapshot()));
+
+		return result;
+	}
+
+	@Override
+	public void reset() {
+		documents.reset();
+		pages.reset();
+		bytesWritten.reset();
+		phases.values().forEach(Timer::reset);
+		components.clear();
+	}
+}
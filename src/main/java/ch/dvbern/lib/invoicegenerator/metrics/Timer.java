@@ -0,0 +1,53 @@
+/*
+ * Copyright (C) 2019 DV Bern AG, Switzerland
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ch.dvbern.lib.invoicegenerator.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.jspecify.annotations.NonNull;
+
+/**
+ * Zählt Messungen, summiert deren Dauer und merkt sich die längste. Thread-safe und ohne Locks.
+ */
+final class Timer {
+
+	private final LongAdder count = new LongAdder();
+	private final LongAdder totalNanos = new LongAdder();
+	private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+	void record(long nanos) {
+		count.increment();
+		totalNanos.add(nanos);
+		maxNanos.accumulate(nanos);
+	}
+
+	void reset() {
+		count.reset();
+		totalNanos.reset();
+		maxNanos.reset();
+	}
+
+	@NonNull
+	TimingStatistics snapshot() {
+		return new TimingStatistics(
+			count.sum(),
+			TimeUnit.NANOSECONDS.toMicros(totalNanos.sum()),
+			TimeUnit.NANOSECONDS.toMicros(maxNanos.get()));
+	}
+}
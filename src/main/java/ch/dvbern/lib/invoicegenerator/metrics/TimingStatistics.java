@@ -0,0 +1,65 @@
+/*
+ * Copyright (C) 2019 DV Bern AG, Switzerland
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ch.dvbern.lib.invoicegenerator.metrics;
+
+import java.beans.ConstructorProperties;
+import java.util.StringJoiner;
+
+import org.jspecify.annotations.NonNull;
+
+/**
+ * Momentaufnahme der Messungen eines Abschnitts oder einer Komponente. Zeiten sind in Mikrosekunden.
+ */
+public class TimingStatistics {
+
+	private final long count;
+	private final long totalMicros;
+	private final long maxMicros;
+
+	@ConstructorProperties({ "count", "totalMicros", "maxMicros" })
+	public TimingStatistics(long count, long totalMicros, long maxMicros) {
+		this.count = count;
+		this.totalMicros = totalMicros;
+		this.maxMicros = maxMicros;
+	}
+
+	public long getCount() {
+		return count;
+	}
+
+	public long getTotalMicros() {
+		return totalMicros;
+	}
+
+	public long getMaxMicros() {
+		return maxMicros;
+	}
+
+	public long getMeanMicros() {
+		return count == 0 ? 0 : totalMicros / count;
+	}
+
+	@Override
+	@NonNull
+	public String toString() {
+		return new StringJoiner(", ", TimingStatistics.class.getSimpleName() + '[', "]")
+			.add("count=" + count)
+			.add("totalMicros=" + totalMicros)
+			.add("maxMicros=" + maxMicros)
+			.toString();
+	}
+}
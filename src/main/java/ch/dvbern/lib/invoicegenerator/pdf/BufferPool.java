@@ -0,0 +1,120 @@
+/*
+ * Copyright (C) 2019 DV Bern AG, Switzerland
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.dvbern.lib.invoicegenerator.pdf;
+
+import java.util.Queue;
+import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jspecify.annotations.NonNull;
+
+/**
+ * Pool von Blöcken gleicher Grösse für {@link ChunkedOutputStream}, damit bei vielen Rechnungen pro Sekunde (z.B. in
+ * einem REST Service) nicht für jedes PDF neue Puffer angelegt werden müssen.
+ * <p>
+ * Der Pool behält höchstens {@code maxPooledChunks} Blöcke, weitere zurückgegebene Blöcke werden dem Garbage
+ * Collector überlassen. Thread-safe und ohne Sperren.
+ */
+public final class BufferPool {
+
+	public static final int DEFAULT_CHUNK_SIZE = 64 * 1024;
+
+	private final int chunkSize;
+	private final int maxPooledChunks;
+
+	@NonNull
+	private final Queue<byte[]> chunks = new ConcurrentLinkedQueue<>();
+	@NonNull
+	private final AtomicInteger pooledChunks = new AtomicInteger(0);
+
+	/**
+	 * @param maxPooledChunks Anzahl Blöcke, die höchstens im Pool behalten werden
+	 */
+	public BufferPool(int maxPooledChunks) {
+		this(DEFAULT_CHUNK_SIZE, maxPooledChunks);
+	}
+
+	/**
+	 * @param chunkSize Grösse jedes Blocks in Bytes
+	 * @param maxPooledChunks Anzahl Blöcke, die höchstens im Pool behalten werden
+	 */
+	public BufferPool(int chunkSize, int maxPooledChunks) {
+		if (chunkSize < 1) {
+			throw new IllegalArgumentException("chunkSize must be at least 1, was " + chunkSize);
+		}
+		if (maxPooledChunks < 0) {
+			throw new IllegalArgumentException("maxPooledChunks must not be negative, was " + maxPooledChunks);
+		}
+
+		this.chunkSize = chunkSize;
+		this.maxPooledChunks = maxPooledChunks;
+	}
+
+	/**
+	 * @return einen Block aus dem Pool oder einen neuen Block, falls der Pool leer ist. Der Inhalt ist undefiniert.
+	 */
+	@NonNull
+	public byte[] acquire() {
+		byte[] chunk = chunks.poll();
+		if (chunk == null) {
+			return new byte[chunkSize];
+		}
+		pooledChunks.decrementAndGet();
+
+		return chunk;
+	}
+
+	/**
+	 * Gibt einen Block an den Pool zurück. Der Block darf danach nicht mehr verwendet werden.
+	 */
+	public void release(@NonNull byte[] chunk) {
+		if (chunk.length != chunkSize) {
+			throw new IllegalArgumentException("Chunk of size " + chunk.length + " does not belong to " + this);
+		}
+
+		if (pooledChunks.incrementAndGet() > maxPooledChunks) {
+			pooledChunks.decrementAndGet();
+			return;
+		}
+		chunks.add(chunk);
+	}
+
+	public int getChunkSize() {
+		return chunkSize;
+	}
+
+	public int getMaxPooledChunks() {
+		return maxPooledChunks;
+	}
+
+	/**
+	 * @return Anzahl Blöcke, die zur Zeit im Pool verfügbar sind
+	 */
+	public int getPooledChunks() {
+		return pooledChunks.get();
+	}
+
+	@Override
+	@NonNull
+	public String toString() {
+		return new StringJoiner(", ", BufferPool.class.getSimpleName() + '[', "]")
+			.add("chunkSize=" + chunkSize)
+			.add("maxPooledChunks=" + maxPooledChunks)
+			.add("pooledChunks=" + pooledChunks.get())
+			.toString();
+	}
+}
@@ -0,0 +1,282 @@
+/*
+ * Copyright (C) 2019 DV Bern AG, Switzerland
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ch.dvbern.lib.invoicegenerator.pdf;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Speichert die geschriebenen Bytes in mehreren Blöcken. Im Gegensatz zu {@link java.io.ByteArrayOutputStream} werden
+ * die Daten beim Wachsen nie kopiert, und der Inhalt kann ohne Kopie als {@link InputStream} oder als {@link
+ * ByteBuffer}s gelesen werden.
+ * <p>
+ * Mit einem {@link BufferPool} werden die Blöcke aus dem Pool bezogen und mit {@link #release()} wieder zurückgegeben.
+ * <p>
+ * Nicht thread-safe.
+ */
+public class ChunkedOutputStream extends OutputStream {
+
+	public static final int MIN_CHUNK_SIZE = 8 * 1024;
+	public static final int MAX_CHUNK_SIZE = 1024 * 1024;
+
+	private static final byte[] RELEASED = new byte[0];
+
+	@NonNull
+	private final List<byte[]> chunks = new ArrayList<>();
+	@Nullable
+	private final BufferPool pool;
+	@NonNull
+	private byte[] current;
+	private int position = 0;
+	private long size = 0;
+
+	public ChunkedOutputStream() {
+		this(MIN_CHUNK_SIZE);
+	}
+
+	/**
+	 * @param initialCapacity Grösse des ersten Blocks, z.B. die erwartete Grösse des PDFs
+	 */
+	public ChunkedOutputStream(int initialCapacity) {
+		if (initialCapacity < 1) {
+			throw new IllegalArgumentException("initialCapacity must be at least 1, was " + initialCapacity);
+		}
+
+		pool = null;
+		current = new byte[initialCapacity];
+		chunks.add(current);
+	}
+
+	/**
+	 * @param pool Pool, aus dem alle Blöcke bezogen werden. Sie müssen mit {@link #release()} zurückgegeben werden.
+	 */
+	public ChunkedOutputStream(@NonNull BufferPool pool) {
+		this.pool = pool;
+		current = pool.acquire();
+		chunks.add(current);
+	}
+
+	@Override
+	public void write(int b) {
+		if (position == current.length) {
+			addChunk();
+		}
+		current[position++] = (byte) b;
+		size++;
+	}
+
+	@Override
+	public void write(@NonNull byte[] b, int off, int len) {
+		if (off < 0 || len < 0 || len > b.length - off) {
+			throw new IndexOutOfBoundsException("off " + off + ", len " + len + ", length " + b.length);
+		}
+
+		int written = 0;
+		while (written < len) {
+			if (position == current.length) {
+				addChunk();
+			}
+			int count = Math.min(len - written, current.length - position);
+			System.arraycopy(b, off + written, current, position, count);
+			position += count;
+			written += count;
+		}
+		size += len;
+	}
+
+	private void addChunk() {
+		checkNotReleased();
+		if (pool != null) {
+			current = pool.acquire();
+		} else {
+			// the capacity doubles without copying the existing chunks
+			current = new byte[(int) Math.min(Math.max(size, MIN_CHUNK_SIZE), MAX_CHUNK_SIZE)];
+		}
+		chunks.add(current);
+		position = 0;
+	}
+
+	/**
+	 * Gibt die Blöcke an den {@link BufferPool} zurück, ohne Pool werden sie dem Garbage Collector überlassen. Danach
+	 * kann der Stream nicht mehr verwendet werden, auch bereits erstellte {@link InputStream}s und {@link
+	 * ByteBuffer}s nicht. Mehrfache Aufrufe haben keinen Effekt.
+	 */
+	public void release() {
+		if (isReleased()) {
+			return;
+		}
+
+		if (pool != null) {
+			chunks.forEach(pool::release);
+		}
+		chunks.clear();
+		// the next write adds a chunk, which fails
+		current = RELEASED;
+		position = 0;
+	}
+
+	public boolean isReleased() {
+		return current == RELEASED;
+	}
+
+	private void checkNotReleased() {
+		if (isReleased()) {
+			throw new IllegalStateException("Stream has already been released");
+		}
+	}
+
+	/**
+	 * @return Anzahl geschriebener Bytes
+	 */
+	public long size() {
+		return size;
+	}
+
+	/**
+	 * @return Read-only Sicht auf die Blöcke, ohne die Daten zu kopieren
+	 */
+	@NonNull
+	public ByteBuffer[] toByteBuffers() {
+		checkNotReleased();
+		ByteBuffer[] buffers = new ByteBuffer[chunks.size()];
+		for (int i = 0; i < buffers.length; i++) {
+			buffers[i] = ByteBuffer.wrap(chunks.get(i), 0, chunkLength(i)).slice().asReadOnlyBuffer();
+		}
+
+		return buffers;
+	}
+
+	/**
+	 * @return ein Stream über die bisher geschriebenen Bytes, ohne die Daten zu kopieren
+	 */
+	@NonNull
+	public InputStream toInputStream() {
+		checkNotReleased();
+		return new ChunkedInputStream(this);
+	}
+
+	/**
+	 * Schreibt den gesamten Inhalt in den übergebenen Stream.
+	 */
+	public void writeTo(@NonNull OutputStream out) throws IOException {
+		checkNotReleased();
+		for (int i = 0; i < chunks.size(); i++) {
+			out.write(chunks.get(i), 0, chunkLength(i));
+		}
+	}
+
+	/**
+	 * @return eine Kopie des Inhalts. Wo möglich sollten {@link #toInputStream()} oder {@link #toByteBuffers()}
+	 * verwendet werden.
+	 */
+	@NonNull
+	public byte[] toByteArray() {
+		checkNotReleased();
+		if (size > Integer.MAX_VALUE) {
+			throw new IllegalStateException("Too large for a byte array: " + size);
+		}
+
+		byte[] result = new byte[(int) size];
+		int offset = 0;
+		for (int i = 0; i < chunks.size(); i++) {
+			int length = chunkLength(i);
+			System.arraycopy(chunks.get(i), 0, result, offset, length);
+			offset += length;
+		}
+
+		return result;
+	}
+
+	private int chunkLength(int index) {
+		return index == chunks.size() - 1 ? position : chunks.get(index).length;
+	}
+
+	private static final class ChunkedInputStream extends InputStream {
+
+		@NonNull
+		private final ChunkedOutputStream source;
+		private final int chunkCount;
+		private final int lastChunkLength;
+		private int chunk = 0;
+		private int offset = 0;
+
+		private ChunkedInputStream(@NonNull ChunkedOutputStream source) {
+			this.source = source;
+			// bytes written after creating the stream are not visible
+			this.chunkCount = source.chunks.size();
+			this.lastChunkLength = source.position;
+		}
+
+		private int remainingInChunk() {
+			int length = chunk == chunkCount - 1 ? lastChunkLength : source.chunks.get(chunk).length;
+
+			return length - offset;
+		}
+
+		/**
+		 * @return false, falls alle Bytes gelesen wurden
+		 */
+		private boolean nextChunk() {
+			while (remainingInChunk() == 0) {
+				if (chunk == chunkCount - 1) {
+					return false;
+				}
+				chunk++;
+				offset = 0;
+			}
+
+			return true;
+		}
+
+		@Override
+		public int read() {
+			if (!nextChunk()) {
+				return -1;
+			}
+
+			return Byte.toUnsignedInt(source.chunks.get(chunk)[offset++]);
+		}
+
+		@Override
+		public int read(@NonNull byte[] b, int off, int len) {
+			if (len == 0) {
+				return 0;
+			}
+			if (!nextChunk()) {
+				return -1;
+			}
+
+			int count = Math.min(len, remainingInChunk());
+			System.arraycopy(source.chunks.get(chunk), offset, b, off, count);
+			offset += count;
+
+			return count;
+		}
+
+		@Override
+		public int available() {
+			return nextChunk() ? remainingInChunk() : 0;
+		}
+	}
+}
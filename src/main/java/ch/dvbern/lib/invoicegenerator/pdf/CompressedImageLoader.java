@@ -0,0 +1,249 @@
+/*
+ * Copyright (C) 2019 DV Bern AG, Switzerland
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ch.dvbern.lib.invoicegenerator.pdf;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import com.lowagie.text.BadElementException;
+import com.lowagie.text.Image;
+import com.lowagie.text.pdf.PdfArray;
+import com.lowagie.text.pdf.PdfDictionary;
+import com.lowagie.text.pdf.PdfName;
+import com.lowagie.text.pdf.PdfNumber;
+import com.lowagie.text.pdf.PdfString;
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Erstellt Bilder aus bereits komprimierten Bilddaten, ohne diese zu dekodieren und neu zu komprimieren.
+ * <p>
+ * JPEG Daten übernimmt openpdf bereits unverändert (DCTDecode). PNG Bilder dekodiert openpdf hingegen vollständig und
+ * komprimiert die Pixel danach erneut. Nicht verschachtelte (interlaced) PNG ohne Transparenz werden deshalb hier
+ * direkt mit ihren IDAT Daten übernommen: PDF unterstützt die PNG-Predictors im FlateDecode Filter. PNG mit
+ * Farbprofil (iCCP) oder Gamma ohne sRGB (gAMA, cHRM), fehlerhafte PNG und alle anderen Formate werden an {@link
+ * Image#getInstance(byte[])} übergeben.
+ */
+public final class CompressedImageLoader {
+
+	private static final byte[] PNG_SIGNATURE = { (byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n' };
+	private static final int CHUNK_OVERHEAD = 12;
+	private static final int CHUNK_TYPE_LENGTH = 4;
+	private static final int IHDR_LENGTH = 13;
+	private static final int PNG_PREDICTOR = 15;
+	private static final int RGB_COMPONENTS = 3;
+	private static final int MAX_BITS_PER_COMPONENT = 8;
+
+	private static final int COLOR_TYPE_GRAY = 0;
+	private static final int COLOR_TYPE_RGB = 2;
+	private static final int COLOR_TYPE_PALETTE = 3;
+
+	private CompressedImageLoader() {
+		// utility class
+	}
+
+	/**
+	 * @param imageData JPEG, PNG oder ein anderes von openpdf unterstütztes Format
+	 * @throws IOException falls die Daten nicht gelesen werden können, z.B. ein PNG mit ungültigem Header
+	 */
+	@NonNull
+	public static Image getInstance(@NonNull byte[] imageData) throws IOException, BadElementException {
+		Image png = isPng(imageData) ? readPng(ByteBuffer.wrap(imageData)) : null;
+
+		return png != null ? png : Image.getInstance(imageData);
+	}
+
+	private static boolean isPng(@NonNull byte[] imageData) {
+		return imageData.length > PNG_SIGNATURE.length
+			&& Arrays.equals(Arrays.copyOf(imageData, PNG_SIGNATURE.length), PNG_SIGNATURE);
+	}
+
+	/**
+	 * @return das Bild mit den unveränderten IDAT Daten oder null, falls das PNG nicht direkt übernommen werden kann
+	 */
+	@Nullable
+	private static Image readPng(@NonNull ByteBuffer buffer) throws IOException, BadElementException {
+		buffer.position(PNG_SIGNATURE.length);
+
+		PngChunks chunks = new PngChunks(buffer.remaining());
+
+		while (buffer.remaining() >= CHUNK_OVERHEAD) {
+			int length = buffer.getInt();
+			byte[] type = new byte[CHUNK_TYPE_LENGTH];
+			buffer.get(type);
+			if (length < 0 || length > buffer.remaining() - CHUNK_TYPE_LENGTH) {
+				return null;
+			}
+			byte[] data = new byte[length];
+			buffer.get(data);
+			// skip the CRC
+			buffer.getInt();
+
+			String chunkType = new String(type, StandardCharsets.US_ASCII);
+			if ("IEND".equals(chunkType)) {
+				return chunks.isColorManaged() ? null : createImage(chunks.header, chunks.palette, chunks.idat);
+			}
+			if (!chunks.add(chunkType, data)) {
+				return null;
+			}
+		}
+
+		return null;
+	}
+
+	@Nullable
+	private static Image createImage(
+		@Nullable PngHeader header,
+		@Nullable byte[] palette,
+		@NonNull ByteArrayOutputStream idat) throws BadElementException {
+
+		if (header == null || !header.isSupported(palette)) {
+			return null;
+		}
+
+		int components = header.colorType == COLOR_TYPE_RGB ? RGB_COMPONENTS : 1;
+		Image image = Image.getInstance(header.width, header.height, components, header.bitDepth, idat.toByteArray());
+		image.setDeflated(true);
+
+		PdfDictionary decodeParms = new PdfDictionary();
+		decodeParms.put(PdfName.PREDICTOR, new PdfNumber(PNG_PREDICTOR));
+		decodeParms.put(PdfName.COLORS, new PdfNumber(components));
+		decodeParms.put(PdfName.BITSPERCOMPONENT, new PdfNumber(header.bitDepth));
+		decodeParms.put(PdfName.COLUMNS, new PdfNumber(header.width));
+
+		PdfDictionary additional = new PdfDictionary();
+		additional.put(PdfName.DECODEPARMS, decodeParms);
+
+		if (palette != null && header.colorType == COLOR_TYPE_PALETTE) {
+			PdfArray indexed = new PdfArray();
+			indexed.add(PdfName.INDEXED);
+			indexed.add(PdfName.DEVICERGB);
+			indexed.add(new PdfNumber(palette.length / RGB_COMPONENTS - 1));
+			indexed.add(new PdfString(palette));
+			additional.put(PdfName.COLORSPACE, indexed);
+		}
+
+		image.setAdditional(additional);
+
+		return image;
+	}
+
+	/**
+	 * Die für die Übernahme relevanten Chunks eines PNG.
+	 */
+	private static final class PngChunks {
+
+		@Nullable
+		private PngHeader header = null;
+		@Nullable
+		private byte[] palette = null;
+		@NonNull
+		private final ByteArrayOutputStream idat;
+		private boolean gamma = false;
+		private boolean srgb = false;
+
+		private PngChunks(int size) {
+			idat = new ByteArrayOutputStream(size);
+		}
+
+		/**
+		 * @return false, falls das PNG wegen diesem Chunk nicht direkt übernommen werden kann
+		 * @throws IOException falls der Chunk ungültig ist
+		 */
+		private boolean add(@NonNull String type, @NonNull byte[] data) throws IOException {
+			switch (type) {
+			case "IHDR":
+				if (data.length != IHDR_LENGTH) {
+					throw new IOException("Invalid PNG: IHDR chunk has " + data.length + " bytes instead of "
+						+ IHDR_LENGTH);
+				}
+				header = new PngHeader(ByteBuffer.wrap(data));
+				return true;
+			case "PLTE":
+				palette = data;
+				return true;
+			case "IDAT":
+				idat.write(data, 0, data.length);
+				return true;
+			case "tRNS":
+				// transparency requires a soft mask, which can only be built from the decoded pixels
+				return false;
+			case "iCCP":
+				// the profile is applied when openpdf decodes the image, DeviceRGB would change the colours
+				return false;
+			case "gAMA":
+			case "cHRM":
+				gamma = true;
+				return true;
+			case "sRGB":
+				srgb = true;
+				return true;
+			default:
+				return true;
+			}
+		}
+
+		/**
+		 * sRGB hat Vorrang vor gAMA und cHRM und entspricht der Darstellung von DeviceRGB.
+		 */
+		private boolean isColorManaged() {
+			return gamma && !srgb;
+		}
+	}
+
+	private static final class PngHeader {
+
+		private final int width;
+		private final int height;
+		private final int bitDepth;
+		private final int colorType;
+		private final int compression;
+		private final int filter;
+		private final int interlace;
+
+		private PngHeader(@NonNull ByteBuffer data) {
+			width = data.getInt();
+			height = data.getInt();
+			bitDepth = Byte.toUnsignedInt(data.get());
+			colorType = Byte.toUnsignedInt(data.get());
+			compression = Byte.toUnsignedInt(data.get());
+			filter = Byte.toUnsignedInt(data.get());
+			interlace = Byte.toUnsignedInt(data.get());
+		}
+
+		private boolean isSupported(@Nullable byte[] palette) {
+			if (compression != 0 || filter != 0 || interlace != 0 || bitDepth > MAX_BITS_PER_COMPONENT) {
+				return false;
+			}
+
+			switch (colorType) {
+			case COLOR_TYPE_GRAY:
+				return true;
+			case COLOR_TYPE_RGB:
+				return bitDepth == MAX_BITS_PER_COMPONENT;
+			case COLOR_TYPE_PALETTE:
+				return palette != null;
+			default:
+				// gray or RGB with alpha channel
+				return false;
+			}
+		}
+	}
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright (C) 2019 DV Bern AG, Switzerland
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ch.dvbern.lib.invoicegenerator.pdf;
+
+import com.lowagie.text.Document;
+import com.lowagie.text.Paragraph;
+import com.lowagie.text.Rectangle;
+import com.lowagie.text.pdf.PdfPageEventHelper;
+import com.lowagie.text.pdf.PdfWriter;
+import org.jspecify.annotations.NonNull;
+
+/**
+ * Leitet sämtliche Events an einen austauschbaren Handler weiter. {@link PdfWriter#setPageEvent} hängt weitere
+ * Handler nur an, mit diesem Event kann der Handler hingegen ersetzt werden, z.B. wenn mehrere Dokumente in dasselbe
+ * PDF geschrieben werden.
+ */
+public class DelegatingPageEvent extends PdfPageEventHelper {
+
+	@NonNull
+	private PdfPageEventHelper delegate = new PdfPageEventHelper();
+
+	@NonNull
+	public PdfPageEventHelper getDelegate() {
+		return delegate;
+	}
+
+	public void setDelegate(@NonNull PdfPageEventHelper delegate) {
+		this.delegate = delegate;
+	}
+
+	@Override
+	public void onOpenDocument(@NonNull PdfWriter writer, @NonNull Document document) {
+		delegate.onOpenDocument(writer, document);
+	}
+
+	@Override
+	public void onStartPage(@NonNull PdfWriter writer, @NonNull Document document) {
+		delegate.onStartPage(writer, document);
+	}
+
+	@Override
+	public void onEndPage(@NonNull PdfWriter writer, @NonNull Document document) {
+		delegate.onEndPage(writer, document);
+	}
+
+	@Override
+	public void onCloseDocument(@NonNull PdfWriter writer, @NonNull Document document) {
+		delegate.onCloseDocument(writer, document);
+	}
+
+	@Override
+	public void onParagraph(@NonNull PdfWriter writer, @NonNull Document document, float paragraphPosition) {
+		delegate.onParagraph(writer, document, paragraphPosition);
+	}
+
+	@Override
+	public void onParagraphEnd(@NonNull PdfWriter writer, @NonNull Document document, float paragraphPosition) {
+		delegate.onParagraphEnd(writer, document, paragraphPosition);
+	}
+
+	@Override
+	public void onChapter(
+		@NonNull PdfWriter writer,
+		@NonNull Document document,
+		float paragraphPosition,
+		@NonNull Paragraph title) {
+
+		delegate.onChapter(writer, document, paragraphPosition, title);
+	}
+
+	@Override
+	public void onChapterEnd(@NonNull PdfWriter writer, @NonNull Document document, float position) {
+		delegate.onChapterEnd(writer, document, position);
+	}
+
+	@Override
+	public void onSection(
+		@NonNull PdfWriter writer,
+		@NonNull Document document,
+		float paragraphPosition,
+		int depth,
+		@NonNull Paragraph title) {
+
+		delegate.onSection(writer, document, paragraphPosition, depth, title);
+	}
+
+	@Override
+	public void onSectionEnd(@NonNull PdfWriter writer, @NonNull Document document, float position) {
+		delegate.onSectionEnd(writer, document, position);
+	}
+
+	@Override
+	public void onGenericTag(
+		@NonNull PdfWriter writer,
+		@NonNull Document document,
+		@NonNull Rectangle rect,
+		@NonNull String text) {
+
+		delegate.onGenericTag(writer, document, rect, text);
+	}
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright (C) 2019 DV Bern AG, Switzerland
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.dvbern.lib.invoicegenerator.pdf;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+import org.jspecify.annotations.NonNull;
+
+/**
+ * Ein im Speicher generiertes PDF, dessen Puffer aus einem {@link BufferPool} stammen. Mit {@link #close()} werden die
+ * Puffer an den Pool zurückgegeben, typischerweise nachdem das PDF in die Response geschrieben wurde:
+ * <pre>{@code
+ * try (GeneratedPdf pdf = invoiceGenerator.generateInvoice(invoice, bufferPool)) {
+ *     pdf.writeTo(response.getOutputStream());
+ * }
+ * }</pre>
+ * Nach {@link #close()} dürfen auch bereits erstellte {@link InputStream}s und {@link ByteBuffer}s nicht mehr
+ * verwendet werden, da die Puffer für das nächste PDF wiederverwendet werden.
+ * <p>
+ * Nicht thread-safe.
+ */
+public final class GeneratedPdf implements AutoCloseable {
+
+	@NonNull
+	private final ChunkedOutputStream content;
+
+	public GeneratedPdf(@NonNull ChunkedOutputStream content) {
+		this.content = content;
+	}
+
+	/**
+	 * @return Grösse des PDFs in Bytes
+	 */
+	public long size() {
+		return content.size();
+	}
+
+	/**
+	 * @see ChunkedOutputStream#toInputStream()
+	 */
+	@NonNull
+	public InputStream toInputStream() {
+		return content.toInputStream();
+	}
+
+	/**
+	 * @see ChunkedOutputStream#toByteBuffers()
+	 */
+	@NonNull
+	public ByteBuffer[] toByteBuffers() {
+		return content.toByteBuffers();
+	}
+
+	/**
+	 * @see ChunkedOutputStream#writeTo(OutputStream)
+	 */
+	public void writeTo(@NonNull OutputStream out) throws IOException {
+		content.writeTo(out);
+	}
+
+	/**
+	 * @return eine Kopie des PDFs, die auch nach {@link #close()} gültig bleibt
+	 */
+	@NonNull
+	public byte[] toByteArray() {
+		return content.toByteArray();
+	}
+
+	public boolean isClosed() {
+		return content.isReleased();
+	}
+
+	/**
+	 * Gibt die Puffer an den Pool zurück. Mehrfache Aufrufe haben keinen Effekt.
+	 */
+	@Override
+	public void close() {
+		content.release();
+	}
+}
@@ -0,0 +1,268 @@
+/*
+ * Copyright (C) 2019 DV Bern AG, Switzerland
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ch.dvbern.lib.invoicegenerator.pdf;
+
+import java.io.IOException;
+
+import ch.dvbern.lib.invoicegenerator.errors.InvoiceGeneratorRuntimeException;
+import com.lowagie.text.DocumentException;
+import com.lowagie.text.pdf.BaseFont;
+import com.lowagie.text.pdf.PdfContentByte;
+import net.codecrete.qrbill.canvas.AbstractCanvas;
+import net.codecrete.qrbill.generator.QRBill;
+import org.jspecify.annotations.NonNull;
+
+/**
+ * Implementation des Canvas der QR-Rechnungs Bibliothek, welche direkt in einen openpdf {@link PdfContentByte}
+ * zeichnet. Damit kann {@link QRBill#draw(net.codecrete.qrbill.generator.Bill, net.codecrete.qrbill.canvas.Canvas)}
+ * den Zahlteil direkt auf die Rechnungsseite zeichnen, ohne Umweg über ein separates PDF.
+ * <p>
+ * Die Koordinaten der QR-Rechnungs Bibliothek sind in mm, mit dem Ursprung unten links. Der Ursprung kann bei der
+ * Erstellung in Punkten verschoben werden. Der Canvas muss nach dem Zeichnen geschlossen werden, damit der
+ * Grafik-Zustand des {@link PdfContentByte} wiederhergestellt wird.
+ */
+public final class OpenPdfCanvas extends AbstractCanvas {
+
+	private static final String FONT_FAMILY = "Helvetica";
+	private static final int RED_SHIFT = 16;
+	private static final int GREEN_SHIFT = 8;
+	private static final int COLOR_MASK = 0xFF;
+	private static final float DASH_LENGTH_FACTOR = 4;
+	private static final float DOT_DISTANCE_FACTOR = 3;
+	private static final float MITER_LIMIT = 10;
+
+	@NonNull
+	private static final BaseFont REGULAR_FONT = createFont(BaseFont.HELVETICA);
+	@NonNull
+	private static final BaseFont BOLD_FONT = createFont(BaseFont.HELVETICA_BOLD);
+
+	@NonNull
+	private final PdfContentByte contentByte;
+	private boolean closed = false;
+
+	private int lastStrokingColor;
+	private int lastNonStrokingColor;
+	private double lastLineWidth;
+	@NonNull
+	private LineStyle lastLineStyle = LineStyle.Solid;
+
+	/**
+	 * Erstellt einen Canvas mit dem Ursprung in der linken unteren Ecke der Seite.
+	 */
+	public OpenPdfCanvas(@NonNull PdfContentByte contentByte) {
+		this(contentByte, 0, 0);
+	}
+
+	/**
+	 * Erstellt einen Canvas mit verschobenem Ursprung.
+	 *
+	 * @param contentByte in diesen Content wird gezeichnet
+	 * @param originX horizontale Verschiebung des Ursprungs in Punkten
+	 * @param originY vertikale Verschiebung des Ursprungs in Punkten
+	 */
+	public OpenPdfCanvas(@NonNull PdfContentByte contentByte, float originX, float originY) {
+		this.contentByte = contentByte;
+		setupFontMetrics(FONT_FAMILY);
+
+		contentByte.saveState();
+		contentByte.concatCTM(1, 0, 0, 1, originX, originY);
+		contentByte.setRGBColorStroke(0, 0, 0);
+		contentByte.setRGBColorFill(0, 0, 0);
+		contentByte.setLineWidth(1);
+		contentByte.setLineJoin(PdfContentByte.LINE_JOIN_MITER);
+		contentByte.setLineCap(PdfContentByte.LINE_CAP_BUTT);
+		contentByte.setLineDash(0);
+		contentByte.setMiterLimit(MITER_LIMIT);
+		contentByte.saveState();
+		resetGraphicsStateCache();
+	}
+
+	@NonNull
+	private static BaseFont createFont(@NonNull String name) {
+		try {
+			return BaseFont.createFont(name, BaseFont.WINANSI, BaseFont.NOT_EMBEDDED);
+		} catch (DocumentException | IOException e) {
+			throw new InvoiceGeneratorRuntimeException("Could not load font " + name, e);
+		}
+	}
+
+	private void resetGraphicsStateCache() {
+		lastStrokingColor = 0;
+		lastNonStrokingColor = 0;
+		lastLineWidth = 1;
+		lastLineStyle = LineStyle.Solid;
+	}
+
+	@Override
+	public void setTransformation(
+		double translateX,
+		double translateY,
+		double rotate,
+		double scaleX,
+		double scaleY) {
+
+		contentByte.restoreState();
+		contentByte.saveState();
+		resetGraphicsStateCache();
+
+		double cos = Math.cos(rotate);
+		double sin = Math.sin(rotate);
+		contentByte.concatCTM(
+			(float) (scaleX * cos),
+			(float) (scaleX * sin),
+			(float) (-scaleY * sin),
+			(float) (scaleY * cos),
+			(float) (translateX * MM_TO_PT),
+			(float) (translateY * MM_TO_PT));
+	}
+
+	@Override
+	public void putText(@NonNull String text, double x, double y, int fontSize, boolean isBold) {
+		contentByte.beginText();
+		contentByte.setFontAndSize(isBold ? BOLD_FONT : REGULAR_FONT, fontSize);
+		contentByte.setTextMatrix((float) (x * MM_TO_PT), (float) (y * MM_TO_PT));
+		contentByte.showText(text);
+		contentByte.endText();
+	}
+
+	@Override
+	public void putTextLines(@NonNull String[] lines, double x, double y, int fontSize, double leading) {
+		float lineHeight = (float) ((fontMetrics.getLineHeight(fontSize) + leading) * MM_TO_PT);
+
+		contentByte.beginText();
+		contentByte.setFontAndSize(REGULAR_FONT, fontSize);
+		contentByte.setTextMatrix((float) (x * MM_TO_PT), (float) (y * MM_TO_PT));
+		for (int i = 0; i < lines.length; i++) {
+			if (i > 0) {
+				contentByte.moveText(0, -lineHeight);
+			}
+			contentByte.showText(lines[i]);
+		}
+		contentByte.endText();
+	}
+
+	@Override
+	public void startPath() {
+		// nothing to do: a PDF path is started implicitly
+	}
+
+	@Override
+	public void moveTo(double x, double y) {
+		contentByte.moveTo((float) (x * MM_TO_PT), (float) (y * MM_TO_PT));
+	}
+
+	@Override
+	public void lineTo(double x, double y) {
+		contentByte.lineTo((float) (x * MM_TO_PT), (float) (y * MM_TO_PT));
+	}
+
+	@Override
+	public void cubicCurveTo(double x1, double y1, double x2, double y2, double x, double y) {
+		contentByte.curveTo(
+			(float) (x1 * MM_TO_PT), (float) (y1 * MM_TO_PT),
+			(float) (x2 * MM_TO_PT), (float) (y2 * MM_TO_PT),
+			(float) (x * MM_TO_PT), (float) (y * MM_TO_PT));
+	}
+
+	@Override
+	public void addRectangle(double x, double y, double width, double height) {
+		contentByte.rectangle(
+			(float) (x * MM_TO_PT),
+			(float) (y * MM_TO_PT),
+			(float) (width * MM_TO_PT),
+			(float) (height * MM_TO_PT));
+	}
+
+	@Override
+	public void closeSubpath() {
+		contentByte.closePath();
+	}
+
+	@Override
+	public void fillPath(int color, boolean smoothing) {
+		if (color != lastNonStrokingColor) {
+			lastNonStrokingColor = color;
+			contentByte.setRGBColorFill(red(color), green(color), blue(color));
+		}
+
+		contentByte.fill();
+	}
+
+	@Override
+	public void strokePath(double strokeWidth, int color, @NonNull LineStyle lineStyle, boolean smoothing) {
+		if (color != lastStrokingColor) {
+			lastStrokingColor = color;
+			contentByte.setRGBColorStroke(red(color), green(color), blue(color));
+		}
+
+		boolean widthChanged = Double.compare(strokeWidth, lastLineWidth) != 0;
+		if (lineStyle != lastLineStyle || (lineStyle != LineStyle.Solid && widthChanged)) {
+			lastLineStyle = lineStyle;
+			applyLineStyle((float) strokeWidth, lineStyle);
+		}
+
+		if (widthChanged) {
+			lastLineWidth = strokeWidth;
+			contentByte.setLineWidth((float) strokeWidth);
+		}
+
+		contentByte.stroke();
+	}
+
+	private void applyLineStyle(float strokeWidth, @NonNull LineStyle lineStyle) {
+		switch (lineStyle) {
+		case Dashed:
+			contentByte.setLineCap(PdfContentByte.LINE_CAP_BUTT);
+			contentByte.setLineDash(new float[] { DASH_LENGTH_FACTOR * strokeWidth }, 0);
+			break;
+		case Dotted:
+			contentByte.setLineCap(PdfContentByte.LINE_CAP_ROUND);
+			contentByte.setLineDash(new float[] { 0, DOT_DISTANCE_FACTOR * strokeWidth }, 0);
+			break;
+		default:
+			contentByte.setLineCap(PdfContentByte.LINE_CAP_BUTT);
+			contentByte.setLineDash(0);
+			break;
+		}
+	}
+
+	private static int red(int color) {
+		return (color >> RED_SHIFT) & COLOR_MASK;
+	}
+
+	private static int green(int color) {
+		return (color >> GREEN_SHIFT) & COLOR_MASK;
+	}
+
+	private static int blue(int color) {
+		return color & COLOR_MASK;
+	}
+
+	/**
+	 * Stellt den Grafik-Zustand des {@link PdfContentByte} wieder her, wie er vor der Erstellung des Canvas war.
+	 */
+	@Override
+	public void close() {
+		if (closed) {
+			return;
+		}
+
+		closed = true;
+		contentByte.restoreState();
+		contentByte.restoreState();
+	}
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright (C) 2019 DV Bern AG, Switzerland
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ch.dvbern.lib.invoicegenerator.pdf;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Schätzt die Grösse des nächsten PDFs aus den zuletzt generierten PDFs (exponentiell gleitender Durchschnitt), damit
+ * Puffer von Anfang an in der richtigen Grösse erstellt werden können.
+ * <p>
+ * Thread-safe und ohne Sperren.
+ */
+public final class OutputSizeHint {
+
+	public static final int DEFAULT_SIZE = 64 * 1024;
+	public static final int MAX_SIZE = 16 * 1024 * 1024;
+
+	// new samples are weighted with 1/8
+	private static final int WEIGHT_SHIFT = 3;
+	// 25% headroom, so that most documents fit into the first buffer
+	private static final int HEADROOM_SHIFT = 2;
+
+	private final AtomicLong average = new AtomicLong(0);
+
+	/**
+	 * Berücksichtigt die Grösse eines generierten PDFs.
+	 */
+	public void record(long size) {
+		if (size <= 0) {
+			return;
+		}
+
+		average.accumulateAndGet(size, (current, sample) ->
+			current == 0 ? sample : current + ((sample - current) >> WEIGHT_SHIFT));
+	}
+
+	/**
+	 * @return die geschätzte Grösse des nächsten PDFs in Bytes, {@link #DEFAULT_SIZE} solange noch nichts generiert
+	 * wurde
+	 */
+	public int get() {
+		long current = average.get();
+		if (current == 0) {
+			return DEFAULT_SIZE;
+		}
+
+		return (int) Math.min(current + (current >> HEADROOM_SHIFT), MAX_SIZE);
+	}
+
+	@Override
+	public String toString() {
+		return OutputSizeHint.class.getSimpleName() + '[' + get() + ']';
+	}
+}
@@ -17,17 +17,23 @@
 package ch.dvbern.lib.invoicegenerator.pdf;
 
 import java.awt.Color;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 import java.util.stream.IntStream;
 
 import ch.dvbern.lib.invoicegenerator.dto.Alignment;
 import ch.dvbern.lib.invoicegenerator.dto.PageConfiguration;
 import ch.dvbern.lib.invoicegenerator.dto.SummaryEntry;
-import ch.dvbern.lib.invoicegenerator.dto.fonts.FontBuilder;
-import ch.dvbern.lib.invoicegenerator.dto.fonts.FontModifier;
+import ch.dvbern.lib.invoicegenerator.dto.fonts.FontRegistry;
 import ch.dvbern.lib.invoicegenerator.dto.position.Position;
 import ch.dvbern.lib.invoicegenerator.dto.position.RechnungsPositionColumnTitle;
+import ch.dvbern.lib.invoicegenerator.errors.InvoiceGeneratorRuntimeException;
 import ch.dvbern.lib.invoicegenerator.strategy.position.PositionStrategy;
+import com.lowagie.text.Document;
 import com.lowagie.text.DocumentException;
 import com.lowagie.text.Element;
 import com.lowagie.text.Font;
@@ -51,6 +57,7 @@ public class PdfElementGenerator {
 	public static final int POSITIONEN_COLUMNS = 4;
 	public static final int SUMMARY_COLUMNS = 3;
 	public static final int FULL_WIDTH = 100;
+	public static final int POSITIONEN_CHUNK_SIZE = 200;
 	@NonNull
 	private final PageConfiguration configuration;
 
@@ -116,7 +123,158 @@ public class PdfElementGenerator {
 		@NonNull List<Position> positionen)
 		throws DocumentException {
 
-		PdfPTable table = new PdfPTable(POSITIONEN_COLUMNS);
+		PdfPTable table = createRechnungspositionsTabelleHeader(rechnungsPositionColumnTitle);
+
+		for (int i = 0; i < positionen.size(); i++) {
+			Position position = positionen.get(i);
+
+			PositionStrategy strategy = configuration.getPositionStrategyMap().get(position.getClass());
+			strategy.addPositionToTable(configuration, table, position, i + 1 == positionen.size());
+		}
+
+		return table;
+	}
+
+	/**
+	 * Fügt die Positionen-Tabelle direkt dem Dokument hinzu. Die Positionen werden dabei nur einmal durchlaufen und
+	 * jeweils nach {@link #POSITIONEN_CHUNK_SIZE} Zeilen in das Dokument geschrieben, so dass nie die ganze Tabelle im
+	 * Speicher gehalten wird.
+	 */
+	public void addRechnungspositionsTabelle(
+		@NonNull Document document,
+		@NonNull RechnungsPositionColumnTitle rechnungsPositionColumnTitle,
+		@NonNull Iterator<? extends Position> positionen)
+		throws DocumentException {
+
+		addRechnungspositionsTabelle(document, rechnungsPositionColumnTitle, positionen, POSITIONEN_CHUNK_SIZE);
+	}
+
+	/**
+	 * Fügt die Positionen-Tabelle direkt dem Dokument hinzu. Die Positionen werden dabei nur einmal durchlaufen und
+	 * jeweils nach chunkSize Zeilen in das Dokument geschrieben, so dass nie die ganze Tabelle im Speicher gehalten
+	 * wird.
+	 *
+	 * @param chunkSize Anzahl Positionen, nach welchen die Tabelle in das Dokument geschrieben wird
+	 */
+	public void addRechnungspositionsTabelle(
+		@NonNull Document document,
+		@NonNull RechnungsPositionColumnTitle rechnungsPositionColumnTitle,
+		@NonNull Iterator<? extends Position> positionen,
+		int chunkSize)
+		throws DocumentException {
+
+		if (chunkSize < 1) {
+			throw new IllegalArgumentException("chunkSize must be at least 1, was " + chunkSize);
+		}
+
+		PositionenTabelle table = createRechnungspositionsTabelleHeader(rechnungsPositionColumnTitle);
+		// rows are flushed to the document in chunks, see LargeElement
+		table.setComplete(false);
+
+		Executor executor = configuration.getPositionenExecutor();
+		if (executor != null) {
+			addRechnungspositionsTabelleAsync(document, table, positionen, chunkSize, executor);
+			return;
+		}
+
+		int rowsInChunk = 0;
+		while (positionen.hasNext()) {
+			Position position = positionen.next();
+
+			PositionStrategy strategy = configuration.getPositionStrategyMap().get(position.getClass());
+			strategy.addPositionToTable(configuration, table, position, !positionen.hasNext());
+
+			if (++rowsInChunk == chunkSize) {
+				rowsInChunk = 0;
+				document.add(table);
+				// the spacing only applies before the first chunk
+				table.setSpacingBefore(0);
+			}
+		}
+
+		table.setComplete(true);
+		document.add(table);
+	}
+
+	/**
+	 * Schreibt die Blöcke wie die serielle Variante in das Dokument, die Zeilen des nächsten Blocks werden aber auf dem
+	 * Executor erstellt, während der aktuelle Block auf die Seiten verteilt wird. Der Iterator wird nur auf dem
+	 * aufrufenden Thread gelesen.
+	 */
+	private void addRechnungspositionsTabelleAsync(
+		@NonNull Document document,
+		@NonNull PositionenTabelle table,
+		@NonNull Iterator<? extends Position> positionen,
+		int chunkSize,
+		@NonNull Executor executor) throws DocumentException {
+
+		List<Position> chunk = nextChunk(positionen, chunkSize);
+		CompletableFuture<PositionenTabelle> rows = createRowsAsync(chunk, !positionen.hasNext(), executor);
+
+		while (chunk.size() == chunkSize) {
+			PositionenTabelle chunkRows = join(rows);
+			chunk = nextChunk(positionen, chunkSize);
+			rows = createRowsAsync(chunk, !positionen.hasNext(), executor);
+
+			table.addRows(chunkRows);
+			document.add(table);
+			// the spacing only applies before the first chunk
+			table.setSpacingBefore(0);
+		}
+
+		table.addRows(join(rows));
+		table.setComplete(true);
+		document.add(table);
+	}
+
+	@NonNull
+	private static List<Position> nextChunk(@NonNull Iterator<? extends Position> positionen, int chunkSize) {
+		List<Position> chunk = new ArrayList<>(chunkSize);
+		while (chunk.size() < chunkSize && positionen.hasNext()) {
+			chunk.add(positionen.next());
+		}
+
+		return chunk;
+	}
+
+	@NonNull
+	private CompletableFuture<PositionenTabelle> createRowsAsync(
+		@NonNull List<Position> chunk,
+		boolean containsLastPosition,
+		@NonNull Executor executor) {
+
+		return CompletableFuture.supplyAsync(() -> {
+			PositionenTabelle rows = new PositionenTabelle();
+			for (int i = 0; i < chunk.size(); i++) {
+				Position position = chunk.get(i);
+
+				PositionStrategy strategy = configuration.getPositionStrategyMap().get(position.getClass());
+				strategy.addPositionToTable(configuration, rows, position, containsLastPosition && i + 1 == chunk.size());
+			}
+
+			return rows;
+		}, executor);
+	}
+
+	@NonNull
+	private static PositionenTabelle join(@NonNull CompletableFuture<PositionenTabelle> rows) {
+		try {
+			return rows.join();
+		} catch (CompletionException e) {
+			// throw the same exception as the serial variant
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new InvoiceGeneratorRuntimeException("Could not create the positions", e);
+		}
+	}
+
+	@NonNull
+	private PositionenTabelle createRechnungspositionsTabelleHeader(
+		@NonNull RechnungsPositionColumnTitle rechnungsPositionColumnTitle)
+		throws DocumentException {
+
+		PositionenTabelle table = new PositionenTabelle();
 		table.setSpacingBefore(configuration.getSpaceBefore());
 		table.setWidths(configuration.getRechnungsTabelleWidths().getPositionenColumnWidths());
 		table.setWidthPercentage(FULL_WIDTH);
@@ -127,13 +285,6 @@ public class PdfElementGenerator {
 		table.addCell(createTitleCell(rechnungsPositionColumnTitle.getTotal(), true, defaultLeading));
 		table.setHeaderRows(1);
 
-		for (int i = 0; i < positionen.size(); i++) {
-			Position position = positionen.get(i);
-
-			PositionStrategy strategy = configuration.getPositionStrategyMap().get(position.getClass());
-			strategy.addPositionToTable(configuration, table, position, i + 1 == positionen.size());
-		}
-
 		return table;
 	}
 
@@ -250,7 +401,7 @@ public class PdfElementGenerator {
 		int alignment,
 		float fontSize) {
 
-		Font font = FontBuilder.of(configuration.getFonts().getFont()).with(FontModifier.size(fontSize)).build();
+		Font font = FontRegistry.getFont(configuration.getFonts().getFont(), fontSize);
 
 		writeSingleLine(directContent, lowerLeftXPosition, lowerLeftYPosition, alignment, new Phrase(text, font));
 	}
@@ -282,6 +433,21 @@ public class PdfElementGenerator {
 		canvas.addImage(image);
 	}
 
+	/**
+	 * Fügt das Bild in seiner skalierten Grösse an der angegebenen Position hinter dem Inhalt der Seite ein. Das Bild
+	 * wird dabei nicht verändert und kann deshalb von mehreren Dokumenten gleichzeitig verwendet werden.
+	 */
+	public void addBackgroundImage(
+		@NonNull PdfContentByte directContent,
+		@NonNull Image image,
+		float x,
+		float y)
+		throws DocumentException {
+
+		PdfContentByte canvas = directContent.getPdfWriter().getDirectContentUnder();
+		canvas.addImage(image, image.getScaledWidth(), 0, 0, image.getScaledHeight(), x, y);
+	}
+
 	@NonNull
 	public PageConfiguration getConfiguration() {
 		return configuration;
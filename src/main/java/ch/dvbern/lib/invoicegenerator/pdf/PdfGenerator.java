@@ -16,13 +16,18 @@
 package ch.dvbern.lib.invoicegenerator.pdf;
 
 import java.io.OutputStream;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.GregorianCalendar;
 
 import ch.dvbern.lib.invoicegenerator.dto.PageConfiguration;
 import com.lowagie.text.Document;
 import com.lowagie.text.DocumentException;
 import com.lowagie.text.pdf.PdfContentByte;
+import com.lowagie.text.pdf.PdfDate;
+import com.lowagie.text.pdf.PdfEncryption;
+import com.lowagie.text.pdf.PdfName;
 import com.lowagie.text.pdf.PdfPageEventHelper;
-import com.lowagie.text.pdf.PdfWriter;
 import org.jspecify.annotations.NonNull;
 
 public class PdfGenerator {
@@ -30,7 +35,7 @@ public class PdfGenerator {
 	@NonNull
 	private final Document document;
 	@NonNull
-	private final PdfWriter writer;
+	private final SubsetPrefixWriter writer;
 	@NonNull
 	private final PdfContentByte content;
 
@@ -43,9 +48,40 @@ public class PdfGenerator {
 			configuration.getRightPageMarginInPoints(),
 			configuration.getTopMarginInPoints(),
 			configuration.getBottomMarginInPoints());
-		writer = PdfWriter.getInstance(document, outputStream);
+		writer = SubsetPrefixWriter.getWriter(document, outputStream);
+		configuration.getCompressionPolicy().configure(writer);
 		document.open();
 		content = writer.getDirectContent();
+
+		Instant creationDate = configuration.getCreationDate();
+		if (creationDate != null) {
+			applyCreationDate(writer, creationDate);
+		}
+	}
+
+	/**
+	 * Setzt das Erstellungs- und Änderungsdatum des PDFs, statt der Zeit, zu welcher der Generator erstellt wurde.
+	 * Die Subsets der Fonts aus der {@link ch.dvbern.lib.invoicegenerator.dto.fonts.FontRegistry} erhalten dann einen
+	 * festen statt eines zufälligen Präfixes. Muss vor {@link #close()} aufgerufen werden.
+	 */
+	public void setCreationDate(@NonNull Instant creationDate) {
+		applyCreationDate(writer, creationDate);
+	}
+
+	private static void applyCreationDate(@NonNull SubsetPrefixWriter writer, @NonNull Instant creationDate) {
+		PdfDate date = new PdfDate(GregorianCalendar.from(creationDate.atZone(ZoneOffset.UTC)));
+		writer.getInfo().put(PdfName.CREATIONDATE, date);
+		writer.getInfo().put(PdfName.MODDATE, date);
+		writer.setFixedSubsetPrefixes();
+	}
+
+	/**
+	 * Setzt die ID im Trailer des PDFs, statt einer zufälligen. Muss vor {@link #close()} aufgerufen werden.
+	 *
+	 * @param documentId z.B. ein Hash des Inhalts, openpdf verwendet 16 Bytes
+	 */
+	public void setDocumentId(@NonNull byte[] documentId) {
+		writer.getInfo().put(PdfName.FILEID, PdfEncryption.createInfoId(documentId, documentId));
 	}
 
 	@NonNull
@@ -70,6 +106,13 @@ public class PdfGenerator {
 		return content;
 	}
 
+	/**
+	 * @return Anzahl der bereits in das PDF geschriebenen Seiten
+	 */
+	public int getWrittenPageCount() {
+		return writer.getCurrentPageNumber() - 1;
+	}
+
 	public void printEmptyPage() {
 		writer.setPageEmpty(false);
 	}
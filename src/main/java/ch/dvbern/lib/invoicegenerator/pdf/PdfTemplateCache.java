@@ -0,0 +1,135 @@
+/*
+ * Copyright (C) 2019 DV Bern AG, Switzerland
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ch.dvbern.lib.invoicegenerator.pdf;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Objects;
+import java.util.Set;
+
+import ch.dvbern.lib.invoicegenerator.dto.component.ComponentRenderer;
+import com.lowagie.text.DocumentException;
+import com.lowagie.text.Rectangle;
+import com.lowagie.text.pdf.PdfContentByte;
+import com.lowagie.text.pdf.PdfTemplate;
+import com.lowagie.text.pdf.PdfWriter;
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Rendert seitenunabhängige {@link ComponentRenderer} nur einmal pro {@link PdfWriter} in ein {@link PdfTemplate}
+ * (Form XObject) in Seitengrösse. Auf jeder weiteren Seite wird nur noch das Template referenziert.
+ * <p>
+ * Ein Template gehört zu genau einem PDF. Wird der Cache mit einem anderen Writer verwendet, werden die bisherigen
+ * Templates verworfen. Nicht thread-safe, pro Dokument wird ein eigener Cache verwendet.
+ */
+public class PdfTemplateCache {
+
+	@NonNull
+	private final Map<ComponentRenderer<?, ?>, CachedTemplate> templates = new IdentityHashMap<>();
+
+	@Nullable
+	private PdfWriter currentWriter = null;
+
+	/**
+	 * Fügt das Template der Komponente in den DirectContent der aktuellen Seite ein. Beim ersten Aufruf pro Writer
+	 * wird die Komponente in das Template gerendert, ebenso wenn sich ihr Payload seither geändert hat (z.B. mit
+	 * {@link ComponentRenderer#setPayload(Object)} zwischen zwei Dokumenten im selben PDF).
+	 */
+	public void render(
+		@NonNull ComponentRenderer<?, ?> component,
+		@NonNull PdfWriter pdfWriter,
+		@NonNull PdfElementGenerator pdfElementGenerator) throws DocumentException {
+
+		if (!pdfWriter.equals(currentWriter)) {
+			templates.clear();
+			currentWriter = pdfWriter;
+		}
+
+		PdfContentByte directContent = pdfWriter.getDirectContent();
+		Object payload = component.getPayload();
+		CachedTemplate cached = templates.get(component);
+		if (cached == null || !cached.isRenderedFrom(payload)) {
+			Rectangle pageSize = pdfElementGenerator.getConfiguration().getPageSize();
+			PdfTemplate template = directContent.createTemplate(pageSize.getWidth(), pageSize.getHeight());
+			component.render(template, pdfElementGenerator);
+			cached = new CachedTemplate(template, payload);
+			templates.put(component, cached);
+		}
+
+		directContent.addTemplate(cached.template, 0, 0);
+	}
+
+	/**
+	 * Schreibt die Templates aller Komponenten ausser den übergebenen sofort in das PDF und gibt deren Inhalt frei.
+	 * Werden mehrere Dokumente in dasselbe PDF geschrieben, werden die Templates der Komponenten eines Dokuments
+	 * (z.B. der Adresse) nach dessen letzter Seite nicht mehr verwendet und müssen nicht bis zum Schliessen des PDFs
+	 * im Speicher bleiben.
+	 *
+	 * @param retained Komponenten, welche von allen Dokumenten verwendet werden, z.B. Header und Footer
+	 */
+	public void releaseAllExcept(@NonNull Collection<? extends ComponentRenderer<?, ?>> retained) throws IOException {
+		if (currentWriter != null) {
+			releaseAllExcept(currentWriter, retained);
+		}
+	}
+
+	private void releaseAllExcept(
+		@NonNull PdfWriter pdfWriter,
+		@NonNull Collection<? extends ComponentRenderer<?, ?>> retained) throws IOException {
+
+		Set<ComponentRenderer<?, ?>> retainedComponents = Collections.newSetFromMap(new IdentityHashMap<>());
+		retainedComponents.addAll(retained);
+
+		Iterator<Entry<ComponentRenderer<?, ?>, CachedTemplate>> iterator = templates.entrySet().iterator();
+		while (iterator.hasNext()) {
+			Entry<ComponentRenderer<?, ?>, CachedTemplate> entry = iterator.next();
+			if (!retainedComponents.contains(entry.getKey())) {
+				pdfWriter.releaseTemplate(entry.getValue().template);
+				iterator.remove();
+			}
+		}
+	}
+
+	/**
+	 * Ein Template mit dem Payload, aus dem es gerendert wurde. Der Hash wird festgehalten, damit auch ein
+	 * nachträglich veränderter Payload (z.B. eine Liste von Zeilen) erkannt wird.
+	 */
+	private static final class CachedTemplate {
+
+		@NonNull
+		private final PdfTemplate template;
+		@Nullable
+		private final Object payload;
+		private final int payloadHash;
+
+		private CachedTemplate(@NonNull PdfTemplate template, @Nullable Object payload) {
+			this.template = template;
+			this.payload = payload;
+			this.payloadHash = Objects.hashCode(payload);
+		}
+
+		private boolean isRenderedFrom(@Nullable Object currentPayload) {
+			return Objects.equals(payload, currentPayload) && payloadHash == Objects.hashCode(currentPayload);
+		}
+	}
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright (C) 2019 DV Bern AG, Switzerland
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.dvbern.lib.invoicegenerator.pdf;
+
+import com.lowagie.text.pdf.PdfPRow;
+import com.lowagie.text.pdf.PdfPTable;
+import org.jspecify.annotations.NonNull;
+
+/**
+ * Positionen-Tabelle, an welche die Zeilen einer separat (z.B. auf einem anderen Thread) befüllten Tabelle angehängt
+ * werden können. Die Zeilen werden genau so angehängt, wie es {@link PdfPTable#addCell(com.lowagie.text.pdf.PdfPCell)}
+ * beim Abschliessen einer Zeile macht, so dass das Layout identisch bleibt.
+ * <p>
+ * Greift dafür auf die protected Felder {@code rows}, {@code totalWidth}, {@code absoluteWidths}, {@code
+ * totalHeight} und {@code isColspan} von {@link PdfPTable} zu. Bei einem Update von OpenPDF muss geprüft werden, ob
+ * {@code addCell} diese Felder noch gleich nachführt.
+ */
+final class PositionenTabelle extends PdfPTable {
+
+	PositionenTabelle() {
+		super(PdfElementGenerator.POSITIONEN_COLUMNS);
+	}
+
+	/**
+	 * Hängt die Zeilen des Blocks an. Der Block darf nur vollständige Zeilen enthalten und danach nicht mehr verwendet
+	 * werden.
+	 */
+	void addRows(@NonNull PositionenTabelle block) {
+		for (PdfPRow row : block.rows) {
+			if (totalWidth > 0) {
+				row.setWidths(absoluteWidths);
+				totalHeight += row.getMaxHeights();
+			}
+			rows.add(row);
+		}
+		isColspan |= block.isColspan;
+	}
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright (C) 2019 DV Bern AG, Switzerland
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ch.dvbern.lib.invoicegenerator.pdf;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import net.codecrete.qrbill.canvas.AbstractCanvas;
+import net.codecrete.qrbill.canvas.Canvas;
+import org.jspecify.annotations.NonNull;
+
+/**
+ * Canvas der QR-Rechnungs Bibliothek, welcher die Zeichenbefehle nur aufzeichnet. Damit kann die teure Arbeit der
+ * Bibliothek (Validierung, Kodierung des QR-Codes, Umbruch der Texte) ohne PdfWriter erledigt werden, z.B. auf einem
+ * anderen Thread, und die Befehle später mit {@link #replay(Canvas)} in einen {@link OpenPdfCanvas} gezeichnet werden.
+ * <p>
+ * Die Font-Metriken sind dieselben wie bei {@link OpenPdfCanvas}, das Resultat ist deshalb identisch mit dem direkten
+ * Zeichnen. Nach dem Aufzeichnen kann der Canvas von mehreren Threads gleichzeitig abgespielt werden, auch nach
+ * {@link #close()}.
+ */
+public final class RecordedCanvas extends AbstractCanvas {
+
+	private static final String FONT_FAMILY = "Helvetica";
+
+	@NonNull
+	private final List<Command> commands = new ArrayList<>();
+
+	public RecordedCanvas() {
+		setupFontMetrics(FONT_FAMILY);
+	}
+
+	/**
+	 * Zeichnet alle aufgezeichneten Befehle in der ursprünglichen Reihenfolge in den Canvas.
+	 */
+	public void replay(@NonNull Canvas canvas) throws IOException {
+		for (Command command : commands) {
+			command.apply(canvas);
+		}
+	}
+
+	public int size() {
+		return commands.size();
+	}
+
+	@Override
+	public void setTransformation(
+		double translateX,
+		double translateY,
+		double rotate,
+		double scaleX,
+		double scaleY) {
+
+		commands.add(canvas -> canvas.setTransformation(translateX, translateY, rotate, scaleX, scaleY));
+	}
+
+	@Override
+	public void putText(@NonNull String text, double x, double y, int fontSize, boolean isBold) {
+		commands.add(canvas -> canvas.putText(text, x, y, fontSize, isBold));
+	}
+
+	@Override
+	public void putTextLines(@NonNull String[] lines, double x, double y, int fontSize, double leading) {
+		String[] copy = lines.clone();
+		commands.add(canvas -> canvas.putTextLines(copy, x, y, fontSize, leading));
+	}
+
+	@Override
+	public void startPath() {
+		commands.add(Canvas::startPath);
+	}
+
+	@Override
+	public void moveTo(double x, double y) {
+		commands.add(canvas -> canvas.moveTo(x, y));
+	}
+
+	@Override
+	public void lineTo(double x, double y) {
+		commands.add(canvas -> canvas.lineTo(x, y));
+	}
+
+	@Override
+	public void cubicCurveTo(double x1, double y1, double x2, double y2, double x, double y) {
+		commands.add(canvas -> canvas.cubicCurveTo(x1, y1, x2, y2, x, y));
+	}
+
+	@Override
+	public void addRectangle(double x, double y, double width, double height) {
+		commands.add(canvas -> canvas.addRectangle(x, y, width, height));
+	}
+
+	@Override
+	public void closeSubpath() {
+		commands.add(Canvas::closeSubpath);
+	}
+
+	@Override
+	public void fillPath(int color, boolean smoothing) {
+		commands.add(canvas -> canvas.fillPath(color, smoothing));
+	}
+
+	@Override
+	public void strokePath(double strokeWidth, int color, @NonNull LineStyle lineStyle, boolean smoothing) {
+		commands.add(canvas -> canvas.strokePath(strokeWidth, color, lineStyle, smoothing));
+	}
+
+	@Override
+	public void close() {
+		// nothing to release
+	}
+
+	@FunctionalInterface
+	private interface Command {
+
+		void apply(@NonNull Canvas canvas) throws IOException;
+	}
+}
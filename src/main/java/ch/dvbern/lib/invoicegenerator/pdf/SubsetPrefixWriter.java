@@ -0,0 +1,152 @@
+/*
+ * Copyright (C) 2019 DV Bern AG, Switzerland
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.dvbern.lib.invoicegenerator.pdf;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import ch.dvbern.lib.invoicegenerator.dto.fonts.FontRegistry;
+import com.lowagie.text.Document;
+import com.lowagie.text.DocumentException;
+import com.lowagie.text.pdf.PdfDictionary;
+import com.lowagie.text.pdf.PdfDocument;
+import com.lowagie.text.pdf.PdfIndirectObject;
+import com.lowagie.text.pdf.PdfIndirectReference;
+import com.lowagie.text.pdf.PdfName;
+import com.lowagie.text.pdf.PdfObject;
+import com.lowagie.text.pdf.PdfWriter;
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * PdfWriter, welcher nach {@link #setFixedSubsetPrefixes()} den zufälligen Präfix eines eingebetteten Subsets (z.B.
+ * "QKVWRT+OCRB") durch einen vom Namen des Fonts abgeleiteten ersetzt. Damit sind PDFs für identische Eingaben
+ * byte-identisch. Betroffen sind nur Fonts, welche die {@link FontRegistry} geladen hat.
+ * <p>
+ * openpdf erstellt den Präfix beim Schliessen des Dokuments nach dem Subsetting und schreibt ihn in das Font und das
+ * FontDescriptor Dictionary. Beide werden hier vor dem Schreiben angepasst. Der PDF Standard verlangt nur, dass
+ * verschiedene Subsets im selben PDF verschiedene Präfixe haben.
+ */
+final class SubsetPrefixWriter extends PdfWriter {
+
+	private static final int PREFIX_LENGTH = 6;
+	private static final int LETTERS = 26;
+	private static final Pattern SUBSET_NAME = Pattern.compile("(?<prefix>[A-Z]{6})\\+(?<font>[^,]+)(?<style>.*)");
+
+	// random prefix -> fixed prefix, font and descriptor of a subset share the random one
+	@NonNull
+	private final Map<String, String> prefixes = new HashMap<>();
+
+	private boolean fixedSubsetPrefixes = false;
+
+	private SubsetPrefixWriter(@NonNull PdfDocument document, @NonNull OutputStream outputStream) {
+		super(document, outputStream);
+	}
+
+	/**
+	 * Wie {@link PdfWriter#getInstance(Document, OutputStream)}. Das PdfDocument wird mit dem Document geschlossen.
+	 */
+	@NonNull
+	@SuppressWarnings("PMD.CloseResource")
+	static SubsetPrefixWriter getWriter(@NonNull Document document, @NonNull OutputStream outputStream)
+		throws DocumentException {
+
+		PdfDocument pdf = new PdfDocument();
+		pdf.setTextRenderingOptions(document.getTextRenderingOptions());
+		document.addDocListener(pdf);
+		SubsetPrefixWriter writer = new SubsetPrefixWriter(pdf, outputStream);
+		pdf.addWriter(writer);
+
+		return writer;
+	}
+
+	void setFixedSubsetPrefixes() {
+		fixedSubsetPrefixes = true;
+	}
+
+	@Override
+	@NonNull
+	public PdfIndirectObject addToBody(@NonNull PdfObject object) throws IOException {
+		fixSubsetPrefix(object);
+
+		return super.addToBody(object);
+	}
+
+	@Override
+	@NonNull
+	public PdfIndirectObject addToBody(@NonNull PdfObject object, @NonNull PdfIndirectReference ref)
+		throws IOException {
+
+		fixSubsetPrefix(object);
+
+		return super.addToBody(object, ref);
+	}
+
+	private void fixSubsetPrefix(@NonNull PdfObject object) {
+		if (!fixedSubsetPrefixes || !object.isDictionary()) {
+			return;
+		}
+
+		PdfDictionary dictionary = (PdfDictionary) object;
+		PdfName key = getFontNameKey(dictionary.getAsName(PdfName.TYPE));
+		PdfName name = key != null ? dictionary.getAsName(key) : null;
+		if (key == null || name == null) {
+			return;
+		}
+
+		Matcher matcher = SUBSET_NAME.matcher(PdfName.decodeName(name.toString()));
+		if (!matcher.matches() || !FontRegistry.isSubsetFont(matcher.group("font"))) {
+			return;
+		}
+
+		String fontName = matcher.group("font");
+		String prefix = prefixes.computeIfAbsent(matcher.group("prefix"), random -> createPrefix(fontName));
+		dictionary.put(key, new PdfName(prefix + '+' + fontName + matcher.group("style")));
+	}
+
+	@Nullable
+	private static PdfName getFontNameKey(@Nullable PdfName type) {
+		if (PdfName.FONT.equals(type)) {
+			return PdfName.BASEFONT;
+		}
+		if (PdfName.FONTDESCRIPTOR.equals(type)) {
+			return PdfName.FONTNAME;
+		}
+
+		return null;
+	}
+
+	@NonNull
+	private String createPrefix(@NonNull String fontName) {
+		for (int attempt = 0; ; attempt++) {
+			long hash = Integer.toUnsignedLong(Objects.hash(fontName, attempt));
+			StringBuilder prefix = new StringBuilder(PREFIX_LENGTH);
+			for (int i = 0; i < PREFIX_LENGTH; i++) {
+				prefix.append((char) ('A' + hash % LETTERS));
+				hash /= LETTERS;
+			}
+			// the same font may be embedded twice, e.g. when loaded from two paths
+			if (!prefixes.containsValue(prefix.toString())) {
+				return prefix.toString();
+			}
+		}
+	}
+}
@@ -16,6 +16,8 @@
 package ch.dvbern.lib.invoicegenerator.strategy.einzahlungfuer;
 
 import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import ch.dvbern.lib.invoicegenerator.dto.einzahlungsschein.OrangerEinzahlungsschein;
 import ch.dvbern.lib.invoicegenerator.errors.InvoiceGeneratorRuntimeException;
@@ -26,26 +28,39 @@ import com.lowagie.text.PageSize;
 import com.lowagie.text.pdf.PdfContentByte;
 import org.jspecify.annotations.NonNull;
 
+import static java.util.Objects.requireNonNull;
+
 public abstract class EinzahlungFuerStrategy {
 
+	/**
+	 * Die Hintergrundbilder werden nur einmal geladen und von allen Strategien und Threads gemeinsam verwendet. Da
+	 * immer dieselbe Image-Instanz verwendet wird, bettet jeder PdfWriter ein Bild nur einmal ein.
+	 */
+	@NonNull
+	private static final Map<String, Image> ESR_IMAGES = new ConcurrentHashMap<>();
+
+	/**
+	 * @return das gemeinsam verwendete Hintergrundbild in A4 Grösse an Position 0/0. Darf nicht verändert werden,
+	 * für eine andere Position siehe {@link PdfElementGenerator#addBackgroundImage(PdfContentByte, Image, float, float)}
+	 */
 	@NonNull
-	private final Image esrImage;
+	public Image getEsrBackgroundImage() {
+		return ESR_IMAGES.computeIfAbsent(getEsrBackgroundImageName(), EinzahlungFuerStrategy::loadImage);
+	}
 
-	protected EinzahlungFuerStrategy() {
+	@NonNull
+	private static Image loadImage(@NonNull String name) {
 		try {
-			esrImage = Image.getInstance(EinzahlungFuerStrategy.class.getResource(getEsrBackgroundImageName()));
-			esrImage.scaleAbsolute(PageSize.A4.getWidth(), PageSize.A4.getHeight());
-			esrImage.setAbsolutePosition(0, 0);
+			Image image = Image.getInstance(requireNonNull(EinzahlungFuerStrategy.class.getResource(name)));
+			image.scaleAbsolute(PageSize.A4.getWidth(), PageSize.A4.getHeight());
+			image.setAbsolutePosition(0, 0);
+
+			return image;
 		} catch (DocumentException | IOException exception) {
 			throw new InvoiceGeneratorRuntimeException("Could not initialize image", exception);
 		}
 	}
 
-	@NonNull
-	public Image getEsrBackgroundImage() {
-		return this.esrImage;
-	}
-
 	abstract String getEsrBackgroundImageName();
 
 	public abstract void writeEinzahlungFuer(
@@ -0,0 +1,53 @@
+/*
+ * Copyright (C) 2019 DV Bern AG, Switzerland
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.dvbern.lib.invoicegenerator.strategy.position;
+
+import ch.dvbern.lib.invoicegenerator.dto.BetragFormat;
+import ch.dvbern.lib.invoicegenerator.dto.PageConfiguration;
+import ch.dvbern.lib.invoicegenerator.dto.position.BetragsPosition;
+import ch.dvbern.lib.invoicegenerator.dto.position.Position;
+import com.lowagie.text.pdf.PdfPTable;
+import org.jspecify.annotations.NonNull;
+
+/**
+ * Stellt eine {@link BetragsPosition} wie eine {@link ch.dvbern.lib.invoicegenerator.dto.position.RechnungsPosition}
+ * dar. Die Werte werden mit {@link BetragFormat} in einen einzigen {@link StringBuilder} pro Zeile formatiert.
+ */
+public class BetragsPositionStrategy extends RechnungsPositionStrategy {
+
+	private static final int CAPACITY = 32;
+
+	@Override
+	public void addPositionToTable(
+		@NonNull PageConfiguration configuration,
+		@NonNull PdfPTable table,
+		@NonNull Position position,
+		boolean lastPosition) {
+
+		if (position instanceof BetragsPosition) {
+			BetragsPosition betragsPosition = (BetragsPosition) position;
+
+			StringBuilder builder = new StringBuilder(CAPACITY);
+			String menge = BetragFormat.appendMenge(builder, betragsPosition.getMengeInHundertstel()).toString();
+			builder.setLength(0);
+			String preis = BetragFormat.appendBetrag(builder, betragsPosition.getPreisInRappen()).toString();
+			builder.setLength(0);
+			String total = BetragFormat.appendBetrag(builder, betragsPosition.getTotalInRappen()).toString();
+
+			addRow(configuration, table, betragsPosition.getLeistung(), menge, preis, total, lastPosition);
+		}
+	}
+}
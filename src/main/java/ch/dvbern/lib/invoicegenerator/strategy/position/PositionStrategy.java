@@ -38,6 +38,11 @@ public abstract class PositionStrategy {
 	@Nullable
 	private Float multipliedLeading = null;
 
+	/**
+	 * Fügt die Zeilen der Position der Tabelle hinzu. Die Tabelle kann bereits geschriebene Zeilen verloren haben
+	 * oder, mit einem {@link PageConfiguration#setPositionenExecutor(java.util.concurrent.Executor) Executor}, eine
+	 * neue Tabelle pro Block sein. Die Zeilen dürfen deshalb nicht vom Zustand der Tabelle abhängen.
+	 */
 	public abstract void addPositionToTable(
 		@NonNull PageConfiguration configuration,
 		@NonNull PdfPTable table,
@@ -41,13 +41,32 @@ public class RechnungsPositionStrategy extends PositionStrategy {
 
 		if (position instanceof RechnungsPosition) {
 			final RechnungsPosition rechnungsPosition = (RechnungsPosition) position;
-			table.addCell(createCell(configuration, rechnungsPosition.getLeistung(), false, lastPosition));
-			table.addCell(createCell(configuration, rechnungsPosition.getMenge(), true, lastPosition));
-			table.addCell(createCell(configuration, rechnungsPosition.getPreis(), true, lastPosition));
-			table.addCell(createCell(configuration, rechnungsPosition.getTotal(), true, lastPosition));
+			addRow(
+				configuration,
+				table,
+				rechnungsPosition.getLeistung(),
+				rechnungsPosition.getMenge(),
+				rechnungsPosition.getPreis(),
+				rechnungsPosition.getTotal(),
+				lastPosition);
 		}
 	}
 
+	protected void addRow(
+		@NonNull PageConfiguration configuration,
+		@NonNull PdfPTable table,
+		@NonNull String leistung,
+		@NonNull String menge,
+		@NonNull String preis,
+		@NonNull String total,
+		boolean lastPosition) {
+
+		table.addCell(createCell(configuration, leistung, false, lastPosition));
+		table.addCell(createCell(configuration, menge, true, lastPosition));
+		table.addCell(createCell(configuration, preis, true, lastPosition));
+		table.addCell(createCell(configuration, total, true, lastPosition));
+	}
+
 	@NonNull
 	private PdfPCell createCell(
 		@NonNull PageConfiguration configuration,
@@ -0,0 +1,75 @@
+/*
+ * Copyright (C) 2019 DV Bern AG, Switzerland
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.dvbern.lib.invoicegenerator.validation;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.StringJoiner;
+
+import ch.dvbern.lib.invoicegenerator.dto.Invoice;
+import org.jspecify.annotations.NonNull;
+
+/**
+ * Resultat der Validierung einer einzelnen Rechnung innerhalb von {@link InvoiceValidator#validateAll(
+ * java.util.stream.Stream)}.
+ */
+public final class InvoiceValidationResult {
+
+	private final long index;
+	@NonNull
+	private final Invoice invoice;
+	@NonNull
+	private final List<String> errors;
+
+	InvoiceValidationResult(long index, @NonNull Invoice invoice, @NonNull List<String> errors) {
+		this.index = index;
+		this.invoice = invoice;
+		this.errors = Collections.unmodifiableList(errors);
+	}
+
+	/**
+	 * @return Position der Rechnung im Eingabe-Stream (0-basiert)
+	 */
+	public long getIndex() {
+		return index;
+	}
+
+	@NonNull
+	public Invoice getInvoice() {
+		return invoice;
+	}
+
+	/**
+	 * @return die Beschreibungen aller Fehler, leer falls die Rechnung gültig ist
+	 */
+	@NonNull
+	public List<String> getErrors() {
+		return errors;
+	}
+
+	public boolean isValid() {
+		return errors.isEmpty();
+	}
+
+	@Override
+	@NonNull
+	public String toString() {
+		return new StringJoiner(", ", InvoiceValidationResult.class.getSimpleName() + '[', "]")
+			.add("index=" + index)
+			.add("errors=" + errors)
+			.toString();
+	}
+}
@@ -0,0 +1,187 @@
+/*
+ * Copyright (C) 2019 DV Bern AG, Switzerland
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.dvbern.lib.invoicegenerator.validation;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import ch.dvbern.lib.invoicegenerator.dto.Invoice;
+import ch.dvbern.lib.invoicegenerator.dto.PageConfiguration;
+import ch.dvbern.lib.invoicegenerator.dto.component.QRCodeComponent;
+import ch.dvbern.lib.invoicegenerator.dto.einzahlungsschein.Einzahlungsschein;
+import ch.dvbern.lib.invoicegenerator.dto.einzahlungsschein.OrangerEinzahlungsschein;
+import ch.dvbern.lib.invoicegenerator.dto.einzahlungsschein.QRCodeEinzahlungsschein;
+import ch.dvbern.lib.invoicegenerator.dto.einzahlungsschein.ReferenzNummern;
+import ch.dvbern.lib.invoicegenerator.dto.position.Position;
+import ch.dvbern.lib.invoicegenerator.errors.IllegalKontoException;
+import ch.dvbern.lib.invoicegenerator.errors.InvoiceValidationException;
+import ch.dvbern.lib.invoicegenerator.strategy.position.PositionStrategy;
+import net.codecrete.qrbill.generator.QRBill;
+import net.codecrete.qrbill.generator.ValidationMessage;
+import net.codecrete.qrbill.generator.ValidationResult;
+import org.jspecify.annotations.NonNull;
+
+/**
+ * Prüft Rechnungen vor der Generierung, ohne ein PDF zu erstellen. Fehler, welche sonst erst beim Rendern der letzten
+ * Seite auftreten (z.B. eine ungültige QR-Rechnung), werden so in wenigen Mikrosekunden erkannt.
+ * <p>
+ * Geprüft werden:
+ * <ul>
+ *     <li>für jede Position ist eine {@link PositionStrategy} konfiguriert</li>
+ *     <li>QR-Rechnung: Validierung der QR-Rechnungs Bibliothek (Konto, Referenz, Betrag, Adressen)</li>
+ *     <li>oranger Einzahlungsschein: Format des Kontos, Betrag zwischen 0 und 99'999'999.99, Referenznummer mit
+ *     höchstens 27 Ziffern</li>
+ * </ul>
+ * Der Validator hat keinen Zustand und kann von mehreren Threads gleichzeitig verwendet werden, sofern die
+ * Konfiguration nicht mehr verändert wird.
+ */
+public class InvoiceValidator {
+
+	private static final BigDecimal MAX_ESR_BETRAG = new BigDecimal("99999999.99");
+	private static final int VALIDATION_WINDOW_SIZE = 1024;
+
+	@NonNull
+	private final PageConfiguration configuration;
+
+	public InvoiceValidator(@NonNull PageConfiguration configuration) {
+		this.configuration = configuration;
+	}
+
+	/**
+	 * @return die Beschreibungen aller Fehler, leer falls die Rechnung gültig ist
+	 */
+	@NonNull
+	public List<String> validate(@NonNull Invoice invoice) {
+		List<String> errors = new ArrayList<>();
+
+		validatePositionen(invoice.getPositionen(), errors);
+
+		Einzahlungsschein einzahlungsschein = invoice.getEinzahlungsschein();
+		if (einzahlungsschein instanceof QRCodeEinzahlungsschein) {
+			validate((QRCodeEinzahlungsschein) einzahlungsschein, errors);
+		} else if (einzahlungsschein instanceof OrangerEinzahlungsschein) {
+			validate((OrangerEinzahlungsschein) einzahlungsschein, errors);
+		}
+
+		return errors;
+	}
+
+	/**
+	 * @throws InvoiceValidationException falls die Rechnung ungültig ist
+	 */
+	public void check(@NonNull Invoice invoice) throws InvoiceValidationException {
+		List<String> errors = validate(invoice);
+		if (!errors.isEmpty()) {
+			throw new InvoiceValidationException(errors);
+		}
+	}
+
+	/**
+	 * Prüft alle Rechnungen des Streams parallel im gemeinsamen {@link java.util.concurrent.ForkJoinPool}. Der Stream
+	 * wird sequentiell in Blöcken von {@value #VALIDATION_WINDOW_SIZE} Rechnungen gelesen, jeder Block wird parallel
+	 * geprüft. Damit wird auch bei wenigen Rechnungen parallel geprüft, und bei sehr grossen Streams werden nie mehr
+	 * als ein Block Rechnungen gleichzeitig gehalten.
+	 *
+	 * @return die ungültigen Rechnungen, sortiert nach ihrer Position im Eingabe-Stream
+	 */
+	@NonNull
+	public List<InvoiceValidationResult> validateAll(@NonNull Stream<Invoice> invoices) {
+		List<InvoiceValidationResult> invalid = new ArrayList<>();
+		List<IndexedInvoice> window = new ArrayList<>(VALIDATION_WINDOW_SIZE);
+		long index = 0;
+		Iterator<Invoice> iterator = invoices.sequential().iterator();
+		while (iterator.hasNext()) {
+			window.add(new IndexedInvoice(index++, iterator.next()));
+			if (window.size() == VALIDATION_WINDOW_SIZE || !iterator.hasNext()) {
+				invalid.addAll(validateWindow(window));
+				window.clear();
+			}
+		}
+
+		return invalid;
+	}
+
+	/**
+	 * Die Liste ist {@link java.util.Spliterator#SIZED}, ihr Stream teilt sich deshalb bis auf einzelne Rechnungen
+	 * auf die Threads auf.
+	 */
+	@NonNull
+	private List<InvoiceValidationResult> validateWindow(@NonNull List<IndexedInvoice> window) {
+		return window.parallelStream()
+			.map(item -> new InvoiceValidationResult(item.index, item.invoice, validate(item.invoice)))
+			.filter(result -> !result.isValid())
+			.collect(Collectors.toList());
+	}
+
+	private void validatePositionen(@NonNull List<Position> positionen, @NonNull List<String> errors) {
+		Map<Class<? extends Position>, PositionStrategy> strategies = configuration.getPositionStrategyMap();
+		Class<?> previous = null;
+		for (Position position : positionen) {
+			Class<?> positionClass = position.getClass();
+			if (!positionClass.equals(previous) && !strategies.containsKey(positionClass)) {
+				errors.add("No PositionStrategy configured for " + positionClass.getName());
+			}
+			previous = positionClass;
+		}
+	}
+
+	private static void validate(@NonNull QRCodeEinzahlungsschein einzahlungsschein, @NonNull List<String> errors) {
+		ValidationResult result = QRBill.validate(QRCodeComponent.createBill(einzahlungsschein));
+		if (result.hasErrors()) {
+			for (ValidationMessage message : result.getValidationMessages()) {
+				if (message.getType() == ValidationMessage.Type.ERROR) {
+					errors.add("QR bill " + message.getField() + ": " + message.getMessageKey());
+				}
+			}
+		}
+	}
+
+	private static void validate(@NonNull OrangerEinzahlungsschein einzahlungsschein, @NonNull List<String> errors) {
+		try {
+			OrangerEinzahlungsschein.parseKontoForKodierzeile(einzahlungsschein.getKonto());
+		} catch (IllegalKontoException e) {
+			errors.add("ESR konto " + einzahlungsschein.getKonto() + ": " + e.getMessage());
+		}
+
+		BigDecimal betrag = einzahlungsschein.getBetrag();
+		if (betrag.signum() < 0 || betrag.compareTo(MAX_ESR_BETRAG) > 0) {
+			errors.add("ESR betrag must be between 0.00 and " + MAX_ESR_BETRAG + ": " + betrag);
+		}
+
+		BigInteger referenzNr = einzahlungsschein.getReferenzNr();
+		if (referenzNr.signum() < 0 || referenzNr.toString().length() > ReferenzNummern.QR_REFERENZ_LENGTH) {
+			errors.add("ESR referenzNr must have at most 27 digits: " + referenzNr);
+		}
+	}
+
+	private static final class IndexedInvoice {
+
+		private final long index;
+		@NonNull
+		private final Invoice invoice;
+
+		private IndexedInvoice(long index, @NonNull Invoice invoice) {
+			this.index = index;
+			this.invoice = invoice;
+		}
+	}
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright (C) 2019 DV Bern AG, Switzerland
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ch.dvbern.lib.invoicegenerator;
+
+import java.io.ByteArrayInputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import ch.dvbern.lib.invoicegenerator.dto.Alignment;
+import ch.dvbern.lib.invoicegenerator.dto.BetragFormat;
+import ch.dvbern.lib.invoicegenerator.dto.Invoice;
+import ch.dvbern.lib.invoicegenerator.dto.InvoiceGeneratorConfiguration;
+import ch.dvbern.lib.invoicegenerator.dto.SummaryEntry;
+import ch.dvbern.lib.invoicegenerator.dto.position.BetragsPosition;
+import ch.dvbern.lib.invoicegenerator.dto.position.BetragsSummen;
+import ch.dvbern.lib.invoicegenerator.dto.position.H1Position;
+import ch.dvbern.lib.invoicegenerator.dto.position.Position;
+import ch.dvbern.lib.invoicegenerator.dto.position.RechnungsPositionColumnTitle;
+import ch.dvbern.lib.invoicegenerator.errors.InvoiceGeneratorException;
+import org.junit.jupiter.api.Test;
+
+import static ch.dvbern.lib.invoicegenerator.TestUtil.getText;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+
+public class BetragsPositionTest {
+
+	@Test
+	public void testFormatBetrag() {
+		assertThat(BetragFormat.formatBetrag(0), is("0.00"));
+		assertThat(BetragFormat.formatBetrag(5), is("0.05"));
+		assertThat(BetragFormat.formatBetrag(104_000), is("1'040.00"));
+		assertThat(BetragFormat.formatBetrag(123_456_789), is("1'234'567.89"));
+		assertThat(BetragFormat.formatBetrag(-99), is("-0.99"));
+		assertThat(BetragFormat.formatBetrag(-100_000), is("-1'000.00"));
+		assertThat(BetragFormat.formatBetrag(Long.MIN_VALUE), is("-92'233'720'368'547'758.08"));
+	}
+
+	@Test
+	public void testAppendMenge() {
+		StringBuilder builder = new StringBuilder("Menge: ");
+
+		assertThat(BetragFormat.appendMenge(builder, 800).toString(), is("Menge: 8"));
+		builder.setLength(0);
+		assertThat(BetragFormat.appendMenge(builder, 150).toString(), is("1.50"));
+		builder.setLength(0);
+		assertThat(BetragFormat.appendMenge(builder, 100_000).toString(), is("1'000"));
+	}
+
+	@Test
+	public void testTotal() {
+		assertThat(new BetragsPosition("Verpflegung", 8, 900).getTotalInRappen(), is(7200L));
+		assertThat(new BetragsPosition("Gutschrift", -1, 900).getTotalInRappen(), is(-900L));
+		// 1.5 * 33.33 = 49.995
+		assertThat(BetragsPosition.mitMengeInHundertstel("Stunden", 150, 3333).getTotalInRappen(), is(5000L));
+		assertThat(BetragsPosition.mitMengeInHundertstel("Storno", -150, 3333).getTotalInRappen(), is(-5000L));
+	}
+
+	@Test
+	public void testSummen() {
+		List<Position> positionen = Arrays.asList(
+			new H1Position("Sarah Muster"),
+			new BetragsPosition("Betreuungsgebühr", 1, 104_000),
+			new BetragsPosition("Verpflegung", 8, 900),
+			new H1Position("David Muster"),
+			BetragsPosition.mitMengeInHundertstel("Stunden", 150, 3331));
+
+		BetragsSummen summen = BetragsSummen.of(positionen);
+
+		assertThat(summen.getTotalInRappen(), is(116_197L));
+		assertThat(summen.getSubtotalInRappen(), is(4997L));
+		assertThat(summen.getTotalGerundetInRappen(), is(116_195L));
+		assertThat(summen.getRundungsdifferenzInRappen(), is(-2L));
+		assertThat(summen.getAnzahlPositionen(), is(3));
+		assertThat(BetragsSummen.rundenAuf5Rappen(-3), is(-5L));
+	}
+
+	@Test
+	public void testSummaryEntry() {
+		SummaryEntry entry = SummaryEntry.betrag("Total", "CHF", 222_400, true, false);
+
+		assertThat(entry.getValue(), is("CHF 2'224.00"));
+		assertThat(entry.isBold(), is(true));
+	}
+
+	@Test
+	public void testBetragsPositionenAreRendered() throws InvoiceGeneratorException {
+		List<Position> positionen = Arrays.asList(
+			new BetragsPosition("Betreuungsgebühr", 1, 104_000),
+			BetragsPosition.mitMengeInHundertstel("Stunden", 150, 3333));
+		BetragsSummen summen = BetragsSummen.of(positionen);
+
+		Invoice invoice = new Invoice(
+			new RechnungsPositionColumnTitle("Dienstleistung", "Menge", "Preis", "Total"),
+			"Rechnung",
+			Collections.emptyList(),
+			Collections.emptyList(),
+			Collections.singletonList("Sandra Muster"),
+			null,
+			positionen,
+			Collections.singletonList(SummaryEntry.betrag("Total", "CHF", summen.getTotalInRappen(), true, true)));
+
+		InvoiceGeneratorConfiguration configuration = new InvoiceGeneratorConfiguration("DVB", Alignment.LEFT);
+		InvoiceGenerator invoiceGenerator = new InvoiceGenerator(configuration);
+		byte[] pdf = invoiceGenerator.generateInvoice(invoice).toByteArray();
+		String text = getText(new ByteArrayInputStream(pdf));
+
+		assertThat(text, containsString("Betreuungsgebühr 1 1'040.00 1'040.00"));
+		assertThat(text, containsString("Stunden 1.50 33.33 50.00"));
+		assertThat(text, containsString("Total CHF 1'090.00"));
+	}
+}
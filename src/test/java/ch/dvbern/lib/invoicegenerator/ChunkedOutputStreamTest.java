@@ -0,0 +1,149 @@
+/*
+ * Copyright (C) 2019 DV Bern AG, Switzerland
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ch.dvbern.lib.invoicegenerator;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import ch.dvbern.lib.invoicegenerator.pdf.BufferPool;
+import ch.dvbern.lib.invoicegenerator.pdf.ChunkedOutputStream;
+import ch.dvbern.lib.invoicegenerator.pdf.GeneratedPdf;
+import ch.dvbern.lib.invoicegenerator.pdf.OutputSizeHint;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class ChunkedOutputStreamTest {
+
+	private static final int SIZE = 100_000;
+
+	@Test
+	public void testContentIsPreserved() throws IOException {
+		byte[] data = new byte[SIZE];
+		new Random(42).nextBytes(data);
+
+		ChunkedOutputStream out = new ChunkedOutputStream(100);
+		out.write(data[0]);
+		int offset = 1;
+		for (int length = 1; offset < SIZE; length = length * 2 + 1) {
+			int count = Math.min(length, SIZE - offset);
+			out.write(data, offset, count);
+			offset += count;
+		}
+
+		assertThat(out.size(), is((long) SIZE));
+		assertThat(out.toByteArray(), is(data));
+		assertThat(out.toByteBuffers().length, greaterThan(1));
+		assertThat(readAll(out.toInputStream()), is(data));
+		assertThat(concat(out.toByteBuffers()), is(data));
+
+		ByteArrayOutputStream copy = new ByteArrayOutputStream();
+		out.writeTo(copy);
+		assertThat(copy.toByteArray(), is(data));
+	}
+
+	@Test
+	public void testEmpty() throws IOException {
+		ChunkedOutputStream out = new ChunkedOutputStream();
+
+		assertThat(out.toByteArray().length, is(0));
+		assertThat(out.toInputStream().read(), is(-1));
+	}
+
+	@Test
+	public void testInputStreamOnlySeesBytesWrittenBefore() throws IOException {
+		ChunkedOutputStream out = new ChunkedOutputStream(4);
+		out.write(new byte[] { 1, 2, 3, 4, 5 });
+
+		InputStream in = out.toInputStream();
+		out.write(6);
+
+		assertThat(readAll(in), is(new byte[] { 1, 2, 3, 4, 5 }));
+	}
+
+	@Test
+	public void testPooledChunksAreReused() throws IOException {
+		BufferPool pool = new BufferPool(1024, 2);
+		byte[] data = new byte[3000];
+		new Random(42).nextBytes(data);
+
+		ChunkedOutputStream out = new ChunkedOutputStream(pool);
+		out.write(data);
+		ByteBuffer[] buffers = out.toByteBuffers();
+		assertThat(buffers.length, is(3));
+		assertThat(readAll(out.toInputStream()), is(data));
+
+		GeneratedPdf pdf = new GeneratedPdf(out);
+		pdf.close();
+		pdf.close();
+
+		// only maxPooledChunks chunks are kept
+		assertThat(pdf.isClosed(), is(true));
+		assertThat(pool.getPooledChunks(), is(2));
+		assertThrows(IllegalStateException.class, pdf::toInputStream);
+		assertThrows(IllegalStateException.class, () -> out.write(1));
+
+		assertThat(pool.acquire().length, is(1024));
+		byte[] reused = pool.acquire();
+		assertThat(pool.getPooledChunks(), is(0));
+		pool.release(reused);
+		assertThat(pool.acquire(), sameInstance(reused));
+		assertThrows(IllegalArgumentException.class, () -> pool.release(new byte[1]));
+	}
+
+	@Test
+	public void testOutputSizeHint() {
+		OutputSizeHint hint = new OutputSizeHint();
+		assertThat(hint.get(), is(OutputSizeHint.DEFAULT_SIZE));
+
+		hint.record(80_000);
+		assertThat(hint.get(), is(100_000));
+
+		for (int i = 0; i < 100; i++) {
+			hint.record(40_000);
+		}
+		assertThat(hint.get(), is(50_000));
+	}
+
+	private static byte[] readAll(InputStream in) throws IOException {
+		ByteArrayOutputStream result = new ByteArrayOutputStream();
+		byte[] buffer = new byte[1000];
+		for (int read = in.read(buffer); read != -1; read = in.read(buffer)) {
+			result.write(buffer, 0, read);
+		}
+
+		return result.toByteArray();
+	}
+
+	private static byte[] concat(ByteBuffer[] buffers) {
+		ByteArrayOutputStream result = new ByteArrayOutputStream();
+		for (ByteBuffer buffer : buffers) {
+			byte[] bytes = new byte[buffer.remaining()];
+			buffer.get(bytes);
+			result.write(bytes, 0, bytes.length);
+		}
+
+		return result.toByteArray();
+	}
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright (C) 2019 DV Bern AG, Switzerland
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ch.dvbern.lib.invoicegenerator;
+
+import java.awt.color.ColorSpace;
+import java.awt.color.ICC_Profile;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.DeflaterOutputStream;
+
+import ch.dvbern.lib.invoicegenerator.pdf.CompressedImageLoader;
+import com.lowagie.text.BadElementException;
+import com.lowagie.text.Image;
+import org.jspecify.annotations.NonNull;
+import org.junit.jupiter.api.Test;
+
+import static java.util.Objects.requireNonNull;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class CompressedImageLoaderTest {
+
+	private static final int SIGNATURE_LENGTH = 8;
+	// length and type before, CRC after the data
+	private static final int CHUNK_OVERHEAD = 12;
+	private static final int IHDR_DATA = SIGNATURE_LENGTH + 8;
+	private static final int IHDR_LENGTH = 13;
+
+	@Test
+	public void testSrgbPngIsPassedThrough() throws IOException, BadElementException {
+		// dvbern.png has sRGB and gAMA chunks, sRGB takes precedence
+		Image image = CompressedImageLoader.getInstance(logo());
+
+		assertThat(image.isDeflated(), is(true));
+		assertThat(image.getAdditional(), notNullValue());
+	}
+
+	@Test
+	public void testIccProfileIsDecodedByOpenPdf() throws IOException, BadElementException {
+		byte[] profile = ICC_Profile.getInstance(ColorSpace.CS_LINEAR_RGB).getData();
+		ByteArrayOutputStream iccp = new ByteArrayOutputStream();
+		iccp.write("Linear RGB".getBytes(StandardCharsets.ISO_8859_1));
+		// null separator and compression method 0
+		iccp.write(0);
+		iccp.write(0);
+		try (DeflaterOutputStream deflater = new DeflaterOutputStream(iccp)) {
+			deflater.write(profile);
+		}
+
+		byte[] png = withoutChunks(logo(), "sRGB", "gAMA");
+		Image image = CompressedImageLoader.getInstance(insertAfterHeader(png, "iCCP", iccp.toByteArray()));
+
+		assertThat(image.isDeflated(), is(false));
+		assertThat(image.getAdditional(), nullValue());
+	}
+
+	@Test
+	public void testGammaWithoutSrgbIsDecodedByOpenPdf() throws IOException, BadElementException {
+		Image image = CompressedImageLoader.getInstance(withoutChunks(logo(), "sRGB"));
+
+		assertThat(image.getAdditional(), nullValue());
+	}
+
+	@Test
+	public void testTruncatedHeader() throws IOException {
+		byte[] png = logo();
+		// shorten the IHDR chunk from 13 to 12 bytes, the following chunks are still read from the right offset
+		byte[] truncated = new byte[png.length - 1];
+		System.arraycopy(png, 0, truncated, 0, IHDR_DATA + IHDR_LENGTH - 1);
+		System.arraycopy(png, IHDR_DATA + IHDR_LENGTH, truncated, IHDR_DATA + IHDR_LENGTH - 1,
+			png.length - (IHDR_DATA + IHDR_LENGTH));
+		ByteBuffer.wrap(truncated).putInt(SIGNATURE_LENGTH, IHDR_LENGTH - 1);
+
+		assertThrows(IOException.class, () -> CompressedImageLoader.getInstance(truncated));
+	}
+
+	@NonNull
+	private byte[] logo() throws IOException {
+		try (InputStream in = requireNonNull(getClass().getResourceAsStream("dvbern.png"))) {
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			byte[] buffer = new byte[4096];
+			int read;
+			while ((read = in.read(buffer)) != -1) {
+				out.write(buffer, 0, read);
+			}
+
+			return out.toByteArray();
+		}
+	}
+
+	@NonNull
+	private static byte[] withoutChunks(@NonNull byte[] png, @NonNull String... types) {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		out.write(png, 0, SIGNATURE_LENGTH);
+		ByteBuffer buffer = ByteBuffer.wrap(png);
+		int offset = SIGNATURE_LENGTH;
+		while (offset < png.length) {
+			int chunkLength = CHUNK_OVERHEAD + buffer.getInt(offset);
+			String type = new String(png, offset + 4, 4, StandardCharsets.US_ASCII);
+			if (!Arrays.asList(types).contains(type)) {
+				out.write(png, offset, chunkLength);
+			}
+			offset += chunkLength;
+		}
+
+		return out.toByteArray();
+	}
+
+	@NonNull
+	private static byte[] insertAfterHeader(@NonNull byte[] png, @NonNull String type, @NonNull byte[] data) {
+		byte[] typeBytes = type.getBytes(StandardCharsets.US_ASCII);
+		CRC32 crc = new CRC32();
+		crc.update(typeBytes);
+		crc.update(data);
+
+		int headerEnd = SIGNATURE_LENGTH + CHUNK_OVERHEAD + IHDR_LENGTH;
+		ByteBuffer chunk = ByteBuffer.allocate(CHUNK_OVERHEAD + data.length)
+			.putInt(data.length)
+			.put(typeBytes)
+			.put(data)
+			.putInt((int) crc.getValue());
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		out.write(png, 0, headerEnd);
+		out.write(chunk.array(), 0, chunk.capacity());
+		out.write(png, headerEnd, png.length - headerEnd);
+
+		return out.toByteArray();
+	}
+}
@@ -18,19 +18,27 @@ package ch.dvbern.lib.invoicegenerator;
 
 import java.awt.Color;
 import java.io.File;
+import java.time.Instant;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import ch.dvbern.lib.invoicegenerator.dto.Alignment;
 import ch.dvbern.lib.invoicegenerator.dto.Invoice;
 import ch.dvbern.lib.invoicegenerator.dto.InvoiceGeneratorConfiguration;
 import ch.dvbern.lib.invoicegenerator.dto.fonts.FontBuilder;
 import ch.dvbern.lib.invoicegenerator.dto.fonts.FontConfiguration;
+import ch.dvbern.lib.invoicegenerator.dto.fonts.FontRegistry;
 import ch.dvbern.lib.invoicegenerator.dto.position.RechnungsPosition;
 import com.lowagie.text.Font;
 import com.lowagie.text.FontFactory;
+import com.lowagie.text.pdf.BaseFont;
+import org.apache.pdfbox.pdmodel.font.PDFont;
+import org.jspecify.annotations.NonNull;
 import org.junit.jupiter.api.Test;
 
 import static ch.dvbern.lib.invoicegenerator.TestUtil.containsFonts;
 import static ch.dvbern.lib.invoicegenerator.TestUtil.createFile;
+import static ch.dvbern.lib.invoicegenerator.TestUtil.getFonts;
 import static ch.dvbern.lib.invoicegenerator.dto.fonts.FontModifier.bold;
 import static ch.dvbern.lib.invoicegenerator.dto.fonts.FontModifier.boldItalic;
 import static ch.dvbern.lib.invoicegenerator.dto.fonts.FontModifier.color;
@@ -40,15 +48,20 @@ import static ch.dvbern.lib.invoicegenerator.dto.fonts.FontModifier.underline;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.allOf;
 import static org.hamcrest.Matchers.endsWith;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.matchesPattern;
+import static org.hamcrest.Matchers.sameInstance;
 import static org.hamcrest.io.FileMatchers.anExistingFile;
 
 public class FontConfigurationTest {
 
+	private static final String LIBERATION_MONO = "/font/liberation-mono/LiberationMono-Regular.ttf";
+
 	@Test
 	public void testFontFactory() throws Exception {
-		FontFactory.register("/font/liberation-mono/LiberationMono-Regular.ttf", FontConfiguration.FONT_FACE_OCRB);
+		FontFactory.register(LIBERATION_MONO, FontConfiguration.FONT_FACE_OCRB);
 		Font base = FontFactory.getFont(FontConfiguration.FONT_FACE_OCRB);
 
 		FontConfiguration fontConfiguration = new FontConfiguration(base);
@@ -69,6 +82,74 @@ public class FontConfigurationTest {
 		));
 	}
 
+	@Test
+	public void testFontRegistry() throws Exception {
+		BaseFont liberationMono = FontRegistry.getBaseFont(LIBERATION_MONO);
+		assertThat(FontRegistry.getBaseFont(LIBERATION_MONO), sameInstance(liberationMono));
+
+		Font base = FontRegistry.getFont(liberationMono, 10, Font.NORMAL, null);
+		assertThat(FontRegistry.getFont(liberationMono, 10, Font.NORMAL, null), sameInstance(base));
+		assertThat(FontRegistry.getFont(base, 8), sameInstance(FontRegistry.getFont(base, 8)));
+		assertThat(FontRegistry.getFont(base, 8).getSize(), is(8F));
+
+		FontConfiguration fontConfiguration = new FontConfiguration(base);
+		fontConfiguration.setFontOcrb(new Font(Font.COURIER, FontConfiguration.FONT_SIZE_OCRB));
+
+		InvoiceGeneratorConfiguration config = new InvoiceGeneratorConfiguration("DVB", Alignment.LEFT);
+		config.setFonts(fontConfiguration);
+
+		InvoiceGenerator invoiceGenerator = new InvoiceGenerator(config);
+		Invoice invoice = Invoice.createDemoInvoice(TestDataUtil.ORANGER_EINZAHLUNGSSCHEIN);
+
+		File file = createFile(invoiceGenerator, invoice, "target/fontsFontRegistry.pdf");
+
+		assertThat(file, allOf(
+			anExistingFile(),
+			containsFonts(
+				matchesPattern("[A-Z]{6}\\+LiberationMono"), // embedded as subset
+				equalTo("Courier"))
+		));
+	}
+
+	@Test
+	public void testFixedSubsetPrefixWithCreationDate() throws Exception {
+		FontFactory.register(LIBERATION_MONO, "fixed-prefix-mono");
+		Font registered = FontRegistry.getRegisteredFont("fixed-prefix-mono", FontConfiguration.FONT_SIZE_OCRB);
+		// loaded by the registry itself, the BaseFont of FontFactory is not modified
+		assertThat(registered.getBaseFont(), sameInstance(FontRegistry.getBaseFont(LIBERATION_MONO)));
+
+		FontConfiguration fontConfiguration = new FontConfiguration(Font.HELVETICA);
+		fontConfiguration.setFontOcrb(registered);
+
+		InvoiceGeneratorConfiguration config = new InvoiceGeneratorConfiguration("DVB", Alignment.LEFT);
+		config.setFonts(fontConfiguration);
+		config.setCreationDate(Instant.parse("2024-03-01T08:00:00Z"));
+
+		InvoiceGenerator invoiceGenerator = new InvoiceGenerator(config);
+		Invoice invoice = Invoice.createDemoInvoice(TestDataUtil.ORANGER_EINZAHLUNGSSCHEIN);
+
+		Set<String> first = getSubsetNames(createFile(invoiceGenerator, invoice, "target/fontsFixedPrefix1.pdf"));
+		Set<String> second = getSubsetNames(createFile(invoiceGenerator, invoice, "target/fontsFixedPrefix2.pdf"));
+
+		assertThat(first, contains(matchesPattern("[A-Z]{6}\\+LiberationMono")));
+		assertThat(second, equalTo(first));
+	}
+
+	@NonNull
+	private static Set<String> getSubsetNames(@NonNull File file) {
+		Set<PDFont> embedded = getFonts(file).stream()
+			.filter(font -> font.getName().contains("+"))
+			.collect(Collectors.toSet());
+		for (PDFont font : embedded) {
+			// the font and its descriptor must have the same prefix
+			assertThat(font.getFontDescriptor().getFontName(), equalTo(font.getName()));
+		}
+
+		return embedded.stream()
+			.map(PDFont::getName)
+			.collect(Collectors.toSet());
+	}
+
 	@Test
 	public void testFontsAreConfigurable() throws Exception {
 
@@ -0,0 +1,128 @@
+/*
+ * Copyright (C) 2019 DV Bern AG, Switzerland
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ch.dvbern.lib.invoicegenerator;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+
+import ch.dvbern.lib.invoicegenerator.dto.Alignment;
+import ch.dvbern.lib.invoicegenerator.dto.Invoice;
+import ch.dvbern.lib.invoicegenerator.dto.InvoiceGeneratorConfiguration;
+import ch.dvbern.lib.invoicegenerator.dto.component.Logo;
+import ch.dvbern.lib.invoicegenerator.dto.component.QRCodeComponent;
+import ch.dvbern.lib.invoicegenerator.errors.InvoiceGeneratorException;
+import ch.dvbern.lib.invoicegenerator.metrics.GenerationPhase;
+import ch.dvbern.lib.invoicegenerator.metrics.JmxGenerationMetrics;
+import ch.dvbern.lib.invoicegenerator.metrics.TimingStatistics;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.jspecify.annotations.NonNull;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.hasKey;
+import static org.hamcrest.Matchers.is;
+
+public class GenerationMetricsTest {
+
+	private final JmxGenerationMetrics metrics = new JmxGenerationMetrics();
+	private final InvoiceGeneratorConfiguration configuration =
+		new InvoiceGeneratorConfiguration("DVB", Alignment.LEFT);
+
+	@BeforeEach
+	public void init() {
+		configuration.setLogo(TestDataUtil.defaultLogo());
+		configuration.setGenerationListener(metrics);
+	}
+
+	@Test
+	public void testSingleInvoice() throws InvoiceGeneratorException, IOException {
+		byte[] pdf = new InvoiceGenerator(configuration)
+			.generateInvoice(Invoice.createDemoInvoice(TestDataUtil.QR_CODE_EINZAHLUNGSSCHEIN))
+			.toByteArray();
+
+		assertThat(metrics.getDocuments().getCount(), is(1L));
+		assertThat(metrics.getPageCount(), is((long) pageCount(pdf)));
+		assertThat(metrics.getBytesWritten(), is((long) pdf.length));
+
+		for (GenerationPhase phase : GenerationPhase.values()) {
+			assertThat(phase.name(), metrics.getPhases().get(phase.name()).getCount(), is(1L));
+		}
+
+		assertThat(metrics.getComponents(), hasKey(QRCodeComponent.class.getName()));
+		TimingStatistics logo = metrics.getComponents().get(Logo.class.getName());
+		assertThat(logo.getCount(), is(metrics.getPageCount()));
+	}
+
+	@Test
+	public void testMultipleInvoicesInOneDocument() throws InvoiceGeneratorException, IOException {
+		List<Invoice> invoices = Arrays.asList(
+			Invoice.createDemoInvoice(TestDataUtil.ORANGER_EINZAHLUNGSSCHEIN),
+			Invoice.createDemoInvoice(TestDataUtil.QR_CODE_EINZAHLUNGSSCHEIN),
+			Invoice.createDemoInvoice(TestDataUtil.ORANGER_EINZAHLUNGSSCHEIN));
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		new InvoiceGenerator(configuration).generateInvoices(out, invoices);
+
+		assertThat(metrics.getDocuments().getCount(), is((long) invoices.size()));
+		assertThat(metrics.getPageCount(), is((long) pageCount(out.toByteArray())));
+		assertThat(metrics.getBytesWritten(), is((long) out.size()));
+		assertThat(metrics.getPhases().get(GenerationPhase.OPEN.name()).getCount(), is(1L));
+		assertThat(metrics.getPhases().get(GenerationPhase.TABLE.name()).getCount(), is((long) invoices.size()));
+		assertThat(metrics.getPhases().get(GenerationPhase.QR_CODE.name()).getCount(), is(1L));
+		assertThat(metrics.getPhases().get(GenerationPhase.CLOSE.name()).getCount(), is(1L));
+
+		metrics.reset();
+		assertThat(metrics.getDocuments().getCount(), is(0L));
+		assertThat(metrics.getComponents().isEmpty(), is(true));
+	}
+
+	@Test
+	public void testJmx() throws Exception {
+		ObjectName name = metrics.register("test");
+		try {
+			new InvoiceGenerator(configuration)
+				.generateInvoice(Invoice.createDemoInvoice(TestDataUtil.ORANGER_EINZAHLUNGSSCHEIN));
+
+			Object pageCount = ManagementFactory.getPlatformMBeanServer().getAttribute(name, "PageCount");
+			assertThat(pageCount, equalTo(metrics.getPageCount()));
+
+			CompositeData documents =
+				(CompositeData) ManagementFactory.getPlatformMBeanServer().getAttribute(name, "Documents");
+			assertThat(documents.get("count"), equalTo(1L));
+			assertThat((Long) documents.get("totalMicros"), greaterThan(0L));
+		} finally {
+			metrics.unregister();
+		}
+
+		assertThat(ManagementFactory.getPlatformMBeanServer().isRegistered(name), is(false));
+	}
+
+	private int pageCount(@NonNull byte[] pdf) throws IOException {
+		try (PDDocument document = PDDocument.load(pdf)) {
+			return document.getNumberOfPages();
+		}
+	}
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright (C) 2019 DV Bern AG, Switzerland
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ch.dvbern.lib.invoicegenerator;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import ch.dvbern.lib.invoicegenerator.batch.InvoiceBatchGenerator;
+import ch.dvbern.lib.invoicegenerator.batch.InvoiceBatchResult;
+import ch.dvbern.lib.invoicegenerator.batch.InvoiceResult;
+import ch.dvbern.lib.invoicegenerator.dto.Alignment;
+import ch.dvbern.lib.invoicegenerator.dto.Invoice;
+import ch.dvbern.lib.invoicegenerator.dto.InvoiceGeneratorConfiguration;
+import org.jspecify.annotations.NonNull;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.everyItem;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+public class InvoiceBatchGeneratorTest {
+
+	private static final int NUMBER_OF_INVOICES = 24;
+	private static final int FAILING_INDEX = 7;
+
+	@Test
+	public void testGenerateAllInParallel() {
+		InvoiceGeneratorConfiguration configuration = new InvoiceGeneratorConfiguration("DVB", Alignment.LEFT);
+		configuration.setLogo(TestDataUtil.defaultLogo());
+		InvoiceBatchGenerator batchGenerator = new InvoiceBatchGenerator(new InvoiceGenerator(configuration), 4);
+
+		Map<Invoice, ByteArrayOutputStream> outputs = new ConcurrentHashMap<>();
+		Map<Long, Boolean> reported = new ConcurrentHashMap<>();
+
+		InvoiceBatchResult result = batchGenerator.generateAll(
+			invoices(),
+			invoice -> createOutputStream(outputs, invoice),
+			invoiceResult -> reported.put(invoiceResult.getIndex(), invoiceResult.isSuccess()));
+
+		assertThat(result.getSuccessCount(), is((long) NUMBER_OF_INVOICES - 1));
+		assertThat(result.getFailureCount(), is(1L));
+		assertThat(result.getFailures().stream().map(InvoiceResult::getIndex).collect(Collectors.toList()),
+			contains((long) FAILING_INDEX));
+		assertThat(reported.keySet(), hasSize(NUMBER_OF_INVOICES));
+
+		assertThat(outputs.values(), hasSize(NUMBER_OF_INVOICES - 1));
+		assertThat(outputs.values().stream()
+				.map(out -> TestUtil.getText(new ByteArrayInputStream(out.toByteArray())))
+				.collect(Collectors.toList()),
+			everyItem(containsString(TestDataUtil.DEBTOR.getName())));
+	}
+
+	@Test
+	public void testThrowingResultConsumer() {
+		InvoiceGeneratorConfiguration configuration = new InvoiceGeneratorConfiguration("DVB", Alignment.LEFT);
+		InvoiceBatchGenerator batchGenerator = new InvoiceBatchGenerator(new InvoiceGenerator(configuration), 2);
+		Map<Invoice, ByteArrayOutputStream> outputs = new ConcurrentHashMap<>();
+
+		InvoiceBatchResult result = assertTimeoutPreemptively(Duration.ofMinutes(1), () -> batchGenerator.generateAll(
+			invoices(),
+			invoice -> createOutputStream(outputs, invoice),
+			invoiceResult -> {
+				throw new UnsupportedOperationException("Simulated consumer failure");
+			}));
+
+		assertThat(result.getSuccessCount(), is(0L));
+		assertThat(result.getFailures(), hasSize(NUMBER_OF_INVOICES));
+
+		Exception failed = result.getFailures().get(FAILING_INDEX).getError();
+		assertThat(failed, instanceOf(IllegalStateException.class));
+		assertThat(failed.getSuppressed()[0], instanceOf(UnsupportedOperationException.class));
+		assertThat(result.getFailures().get(0).getError(), instanceOf(UnsupportedOperationException.class));
+	}
+
+	@Test
+	public void testEmptyStream() {
+		InvoiceGeneratorConfiguration configuration = new InvoiceGeneratorConfiguration("DVB", Alignment.LEFT);
+		InvoiceBatchGenerator batchGenerator = new InvoiceBatchGenerator(new InvoiceGenerator(configuration));
+
+		InvoiceBatchResult result = batchGenerator.generateAll(Stream.empty(), invoice -> new ByteArrayOutputStream());
+
+		assertThat(result.getTotalCount(), is(0L));
+		assertThat(result.isSuccess(), equalTo(true));
+	}
+
+	@Test
+	public void testConfigurationIsFrozen() {
+		InvoiceGeneratorConfiguration configuration = new InvoiceGeneratorConfiguration("DVB", Alignment.LEFT);
+		configuration.addDummyESR();
+		new InvoiceBatchGenerator(new InvoiceGenerator(configuration));
+
+		assertThat(configuration.isFrozen(), is(true));
+		assertThat(configuration.getStaticComponents(), hasSize(1));
+		assertThrows(IllegalStateException.class, () -> configuration.setLogo(TestDataUtil.defaultLogo()));
+		assertThrows(IllegalStateException.class, () -> configuration.setEsrTopOffsetInMm(1));
+		assertThrows(UnsupportedOperationException.class, () -> configuration.getCustomComponents().clear());
+		assertThrows(IllegalStateException.class, () -> configuration.getFonts().setFontOcrb(null));
+	}
+
+	@NonNull
+	private Stream<Invoice> invoices() {
+		return IntStream.range(0, NUMBER_OF_INVOICES)
+			.mapToObj(i -> Invoice.createDemoInvoice(i == FAILING_INDEX ?
+				TestDataUtil.QR_CODE_EINZAHLUNGSSCHEIN :
+				TestDataUtil.ORANGER_EINZAHLUNGSSCHEIN));
+	}
+
+	@NonNull
+	private OutputStream createOutputStream(
+		@NonNull Map<Invoice, ByteArrayOutputStream> outputs,
+		@NonNull Invoice invoice) {
+
+		if (invoice.getEinzahlungsschein() == TestDataUtil.QR_CODE_EINZAHLUNGSSCHEIN) {
+			throw new IllegalStateException("Simulated failure");
+		}
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		outputs.put(invoice, out);
+
+		return out;
+	}
+}
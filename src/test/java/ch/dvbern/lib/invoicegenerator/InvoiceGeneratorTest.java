@@ -15,26 +15,43 @@
  */
 package ch.dvbern.lib.invoicegenerator;
 
+import java.awt.image.BufferedImage;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import javax.imageio.ImageIO;
 
 import ch.dvbern.lib.invoicegenerator.dto.Alignment;
+import ch.dvbern.lib.invoicegenerator.dto.CompressionPolicy;
 import ch.dvbern.lib.invoicegenerator.dto.Invoice;
 import ch.dvbern.lib.invoicegenerator.dto.InvoiceGeneratorConfiguration;
 import ch.dvbern.lib.invoicegenerator.dto.OnPage;
+import ch.dvbern.lib.invoicegenerator.dto.PagePlacement;
 import ch.dvbern.lib.invoicegenerator.dto.SummaryEntry;
 import ch.dvbern.lib.invoicegenerator.dto.component.Logo;
 import ch.dvbern.lib.invoicegenerator.dto.component.PhraseRenderer;
 import ch.dvbern.lib.invoicegenerator.dto.einzahlungsschein.Einzahlungsschein;
+import ch.dvbern.lib.invoicegenerator.dto.einzahlungsschein.EinzahlungsscheinConfiguration;
 import ch.dvbern.lib.invoicegenerator.dto.einzahlungsschein.OrangerEinzahlungsschein;
 import ch.dvbern.lib.invoicegenerator.dto.einzahlungsschein.QRCodeEinzahlungsschein;
 import ch.dvbern.lib.invoicegenerator.dto.position.H1Position;
@@ -43,25 +60,55 @@ import ch.dvbern.lib.invoicegenerator.dto.position.Position;
 import ch.dvbern.lib.invoicegenerator.dto.position.RechnungsPosition;
 import ch.dvbern.lib.invoicegenerator.dto.position.RechnungsPositionColumnTitle;
 import ch.dvbern.lib.invoicegenerator.errors.InvoiceGeneratorException;
+import ch.dvbern.lib.invoicegenerator.pdf.BufferPool;
+import ch.dvbern.lib.invoicegenerator.pdf.ChunkedOutputStream;
+import ch.dvbern.lib.invoicegenerator.pdf.GeneratedPdf;
+import ch.dvbern.lib.invoicegenerator.pdf.OutputSizeHint;
+import ch.dvbern.lib.invoicegenerator.pdf.PdfElementGenerator;
+import com.lowagie.text.pdf.PdfWriter;
+import net.codecrete.qrbill.generator.Language;
 import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.cos.COSBase;
+import org.apache.pdfbox.cos.COSName;
 import org.apache.pdfbox.multipdf.PDFMergerUtility;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDResources;
+import org.apache.pdfbox.pdmodel.graphics.PDXObject;
+import org.apache.pdfbox.pdmodel.graphics.form.PDFormXObject;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
+import org.apache.pdfbox.text.PDFTextStripper;
 import org.jspecify.annotations.NonNull;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import static ch.dvbern.lib.invoicegenerator.TestUtil.createFile;
 import static ch.dvbern.lib.invoicegenerator.TestUtil.withPages;
+import static ch.dvbern.lib.invoicegenerator.TestUtil.withoutDateAndId;
+import static ch.dvbern.lib.invoicegenerator.dto.PageConfiguration.LEFT_PAGE_DEFAULT_MARGIN_MM;
 import static ch.dvbern.lib.invoicegenerator.dto.PageConfiguration.TOP_PAGE_DEFAULT_MARGIN_MM;
 import static ch.dvbern.lib.invoicegenerator.dto.component.AddressComponent.RECHTE_ADRESSE_LEFT_MARGIN_MM;
 import static com.lowagie.text.Utilities.millimetersToPoints;
+import static java.util.Objects.requireNonNull;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.allOf;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.not;
 import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.sameInstance;
 import static org.hamcrest.io.FileMatchers.anExistingFile;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 public class InvoiceGeneratorTest {
 
@@ -74,6 +121,8 @@ public class InvoiceGeneratorTest {
 		+ "zurückversetzt.»";
 	private static final String PP_ADRESS_ZUSATZ = "P.P. CH-3030 Bern Post CH AG";
 	private static final int NUMBER_OF_INVOICES = 100;
+	private static final int NUMBER_OF_STREAMED_POSITIONS = 10_000;
+	private static final int NUMBER_OF_TEMPLATE_POSITIONS = 200;
 	private static final int TEST_NR_OF_DIFFEREN_CONTENT = 60;
 	private static final int MAX_MAIN_MEMORY_BYTES = 100000000;
 
@@ -329,6 +378,397 @@ public class InvoiceGeneratorTest {
 			NUMBER_OF_INVOICES)));
 	}
 
+	@Test
+	public void testStreamingALargeNumberOfPositions() throws InvoiceGeneratorException, IOException {
+		InvoiceGenerator invoiceGenerator = new InvoiceGenerator(configuration);
+		final Invoice invoice = new Invoice(columnTitle, TITEL, summary, einleitung, adresse, orangerEinzahlungsschein,
+			Collections.emptyList(), total, konditionen);
+
+		Iterator<Position> streamedPositionen = IntStream.rangeClosed(1, NUMBER_OF_STREAMED_POSITIONS)
+			.<Position>mapToObj(i -> new RechnungsPosition("Position " + i, "1", "1.00", "1.00"))
+			.iterator();
+
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		invoiceGenerator.generateInvoice(outputStream, invoice, streamedPositionen);
+
+		String text = TestUtil.getText(new ByteArrayInputStream(outputStream.toByteArray()));
+		assertThat(text, allOf(
+			containsString("Position 1 "),
+			containsString("Position " + NUMBER_OF_STREAMED_POSITIONS + ' '),
+			containsString(TITEL)));
+	}
+
+	@Test
+	public void testStaticComponentsAsTemplates() throws InvoiceGeneratorException, IOException {
+		configuration.setFooter(new PhraseRenderer(looongStrings, LEFT_PAGE_DEFAULT_MARGIN_MM, 250, 170, 40));
+		List<Position> manyPositionen = IntStream.range(0, NUMBER_OF_TEMPLATE_POSITIONS)
+			.mapToObj(i -> new RechnungsPosition("Position " + i, "1", "1.00", "1.00"))
+			.collect(Collectors.toList());
+		final Invoice invoice = new Invoice(columnTitle, TITEL, summary, einleitung, adresse, orangerEinzahlungsschein,
+			manyPositionen, total, konditionen);
+
+		byte[] rendered = new InvoiceGenerator(configuration).generateInvoice(invoice).toByteArray();
+		configuration.setUseComponentTemplates(true);
+		byte[] templated = new InvoiceGenerator(configuration).generateInvoice(invoice).toByteArray();
+
+		assertThat(TestUtil.getText(new ByteArrayInputStream(templated)),
+			equalTo(TestUtil.getText(new ByteArrayInputStream(rendered))));
+
+		try (PDDocument document = PDDocument.load(templated)) {
+			assertThat(document.getNumberOfPages(), greaterThan(2));
+			for (PDPage page : document.getPages()) {
+				PDResources resources = page.getResources();
+				List<PDXObject> xObjects = new ArrayList<>();
+				for (COSName name : resources.getXObjectNames()) {
+					xObjects.add(resources.getXObject(name));
+				}
+				assertThat(xObjects, hasItem(instanceOf(PDFormXObject.class)));
+			}
+		}
+	}
+
+	@Test
+	public void testAddressAndSummaryAsTemplates() throws InvoiceGeneratorException, IOException {
+		List<Position> manyPositionen = IntStream.range(0, NUMBER_OF_TEMPLATE_POSITIONS)
+			.mapToObj(i -> new RechnungsPosition("Position " + i, "1", "1.00", "1.00"))
+			.collect(Collectors.toList());
+		List<Invoice> invoices = Arrays.asList(
+			new Invoice(columnTitle, TITEL, summary, einleitung, adresse, null, manyPositionen, total, konditionen),
+			new Invoice(columnTitle, TITEL, summary, einleitung, adresse, null, manyPositionen, total, konditionen));
+
+		ByteArrayOutputStream rendered = new ByteArrayOutputStream();
+		new InvoiceGenerator(configuration).generateInvoices(rendered, invoices);
+		configuration.setUseComponentTemplates(true);
+		ByteArrayOutputStream templated = new ByteArrayOutputStream();
+		new InvoiceGenerator(configuration).generateInvoices(templated, invoices);
+
+		assertThat(TestUtil.getText(new ByteArrayInputStream(templated.toByteArray())),
+			equalTo(TestUtil.getText(new ByteArrayInputStream(rendered.toByteArray()))));
+
+		try (PDDocument document = PDDocument.load(templated.toByteArray())) {
+			assertThat(document.getNumberOfPages(), greaterThan(invoices.size()));
+
+			Set<COSBase> templates = Collections.newSetFromMap(new IdentityHashMap<>());
+			for (PDPage page : document.getPages()) {
+				PDResources resources = page.getResources();
+				for (COSName name : resources.getXObjectNames()) {
+					PDXObject xObject = resources.getXObject(name);
+					if (xObject instanceof PDFormXObject) {
+						templates.add(xObject.getCOSObject());
+					}
+				}
+			}
+			// the header for all invoices, address and summary per invoice
+			assertThat(templates.size(), equalTo(1 + 2 * invoices.size()));
+		}
+	}
+
+	@Test
+	public void testChangedPayloadIsNotTakenFromTemplate() throws InvoiceGeneratorException, IOException {
+		PhraseRenderer footer = new PhraseRenderer(Collections.singletonList("Footer A"), LEFT_PAGE_DEFAULT_MARGIN_MM,
+			250, 170, 40);
+		configuration.setFooter(footer);
+		configuration.setUseComponentTemplates(true);
+		Invoice first = Invoice.createDemoInvoice(orangerEinzahlungsschein);
+		Invoice second = Invoice.createDemoInvoice(orangerEinzahlungsschein);
+		Iterable<Invoice> invoices = () -> Arrays.asList(first, second).stream()
+			.peek(invoice -> {
+				if (invoice == second) {
+					footer.setPayload(Collections.singletonList("Footer B"));
+				}
+			})
+			.iterator();
+
+		ByteArrayOutputStream combined = new ByteArrayOutputStream();
+		new InvoiceGenerator(configuration).generateInvoices(combined, invoices);
+
+		try (PDDocument document = PDDocument.load(combined.toByteArray())) {
+			int pages = document.getNumberOfPages();
+			assertThat(getText(document, 1, 1), allOf(containsString("Footer A"), not(containsString("Footer B"))));
+			assertThat(getText(document, pages, pages),
+				allOf(containsString("Footer B"), not(containsString("Footer A"))));
+		}
+		assertThat(new PhraseRenderer(Collections.singletonList("Seite"), 0, 0, 10, 10) {
+		}.isPageInvariant(), is(false));
+	}
+
+	@Test
+	public void testPagePlacement() throws InvoiceGeneratorException, IOException {
+		PhraseRenderer vorderseite = new PhraseRenderer(
+			Collections.singletonList("Vorderseite"), LEFT_PAGE_DEFAULT_MARGIN_MM, 280, 80, 10);
+		vorderseite.getComponentConfiguration().setPagePlacement(PagePlacement.odd());
+		configuration.setFooter(vorderseite);
+		List<Position> manyPositionen = IntStream.range(0, NUMBER_OF_TEMPLATE_POSITIONS)
+			.mapToObj(i -> new RechnungsPosition("Position " + i, "1", "1.00", "1.00"))
+			.collect(Collectors.toList());
+		Invoice invoice = new Invoice(columnTitle, TITEL, summary, einleitung, adresse, orangerEinzahlungsschein,
+			manyPositionen, total, konditionen);
+
+		byte[] pdf = new InvoiceGenerator(configuration).generateInvoice(invoice).toByteArray();
+
+		try (PDDocument document = PDDocument.load(pdf)) {
+			assertThat(document.getNumberOfPages(), greaterThan(2));
+			for (int page = 1; page <= document.getNumberOfPages(); page++) {
+				assertThat(getText(document, page, page).contains("Vorderseite"), equalTo(page % 2 == 1));
+			}
+		}
+	}
+
+	@Test
+	public void testMultipleInvoicesInOneDocument() throws InvoiceGeneratorException, IOException {
+		InvoiceGenerator invoiceGenerator = new InvoiceGenerator(configuration);
+		List<Invoice> invoices = Arrays.asList(
+			new Invoice(columnTitle, TITEL, summary, einleitung, adresse, orangerEinzahlungsschein, positionen, total,
+				konditionen),
+			invoiceFittingOnePage(orangerEinzahlungsschein),
+			invoiceFittingOnePage(qrCodeEinzahlungsschein),
+			new Invoice(columnTitle, TITEL, summary, einleitung, adresse, null, positionen, total, konditionen));
+
+		ByteArrayOutputStream combined = new ByteArrayOutputStream();
+		invoiceGenerator.generateInvoices(combined, invoices);
+
+		int separateSize = 0;
+		try (PDDocument combinedDocument = PDDocument.load(combined.toByteArray())) {
+			int pageOffset = 0;
+			for (Invoice invoice : invoices) {
+				byte[] separate = invoiceGenerator.generateInvoice(invoice).toByteArray();
+				separateSize += separate.length;
+
+				try (PDDocument separateDocument = PDDocument.load(separate)) {
+					int pages = separateDocument.getNumberOfPages();
+					assertThat(getText(combinedDocument, pageOffset + 1, pageOffset + pages),
+						equalTo(getText(separateDocument, 1, pages)));
+					pageOffset += pages;
+				}
+			}
+
+			assertThat(combinedDocument.getNumberOfPages(), equalTo(pageOffset));
+		}
+
+		assertThat(combined.size(), lessThan(separateSize));
+	}
+
+	@Test
+	public void testOutputTargets() throws InvoiceGeneratorException, IOException {
+		InvoiceGenerator invoiceGenerator = new InvoiceGenerator(configuration);
+		Invoice invoice = new Invoice(columnTitle, TITEL, summary, einleitung, adresse, qrCodeEinzahlungsschein,
+			positionen, total, konditionen);
+		assertThat(invoiceGenerator.getOutputSizeHint().get(), equalTo(OutputSizeHint.DEFAULT_SIZE));
+
+		byte[] expected = invoiceGenerator.generateInvoice(invoice).toByteArray();
+		assertThat(invoiceGenerator.getOutputSizeHint().get(), not(equalTo(OutputSizeHint.DEFAULT_SIZE)));
+
+		ChunkedOutputStream chunked = invoiceGenerator.generateInvoiceChunked(invoice);
+		Path file = Paths.get("target", "OutputTargets.pdf");
+		invoiceGenerator.generateInvoice(invoice, file);
+
+		try (PDDocument expectedDocument = PDDocument.load(expected);
+			PDDocument chunkedDocument = PDDocument.load(chunked.toInputStream());
+			PDDocument fileDocument = PDDocument.load(file.toFile())) {
+
+			int pages = expectedDocument.getNumberOfPages();
+			assertThat(chunkedDocument.getNumberOfPages(), equalTo(pages));
+			assertThat(fileDocument.getNumberOfPages(), equalTo(pages));
+			assertThat(getText(chunkedDocument, 1, pages), equalTo(getText(expectedDocument, 1, pages)));
+			assertThat(getText(fileDocument, 1, pages), equalTo(getText(expectedDocument, 1, pages)));
+		}
+	}
+
+	@Test
+	public void testFileIsKeptOnFailure(@TempDir Path directory) throws InvoiceGeneratorException, IOException {
+		InvoiceGenerator invoiceGenerator = new InvoiceGenerator(configuration);
+		Path file = directory.resolve("invoice.pdf");
+		invoiceGenerator.generateInvoice(Invoice.createDemoInvoice(qrCodeEinzahlungsschein), file);
+		byte[] existing = Files.readAllBytes(file);
+
+		QRCodeEinzahlungsschein invalid = new QRCodeEinzahlungsschein(TestDataUtil.CREDITOR,
+			TestDataUtil.QR_REFERENCE, TestDataUtil.AMOUNT, "CH00 0000 0000 0000 0000 0", TestDataUtil.DEBTOR, null,
+			Language.DE);
+
+		// the QR bill generator fails while the PDF is rendered
+		assertThrows(RuntimeException.class,
+			() -> invoiceGenerator.generateInvoice(Invoice.createDemoInvoice(invalid), file));
+
+		assertThat(Files.readAllBytes(file), equalTo(existing));
+		try (Stream<Path> files = Files.list(directory)) {
+			assertThat(files.collect(Collectors.toList()), contains(file));
+		}
+	}
+
+	@Test
+	public void testPooledOutput() throws InvoiceGeneratorException, IOException {
+		InvoiceGenerator invoiceGenerator = new InvoiceGenerator(configuration);
+		Invoice invoice = new Invoice(columnTitle, TITEL, summary, einleitung, adresse, qrCodeEinzahlungsschein,
+			positionen, total, konditionen);
+		BufferPool bufferPool = new BufferPool(16 * 1024, 100);
+
+		String expected;
+		try (GeneratedPdf pdf = invoiceGenerator.generateInvoice(invoice, bufferPool);
+			PDDocument document = PDDocument.load(pdf.toInputStream())) {
+
+			expected = getText(document, 1, document.getNumberOfPages());
+		}
+		int pooledChunks = bufferPool.getPooledChunks();
+		assertThat(pooledChunks, greaterThan(0));
+
+		// the second PDF is written into the chunks of the first one
+		try (GeneratedPdf pdf = invoiceGenerator.generateInvoice(invoice, bufferPool);
+			PDDocument document = PDDocument.load(pdf.toInputStream())) {
+
+			assertThat(getText(document, 1, document.getNumberOfPages()), equalTo(expected));
+		}
+		assertThat(bufferPool.getPooledChunks(), equalTo(pooledChunks));
+	}
+
+	@Test
+	public void testCompressionPolicy() throws InvoiceGeneratorException, IOException {
+		Invoice invoice = new Invoice(columnTitle, TITEL, summary, einleitung, adresse, qrCodeEinzahlungsschein,
+			positionen, total, konditionen);
+
+		byte[] standard = generateWith(CompressionPolicy.DEFAULT, invoice);
+		byte[] fast = generateWith(CompressionPolicy.FAST, invoice);
+		byte[] archive = generateWith(CompressionPolicy.ARCHIVE, invoice);
+
+		assertThat(archive.length, lessThan(standard.length));
+		String archiveContent = new String(archive, StandardCharsets.ISO_8859_1);
+		assertThat(archiveContent, allOf(containsString("%PDF-1.5"), containsString("/ObjStm")));
+
+		try (PDDocument standardDocument = PDDocument.load(standard);
+			PDDocument fastDocument = PDDocument.load(fast);
+			PDDocument archiveDocument = PDDocument.load(archive)) {
+
+			int pages = standardDocument.getNumberOfPages();
+			String expected = getText(standardDocument, 1, pages);
+			assertThat(getText(fastDocument, 1, pages), equalTo(expected));
+			assertThat(getText(archiveDocument, 1, pages), equalTo(expected));
+		}
+
+		assertThrows(IllegalArgumentException.class, () -> new CompressionPolicy(10, false, null));
+		assertThrows(IllegalArgumentException.class, () -> new CompressionPolicy(9, true, PdfWriter.VERSION_1_4));
+	}
+
+	@NonNull
+	private byte[] generateWith(@NonNull CompressionPolicy compressionPolicy, @NonNull Invoice invoice)
+		throws InvoiceGeneratorException {
+
+		configuration.setCompressionPolicy(compressionPolicy);
+
+		return new InvoiceGenerator(configuration).generateInvoice(invoice).toByteArray();
+	}
+
+	@Test
+	public void testPositionenExecutor() throws InvoiceGeneratorException {
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		AtomicInteger tasks = new AtomicInteger();
+		try {
+			// 400 positions fill exactly two chunks, 1010 end with a partial chunk
+			for (int count : new int[] { 1, 400, 1010 }) {
+				List<Position> manyPositionen = IntStream.range(0, count)
+					.mapToObj(i -> i % 20 == 0 ?
+						new H1Position("Kind " + i) :
+						new RechnungsPosition("Position " + i, "1", "1.00", "1.00"))
+					.collect(Collectors.toList());
+				Invoice invoice = new Invoice(columnTitle, TITEL, summary, einleitung, adresse,
+					qrCodeEinzahlungsschein, manyPositionen, total, konditionen);
+
+				configuration.setPositionenExecutor(null);
+				String serial = withoutDateAndId(new InvoiceGenerator(configuration).generateInvoice(invoice));
+				configuration.setPositionenExecutor(task -> {
+					tasks.incrementAndGet();
+					executor.execute(task);
+				});
+				String async = withoutDateAndId(new InvoiceGenerator(configuration).generateInvoice(invoice));
+
+				assertThat(async, equalTo(serial));
+				assertThat(tasks.getAndSet(0), equalTo(count / PdfElementGenerator.POSITIONEN_CHUNK_SIZE + 1));
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void testLogoIsEmbeddedOncePerDocument() throws InvoiceGeneratorException, IOException {
+		List<Position> manyPositionen = IntStream.range(0, NUMBER_OF_TEMPLATE_POSITIONS)
+			.mapToObj(i -> new RechnungsPosition("Position " + i, "1", "1.00", "1.00"))
+			.collect(Collectors.toList());
+		Invoice invoice = new Invoice(columnTitle, TITEL, summary, einleitung, adresse, null, manyPositionen, total,
+			konditionen);
+
+		ByteArrayOutputStream combined = new ByteArrayOutputStream();
+		new InvoiceGenerator(configuration).generateInvoices(combined, Arrays.asList(invoice, invoice));
+
+		try (PDDocument document = PDDocument.load(combined.toByteArray())) {
+			assertThat(document.getNumberOfPages(), greaterThan(2));
+
+			List<PDImageXObject> images = getImages(document);
+			assertThat(images.size(), equalTo(1));
+
+			// the PNG data is passed through and must still decode to the original pixels
+			BufferedImage expected = ImageIO.read(requireNonNull(getClass().getResource("dvbern.png")));
+			BufferedImage actual = images.get(0).getImage();
+			assertThat(actual.getWidth(), equalTo(expected.getWidth()));
+			assertThat(actual.getHeight(), equalTo(expected.getHeight()));
+			for (int y = 0; y < expected.getHeight(); y++) {
+				for (int x = 0; x < expected.getWidth(); x++) {
+					assertThat(actual.getRGB(x, y), equalTo(expected.getRGB(x, y)));
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testEsrBackgroundImageIsEmbeddedOncePerDocument() throws InvoiceGeneratorException, IOException {
+		configuration.addDummyESR();
+		List<Position> manyPositionen = IntStream.range(0, NUMBER_OF_TEMPLATE_POSITIONS)
+			.mapToObj(i -> new RechnungsPosition("Position " + i, "1", "1.00", "1.00"))
+			.collect(Collectors.toList());
+		Invoice invoice = new Invoice(columnTitle, TITEL, summary, einleitung, adresse, orangerEinzahlungsschein,
+			manyPositionen, total, konditionen);
+
+		ByteArrayOutputStream combined = new ByteArrayOutputStream();
+		new InvoiceGenerator(configuration).generateInvoices(combined, Arrays.asList(invoice, invoice));
+
+		try (PDDocument document = PDDocument.load(combined.toByteArray())) {
+			assertThat(document.getNumberOfPages(), greaterThan(2));
+			// the logo and the ESR background image
+			assertThat(getImages(document).size(), equalTo(2));
+		}
+
+		EinzahlungsscheinConfiguration esrConfiguration = configuration.getEinzahlungsscheinConfiguration();
+		assertThat(esrConfiguration.getEinzahlungFuerStrategy(orangerEinzahlungsschein),
+			sameInstance(esrConfiguration.getEinzahlungFuerStrategy(orangerEinzahlungsschein)));
+	}
+
+	/**
+	 * @return die unterschiedlichen Bilder auf allen Seiten des Dokuments
+	 */
+	@NonNull
+	private List<PDImageXObject> getImages(@NonNull PDDocument document) throws IOException {
+		Set<COSBase> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+		List<PDImageXObject> images = new ArrayList<>();
+		for (PDPage page : document.getPages()) {
+			PDResources resources = page.getResources();
+			for (COSName name : resources.getXObjectNames()) {
+				PDXObject xObject = resources.getXObject(name);
+				if (xObject instanceof PDImageXObject && seen.add(xObject.getCOSObject())) {
+					images.add((PDImageXObject) xObject);
+				}
+			}
+		}
+
+		return images;
+	}
+
+	@NonNull
+	private String getText(@NonNull PDDocument document, int startPage, int endPage) throws IOException {
+		PDFTextStripper stripper = new PDFTextStripper();
+		stripper.setStartPage(startPage);
+		stripper.setEndPage(endPage);
+
+		return stripper.getText(document);
+	}
+
 	@Test
 	public void testThePageBreakingWithCreatingDocumentsWithDifferentContent()
 		throws InvoiceGeneratorException, IOException {
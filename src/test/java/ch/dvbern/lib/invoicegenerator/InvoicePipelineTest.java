@@ -0,0 +1,174 @@
+/*
+ * Copyright (C) 2019 DV Bern AG, Switzerland
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ch.dvbern.lib.invoicegenerator;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import ch.dvbern.lib.invoicegenerator.batch.InvoiceBatchResult;
+import ch.dvbern.lib.invoicegenerator.batch.InvoicePipeline;
+import ch.dvbern.lib.invoicegenerator.batch.InvoiceResult;
+import ch.dvbern.lib.invoicegenerator.batch.PipelineStage;
+import ch.dvbern.lib.invoicegenerator.batch.StageStatistics;
+import ch.dvbern.lib.invoicegenerator.dto.Alignment;
+import ch.dvbern.lib.invoicegenerator.dto.Invoice;
+import ch.dvbern.lib.invoicegenerator.dto.InvoiceGeneratorConfiguration;
+import ch.dvbern.lib.invoicegenerator.dto.einzahlungsschein.QRCodeEinzahlungsschein;
+import ch.dvbern.lib.invoicegenerator.errors.InvoiceGeneratorException;
+import ch.dvbern.lib.invoicegenerator.errors.InvoiceValidationException;
+import net.codecrete.qrbill.generator.Language;
+import org.jspecify.annotations.NonNull;
+import org.junit.jupiter.api.Test;
+
+import static ch.dvbern.lib.invoicegenerator.TestUtil.withoutDateAndId;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+public class InvoicePipelineTest {
+
+	private static final int NUMBER_OF_INVOICES = 30;
+	private static final int INVALID_INDEX = 4;
+	private static final int WRITE_FAILURE_INDEX = 17;
+
+	private static final QRCodeEinzahlungsschein INVALID_QR_CODE_EINZAHLUNGSSCHEIN = new QRCodeEinzahlungsschein(
+		TestDataUtil.CREDITOR, TestDataUtil.QR_REFERENCE, TestDataUtil.AMOUNT, "CH00 0000 0000 0000 0000 0",
+		TestDataUtil.DEBTOR, null, Language.DE);
+
+	@Test
+	public void testGenerateAllInStages() {
+		InvoiceGeneratorConfiguration configuration = new InvoiceGeneratorConfiguration("DVB", Alignment.LEFT);
+		configuration.setLogo(TestDataUtil.defaultLogo());
+		InvoicePipeline pipeline = new InvoicePipeline(new InvoiceGenerator(configuration), 2, 3, 2);
+
+		Map<Long, ByteArrayOutputStream> outputs = new ConcurrentHashMap<>();
+		Map<Long, Boolean> reported = new ConcurrentHashMap<>();
+		Map<Invoice, Long> indices = new ConcurrentHashMap<>();
+
+		InvoiceBatchResult result = pipeline.generateAll(
+			IntStream.range(0, NUMBER_OF_INVOICES).mapToObj(i -> {
+				Invoice invoice = Invoice.createDemoInvoice(i == INVALID_INDEX ?
+					INVALID_QR_CODE_EINZAHLUNGSSCHEIN :
+					TestDataUtil.QR_CODE_EINZAHLUNGSSCHEIN);
+				indices.put(invoice, (long) i);
+
+				return invoice;
+			}),
+			invoice -> createOutputStream(outputs, indices.get(invoice)),
+			invoiceResult -> reported.put(invoiceResult.getIndex(), invoiceResult.isSuccess()));
+
+		assertThat(result.getSuccessCount(), is((long) NUMBER_OF_INVOICES - 2));
+		assertThat(result.getFailures().stream().map(InvoiceResult::getIndex).collect(Collectors.toList()),
+			contains((long) INVALID_INDEX, (long) WRITE_FAILURE_INDEX));
+		assertThat(result.getFailures().get(0).getError(), instanceOf(InvoiceValidationException.class));
+		assertThat(reported.keySet(), hasSize(NUMBER_OF_INVOICES));
+		assertThat(outputs.keySet(), hasSize(NUMBER_OF_INVOICES - 2));
+
+		StageStatistics prepare = result.getStageStatistics().get(PipelineStage.PREPARE);
+		assertThat(prepare.getParallelism(), is(2));
+		assertThat(prepare.getProcessing().getCount(), is((long) NUMBER_OF_INVOICES));
+		assertThat(prepare.getFailureCount(), is(1L));
+
+		StageStatistics layout = result.getStageStatistics().get(PipelineStage.LAYOUT);
+		assertThat(layout.getProcessing().getCount(), is((long) NUMBER_OF_INVOICES - 1));
+		assertThat(layout.getFailureCount(), is(0L));
+
+		StageStatistics write = result.getStageStatistics().get(PipelineStage.WRITE);
+		assertThat(write.getProcessing().getCount(), is((long) NUMBER_OF_INVOICES - 1));
+		assertThat(write.getFailureCount(), is(1L));
+	}
+
+	@Test
+	public void testPreparedQRCodeIsIdentical() throws InvoiceGeneratorException {
+		InvoiceGeneratorConfiguration configuration = new InvoiceGeneratorConfiguration("DVB", Alignment.LEFT);
+		InvoiceGenerator invoiceGenerator = new InvoiceGenerator(configuration);
+		Invoice invoice = Invoice.createDemoInvoice(TestDataUtil.QR_CODE_EINZAHLUNGSSCHEIN);
+
+		ByteArrayOutputStream pipelined = new ByteArrayOutputStream();
+		InvoiceBatchResult result = new InvoicePipeline(invoiceGenerator, 1, 1, 1)
+			.generateAll(Stream.of(invoice), ignored -> pipelined);
+
+		assertThat(result.isSuccess(), is(true));
+		assertThat(withoutDateAndId(pipelined), equalTo(withoutDateAndId(invoiceGenerator.generateInvoice(invoice))));
+	}
+
+	@Test
+	public void testThrowingResultConsumer() {
+		InvoiceGeneratorConfiguration configuration = new InvoiceGeneratorConfiguration("DVB", Alignment.LEFT);
+		InvoicePipeline pipeline = new InvoicePipeline(new InvoiceGenerator(configuration), 1, 1, 1);
+
+		InvoiceBatchResult result = assertTimeoutPreemptively(Duration.ofMinutes(1), () -> pipeline.generateAll(
+			IntStream.range(0, NUMBER_OF_INVOICES).mapToObj(i -> Invoice.createDemoInvoice(i == INVALID_INDEX ?
+				INVALID_QR_CODE_EINZAHLUNGSSCHEIN :
+				TestDataUtil.QR_CODE_EINZAHLUNGSSCHEIN)),
+			invoice -> new ByteArrayOutputStream(),
+			invoiceResult -> {
+				throw new IllegalStateException("Simulated consumer failure");
+			}));
+
+		assertThat(result.getSuccessCount(), is(0L));
+		assertThat(result.getFailures(), hasSize(NUMBER_OF_INVOICES));
+
+		Exception invalid = result.getFailures().get(INVALID_INDEX).getError();
+		assertThat(invalid, instanceOf(InvoiceValidationException.class));
+		assertThat(invalid.getSuppressed()[0], instanceOf(IllegalStateException.class));
+		assertThat(result.getFailures().get(0).getError(), instanceOf(IllegalStateException.class));
+	}
+
+	@Test
+	public void testEmptyStream() {
+		InvoiceGeneratorConfiguration configuration = new InvoiceGeneratorConfiguration("DVB", Alignment.LEFT);
+		InvoicePipeline pipeline = new InvoicePipeline(new InvoiceGenerator(configuration));
+
+		InvoiceBatchResult result = pipeline.generateAll(Stream.empty(), invoice -> new ByteArrayOutputStream());
+
+		assertThat(result.getTotalCount(), is(0L));
+		assertThat(result.getStageStatistics().keySet(),
+			contains(PipelineStage.PREPARE, PipelineStage.LAYOUT, PipelineStage.WRITE));
+	}
+
+	@Test
+	public void testInvalidParallelism() {
+		InvoiceGenerator invoiceGenerator =
+			new InvoiceGenerator(new InvoiceGeneratorConfiguration("DVB", Alignment.LEFT));
+
+		assertThrows(IllegalArgumentException.class, () -> new InvoicePipeline(invoiceGenerator, 1, 0, 1));
+	}
+
+	@NonNull
+	private OutputStream createOutputStream(@NonNull Map<Long, ByteArrayOutputStream> outputs, long index) {
+		if (index == WRITE_FAILURE_INDEX) {
+			throw new IllegalStateException("Simulated failure");
+		}
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		outputs.put(index, out);
+
+		return out;
+	}
+}
@@ -0,0 +1,221 @@
+/*
+ * Copyright (C) 2019 DV Bern AG, Switzerland
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ch.dvbern.lib.invoicegenerator;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import ch.dvbern.lib.invoicegenerator.cache.CachedPdf;
+import ch.dvbern.lib.invoicegenerator.cache.InvoiceCacheKey;
+import ch.dvbern.lib.invoicegenerator.cache.InvoiceResultCache;
+import ch.dvbern.lib.invoicegenerator.dto.Alignment;
+import ch.dvbern.lib.invoicegenerator.dto.Invoice;
+import ch.dvbern.lib.invoicegenerator.dto.InvoiceGeneratorConfiguration;
+import ch.dvbern.lib.invoicegenerator.dto.position.Position;
+import ch.dvbern.lib.invoicegenerator.dto.position.RechnungsPosition;
+import ch.dvbern.lib.invoicegenerator.errors.InvoiceGeneratorException;
+import org.jspecify.annotations.NonNull;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class InvoiceResultCacheTest {
+
+	private static final String VERSION = "v1";
+	private static final long UNLIMITED = Long.MAX_VALUE;
+	private static final int NUMBER_OF_THREADS = 8;
+
+	@TempDir
+	Path directory;
+
+	@Test
+	public void testRenderedTwiceIsByteIdentical() throws InvoiceGeneratorException {
+		// nothing is kept in memory, every request renders again
+		InvoiceResultCache cache = new InvoiceResultCache(new InvoiceGenerator(configuration()), VERSION, 0);
+
+		for (Invoice invoice : new Invoice[] {
+			Invoice.createDemoInvoice(TestDataUtil.ORANGER_EINZAHLUNGSSCHEIN),
+			Invoice.createDemoInvoice(TestDataUtil.QR_CODE_EINZAHLUNGSSCHEIN) }) {
+
+			CachedPdf first = cache.get(invoice);
+			CachedPdf second = cache.get(invoice);
+
+			assertThat(second, not(sameInstance(first)));
+			assertThat(second.toByteArray(), equalTo(first.toByteArray()));
+			assertThat(second.getETag(), equalTo(first.getETag()));
+		}
+		assertThat(cache.getRenderCount(), is(4L));
+		assertThat(cache.getMemoryEntryCount(), is(0));
+	}
+
+	@Test
+	public void testMemoryHit() throws InvoiceGeneratorException {
+		InvoiceResultCache cache = new InvoiceResultCache(new InvoiceGenerator(configuration()), VERSION, UNLIMITED);
+
+		CachedPdf first = cache.get(Invoice.createDemoInvoice(TestDataUtil.QR_CODE_EINZAHLUNGSSCHEIN));
+		CachedPdf second = cache.get(Invoice.createDemoInvoice(TestDataUtil.QR_CODE_EINZAHLUNGSSCHEIN));
+
+		assertThat(second, sameInstance(first));
+		assertThat(cache.getRenderCount(), is(1L));
+		assertThat(cache.getMemoryHitCount(), is(1L));
+		assertThat(cache.getMemoryBytes(), is((long) first.getSize()));
+	}
+
+	@Test
+	public void testLeastRecentlyUsedIsEvicted() throws InvoiceGeneratorException {
+		Invoice oranger = Invoice.createDemoInvoice(TestDataUtil.ORANGER_EINZAHLUNGSSCHEIN);
+		Invoice qrCode = Invoice.createDemoInvoice(TestDataUtil.QR_CODE_EINZAHLUNGSSCHEIN);
+		InvoiceGenerator invoiceGenerator = new InvoiceGenerator(configuration());
+
+		InvoiceResultCache sizes = new InvoiceResultCache(invoiceGenerator, VERSION, 0);
+		long bothSize = sizes.get(oranger).getSize() + sizes.get(qrCode).getSize();
+		// room for either invoice, but not for both
+		InvoiceResultCache cache = new InvoiceResultCache(invoiceGenerator, VERSION, bothSize - 1);
+
+		cache.get(oranger);
+		cache.get(qrCode);
+		cache.get(oranger);
+
+		assertThat(cache.getMemoryEntryCount(), is(1));
+		assertThat(cache.getRenderCount(), is(3L));
+		assertThat(cache.getMemoryHitCount(), is(0L));
+	}
+
+	@Test
+	public void testDiskTier() throws InvoiceGeneratorException {
+		InvoiceGenerator invoiceGenerator = new InvoiceGenerator(configuration());
+		Invoice invoice = Invoice.createDemoInvoice(TestDataUtil.QR_CODE_EINZAHLUNGSSCHEIN);
+
+		CachedPdf rendered = new InvoiceResultCache(invoiceGenerator, VERSION, UNLIMITED, directory).get(invoice);
+
+		InvoiceResultCache restarted = new InvoiceResultCache(invoiceGenerator, VERSION, UNLIMITED, directory);
+		CachedPdf loaded = restarted.get(invoice);
+
+		assertThat(loaded.toByteArray(), equalTo(rendered.toByteArray()));
+		assertThat(restarted.getDiskHitCount(), is(1L));
+		assertThat(restarted.getRenderCount(), is(0L));
+		assertThat(directory.resolve(rendered.getKey().toHex() + ".pdf").toFile().isFile(), is(true));
+	}
+
+	@Test
+	public void testConcurrentRequestsRenderOnce() throws Exception {
+		InvoiceResultCache cache = new InvoiceResultCache(new InvoiceGenerator(configuration()), VERSION, UNLIMITED);
+		ExecutorService executor = Executors.newFixedThreadPool(NUMBER_OF_THREADS);
+		CountDownLatch start = new CountDownLatch(1);
+		try {
+			List<Future<CachedPdf>> futures = new ArrayList<>();
+			for (int i = 0; i < NUMBER_OF_THREADS; i++) {
+				futures.add(executor.submit(() -> {
+					start.await();
+
+					return cache.get(Invoice.createDemoInvoice(TestDataUtil.QR_CODE_EINZAHLUNGSSCHEIN));
+				}));
+			}
+			start.countDown();
+
+			CachedPdf first = futures.get(0).get();
+			for (Future<CachedPdf> future : futures) {
+				assertThat(future.get(), sameInstance(first));
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+
+		assertThat(cache.getRenderCount(), is(1L));
+		assertThat(cache.getMemoryHitCount() + cache.getSharedRenderCount(), is((long) NUMBER_OF_THREADS - 1));
+	}
+
+	@Test
+	public void testKey() {
+		Invoice invoice = Invoice.createDemoInvoice(TestDataUtil.QR_CODE_EINZAHLUNGSSCHEIN);
+
+		assertThat(InvoiceCacheKey.of(VERSION, invoice),
+			equalTo(InvoiceCacheKey.of(VERSION, Invoice.createDemoInvoice(TestDataUtil.QR_CODE_EINZAHLUNGSSCHEIN))));
+		assertThat(InvoiceCacheKey.of(VERSION, invoice), not(equalTo(InvoiceCacheKey.of("v2", invoice))));
+		assertThat(InvoiceCacheKey.of(VERSION, invoice),
+			not(equalTo(InvoiceCacheKey.of(VERSION, Invoice.createDemoInvoice(TestDataUtil.ORANGER_EINZAHLUNGSSCHEIN)))));
+		assertThat(InvoiceCacheKey.of(VERSION, invoice).toHex().length(), is(64));
+	}
+
+	@Test
+	public void testKeyOfSubclassedPosition() {
+		assertThat(InvoiceCacheKey.of(VERSION, withPosition(new RabattPosition("10%"))),
+			equalTo(InvoiceCacheKey.of(VERSION, withPosition(new RabattPosition("10%")))));
+		assertThat(InvoiceCacheKey.of(VERSION, withPosition(new RabattPosition("10%"))),
+			not(equalTo(InvoiceCacheKey.of(VERSION, withPosition(new RabattPosition("20%"))))));
+
+		// inherits toString() from RechnungsPosition, which does not know the additional field
+		RechnungsPosition undescribed = new RechnungsPosition("Leistung", "1", "10.00", "10.00") {
+		};
+		assertThat(InvoiceCacheKey.of(VERSION, withPosition(undescribed)),
+			not(equalTo(InvoiceCacheKey.of(VERSION, withPosition(undescribed)))));
+	}
+
+	@Test
+	public void testCreationDateIsRequired() {
+		InvoiceGeneratorConfiguration configuration = new InvoiceGeneratorConfiguration("DVB", Alignment.LEFT);
+		InvoiceGenerator invoiceGenerator = new InvoiceGenerator(configuration);
+
+		assertThrows(IllegalArgumentException.class, () -> new InvoiceResultCache(invoiceGenerator, VERSION, 0));
+	}
+
+	@NonNull
+	private static InvoiceGeneratorConfiguration configuration() {
+		InvoiceGeneratorConfiguration configuration = new InvoiceGeneratorConfiguration("DVB", Alignment.LEFT);
+		configuration.setLogo(TestDataUtil.defaultLogo());
+		configuration.setCreationDate(Instant.parse("2024-03-01T08:00:00Z"));
+
+		return configuration;
+	}
+
+	@NonNull
+	private static Invoice withPosition(@NonNull Position position) {
+		Invoice invoice = Invoice.createDemoInvoice(TestDataUtil.QR_CODE_EINZAHLUNGSSCHEIN);
+		invoice.getPositionen().add(position);
+
+		return invoice;
+	}
+
+	private static final class RabattPosition extends RechnungsPosition {
+
+		@NonNull
+		private final String rabatt;
+
+		private RabattPosition(@NonNull String rabatt) {
+			super("Leistung", "1", "10.00", "10.00");
+			this.rabatt = rabatt;
+		}
+
+		@Override
+		@NonNull
+		public String toString() {
+			return super.toString() + "[rabatt=" + rabatt + ']';
+		}
+	}
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright (C) 2019 DV Bern AG, Switzerland
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ch.dvbern.lib.invoicegenerator;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+
+import ch.dvbern.lib.invoicegenerator.dto.Alignment;
+import ch.dvbern.lib.invoicegenerator.dto.Invoice;
+import ch.dvbern.lib.invoicegenerator.dto.InvoiceGeneratorConfiguration;
+import ch.dvbern.lib.invoicegenerator.errors.InvoiceGeneratorException;
+import com.lowagie.text.pdf.PdfReader;
+import com.lowagie.text.pdf.parser.PdfTextExtractor;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class InvoiceStamperTest {
+
+	private final InvoiceGenerator invoiceGenerator =
+		new InvoiceGenerator(new InvoiceGeneratorConfiguration("DVB", Alignment.LEFT));
+	private final InvoiceStamper stamper = new InvoiceStamper(invoiceGenerator);
+
+	@TempDir
+	Path directory;
+
+	@Test
+	public void testOverlaysAreAppended() throws InvoiceGeneratorException, IOException {
+		byte[] invoice = invoiceGenerator
+			.generateInvoice(Invoice.createDemoInvoice(TestDataUtil.QR_CODE_EINZAHLUNGSSCHEIN))
+			.toByteArray();
+
+		byte[] reminder = stamper.stamp(invoice, Collections.singletonList(stamper.watermark("1. MAHNUNG")))
+			.toByteArray();
+
+		PdfReader reader = new PdfReader(reminder);
+		int numberOfPages = reader.getNumberOfPages();
+		String lastPage = new PdfTextExtractor(reader).getTextFromPage(numberOfPages);
+		reader.close();
+
+		assertThat(lastPage, containsString("1. MAHNUNG"));
+		assertThat(numberOfPages, is(getNumberOfPages(invoice)));
+		// the existing content is kept as it is, the overlays are appended
+		assertThat(Arrays.copyOf(reminder, invoice.length), equalTo(invoice));
+	}
+
+	@Test
+	public void testWatermarkFromFile() throws InvoiceGeneratorException, IOException {
+		Path file = directory.resolve("invoice.pdf");
+		invoiceGenerator.generateInvoice(Invoice.createDemoInvoice(TestDataUtil.ORANGER_EINZAHLUNGSSCHEIN), file);
+
+		ByteArrayOutputStream copy = new ByteArrayOutputStream();
+		stamper.stamp(file, copy, Collections.singletonList(stamper.watermark("KOPIE")));
+
+		assertThat(TestUtil.getText(new ByteArrayInputStream(Files.readAllBytes(file))), not(containsString("KOPIE")));
+		assertThat(TestUtil.getText(new ByteArrayInputStream(copy.toByteArray())), containsString("KOPIE"));
+	}
+
+	@Test
+	public void testInvalidPdf() {
+		byte[] noPdf = { 1, 2, 3 };
+
+		assertThrows(InvoiceGeneratorException.class, () -> stamper.stamp(noPdf, Collections.emptyList()));
+	}
+
+	private static int getNumberOfPages(byte[] pdf) throws IOException {
+		PdfReader reader = new PdfReader(pdf);
+		int numberOfPages = reader.getNumberOfPages();
+		reader.close();
+
+		return numberOfPages;
+	}
+}
@@ -0,0 +1,176 @@
+/*
+ * Copyright (C) 2019 DV Bern AG, Switzerland
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ch.dvbern.lib.invoicegenerator;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import ch.dvbern.lib.invoicegenerator.batch.InvoiceBatchGenerator;
+import ch.dvbern.lib.invoicegenerator.batch.InvoiceBatchResult;
+import ch.dvbern.lib.invoicegenerator.dto.Alignment;
+import ch.dvbern.lib.invoicegenerator.dto.Invoice;
+import ch.dvbern.lib.invoicegenerator.dto.InvoiceGeneratorConfiguration;
+import ch.dvbern.lib.invoicegenerator.dto.einzahlungsschein.OrangerEinzahlungsschein;
+import ch.dvbern.lib.invoicegenerator.dto.einzahlungsschein.QRCodeEinzahlungsschein;
+import ch.dvbern.lib.invoicegenerator.dto.position.Position;
+import ch.dvbern.lib.invoicegenerator.errors.IllegalKontoException;
+import ch.dvbern.lib.invoicegenerator.errors.InvoiceValidationException;
+import ch.dvbern.lib.invoicegenerator.validation.InvoiceValidationResult;
+import ch.dvbern.lib.invoicegenerator.validation.InvoiceValidator;
+import net.codecrete.qrbill.generator.Language;
+import org.jspecify.annotations.NonNull;
+import org.junit.jupiter.api.Test;
+
+import static ch.dvbern.lib.invoicegenerator.TestDataUtil.AMOUNT;
+import static ch.dvbern.lib.invoicegenerator.TestDataUtil.CREDITOR;
+import static ch.dvbern.lib.invoicegenerator.TestDataUtil.DEBTOR;
+import static ch.dvbern.lib.invoicegenerator.TestDataUtil.ESR_ACOUNT;
+import static ch.dvbern.lib.invoicegenerator.TestDataUtil.ESR_REFERENCE;
+import static ch.dvbern.lib.invoicegenerator.TestDataUtil.QR_IBAN;
+import static ch.dvbern.lib.invoicegenerator.TestDataUtil.toLines;
+import static java.util.stream.Collectors.toList;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class InvoiceValidatorTest {
+
+	private final InvoiceGeneratorConfiguration configuration =
+		new InvoiceGeneratorConfiguration("DV Bern AG", Alignment.LEFT);
+	private final InvoiceValidator validator = new InvoiceValidator(configuration);
+
+	@Test
+	public void testValidInvoices() {
+		assertThat(validator.validate(Invoice.createDemoInvoice(TestDataUtil.ORANGER_EINZAHLUNGSSCHEIN)), is(empty()));
+		assertThat(validator.validate(Invoice.createDemoInvoice(TestDataUtil.QR_CODE_EINZAHLUNGSSCHEIN)), is(empty()));
+	}
+
+	@Test
+	public void testInvalidQRBill() {
+		Invoice invoice = Invoice.createDemoInvoice(invalidQRCodeEinzahlungsschein());
+
+		List<String> errors = validator.validate(invoice);
+
+		assertThat(errors, hasItem(startsWith("QR bill reference")));
+		InvoiceValidationException exception =
+			assertThrows(InvoiceValidationException.class, () -> validator.check(invoice));
+		assertThat(exception.getErrors(), is(errors));
+	}
+
+	@Test
+	public void testInvalidEsrBetrag() throws IllegalKontoException {
+		OrangerEinzahlungsschein einzahlungsschein = new OrangerEinzahlungsschein(
+			toLines(CREDITOR), ESR_REFERENCE, new BigDecimal("100000000.00"), ESR_ACOUNT, toLines(DEBTOR));
+
+		List<String> errors = validator.validate(Invoice.createDemoInvoice(einzahlungsschein));
+
+		assertThat(errors, contains(startsWith("ESR betrag")));
+	}
+
+	@Test
+	public void testPositionWithoutStrategy() {
+		Invoice invoice = Invoice.createDemoInvoice(TestDataUtil.ORANGER_EINZAHLUNGSSCHEIN);
+		invoice.getPositionen().add(new Position() {
+		});
+
+		assertThat(validator.validate(invoice), contains(startsWith("No PositionStrategy configured")));
+	}
+
+	@Test
+	public void testValidateAll() {
+		List<InvoiceValidationResult> results = validator.validateAll(IntStream.range(0, 1000)
+			.mapToObj(i -> i % 100 == 7 ?
+				Invoice.createDemoInvoice(invalidQRCodeEinzahlungsschein()) :
+				Invoice.createDemoInvoice(TestDataUtil.QR_CODE_EINZAHLUNGSSCHEIN)));
+
+		assertThat(results, hasSize(10));
+		assertThat(
+			results.stream().map(InvoiceValidationResult::getIndex).collect(toList()),
+			is(IntStream.range(0, 10).mapToObj(i -> i * 100L + 7).collect(toList())));
+	}
+
+	@Test
+	public void testValidateAllSmallBatchInParallel() {
+		CountDownLatch concurrent = new CountDownLatch(2);
+		AtomicBoolean overlapped = new AtomicBoolean(true);
+		InvoiceValidator blockingValidator = new InvoiceValidator(configuration) {
+			@NonNull
+			@Override
+			public List<String> validate(@NonNull Invoice invoice) {
+				concurrent.countDown();
+				try {
+					// only returns early if a second thread validates at the same time
+					if (!concurrent.await(10, TimeUnit.SECONDS)) {
+						overlapped.set(false);
+					}
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+
+				return super.validate(invoice);
+			}
+		};
+
+		List<InvoiceValidationResult> results = blockingValidator.validateAll(IntStream.range(0, 4)
+			.mapToObj(i -> Invoice.createDemoInvoice(i == 2 ?
+				invalidQRCodeEinzahlungsschein() :
+				TestDataUtil.QR_CODE_EINZAHLUNGSSCHEIN)));
+
+		assertThat(overlapped.get(), is(true));
+		assertThat(results.stream().map(InvoiceValidationResult::getIndex).collect(toList()), contains(2L));
+	}
+
+	@Test
+	public void testBatchRejectsInvalidInvoicesBeforeGeneration() {
+		AtomicInteger openedStreams = new AtomicInteger();
+		InvoiceBatchGenerator batchGenerator = new InvoiceBatchGenerator(new InvoiceGenerator(configuration), 2);
+		List<Invoice> invoices = new ArrayList<>();
+		invoices.add(Invoice.createDemoInvoice(TestDataUtil.QR_CODE_EINZAHLUNGSSCHEIN));
+		invoices.add(Invoice.createDemoInvoice(invalidQRCodeEinzahlungsschein()));
+
+		InvoiceBatchResult result = batchGenerator.generateAll(invoices.stream(), invoice -> {
+			openedStreams.incrementAndGet();
+			return new ByteArrayOutputStream();
+		});
+
+		assertThat(result.getSuccessCount(), is(1L));
+		assertThat(result.getFailures().get(0).getIndex(), is(1L));
+		assertThat(result.getFailures().get(0).getError(), instanceOf(InvoiceValidationException.class));
+		assertThat(openedStreams.get(), is(1));
+	}
+
+	@NonNull
+	private static QRCodeEinzahlungsschein invalidQRCodeEinzahlungsschein() {
+		BigInteger referenz = BigInteger.valueOf(12345);
+
+		return new QRCodeEinzahlungsschein(CREDITOR, referenz, AMOUNT, QR_IBAN, DEBTOR, null, Language.DE);
+	}
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright (C) 2019 DV Bern AG, Switzerland
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ch.dvbern.lib.invoicegenerator;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import ch.dvbern.lib.invoicegenerator.dto.OnPage;
+import ch.dvbern.lib.invoicegenerator.dto.PagePlacement;
+import org.jspecify.annotations.NonNull;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class PagePlacementTest {
+
+	private static final int PAGES = 10;
+
+	@Test
+	public void testOnPage() {
+		assertThat(printedPages(OnPage.FIRST), contains(1));
+		assertThat(printedPages(OnPage.LAST), contains(PAGES));
+		assertThat(printedPages(OnPage.NOT_LAST).size(), is(PAGES - 1));
+		assertThat(printedPages(OnPage.ALL).size(), is(PAGES));
+	}
+
+	@Test
+	public void testPages() {
+		assertThat(printedPages(PagePlacement.pages(2, 4)), contains(2, 3, 4));
+		assertThat(printedPages(PagePlacement.fromPage(9)), contains(9, 10));
+		assertThrows(IllegalArgumentException.class, () -> PagePlacement.pages(0, 1));
+		assertThrows(IllegalArgumentException.class, () -> PagePlacement.pages(3, 2));
+	}
+
+	@Test
+	public void testOddAndEven() {
+		assertThat(printedPages(PagePlacement.odd()), contains(1, 3, 5, 7, 9));
+		assertThat(printedPages(PagePlacement.even()), contains(2, 4, 6, 8, 10));
+	}
+
+	@Test
+	public void testEveryNth() {
+		assertThat(printedPages(PagePlacement.everyNth(4, 3)), contains(3, 7));
+		assertThrows(IllegalArgumentException.class, () -> PagePlacement.everyNth(0, 1));
+	}
+
+	@Test
+	public void testAnd() {
+		assertThat(printedPages(PagePlacement.even().and(OnPage.NOT_LAST)), contains(2, 4, 6, 8));
+	}
+
+	@NonNull
+	private List<Integer> printedPages(@NonNull PagePlacement placement) {
+		return IntStream.rangeClosed(1, PAGES)
+			.filter(page -> placement.isPrintable(page, page == PAGES))
+			.boxed()
+			.collect(Collectors.toList());
+	}
+}
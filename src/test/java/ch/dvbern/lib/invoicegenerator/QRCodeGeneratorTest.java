@@ -16,6 +16,7 @@
 
 package ch.dvbern.lib.invoicegenerator;
 
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.nio.file.Files;
@@ -68,6 +69,19 @@ public class QRCodeGeneratorTest {
 		));
 	}
 
+	@Test
+	public void testStandaloneQRCodePdf() throws IOException {
+		byte[] pdf = QRCodeComponent.generateQRCode(TestDataUtil.QR_CODE_EINZAHLUNGSSCHEIN);
+
+		String text = TestUtil.getText(new ByteArrayInputStream(pdf));
+
+		assertThat(text, allOf(
+			containsString(TestDataUtil.QR_IBAN),
+			containsString(TestDataUtil.CREDITOR.getName()),
+			containsString(TestDataUtil.QR_REFERENCE_FORMATTED)
+		));
+	}
+
 	@Test
 	public void testQRIBANValidation() throws DocumentException {
 		final QRCodeEinzahlungsschein einzahlungsschein = new QRCodeEinzahlungsschein(
@@ -0,0 +1,123 @@
+/*
+ * Copyright (C) 2019 DV Bern AG, Switzerland
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ch.dvbern.lib.invoicegenerator;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+
+import ch.dvbern.lib.invoicegenerator.dto.einzahlungsschein.OrangerEinzahlungsschein;
+import ch.dvbern.lib.invoicegenerator.dto.einzahlungsschein.ReferenzNummern;
+import ch.dvbern.lib.invoicegenerator.dto.einzahlungsschein.ReferenzNummernGenerator;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class ReferenzNummernTest {
+
+	private static final String QR_REFERENZ = "210000000003139471430009017";
+	private static final String CREDITOR_REFERENCE = "RF18539007547034";
+
+	@Test
+	public void testMod10() {
+		String ohnePruefziffer = QR_REFERENZ.substring(0, 26);
+
+		assertThat(ReferenzNummern.mod10(ohnePruefziffer), is(7));
+		assertThat(ReferenzNummern.mod10(ohnePruefziffer.toCharArray(), 0, 26), is(7));
+		assertThat(
+			ReferenzNummern.mod10(Long.parseLong("3139471430009")),
+			is(OrangerEinzahlungsschein.calcPruefziffer("3139471430009")));
+		assertThat(ReferenzNummern.mod10(0), is(0));
+		assertThrows(IllegalArgumentException.class, () -> ReferenzNummern.mod10("12a"));
+	}
+
+	@Test
+	public void testIsValidQrReferenz() {
+		assertThat(ReferenzNummern.isValidQrReferenz(QR_REFERENZ), is(true));
+		assertThat(ReferenzNummern.isValidQrReferenz("210000000003139471430009018"), is(false));
+		assertThat(ReferenzNummern.isValidQrReferenz("21000000000313947143000901"), is(false));
+		assertThat(ReferenzNummern.isValidQrReferenz("2100000000031394714300090a7"), is(false));
+	}
+
+	@Test
+	public void testQrReferenz() {
+		assertThat(ReferenzNummern.qrReferenz("21000000000313947143000901"), is(QR_REFERENZ));
+		assertThat(ReferenzNummern.qrReferenz("123"), is("000000000000000000000001236"));
+	}
+
+	@Test
+	public void testIsValidCreditorReference() {
+		assertThat(ReferenzNummern.isValidCreditorReference(CREDITOR_REFERENCE), is(true));
+		assertThat(ReferenzNummern.isValidCreditorReference("rf18539007547034"), is(true));
+		assertThat(ReferenzNummern.isValidCreditorReference("RF19539007547034"), is(false));
+		assertThat(ReferenzNummern.isValidCreditorReference("RF18"), is(false));
+		assertThat(ReferenzNummern.isValidCreditorReference("RF18-539007547034"), is(false));
+	}
+
+	@Test
+	public void testCreditorReference() {
+		assertThat(ReferenzNummern.creditorReference("539007547034"), is(CREDITOR_REFERENCE));
+		assertThat(ReferenzNummern.isValidCreditorReference(ReferenzNummern.creditorReference("INV2019X1")), is(true));
+		assertThrows(IllegalArgumentException.class, () -> ReferenzNummern.creditorReference(""));
+	}
+
+	@Test
+	public void testGenerator() {
+		ReferenzNummernGenerator generator = new ReferenzNummernGenerator("1234", 42);
+
+		String qrReferenz = generator.nextQrReferenz();
+		assertThat(qrReferenz, is("123400000000000000000000421"));
+		assertThat(ReferenzNummern.isValidQrReferenz(qrReferenz), is(true));
+
+		String creditorReference = generator.nextCreditorReference();
+		assertThat(creditorReference.length(), is(25));
+		assertThat(creditorReference.endsWith("1234" + "00000000000000043"), is(true));
+		assertThat(ReferenzNummern.isValidCreditorReference(creditorReference), is(true));
+
+		assertThrows(IllegalArgumentException.class, () -> new ReferenzNummernGenerator("12a", 0));
+		assertThrows(IllegalArgumentException.class, () -> generator.reserve(0));
+	}
+
+	@Test
+	public void testGeneratorIsExhausted() {
+		ReferenzNummernGenerator generator = new ReferenzNummernGenerator("1234567890123456789", 97);
+
+		assertThat(
+			generator.reserve(3).creditorReference(2),
+			is(ReferenzNummern.creditorReference("123456789012345678999")));
+		assertThrows(IllegalStateException.class, () -> generator.reserve(1));
+	}
+
+	@Test
+	public void testReservedRangesAreDisjoint() {
+		ReferenzNummernGenerator generator = new ReferenzNummernGenerator("77", 1);
+		Set<String> referenzen = ConcurrentHashMap.newKeySet();
+
+		IntStream.range(0, 100).parallel().forEach(i -> {
+			ReferenzNummernGenerator.Bereich bereich = generator.reserve(100);
+			for (int j = 0; j < bereich.getAnzahl(); j++) {
+				referenzen.add(bereich.qrReferenz(j));
+			}
+			assertThrows(IndexOutOfBoundsException.class, () -> bereich.qrReferenz(100));
+		});
+
+		assertThat(referenzen.size(), is(10_000));
+		assertThat(referenzen.stream().allMatch(ReferenzNummern::isValidQrReferenz), is(true));
+	}
+}
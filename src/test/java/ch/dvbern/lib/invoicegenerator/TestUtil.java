@@ -16,11 +16,13 @@
 
 package ch.dvbern.lib.invoicegenerator;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URL;
 import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.Iterator;
@@ -49,6 +51,16 @@ public final class TestUtil {
 	private TestUtil() {
 	}
 
+	/**
+	 * Das PDF als Text, ohne Erstellungsdatum und Dokument-ID, um sonst identische PDFs zu vergleichen.
+	 */
+	@NonNull
+	public static String withoutDateAndId(@NonNull ByteArrayOutputStream pdf) {
+		return new String(pdf.toByteArray(), StandardCharsets.ISO_8859_1)
+			.replaceAll("\\(D:\\w+\\)", "(D:)")
+			.replaceAll("/ID \\[<\\w+><\\w+>]", "/ID []");
+	}
+
 	@NonNull
 	public static File createFile(
 		@NonNull InvoiceGenerator invoiceGenerator,